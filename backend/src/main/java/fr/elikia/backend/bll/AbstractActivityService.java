@@ -2,6 +2,8 @@ package fr.elikia.backend.bll;
 
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import fr.elikia.backend.bll.storage.MediaStorageService;
+import fr.elikia.backend.bll.storage.StagedFile;
 import fr.elikia.backend.bo.ActivityEntity;
 import fr.elikia.backend.bo.LogicResult;
 import fr.elikia.backend.bo.Media;
@@ -21,16 +23,62 @@ import java.util.List;
  */
 public abstract class AbstractActivityService {
     protected final MediaService mediaService;
+    protected final MediaStorageService mediaStorageService;
     protected final ObjectMapper objectMapper;
 
     protected AbstractActivityService(
             MediaService mediaService,
+            MediaStorageService mediaStorageService,
             ObjectMapper objectMapper
     ) {
         this.mediaService = mediaService;
+        this.mediaStorageService = mediaStorageService;
         this.objectMapper = objectMapper;
     }
 
+
+    /**
+     * Streams uploaded files to the staging area (first phase of an upload),
+     * together with the completed chunked uploads to attach.
+     * Must be called before the transaction persisting the activity is opened.
+     *
+     * @return the staged files, or null if staging failed (result is filled)
+     */
+    protected List<StagedFile> stageUploadedFiles(
+            List<MultipartFile> files,
+            List<String> uploadIds,
+            Visibility visibility,
+            LogicResult<?> result
+    ) {
+
+        List<StagedFile> stagedFiles = new ArrayList<>();
+
+        if (files != null && !files.isEmpty()) {
+            LogicResult<List<StagedFile>> staging = mediaService.stageFiles(files, visibility);
+
+            if (!"200".equals(staging.getCode())) {
+                result.setCode(staging.getCode());
+                result.setMessage(staging.getMessage());
+                return null;
+            }
+            stagedFiles.addAll(staging.getData());
+        }
+
+        if (uploadIds != null && !uploadIds.isEmpty()) {
+            LogicResult<List<StagedFile>> claiming = mediaService.claimUploads(uploadIds, visibility);
+
+            if (!"200".equals(claiming.getCode())) {
+                mediaStorageService.discardAll(stagedFiles);
+                result.setCode(claiming.getCode());
+                result.setMessage(claiming.getMessage());
+                return null;
+            }
+            stagedFiles.addAll(claiming.getData());
+        }
+
+        return stagedFiles;
+    }
+
     /**
      * Parses removed media IDs from JSON string.
      */
@@ -204,11 +252,11 @@ public abstract class AbstractActivityService {
 
 
     /**
-     * Handles new uploaded images.
+     * Handles new uploaded images (already staged).
+     * All images are created in a single batch through MediaService.
      */
     protected LogicResult<Void> handleNewImages(
-            List<MultipartFile> files,
-            List<Media> medias,
+            List<StagedFile> files,
             String title,
             Long activityId,
             ActivityOwnerType ownerType
@@ -218,105 +266,55 @@ public abstract class AbstractActivityService {
             return null;
         }
 
-        for (MultipartFile file : files) {
+        return createMediaBatch(files, null, title, activityId, ownerType);
+    }
 
-            LogicResult<Media> result;
-            if (ownerType == ActivityOwnerType.WORKSHOP) {
-                result = mediaService.createMedia(
-                        file,
-                        null,
-                        title,
-                        null,
-                        null,
-                        activityId,
-                        null
-                );
-                if (!"201".equals(result.getCode())) {
-                    return new LogicResult<>(
-                            result.getCode(),
-                            result.getMessage(),
-                            null
-                    );
-                }
-                Media media = result.getData();
-                medias.add(media);
-            } else if (ownerType == ActivityOwnerType.EVENT) {
-                result = mediaService.createMedia(
-                        file,
-                        null,
-                        title,
-                        null,
-                        activityId,
-                        null,
-                        null
-                );
-                if (!"201".equals(result.getCode())) {
-                    return new LogicResult<>(
-                            result.getCode(),
-                            result.getMessage(),
-                            null
-                    );
-                }
-                Media media = result.getData();
-                medias.add(media);
 
-            } else {
-                result = mediaService.createMedia(
-                        file,
-                        null,
-                        title,
-                        null,
-                        null,
-                        null,
-                        activityId
-                );
-                if (!"201".equals(result.getCode())) {
-                    return new LogicResult<>(
-                            result.getCode(),
-                            result.getMessage(),
-                            null
-                    );
-                }
-                Media media = result.getData();
-                medias.add(media);
+    /**
+     * Handles full media creation workflow for a new activity.
+     * The video and all images are created in a single batch.
+     */
+    protected LogicResult<Void> processCreateMedias(
+            String videoUrl,
+            List<StagedFile> files,
+            String title,
+            Long activityId,
+            ActivityOwnerType ownerType
+    ) {
 
-            }
+        boolean hasVideo = videoUrl != null && !videoUrl.isBlank();
+        boolean hasImages = files != null && !files.isEmpty();
 
+        if (!hasVideo && !hasImages) {
+            return null;
         }
 
-        return null;
+        return createMediaBatch(files, videoUrl, title, activityId, ownerType);
     }
 
 
     /**
-     * Handles full media creation workflow for a new activity.
-     * This includes:
-     * - Video creation
-     * - Image uploads
+     * Delegates a batch media creation to MediaService.
+     *
+     * @return LogicResult containing an error, or null if the batch succeeded
      */
-    protected LogicResult<Void> processCreateMedias(
+    private LogicResult<Void> createMediaBatch(
+            List<StagedFile> files,
             String videoUrl,
-            List<MultipartFile> files,
-            List<Media> medias,
             String title,
             Long activityId,
             ActivityOwnerType ownerType
     ) {
 
-        // Handle video
-        LogicResult<Void> videoResult =
-                handleVideo(videoUrl, medias, title, activityId, ownerType);
+        LogicResult<List<Media>> result =
+                mediaService.createMedias(ownerType, activityId, files, videoUrl, title);
 
-        if (videoResult != null) {
-            return videoResult;
-        }
-
-        // Handle images
-        LogicResult<Void> imageResult =
-                handleNewImages(files, medias, title, activityId, ownerType);
-
-        if (imageResult != null) {
-            return imageResult;
+        if (!"201".equals(result.getCode())) {
+            return new LogicResult<>(
+                    result.getCode(),
+                    result.getMessage(),
+                    null
+            );
         }
 
         return null;
@@ -333,7 +331,7 @@ public abstract class AbstractActivityService {
     protected LogicResult<Void> processUpdateMedias(
             String removedMediaIdsJson,
             String videoUrl,
-            List<MultipartFile> files,
+            List<StagedFile> files,
             List<Media> medias,
             String title,
             Long activityId,
@@ -367,7 +365,7 @@ public abstract class AbstractActivityService {
 
         // Handle images
         LogicResult<Void> imageResult =
-                handleNewImages(files, medias, title, activityId, ownerType);
+                handleNewImages(files, title, activityId, ownerType);
 
         if (imageResult != null) {
             return imageResult;
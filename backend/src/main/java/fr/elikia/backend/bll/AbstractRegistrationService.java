@@ -1,8 +1,13 @@
 package fr.elikia.backend.bll;
 
 import fr.elikia.backend.bo.LogicResult;
+import fr.elikia.backend.bo.enums.RegistrationStatus;
 import fr.elikia.backend.dto.EventRegistrationDTO;
 import fr.elikia.backend.dto.RegistrationRequestDTO;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.util.Locale;
 
 /**
  * Abstract service containing the common validation logic
@@ -24,7 +29,7 @@ public class AbstractRegistrationService {
      * @return LogicResult containing an error if the identifier is invalid,
      *         or null if it is valid
      */
-    protected LogicResult<Void> validateActivityId(Long activityId) {
+    protected <T> LogicResult<T> validateActivityId(Long activityId) {
         if (activityId == null || activityId <= 0) {
             return new LogicResult<>("400", "The activity identifier is required", null);
         }
@@ -43,7 +48,7 @@ public class AbstractRegistrationService {
      * @return LogicResult containing an error if the identifier is invalid,
      *         or null if it is valid
      */
-    protected LogicResult<Void> validateRegistrationId(Long registrationId) {
+    protected <T> LogicResult<T> validateRegistrationId(Long registrationId) {
         if (registrationId == null || registrationId <= 0) {
             return new LogicResult<>("400", "The registration identifier is required", null);
         }
@@ -62,7 +67,7 @@ public class AbstractRegistrationService {
      * @return LogicResult containing an error if the data is invalid,
      *         or null if the data is valid
      */
-    protected LogicResult<Void> validateRegistrationData(RegistrationRequestDTO registrationDTO) {
+    protected <T> LogicResult<T> validateRegistrationData(RegistrationRequestDTO registrationDTO) {
         if (registrationDTO == null) {
             return new LogicResult<>("400", "Registration data is required", null);
         }
@@ -99,4 +104,38 @@ public class AbstractRegistrationService {
 
         return null;
     }
+
+    /**
+     * Tell whether a registration in the given status holds a seat of its activity.
+     *
+     * Pending and approved registrations count against the capacity,
+     * rejected and cancelled ones have given their seat back.
+     *
+     * @param status registration status
+     * @return true if the registration holds a seat
+     */
+    protected boolean holdsSeat(RegistrationStatus status) {
+        return status == RegistrationStatus.PENDING || status == RegistrationStatus.APPROVED;
+    }
+
+    /**
+     * Name of the constraint, a unique key for duplicates, broken by a registration insert.
+     *
+     * A duplicate registration is refused by the database;
+     * the key tells whether the member or the email was already registered.
+     *
+     * @param exception exception thrown by the insert
+     * @return the lower-case name of the broken constraint (as reported by the database,
+     *         possibly qualified), or an empty string if it is unknown
+     */
+    protected String violatedUniqueKey(DataIntegrityViolationException exception) {
+        for (Throwable cause = exception; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConstraintViolationException violation
+                    && violation.getConstraintName() != null) {
+                return violation.getConstraintName().toLowerCase(Locale.ROOT);
+            }
+        }
+
+        return "";
+    }
 }
@@ -0,0 +1,65 @@
+package fr.elikia.backend.bll;
+
+import fr.elikia.backend.bo.LogicResult;
+import fr.elikia.backend.dto.CacheRegionStatisticsDTO;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.stereotype.Service;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Service exposing the hit/miss statistics of the second-level cache regions.
+
+ * Business rules:
+ * - Statistics are only collected when hibernate.generate_statistics is enabled
+ * - Regions are listed by name, entity and natural-id regions alike
+ */
+@Service
+public class CacheStatisticsService {
+    private final EntityManagerFactory entityManagerFactory;
+
+    public CacheStatisticsService(EntityManagerFactory entityManagerFactory) {
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+
+    /**
+     * Returns the statistics of every second-level cache region.
+     *
+     * @return LogicResult containing one entry per region:
+     * - 200 with the statistics
+     * - 503 if statistics are not collected
+     */
+    public LogicResult<List<CacheRegionStatisticsDTO>> getRegionStatistics() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        if (!statistics.isStatisticsEnabled()) {
+            return new LogicResult<>("503", "Cache statistics are disabled", List.of());
+        }
+
+        List<CacheRegionStatisticsDTO> regions = Arrays.stream(statistics.getSecondLevelCacheRegionNames())
+                .sorted()
+                .map(statistics::getCacheRegionStatistics)
+                .filter(Objects::nonNull)
+                .map(CacheStatisticsService::toDTO)
+                .toList();
+
+        return new LogicResult<>("200", "Cache statistics retrieved", regions);
+    }
+
+
+    private static CacheRegionStatisticsDTO toDTO(CacheRegionStatistics region) {
+        long reads = region.getHitCount() + region.getMissCount();
+        return new CacheRegionStatisticsDTO(
+                region.getRegionName(),
+                region.getHitCount(),
+                region.getMissCount(),
+                region.getPutCount(),
+                reads == 0 ? 0 : (double) region.getHitCount() / reads
+        );
+    }
+}
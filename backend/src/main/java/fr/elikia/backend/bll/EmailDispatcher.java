@@ -0,0 +1,93 @@
+package fr.elikia.backend.bll;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sends emails in the background, so that a slow SMTP server never holds a request
+ * (or the database locks of its transaction).
+
+ * Business rules:
+ * - An email is handed over once the current transaction commits, never for a rolled back change
+ * - Emails are sent by a bounded worker pool; when its queue is full,
+ *   the caller sends the email itself rather than dropping it
+ * - A failed send is logged, it does not affect the change that triggered it
+ */
+@Service
+public class EmailDispatcher {
+    private static final Logger LOGGER = LoggerFactory.getLogger(EmailDispatcher.class);
+
+    private final ThreadPoolExecutor workers;
+
+
+    public EmailDispatcher(@Value("${mail.async.pool-size:1}") int poolSize,
+                           @Value("${mail.async.queue-capacity:500}") int queueCapacity) {
+        AtomicInteger threadCount = new AtomicInteger();
+        this.workers = new ThreadPoolExecutor(
+                poolSize, poolSize,
+                0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "mail-sender-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy()
+        );
+    }
+
+
+    /**
+     * Sends an email once the current transaction has committed,
+     * or at once without transaction.
+     *
+     * @param email sending of the email, typically a call to EmailService
+     */
+    public void sendAfterCommit(Runnable email) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            submit(email);
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                submit(email);
+            }
+        });
+    }
+
+
+    /**
+     * Lets the queued emails go out before the application stops.
+     */
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdown();
+    }
+
+
+    // =========================================================
+    // Private helpers
+    // =========================================================
+
+    private void submit(Runnable email) {
+        workers.execute(() -> {
+            try {
+                email.run();
+            } catch (RuntimeException e) {
+                LOGGER.warn("Unable to send email", e);
+            }
+        });
+    }
+}
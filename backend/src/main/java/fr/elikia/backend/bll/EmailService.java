@@ -177,4 +177,58 @@ public class EmailService {
 
         mailSender.send(message);
     }
-}
\ No newline at end of file
+
+    /**
+     * Envoie un email lorsqu'une place se libère pour une personne
+     * en liste d'attente d'un événement.
+     *
+     * @param to         adresse email du participant
+     * @param firstName  prénom du participant
+     * @param eventTitle titre de l'événement
+     */
+    public void sendEventWaitlistPromotedEmail(
+            String to,
+            String firstName,
+            String eventTitle
+    ) {
+        SimpleMailMessage message = new SimpleMailMessage();
+        message.setTo(to);
+        message.setSubject("Une place s'est libérée pour l'événement");
+        message.setText(
+                "Bonjour " + firstName + ",\n\n" +
+                        "Une place s'est libérée pour l'événement \"" + eventTitle + "\".\n" +
+                        "Vous quittez la liste d'attente : votre inscription est désormais en cours de validation.\n\n" +
+                        "Cordialement,\n" +
+                        "Association Elikia"
+        );
+
+        mailSender.send(message);
+    }
+
+    /**
+     * Send an email when a seat frees up for a person
+     * on the waitlist of a workshop.
+     *
+     * @param to            participant email address
+     * @param firstName     participant first name
+     * @param workshopTitle workshop title
+     */
+    public void sendWorkshopWaitlistPromotedEmail(
+            String to,
+            String firstName,
+            String workshopTitle
+    ) {
+        SimpleMailMessage message = new SimpleMailMessage();
+        message.setTo(to);
+        message.setSubject("Une place s'est libérée pour l'atelier");
+        message.setText(
+                "Bonjour " + firstName + ",\n\n" +
+                        "Une place s'est libérée pour l'atelier \"" + workshopTitle + "\".\n" +
+                        "Vous quittez la liste d'attente : votre inscription est désormais en cours de validation.\n\n" +
+                        "Cordialement,\n" +
+                        "Association Elikia"
+        );
+
+        mailSender.send(message);
+    }
+}
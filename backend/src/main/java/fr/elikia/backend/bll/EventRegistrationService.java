@@ -1,9 +1,11 @@
 package fr.elikia.backend.bll;
 
+import fr.elikia.backend.bll.ingestion.RegistrationWriteBehind;
 import fr.elikia.backend.bo.Event;
 import fr.elikia.backend.bo.EventRegistration;
 import fr.elikia.backend.bo.LogicResult;
 import fr.elikia.backend.bo.Member;
+import fr.elikia.backend.bo.enums.ActivityOwnerType;
 import fr.elikia.backend.bo.enums.RegistrationStatus;
 import fr.elikia.backend.bo.enums.Visibility;
 import fr.elikia.backend.dao.idao.IDAOEvent;
@@ -11,7 +13,12 @@ import fr.elikia.backend.dao.idao.IDAOEventRegistration;
 import fr.elikia.backend.dao.idao.IDAOMember;
 import fr.elikia.backend.dto.EventRegistrationAdminDTO;
 import fr.elikia.backend.dto.EventRegistrationDTO;
+import jakarta.transaction.Transactional;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -21,28 +28,51 @@ import java.util.List;
  * This service handles:
  * - registration validation
  * - event existence verification
- * - duplicate registration prevention
+ * - duplicate registration prevention, by the unique keys of the registrations
  * - member-only event access control
+ * - event capacity, enforced by atomic seat reservation
+ * - FIFO waitlist of full events, promoted when a seat frees up
+ * - optional write-behind of the registrations, batched by a background writer
  * - registration approval, rejection and cancellation
  */
 @Service
 public class EventRegistrationService extends AbstractRegistrationService {
 
+    /** CONSTANTS*/
+    // Unique keys of event_registration (migration V6)
+    private static final String MEMBER_KEY = "uk_event_registration_member";
+    private static final String EMAIL_KEY = "uk_event_registration_email";
+
     private final IDAOEvent idaoEvent;
     private final IDAOEventRegistration idaoEventRegistration;
     private final IDAOMember idaoMember;
     private final EmailService emailService;
+    private final EmailDispatcher emailDispatcher;
+    private final RegistrationWriteBehind registrationWriteBehind;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate queueCheckTemplate;
 
     public EventRegistrationService(
             IDAOEvent idaoEvent,
             IDAOEventRegistration idaoEventRegistration,
             IDAOMember idaoMember,
-            EmailService emailService
+            EmailService emailService,
+            EmailDispatcher emailDispatcher,
+            RegistrationWriteBehind registrationWriteBehind,
+            PlatformTransactionManager transactionManager
     ) {
         this.idaoEvent = idaoEvent;
         this.idaoEventRegistration = idaoEventRegistration;
         this.idaoMember = idaoMember;
         this.emailService = emailService;
+        this.emailDispatcher = emailDispatcher;
+        this.registrationWriteBehind = registrationWriteBehind;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        // A transaction of its own, even inside the request's open session:
+        // its connection is given back before the registration is journaled
+        this.queueCheckTemplate = new TransactionTemplate(transactionManager);
+        this.queueCheckTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.queueCheckTemplate.setReadOnly(true);
     }
 
     /**
@@ -51,18 +81,161 @@ public class EventRegistrationService extends AbstractRegistrationService {
      * - a visitor can register only to PUBLIC events
      * - a member can register to PUBLIC and MEMBER_ONLY events
      * - every new registration is created with PENDING status
+     * - a registration takes a seat, the event is full once its capacity is reached
+     * - the seat is taken by a single conditional update, so the capacity cannot be raced
+     * - the registration is inserted without a prior lookup: the unique keys of the event
+     *   and email, and of the event and member, refuse a duplicate (400), and the whole
+     *   registration, seat included, is rolled back
+     * - once the event is full, the registration joins its waitlist (202) with the next position
+     * - in write-behind mode, the registration is queued and acknowledged (202) with a provisional
+     *   reference; seats, waitlist and duplicates are then settled by the batch writer.
+     *   The registration is checked by a short read-only transaction and journaled outside
+     *   of any, so no connection waits for the journal. Registered directly when the queue is full
      *
      * @param eventId event identifier
      * @param eventRegistrationDTO registration data
      * @param memberEmail connected member email, null for visitors
-     * @return LogicResult indicating success or failure
+     * @return LogicResult indicating success or failure,
+     *         with the provisional reference of a queued registration
      */
-    public LogicResult<Void> registerToEvent(
+    public LogicResult<String> registerToEvent(
             Long eventId,
             EventRegistrationDTO eventRegistrationDTO,
             String memberEmail
     ) {
-        LogicResult<Void> validationResult = validateActivityId(eventId);
+        if (registrationWriteBehind.isRunning()) {
+            LogicResult<String> queuedResult = queue(eventId, eventRegistrationDTO, memberEmail);
+            if (queuedResult != null) {
+                return queuedResult;
+            }
+        }
+
+        try {
+            return transactionTemplate.execute(status ->
+                    register(eventId, eventRegistrationDTO, memberEmail));
+        } catch (DataIntegrityViolationException e) {
+            String uniqueKey = violatedUniqueKey(e);
+
+            if (uniqueKey.contains(MEMBER_KEY)) {
+                return new LogicResult<>(
+                        "400",
+                        "This member is already registered for this event",
+                        null
+                );
+            }
+            if (uniqueKey.contains(EMAIL_KEY)) {
+                return new LogicResult<>(
+                        "400",
+                        "This email is already registered for this event",
+                        null
+                );
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Write-behind path of {@link #registerToEvent}: the registration is checked
+     * by {@link #checkQueueable}, then journaled outside of any transaction.
+     *
+     * @return LogicResult of the registration, or null if it was not queued
+     *         and must be registered directly
+     */
+    private LogicResult<String> queue(
+            Long eventId,
+            EventRegistrationDTO eventRegistrationDTO,
+            String memberEmail
+    ) {
+        LogicResult<Member> checkResult = queueCheckTemplate.execute(status ->
+                checkQueueable(eventId, eventRegistrationDTO, memberEmail));
+
+        if (!"200".equals(checkResult.getCode())) {
+            return new LogicResult<>(checkResult.getCode(), checkResult.getMessage(), null);
+        }
+
+        String reference = registrationWriteBehind.submit(
+                ActivityOwnerType.EVENT,
+                eventId,
+                checkResult.getData(),
+                eventRegistrationDTO.getFirstName(),
+                eventRegistrationDTO.getLastName(),
+                eventRegistrationDTO.getEmail()
+        );
+
+        if (reference == null) {
+            return null;
+        }
+
+        return new LogicResult<>(
+                "202",
+                "The registration has been received and will be confirmed shortly",
+                reference
+        );
+    }
+
+    /**
+     * Checks of {@link #register} for a queued registration, with an early duplicate
+     * check: the batch writer makes the final one.
+     *
+     * @return LogicResult 200 with the connected member (null for visitors), or the refusal
+     */
+    private LogicResult<Member> checkQueueable(
+            Long eventId,
+            EventRegistrationDTO eventRegistrationDTO,
+            String memberEmail
+    ) {
+        LogicResult<Member> validationResult = validateActivityId(eventId);
+        if (validationResult != null) {
+            return validationResult;
+        }
+
+        Event event = idaoEvent.findById(eventId);
+
+        if (event == null) {
+            return new LogicResult<>("404", "Event not found", null);
+        }
+
+        validationResult = validateRegistrationData(eventRegistrationDTO);
+        if (validationResult != null) {
+            return validationResult;
+        }
+
+        Member member = null;
+
+        if (memberEmail != null && !memberEmail.isBlank()) {
+            member = idaoMember.findByEmail(memberEmail);
+
+            if (member == null) {
+                return new LogicResult<>("404", "Member not found", null);
+            }
+        }
+
+        if (event.getVisibility() == Visibility.MEMBER_ONLY && member == null) {
+            return new LogicResult<>(
+                    "403",
+                    "This event is reserved for members only",
+                    null
+            );
+        }
+
+        LogicResult<String> duplicateResult =
+                checkNotRegistered(event, member, eventRegistrationDTO.getEmail());
+        if (duplicateResult != null) {
+            return new LogicResult<>(duplicateResult.getCode(), duplicateResult.getMessage(), null);
+        }
+
+        return new LogicResult<>("200", "Registration can be queued", member);
+    }
+
+    /**
+     * Registration work of {@link #registerToEvent}, run in its transaction.
+     */
+    private LogicResult<String> register(
+            Long eventId,
+            EventRegistrationDTO eventRegistrationDTO,
+            String memberEmail
+    ) {
+        LogicResult<String> validationResult = validateActivityId(eventId);
         if (validationResult != null) {
             return validationResult;
         }
@@ -93,24 +266,6 @@ public class EventRegistrationService extends AbstractRegistrationService {
             if (member == null) {
                 return new LogicResult<>("404", "Member not found", null);
             }
-
-            // Check whether the member is already registered
-            if (idaoEventRegistration.existsByEventAndMember(event, member)) {
-                return new LogicResult<>(
-                        "400",
-                        "This member is already registered for this event",
-                        null
-                );
-            }
-        } else {
-            // Check whether the visitor is already registered
-            if (idaoEventRegistration.existsByEventAndEmail(event, email)) {
-                return new LogicResult<>(
-                        "400",
-                        "This email is already registered for this event",
-                        null
-                );
-            }
         }
 
         // Prevent visitors from registering for member-only events
@@ -122,6 +277,18 @@ public class EventRegistrationService extends AbstractRegistrationService {
             );
         }
 
+        // Take a seat: the capacity check and the increment are one statement
+        Long waitlistPosition = null;
+        if (!idaoEvent.reserveSeat(eventId)) {
+            // Full: join the waitlist. Joining locks the event row, so a seat
+            // freed in the meantime is seen by the second attempt instead of staying empty
+            waitlistPosition = idaoEvent.joinWaitlist(eventId);
+
+            if (idaoEvent.reserveSeat(eventId)) {
+                waitlistPosition = null;
+            }
+        }
+
         // Create the registration entity
         EventRegistration eventRegistration = new EventRegistration();
 
@@ -129,11 +296,14 @@ public class EventRegistrationService extends AbstractRegistrationService {
         eventRegistration.setLastName(lastName);
         eventRegistration.setEmail(email);
         eventRegistration.setRegistrationDate(LocalDateTime.now());
-        eventRegistration.setStatus(RegistrationStatus.PENDING);
+        eventRegistration.setStatus(waitlistPosition == null
+                ? RegistrationStatus.PENDING
+                : RegistrationStatus.WAITLISTED);
+        eventRegistration.setWaitlistPosition(waitlistPosition);
         eventRegistration.setEvent(event);
         eventRegistration.setMember(member);
 
-        // Save the registration
+        // Save the registration, refused by the unique keys if already registered
         EventRegistration savedRegistration =
                 idaoEventRegistration.create(eventRegistration);
 
@@ -145,6 +315,14 @@ public class EventRegistrationService extends AbstractRegistrationService {
             );
         }
 
+        if (waitlistPosition != null) {
+            return new LogicResult<>(
+                    "202",
+                    "The event is full, the registration has been added to the waitlist",
+                    null
+            );
+        }
+
         // Return a successful result
         return new LogicResult<>(
                 "201",
@@ -184,6 +362,110 @@ public class EventRegistrationService extends AbstractRegistrationService {
         );
     }
 
+    /**
+     * Check that neither the member nor the email is registered for the event yet,
+     * as the unique keys of the registrations will.
+     *
+     * @param event event entity
+     * @param member connected member, null for visitors
+     * @param email registration email
+     * @return LogicResult containing an error if already registered, or null
+     */
+    private LogicResult<String> checkNotRegistered(Event event, Member member, String email) {
+        if (member != null && idaoEventRegistration.existsByEventAndMember(event, member)) {
+            return new LogicResult<>(
+                    "400",
+                    "This member is already registered for this event",
+                    null
+            );
+        }
+
+        if (idaoEventRegistration.existsByEventAndEmail(event, email)) {
+            return new LogicResult<>(
+                    "400",
+                    "This email is already registered for this event",
+                    null
+            );
+        }
+
+        return null;
+    }
+
+    /**
+     * Give back the seat of a registration leaving the event,
+     * or hand it over to the head of the waitlist.
+     *
+     * The release locks the event row first, and the head is read with a locking read:
+     * it is then read and promoted by one transaction at a time, as committed by the
+     * previous one (not from the snapshot of a REPEATABLE READ transaction), and a
+     * visitor joining the waitlist meanwhile waits for the promotion to be committed.
+     *
+     * @param event event entity
+     */
+    private void freeSeat(Event event) {
+        Long eventId = event.getEventId();
+        idaoEvent.releaseSeat(eventId);
+
+        // Index seek on (event, status, position): constant cost whatever the waitlist length
+        EventRegistration next = idaoEventRegistration.findWaitlistHead(event);
+
+        if (next == null || !idaoEvent.reserveSeat(eventId)) {
+            return;
+        }
+
+        next.setStatus(RegistrationStatus.PENDING);
+        next.setWaitlistPosition(null);
+        idaoEventRegistration.update(next);
+
+        String email = next.getEmail();
+        String firstName = next.getFirstName();
+        String eventTitle = event.getTitle();
+
+        emailDispatcher.sendAfterCommit(() ->
+                emailService.sendEventWaitlistPromotedEmail(email, firstName, eventTitle)
+        );
+    }
+
+    /**
+     * Retrieve the rank of a member in the waitlist of an event.
+     *
+     * @param eventId event identifier
+     * @param memberEmail connected member email
+     * @return LogicResult containing the 1-based rank, 404 if the member is not waitlisted
+     */
+    public LogicResult<Long> getWaitlistPosition(Long eventId, String memberEmail) {
+        LogicResult<Void> validationResult = validateActivityId(eventId);
+        if (validationResult != null) {
+            return new LogicResult<>(
+                    validationResult.getCode(),
+                    validationResult.getMessage(),
+                    null
+            );
+        }
+
+        Member member = idaoMember.findByEmail(memberEmail);
+
+        if (member == null) {
+            return new LogicResult<>("404", "Member not found", null);
+        }
+
+        long rank = idaoEventRegistration.findWaitlistRank(eventId, member.getUserId());
+
+        if (rank == 0) {
+            return new LogicResult<>(
+                    "404",
+                    "This member is not on the waitlist of this event",
+                    null
+            );
+        }
+
+        return new LogicResult<>(
+                "200",
+                "Waitlist position retrieved successfully",
+                rank
+        );
+    }
+
     /**
      * Retrieve all registrations linked to a specific event.
      *
@@ -224,10 +506,13 @@ public class EventRegistrationService extends AbstractRegistrationService {
 
     /**
      * Approve an event registration.
+     * A registration that had given its seat back (rejected, cancelled)
+     * takes a seat again, if the event is not full.
      *
      * @param registrationId registration identifier
      * @return LogicResult indicating success or failure
      */
+    @Transactional
     public LogicResult<Void> approveRegistration(Long registrationId) {
         LogicResult<Void> validationResult = validateRegistrationId(registrationId);
         if (validationResult != null) {
@@ -235,16 +520,23 @@ public class EventRegistrationService extends AbstractRegistrationService {
         }
 
 
-        // Retrieve the existing registration
+        // Retrieve the existing registration, locked: a concurrent change of its
+        // status waits for this one, so its seat is given back or taken only once
         EventRegistration registration =
-                idaoEventRegistration.findById(registrationId);
+                idaoEventRegistration.findByIdForUpdate(registrationId);
 
         if (registration == null) {
             return new LogicResult<>("404", "Event registration not found", null);
         }
 
+        if (!holdsSeat(registration.getStatus())
+                && !idaoEvent.reserveSeat(registration.getEvent().getEventId())) {
+            return new LogicResult<>("409", "This event is full", null);
+        }
+
         // Update the registration status
         registration.setStatus(RegistrationStatus.APPROVED);
+        registration.setWaitlistPosition(null);
 
         // Save the updated registration
         EventRegistration updatedRegistration =
@@ -270,11 +562,14 @@ public class EventRegistrationService extends AbstractRegistrationService {
 
     /**
      * Reject an event registration.
+     * The seat held by the registration goes to the head of the waitlist,
+     * or is given back if nobody is waiting.
      *
      * @param registrationId registration identifier
      * @param refusalReason refusal reason
      * @return LogicResult indicating success or failure
      */
+    @Transactional
     public LogicResult<Void> rejectRegistration(Long registrationId, String refusalReason) {
         LogicResult<Void> validationResult = validateRegistrationId(registrationId);
         if (validationResult != null) {
@@ -286,16 +581,22 @@ public class EventRegistrationService extends AbstractRegistrationService {
             return validationResult;
         }
 
-        // Retrieve the existing registration
+        // Retrieve the existing registration, locked: a concurrent change of its
+        // status waits for this one, so its seat is given back or taken only once
         EventRegistration registration =
-                idaoEventRegistration.findById(registrationId);
+                idaoEventRegistration.findByIdForUpdate(registrationId);
 
         if (registration == null) {
             return new LogicResult<>("404", "Event registration not found", null);
         }
 
+        if (holdsSeat(registration.getStatus())) {
+            freeSeat(registration.getEvent());
+        }
+
         // Update the registration status
         registration.setStatus(RegistrationStatus.REJECTED);
+        registration.setWaitlistPosition(null);
 
         // Save the updated registration
         EventRegistration updatedRegistration =
@@ -321,26 +622,35 @@ public class EventRegistrationService extends AbstractRegistrationService {
 
     /**
      * Cancel an event registration.
+     * The seat held by the registration goes to the head of the waitlist,
+     * or is given back if nobody is waiting.
      *
      * @param registrationId registration identifier
      * @return LogicResult indicating success or failure
      */
+    @Transactional
     public LogicResult<Void> cancelRegistration(Long registrationId) {
         LogicResult<Void> validationResult = validateRegistrationId(registrationId);
         if (validationResult != null) {
             return validationResult;
         }
 
-        // Retrieve the existing registration
+        // Retrieve the existing registration, locked: a concurrent change of its
+        // status waits for this one, so its seat is given back or taken only once
         EventRegistration registration =
-                idaoEventRegistration.findById(registrationId);
+                idaoEventRegistration.findByIdForUpdate(registrationId);
 
         if (registration == null) {
             return new LogicResult<>("404", "Event registration not found", null);
         }
 
+        if (holdsSeat(registration.getStatus())) {
+            freeSeat(registration.getEvent());
+        }
+
         // Update the registration status
         registration.setStatus(RegistrationStatus.CANCELLED);
+        registration.setWaitlistPosition(null);
 
         // Save the updated registration
         EventRegistration updatedRegistration =
@@ -1,6 +1,8 @@
 package fr.elikia.backend.bll;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import fr.elikia.backend.bll.storage.MediaStorageService;
+import fr.elikia.backend.bll.storage.StagedFile;
 import fr.elikia.backend.bo.*;
 import fr.elikia.backend.bo.enums.ActivityOwnerType;
 import fr.elikia.backend.bo.enums.Visibility;
@@ -13,6 +15,8 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
+import fr.elikia.backend.dto.CursorPageDTO;
+import fr.elikia.backend.dto.EventCardDTO;
 import fr.elikia.backend.dto.EventResponseDTO;
 
 import java.util.List;
@@ -35,8 +39,9 @@ public class EventService extends AbstractActivityService {
     private final IDAOEvent idaoEvent;
 
 
-    public EventService(IDAOEvent idaoEvent, MediaService mediaService, ObjectMapper objectMapper) {
-        super(mediaService, objectMapper);
+    public EventService(IDAOEvent idaoEvent, MediaService mediaService,
+                        MediaStorageService mediaStorageService, ObjectMapper objectMapper) {
+        super(mediaService, mediaStorageService, objectMapper);
         this.idaoEvent = idaoEvent;
     }
     /**
@@ -44,11 +49,12 @@ public class EventService extends AbstractActivityService {
 
      * Workflow:
      * - Validate and sanitize EventDTO
+     * - Stream uploaded files to the staging area (no transaction open yet)
+     * - In a short transaction:
      * - Create and persist the Event entity
-     * - For each uploaded file:
-     * - Delegate Media creation to MediaService
-     * - Attach Media to the Event
+     * - Create the video and image Media in one batch through MediaService
      * - Persist final Event with its medias
+     * - Promote staged files on commit, drop them on rollback
 
      * Business rules:
      * - Event must be created before any Media
@@ -60,7 +66,6 @@ public class EventService extends AbstractActivityService {
      *
      * @return LogicResult indicating success or failure
      */
-    @Transactional
     public LogicResult<Void> createEvent(
             EventDTO eventDTO,
             String videoUrl,
@@ -76,6 +81,28 @@ public class EventService extends AbstractActivityService {
             return result;
         }
 
+        // Stage uploaded files before any transaction is opened
+        List<StagedFile> stagedFiles = stageUploadedFiles(files, eventDTO.getUploadIds(), input.visibility(), result);
+        if (stagedFiles == null) {
+            return result;
+        }
+
+        return mediaStorageService.executeWithStagedFiles(
+                stagedFiles,
+                () -> persistNewEvent(input, videoUrl, stagedFiles)
+        );
+    }
+
+
+    /**
+     * Persists a new Event and the metadata of its medias.
+     * Runs inside the short transaction opened by MediaStorageService.
+     */
+    private LogicResult<Void> persistNewEvent(
+            SanitizedActivityInput input,
+            String videoUrl,
+            List<StagedFile> stagedFiles) {
+
         // Create Event entity
         Event event = new Event();
         applySanitizedValues(event, input);
@@ -92,8 +119,7 @@ public class EventService extends AbstractActivityService {
         LogicResult<Void> mediaResult =
                 processCreateMedias(
                         videoUrl,
-                        files,
-                        event.getMediaList(),
+                        stagedFiles,
                         event.getTitle(),
                         generatedEventId,
                         ActivityOwnerType.EVENT
@@ -172,7 +198,7 @@ public class EventService extends AbstractActivityService {
      * @param size number of items per page
      * @return LogicResult containing a page of Event
      */
-    public LogicResult<Page<EventResponseDTO>> findAllByVisibilityOrderByStartDateDesc(
+    public LogicResult<Page<EventCardDTO>> findAllByVisibilityOrderByStartDateDesc(
             int page,
             int size
     ) {
@@ -185,7 +211,7 @@ public class EventService extends AbstractActivityService {
         );
 
         // Call DAO
-        Page<Event> pageResult =
+        Page<EventCardDTO> pageResult =
                 idaoEvent.findAllByVisibilityOrderByStartDateDesc(
                         Visibility.PUBLIC,
                         pageable
@@ -200,14 +226,11 @@ public class EventService extends AbstractActivityService {
             );
         }
 
-        Page<EventResponseDTO> dtoPage =
-                pageResult.map(this::mapToEventResponseDTO);
-
         // Successful response
         return new LogicResult<>(
                 "200",
                 EVENT_PAGE_RETRIEVED,
-                dtoPage
+                pageResult
         );
     }
 
@@ -219,7 +242,7 @@ public class EventService extends AbstractActivityService {
      * @param size number of items per page
      * @return LogicResult containing a page of Event
      */
-    public LogicResult<Page<EventResponseDTO>> findAllByMemberOnlyVisibilityOrderByStartDateDesc(
+    public LogicResult<Page<EventCardDTO>> findAllByMemberOnlyVisibilityOrderByStartDateDesc(
             int page,
             int size
     ) {
@@ -232,7 +255,7 @@ public class EventService extends AbstractActivityService {
         );
 
         // Call DAO
-        Page<Event> pageResult =
+        Page<EventCardDTO> pageResult =
                 idaoEvent.findAllByVisibilityOrderByStartDateDesc(
                         Visibility.MEMBER_ONLY,
                         pageable
@@ -247,14 +270,77 @@ public class EventService extends AbstractActivityService {
             );
         }
 
-        Page<EventResponseDTO> dtoPage =
-                pageResult.map(this::mapToEventResponseDTO);
-
         // Successful response
         return new LogicResult<>(
                 "200",
                 EVENT_PAGE_RETRIEVED,
-                dtoPage
+                pageResult
+        );
+    }
+
+
+    /**
+     * Retrieve a keyset page of event cards (PUBLIC), for infinite scroll
+     *
+     * @param cursor cursor returned with the previous page (null for the first page)
+     * @param size number of items per page
+     * @return LogicResult containing the cards and the cursor of the next page
+     */
+    public LogicResult<CursorPageDTO<EventCardDTO>> findPublicEventScroll(
+            String cursor,
+            int size
+    ) {
+        return findEventCardScroll(Visibility.PUBLIC, cursor, size);
+    }
+
+
+    /**
+     * Retrieve a keyset page of event cards for member space, for infinite scroll
+     *
+     * @param cursor cursor returned with the previous page (null for the first page)
+     * @param size number of items per page
+     * @return LogicResult containing the cards and the cursor of the next page
+     */
+    public LogicResult<CursorPageDTO<EventCardDTO>> findMemberOnlyEventScroll(
+            String cursor,
+            int size
+    ) {
+        return findEventCardScroll(Visibility.MEMBER_ONLY, cursor, size);
+    }
+
+
+    /**
+     * Retrieve a keyset page of events (admin), for infinite scroll
+     *
+     * @param cursor cursor returned with the previous page (null for the first page)
+     * @param size number of items per page
+     * @return LogicResult containing the events and the cursor of the next page
+     */
+    public LogicResult<CursorPageDTO<EventResponseDTO>> findEventScroll(
+            String cursor,
+            int size
+    ) {
+        LogicResult<CursorPageDTO<EventResponseDTO>> result = new LogicResult<>("400", null);
+        if (!PageCursor.isValid(cursor, size, result)) {
+            return result;
+        }
+        PageCursor position = PageCursor.decode(cursor);
+
+        // One extra row tells whether a next page exists
+        List<Event> events = idaoEvent.findAllAfter(
+                position == null ? null : position.sortDate(),
+                position == null ? null : position.id(),
+                size + 1
+        );
+
+        CursorPageDTO<EventResponseDTO> scroll = CursorPageDTO
+                .of(events, size, event -> new PageCursor(event.getStartDate(), event.getEventId()).encode())
+                .map(this::mapToEventResponseDTO);
+
+        return new LogicResult<>(
+                "200",
+                scroll.content().isEmpty() ? NO_EVENT_FOUND : EVENT_PAGE_RETRIEVED,
+                scroll
         );
     }
 
@@ -262,9 +348,9 @@ public class EventService extends AbstractActivityService {
     /**
      * Retrieve 4 last event (for home page)
      */
-    public LogicResult<List<EventResponseDTO>> findLastEvent() {
+    public LogicResult<List<EventCardDTO>> findLastEvent() {
 
-        List<Event> event = idaoEvent.findAllByOrderByStartDateDesc();
+        List<EventCardDTO> event = idaoEvent.findAllByOrderByStartDateDesc();
 
         if (event.isEmpty()) {
             return new LogicResult<>(
@@ -274,14 +360,46 @@ public class EventService extends AbstractActivityService {
             );
         }
 
-        List<EventResponseDTO> dtoList = event.stream()
-                .map(this::mapToEventResponseDTO)
-                .toList();
-
         return new LogicResult<>(
                 "200",
                 "Last 4 event retrieved",
-                dtoList
+                event
+        );
+    }
+
+
+    /**
+     * Keyset page of event cards of a visibility, without offset nor count query
+     */
+    private LogicResult<CursorPageDTO<EventCardDTO>> findEventCardScroll(
+            Visibility visibility,
+            String cursor,
+            int size
+    ) {
+        LogicResult<CursorPageDTO<EventCardDTO>> result = new LogicResult<>("400", null);
+        if (!PageCursor.isValid(cursor, size, result)) {
+            return result;
+        }
+        PageCursor position = PageCursor.decode(cursor);
+
+        // One extra row tells whether a next page exists
+        List<EventCardDTO> cards = idaoEvent.findCardsByVisibilityAfter(
+                visibility,
+                position == null ? null : position.sortDate(),
+                position == null ? null : position.id(),
+                size + 1
+        );
+
+        CursorPageDTO<EventCardDTO> scroll = CursorPageDTO.of(
+                cards,
+                size,
+                card -> new PageCursor(card.startDate(), card.eventId()).encode()
+        );
+
+        return new LogicResult<>(
+                "200",
+                scroll.content().isEmpty() ? NO_EVENT_FOUND : EVENT_PAGE_RETRIEVED,
+                scroll
         );
     }
 
@@ -309,8 +427,10 @@ public class EventService extends AbstractActivityService {
 
      * Workflow:
      * - Validate the event identifier
-     * - Retrieve the existing Event
      * - Validate and sanitize input DTO
+     * - Stream uploaded files to the staging area (no transaction open yet)
+     * - In a short transaction:
+     * - Retrieve the existing Event
      * - Apply field updates
      * - Update medias if provided
      * - Persist changes
@@ -322,18 +442,12 @@ public class EventService extends AbstractActivityService {
      *
      * @return LogicResult indicating success or failure
      */
-    @Transactional
     public LogicResult<Void> updateEvent(Long eventId, EventDTO eventDTO, String videoUrl,
                                          List<MultipartFile> files, String removedMediaIdsJson) {
         // Validate the identifier
         if(eventId == null || eventId <= 0) {
             return new LogicResult<>("400", "Invalid event identifier", null);
         }
-        // Retrieve the existing event
-        Event existingEvent = idaoEvent.findById(eventId);
-        if(existingEvent == null) {
-            return new LogicResult<>("404", "Event not found", null);
-        }
         // Prepare a default validation error result
         LogicResult<Void> result = validationError();
 
@@ -344,9 +458,46 @@ public class EventService extends AbstractActivityService {
             return result;
         }
 
+        // Stage uploaded files before any transaction is opened
+        List<StagedFile> stagedFiles = stageUploadedFiles(files, eventDTO.getUploadIds(), input.visibility(), result);
+        if (stagedFiles == null) {
+            return result;
+        }
+
+        return mediaStorageService.executeWithStagedFiles(
+                stagedFiles,
+                () -> persistEventUpdate(eventId, input, videoUrl, stagedFiles, removedMediaIdsJson)
+        );
+    }
+
+
+    /**
+     * Applies an Event update and its media changes.
+     * Runs inside the short transaction opened by MediaStorageService.
+     */
+    private LogicResult<Void> persistEventUpdate(
+            Long eventId,
+            SanitizedActivityInput input,
+            String videoUrl,
+            List<StagedFile> stagedFiles,
+            String removedMediaIdsJson) {
+
+        // Retrieve the existing event
+        Event existingEvent = idaoEvent.findById(eventId);
+        if(existingEvent == null) {
+            return new LogicResult<>("404", "Event not found", null);
+        }
+
         // Apply sanitized updates to the existing entity
         applySanitizedValues(existingEvent, input);
 
+        // Move stored images if the visibility changed
+        LogicResult<Void> visibilityResult =
+                mediaService.applyVisibility(existingEvent.getMediaList(), input.visibility());
+        if (!"200".equals(visibilityResult.getCode())) {
+            return visibilityResult;
+        }
+
         // Update or delete existing medias
         List<Media> medias = existingEvent.getMediaList();
 
@@ -362,7 +513,7 @@ public class EventService extends AbstractActivityService {
                 processUpdateMedias(
                         removedMediaIdsJson,
                         videoUrl,
-                        files,
+                        stagedFiles,
                         existingEvent.getMediaList(),
                         existingEvent.getTitle(),
                         eventId,
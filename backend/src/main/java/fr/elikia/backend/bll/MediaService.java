@@ -1,20 +1,34 @@
 package fr.elikia.backend.bll;
 
+import fr.elikia.backend.bll.storage.ChunkedUploadService;
+import fr.elikia.backend.bll.storage.ImageHeader;
+import fr.elikia.backend.bll.storage.MediaDerivativeService;
+import fr.elikia.backend.bll.storage.MediaStorageService;
+import fr.elikia.backend.bll.storage.StagedFile;
 import fr.elikia.backend.bo.*;
+import fr.elikia.backend.bo.enums.ActivityOwnerType;
+import fr.elikia.backend.bo.enums.Visibility;
 import fr.elikia.backend.dao.idao.*;
 import fr.elikia.backend.security.InputSanitizer;
 import jakarta.transaction.Transactional;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.InputStreamSource;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Service responsible for validating, creating, updating and deleting Media entities.
@@ -24,18 +38,20 @@ import java.util.Set;
  * - Validation of images and YouTube videos
  * - Resolution of parent entities (News, Event, Workshop, Achievement)
  * - Attachment of Media to exactly one parent entity
+ * - Staging of uploaded files before the Media metadata is persisted
+ * - Release of stored files once no Media references them anymore
+ * - Triggering of background thumbnail generation for new images
  */
 @Service
 public class MediaService {
     /** CONSTANTS*/
-    // Default title used when no owner title is available
-    private static final String DEFAULT_MEDIA_TITLE = "media";
     // Allowed image file extensions
     private static final Set<String> ALLOWED_IMAGE_EXTENSIONS =
             Set.of(".jpg", ".jpeg", ".png");
-    // Root directory where all uploaded media files are stored
-    @Value("${media.storage.path}")
-    private String mediaStorageRoot;
+    // Largest accepted image side, read from the file header
+    private static final int MAX_IMAGE_DIMENSION = 10_000;
+    // Largest accepted resolution, bounds the memory needed to decode an image
+    private static final long MAX_IMAGE_PIXELS = 40_000_000L;
 
     // IDAO dependencies used to resolve parent entities
     private final IDAONews idaoNews;
@@ -43,36 +59,143 @@ public class MediaService {
     private final IDAOWorkshop idaoWorkshop;
     private final IDAOAchievement idaoAchievement;
     private final IDAOMedia idaoMedia;
+    // Physical storage of uploaded files
+    private final MediaStorageService mediaStorageService;
+    // Background generation of image variants
+    private final MediaDerivativeService mediaDerivativeService;
+    // Resumable uploads of large files
+    private final ChunkedUploadService chunkedUploadService;
+    // Maximum number of uploaded files written to disk concurrently
+    private final int ingestionParallelism;
 
 
     public MediaService(IDAONews idaoNews,
                         IDAOEvent idaoEvent,
                         IDAOWorkshop idaoWorkshop,
-                        IDAOAchievement idaoAchievement, IDAOMedia idaoMedia) {
+                        IDAOAchievement idaoAchievement, IDAOMedia idaoMedia,
+                        MediaStorageService mediaStorageService,
+                        MediaDerivativeService mediaDerivativeService,
+                        ChunkedUploadService chunkedUploadService,
+                        @Value("${media.ingestion.parallelism:4}") int ingestionParallelism) {
 
         this.idaoNews = idaoNews;
         this.idaoEvent = idaoEvent;
         this.idaoWorkshop = idaoWorkshop;
         this.idaoAchievement = idaoAchievement;
         this.idaoMedia = idaoMedia;
+        this.mediaStorageService = mediaStorageService;
+        this.mediaDerivativeService = mediaDerivativeService;
+        this.chunkedUploadService = chunkedUploadService;
+        this.ingestionParallelism = ingestionParallelism;
     }
 
     /**
-     * Creates a Media entity from an uploaded file and attaches it to exactly one parent entity
+     * Validates uploaded files and streams them to the staging area.
+
+     * This is the first phase of an upload and must be called before
+     * any transaction is opened, so that no database connection is held
+     * while files are written to disk.
+
+     * Business rules:
+     * - Only JPG, JPEG and PNG images are accepted
+     * - The file content must start with a JPEG or PNG header matching its extension,
+     *   and declare dimensions within MAX_IMAGE_DIMENSION and MAX_IMAGE_PIXELS;
+     *   this is checked on the first bytes, before anything is written to disk
+     * - Either every file is staged or none is (already staged files are dropped)
+     * - Several files are validated and written concurrently on virtual threads,
+     *   at most ingestionParallelism at a time; the staged files keep the upload order
+     * - Files are named after their content digest, so identical images share one file
+     * - Files of members-only owners go to restricted storage (signed URLs only)
+     *
+     * @param files Uploaded image files (nullable)
+     * @param visibility Visibility of the owning entity
+     *
+     * @return LogicResult containing the staged files or an error
+     */
+    public LogicResult<List<StagedFile>> stageFiles(List<MultipartFile> files, Visibility visibility) {
+        LogicResult<List<StagedFile>> result = validationError();
+        boolean restricted = visibility == Visibility.MEMBER_ONLY;
+
+        List<StagedFile> stagedFiles = files == null || files.isEmpty()
+                ? new ArrayList<>()
+                : files.size() == 1 || ingestionParallelism <= 1
+                        ? stageSequentially(files, restricted, result)
+                        : stageInParallel(files, restricted, result);
+
+        if (stagedFiles == null) {
+            return result;
+        }
+
+        result.setCode("200");
+        result.setMessage("Files staged successfully");
+        result.setData(stagedFiles);
+
+        return result;
+    }
+
+
+    /**
+     * Turns completed chunked uploads into staged files.
+
+     * Business rules:
+     * - Every identifier must designate a completed upload, consumed here
+     * - Only JPG, JPEG and PNG images are accepted, with the same header checks as {@link #stageFiles}
+     * - Either every upload is staged or none is (consumed uploads are dropped)
+     * - Files of members-only owners go to restricted storage (signed URLs only)
+     *
+     * @param uploadIds Identifiers of completed uploads (nullable)
+     * @param visibility Visibility of the owning entity
+     *
+     * @return LogicResult containing the staged files or an error
+     */
+    public LogicResult<List<StagedFile>> claimUploads(List<String> uploadIds, Visibility visibility) {
+        LogicResult<List<StagedFile>> result = validationError();
+        List<StagedFile> stagedFiles = new ArrayList<>();
+        boolean restricted = visibility == Visibility.MEMBER_ONLY;
+
+        if (uploadIds != null) {
+            for (String uploadId : uploadIds) {
+                ChunkedUploadService.CompletedUpload upload = chunkedUploadService.claim(uploadId);
+                if (upload == null) {
+                    mediaStorageService.discardAll(stagedFiles);
+                    result.setMessage("Upload not found or not completed");
+                    return result;
+                }
+
+                String extension = imageExtension(upload.fileName(), result);
+                if (extension == null
+                        || !isValidImageContent(new FileSystemResource(upload.stagedPath()), extension, result)) {
+                    stagedFiles.add(new StagedFile(upload.stagedPath(), upload.fileName()));
+                    mediaStorageService.discardAll(stagedFiles);
+                    return result;
+                }
+
+                stagedFiles.add(mediaStorageService.stageCompleted(
+                        upload.stagedPath(), upload.sha256(), extension, restricted));
+            }
+        }
+
+        result.setCode("200");
+        result.setMessage("Uploads staged successfully");
+        result.setData(stagedFiles);
+
+        return result;
+    }
+
+
+    /**
+     * Creates a Media entity from a staged file and attaches it to exactly one parent entity
 
      * Responsibilities:
-     * - Validate the uploaded file
      * - Enforce ownership rule (exactly one parent)
-     * - Generate a safe and unique file name using existing helpers
-     * - Store the file physically on disk
      * - Create and persist the Media entity
 
      * Business rules:
      * - Exactly one owner identifier must be provided
-     * - Only JPG, JPEG and PNG images are accepted
-     * - A Media is created only if the file is successfully stored
+     * - The file must have been staged by {@link #stageFiles(List, Visibility)};
+     *   it is promoted by MediaStorageService once the transaction commits
      *
-     * @param file Uploaded image file
+     * @param stagedFile Staged image file (nullable for video media)
      * @param caption Optional media caption
      * @param newsId Identifier of the owning News (nullable)
      * @param eventId Identifier of the owning Event (nullable)
@@ -82,7 +205,7 @@ public class MediaService {
      * @return LogicResult containing the created Media or an error
      */
     @Transactional
-    public LogicResult<Media> createMedia(MultipartFile file,
+    public LogicResult<Media> createMedia(StagedFile stagedFile,
                                           String videoUrl,
                                           String caption,
                                           Long newsId,
@@ -111,19 +234,8 @@ public class MediaService {
             return result;
         }
 
-        String ownerTitle = resolveOwnerTitle(
-                newsId, eventId, workshopId, achievementId
-        );
-
         // ---------- Image upload ----------
-        String imagePath = null;
-
-        if (file != null && !file.isEmpty()) {
-            imagePath = storeFileOnDisk(file, ownerTitle, result);
-            if (imagePath == null) {
-                return result;
-            }
-        }
+        String imagePath = stagedFile != null ? stagedFile.fileName() : null;
 
         // ---------- Global media validation ----------
         if (isInvalidMedia(imagePath, videoUrl, result)) {
@@ -145,6 +257,7 @@ public class MediaService {
             result.setMessage("Failed to persist Media entity");
             return result;
         }
+        mediaDerivativeService.generateAfterCommit(List.of(created));
 
         result.setCode("201");
         result.setMessage("Media created successfully");
@@ -154,6 +267,141 @@ public class MediaService {
     }
 
 
+    /**
+     * Creates all Media of one owner in a single batch.
+
+     * Responsibilities:
+     * - Validate caption, video URL and every staged file up front
+     * - Load the owner entity once for the whole batch
+     * - Insert all Media rows in one JDBC batch
+
+     * Business rules:
+     * - Each staged file creates exactly one Media
+     * - A non-blank video URL creates one additional video Media
+     * - Nothing is inserted if any input is invalid
+     *
+     * @param ownerType Type of the owning entity
+     * @param ownerId Identifier of the owning entity
+     * @param stagedFiles Staged image files (nullable)
+     * @param videoUrl Optional YouTube video URL
+     * @param caption Caption shared by all created media
+     *
+     * @return LogicResult containing the created Media or an error
+     */
+    @Transactional
+    public LogicResult<List<Media>> createMedias(ActivityOwnerType ownerType,
+                                                 Long ownerId,
+                                                 List<StagedFile> stagedFiles,
+                                                 String videoUrl,
+                                                 String caption) {
+        // Prepare a default validation error result
+        LogicResult<List<Media>> result = validationError();
+
+        // ---------- Validate shared inputs once ----------
+        String sanitizedCaption = caption != null
+                ? InputSanitizer.sanitize(caption)
+                : null;
+        if (isInvalidCaption(sanitizedCaption, result)) {
+            return result;
+        }
+
+        if (isInvalidVideoUrl(videoUrl, result)) {
+            return result;
+        }
+
+        List<StagedFile> files = stagedFiles != null ? stagedFiles : List.of();
+        for (StagedFile file : files) {
+            if (file == null || isInvalidMedia(file.fileName(), null, result)) {
+                return result;
+            }
+        }
+
+        // ---------- Build entities ----------
+        List<Media> medias = new ArrayList<>();
+
+        if (videoUrl != null && !videoUrl.isBlank()) {
+            Media video = new Media();
+            video.setCaption(sanitizedCaption);
+            video.setVideoUrl(videoUrl);
+            medias.add(video);
+        }
+
+        for (StagedFile file : files) {
+            Media image = new Media();
+            image.setCaption(sanitizedCaption);
+            image.setImagePath(file.fileName());
+            medias.add(image);
+        }
+
+        if (medias.isEmpty()) {
+            result.setMessage("A media must contain at least an image or a video");
+            return result;
+        }
+
+        // ---------- Resolve the owner once ----------
+        if (!attachOwnerToAll(medias, ownerType, ownerId, result)) {
+            return result;
+        }
+
+        List<Media> created = idaoMedia.createAll(medias);
+        if (created.size() != medias.size()) {
+            result.setMessage("Failed to persist Media entities");
+            return result;
+        }
+        mediaDerivativeService.generateAfterCommit(created);
+
+        result.setCode("201");
+        result.setMessage("Medias created successfully");
+        result.setData(created);
+
+        return result;
+    }
+
+
+    /**
+     * Moves the stored images of an owner to the storage matching its visibility.
+
+     * Business rules:
+     * - Members-only media are stored under the restricted prefix, public media are not
+     * - Files are linked to their new key before commit; the old key is released after commit
+     * - Variants are regenerated in the background under the new key
+     *
+     * @param medias Media of the owning entity (nullable)
+     * @param visibility New visibility of the owning entity
+     *
+     * @return LogicResult indicating success or failure
+     */
+    public LogicResult<Void> applyVisibility(List<Media> medias, Visibility visibility) {
+        boolean restricted = visibility == Visibility.MEMBER_ONLY;
+        List<Media> moved = new ArrayList<>();
+
+        if (medias != null) {
+            for (Media media : medias) {
+                String imagePath = media.getImagePath();
+                if (imagePath == null || MediaStorageService.isRestricted(imagePath) == restricted) {
+                    continue;
+                }
+
+                String targetPath = MediaStorageService.withRestriction(imagePath, restricted);
+                try {
+                    mediaStorageService.copy(imagePath, targetPath);
+                } catch (IOException e) {
+                    return new LogicResult<>("500", "Failed to move media files", null);
+                }
+
+                media.setImagePath(targetPath);
+                media.setThumbnailPath(null);
+                media.setDisplayPath(null);
+                releaseImage(imagePath);
+                moved.add(media);
+            }
+        }
+
+        mediaDerivativeService.generateAfterCommit(moved);
+        return new LogicResult<>("200", "Media visibility applied", null);
+    }
+
+
     /**
      * Retrieve media by its unique identifier
      */
@@ -171,10 +419,11 @@ public class MediaService {
 
 
     /**
-     * Update media
+     * Update media.
+     * A replacement image must already be staged (see {@link #stageFiles(List, Visibility)}).
      */
     public LogicResult<Void> updateMedia(Long mediaId,
-                                         MultipartFile file,
+                                         StagedFile stagedFile,
                                          String videoUrl,
                                          String caption) {
         // Validate the identifier
@@ -207,36 +456,25 @@ public class MediaService {
             existingMedia.setVideoUrl(videoUrl);
         }
 
-        // ---------- Resolve existing owner ----------
-        Long newsId = null;
-        Long eventId = null;
-        Long workshopId = null;
-        Long achievementId = null;
-
-        if (existingMedia.getNews() != null) {
-            newsId = existingMedia.getNews().getNewsId();
-        } else if (existingMedia.getEvent() != null) {
-            eventId = existingMedia.getEvent().getEventId();
-        } else if (existingMedia.getWorkshop() != null) {
-            workshopId = existingMedia.getWorkshop().getWorkshopId();
-        } else if (existingMedia.getAchievement() != null) {
-            achievementId = existingMedia.getAchievement().getAchievementId();
-        } else {
+        // ---------- Check existing owner ----------
+        if (existingMedia.getNews() == null
+                && existingMedia.getEvent() == null
+                && existingMedia.getWorkshop() == null
+                && existingMedia.getAchievement() == null) {
             return new LogicResult<>("500",
                     "Media has no parent entity, data integrity error", null);
         }
 
-        String ownerTitle = resolveOwnerTitle(
-                newsId, eventId, workshopId, achievementId
-        );
-
         // ---------- Image replacement ----------
-        if (file != null && !file.isEmpty()) {
-            String newImagePath = storeFileOnDisk(file, ownerTitle, result);
-            if (newImagePath == null) {
-                return result;
-            }
-            existingMedia.setImagePath(newImagePath);
+        String replacedImagePath = null;
+        boolean imageReplaced = stagedFile != null
+                && !stagedFile.fileName().equals(existingMedia.getImagePath());
+        if (imageReplaced) {
+            replacedImagePath = existingMedia.getImagePath();
+            existingMedia.setImagePath(stagedFile.fileName());
+            // Variants of the previous image no longer apply
+            existingMedia.setThumbnailPath(null);
+            existingMedia.setDisplayPath(null);
         }
 
         // ---------- Final validation ----------
@@ -250,21 +488,27 @@ public class MediaService {
         if (updated == null) {
             return new LogicResult<>("500", "Failed to update media", null);
         }
+        releaseImage(replacedImagePath);
+        if (imageReplaced) {
+            mediaDerivativeService.generateAfterCommit(List.of(updated));
+        }
 
         return new LogicResult<>("200", "Media updated successfully", null);
     }
 
     /**
-     * Delete media
+     * Delete media.
+     * The stored image is deleted as well once no other Media references it.
      */
     public LogicResult<Void> deleteMedia (Long mediaId) {
         if(mediaId == null || mediaId <= 0) {
             return new LogicResult<>("400", "The media identifier is required", null);
         }
-        boolean isDeleted = idaoMedia.deleteById(mediaId);
-        if(!isDeleted) {
+        Media media = idaoMedia.findById(mediaId);
+        if(media == null || !idaoMedia.deleteById(mediaId)) {
             return new LogicResult<>("404", "Media not deleted", null);
         }
+        releaseImage(media.getImagePath());
         return new LogicResult<>("200", "Media deleted successfully", null);
     }
 
@@ -325,60 +569,17 @@ public class MediaService {
 
 
     // =========================================================
-    // Helper (resolve owner title for file name generation
+    // Helper (stored file reference counting)
     // =========================================================
     /**
-     * Resolves a human-readable title from the parent entity.
-
-     * This title is used to generate meaningful file names.
-     */
-    private String resolveOwnerTitle(Long newsId,
-                                     Long eventId,
-                                     Long workshopId,
-                                     Long achievementId) {
-
-        if (newsId != null) {
-            News news = idaoNews.findById(newsId);
-            return news != null ? news.getTitle() : DEFAULT_MEDIA_TITLE;
-        }
-
-        if (eventId != null) {
-            Event event = idaoEvent.findById(eventId);
-            return event != null ? event.getTitle() : DEFAULT_MEDIA_TITLE;
-        }
-
-        if (workshopId != null) {
-            Workshop workshop = idaoWorkshop.findById(workshopId);
-            return workshop != null ? workshop.getTitle() : DEFAULT_MEDIA_TITLE;
-        }
-
-        if (achievementId != null) {
-            Achievement achievement = idaoAchievement.findById(achievementId);
-            return achievement != null ? achievement.getTitle() : DEFAULT_MEDIA_TITLE;
-        }
-
-        return DEFAULT_MEDIA_TITLE;
-    }
-
-
-    /**
-     * Generate a safe file name
+     * Releases a stored image: the file is deleted after commit
+     * if no Media row references its content key anymore.
      */
-    private String generateSafeFileName(String title, String originalFileName) {
-
-        String baseName = title
-                .toLowerCase()
-                .replaceAll("[^a-z0-9 ]", "")
-                .trim()
-                .replaceAll("\\s+", "-");
-
-        String extension = originalFileName.substring(
-                originalFileName.lastIndexOf(".")
+    private void releaseImage(String imagePath) {
+        mediaStorageService.releaseWhenUnreferenced(
+                imagePath,
+                () -> idaoMedia.countByImagePath(imagePath)
         );
-
-        long timestamp = System.currentTimeMillis();
-
-        return baseName + "-" + timestamp + extension;
     }
 
 
@@ -610,22 +811,169 @@ public class MediaService {
     }
 
 
-    private String storeFileOnDisk(MultipartFile file,
-                                   String ownerTitle,
-                                   LogicResult<?> result) {
+    /**
+     * Loads the owner entity once and links every Media of a batch to it.
 
-        if (file == null || file.isEmpty()) {
-            result.setMessage("Uploaded file is required");
-            return null;
+     * Only the owning side (Media) is set: batch-inserted Media are not
+     * managed and must not be added to the owner's cascading collection.
+     *
+     * @return true if the owner exists, false otherwise
+     */
+    private boolean attachOwnerToAll(List<Media> medias,
+                                     ActivityOwnerType ownerType,
+                                     Long ownerId,
+                                     LogicResult<?> result) {
+
+        if (ownerType == null || ownerId == null) {
+            result.setMessage("A media must be linked to exactly one parent entity");
+            return false;
         }
 
-        String originalFileName = file.getOriginalFilename();
-        if (originalFileName == null || originalFileName.isBlank()) {
-            result.setMessage("Invalid file name");
+        switch (ownerType) {
+            case NEWS -> {
+                News news = idaoNews.findById(ownerId);
+                if (news == null) {
+                    result.setMessage("No news found ");
+                    return false;
+                }
+                medias.forEach(media -> media.setNews(news));
+            }
+            case EVENT -> {
+                Event event = idaoEvent.findById(ownerId);
+                if (event == null) {
+                    result.setMessage("No Event found");
+                    return false;
+                }
+                medias.forEach(media -> media.setEvent(event));
+            }
+            case WORKSHOP -> {
+                Workshop workshop = idaoWorkshop.findById(ownerId);
+                if (workshop == null) {
+                    result.setMessage("No workshop found");
+                    return false;
+                }
+                medias.forEach(media -> media.setWorkshop(workshop));
+            }
+            case ACHIEVEMENT -> {
+                Achievement achievement = idaoAchievement.findById(ownerId);
+                if (achievement == null) {
+                    result.setMessage("No achievement found");
+                    return false;
+                }
+                medias.forEach(media -> media.setAchievement(achievement));
+            }
+        }
+
+        return true;
+    }
+
+
+    /**
+     * Stages files one after another, stopping at the first invalid one.
+     *
+     * @return the staged files, or null if one failed (result is filled, nothing is kept)
+     */
+    private List<StagedFile> stageSequentially(List<MultipartFile> files,
+                                               boolean restricted,
+                                               LogicResult<?> result) {
+        List<StagedFile> stagedFiles = new ArrayList<>();
+
+        for (MultipartFile file : files) {
+            StagedFile stagedFile = stageFile(file, restricted, result);
+            if (stagedFile == null) {
+                mediaStorageService.discardAll(stagedFiles);
+                return null;
+            }
+            stagedFiles.add(stagedFile);
+        }
+
+        return stagedFiles;
+    }
+
+
+    /**
+     * Stages files concurrently: one virtual thread per file, ingestionParallelism at a time.
+     * Files not started yet are skipped as soon as one fails.
+     *
+     * @return the staged files in upload order, or null if one failed
+     * (result holds the first error in upload order, nothing is kept)
+     */
+    private List<StagedFile> stageInParallel(List<MultipartFile> files,
+                                             boolean restricted,
+                                             LogicResult<?> result) {
+        Semaphore permits = new Semaphore(ingestionParallelism);
+        AtomicBoolean failed = new AtomicBoolean();
+        List<Future<LogicResult<StagedFile>>> outcomes = new ArrayList<>(files.size());
+
+        // Closing the executor waits for every submitted file
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (MultipartFile file : files) {
+                outcomes.add(executor.submit(() -> {
+                    LogicResult<StagedFile> outcome = validationError();
+                    permits.acquire();
+                    try {
+                        if (failed.get()) {
+                            // Skipped: another file already failed
+                            outcome.setMessage(null);
+                        } else {
+                            outcome.setData(stageFile(file, restricted, outcome));
+                        }
+                    } finally {
+                        permits.release();
+                    }
+                    if (outcome.getData() == null) {
+                        failed.set(true);
+                    }
+                    return outcome;
+                }));
+            }
+        }
+
+        List<StagedFile> stagedFiles = new ArrayList<>(files.size());
+        String error = null;
+        boolean complete = true;
+
+        for (Future<LogicResult<StagedFile>> future : outcomes) {
+            LogicResult<StagedFile> outcome = outcomeOf(future);
+            if (outcome.getData() != null) {
+                stagedFiles.add(outcome.getData());
+                continue;
+            }
+            complete = false;
+            if (error == null) {
+                error = outcome.getMessage();
+            }
+        }
+
+        if (!complete) {
+            mediaStorageService.discardAll(stagedFiles);
+            result.setMessage(error != null ? error : "Failed to store media file on disk");
             return null;
         }
 
-        String lowerFileName = originalFileName.toLowerCase();
+        return stagedFiles;
+    }
+
+
+    private LogicResult<StagedFile> outcomeOf(Future<LogicResult<StagedFile>> future) {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            return new LogicResult<>("500", "Failed to store media file on disk", null);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new LogicResult<>("500", "Failed to store media file on disk", null);
+        }
+    }
+
+
+    /**
+     * Validates the extension of an uploaded image.
+     *
+     * @return the lowercase extension including the leading dot, or null if not allowed
+     */
+    private String imageExtension(String fileName, LogicResult<?> result) {
+        String lowerFileName = fileName.toLowerCase();
 
         boolean validExtension = ALLOWED_IMAGE_EXTENSIONS
                 .stream()
@@ -636,20 +984,67 @@ public class MediaService {
             return null;
         }
 
-        String generatedFileName =
-                generateSafeFileName(ownerTitle, originalFileName);
+        return lowerFileName.substring(lowerFileName.lastIndexOf("."));
+    }
 
-        try {
-            Path storageDirectory = Paths.get(mediaStorageRoot);
-            Files.createDirectories(storageDirectory);
 
-            Files.copy(
-                    file.getInputStream(),
-                    storageDirectory.resolve(generatedFileName),
-                    StandardCopyOption.REPLACE_EXISTING
-            );
+    /**
+     * Validates the image header (format and dimensions) without decoding the pixels.
+     * Only the first bytes of the file are read.
+     */
+    private boolean isValidImageContent(InputStreamSource source, String extension, LogicResult<?> result) {
+        ImageHeader header;
+        try (InputStream inputStream = source.getInputStream()) {
+            header = ImageHeader.read(inputStream);
+        } catch (IOException e) {
+            result.setMessage("Failed to read uploaded file");
+            return false;
+        }
 
-            return generatedFileName;
+        String expectedFormat = ".png".equals(extension) ? ImageHeader.PNG : ImageHeader.JPEG;
+        if (header == null || !expectedFormat.equals(header.format())) {
+            result.setMessage("File content is not a valid JPG or PNG image");
+            return false;
+        }
+
+        if (header.width() > MAX_IMAGE_DIMENSION
+                || header.height() > MAX_IMAGE_DIMENSION
+                || header.pixelCount() > MAX_IMAGE_PIXELS) {
+            result.setMessage("Image dimensions are too large");
+            return false;
+        }
+
+        return true;
+    }
+
+
+    /**
+     * Validates a single uploaded file and streams it to the staging area.
+     *
+     * @return the staged file, or null if validation or writing failed
+     */
+    private StagedFile stageFile(MultipartFile file,
+                                 boolean restricted,
+                                 LogicResult<?> result) {
+
+        if (file == null || file.isEmpty()) {
+            result.setMessage("Uploaded file is required");
+            return null;
+        }
+
+        String originalFileName = file.getOriginalFilename();
+        if (originalFileName == null || originalFileName.isBlank()) {
+            result.setMessage("Invalid file name");
+            return null;
+        }
+
+        String extension = imageExtension(originalFileName, result);
+        if (extension == null || !isValidImageContent(file, extension, result)) {
+            return null;
+        }
+
+        try {
+            return mediaStorageService.stage(file, extension, restricted);
 
         } catch (IOException e) {
             result.setMessage("Failed to store media file on disk");
@@ -657,4 +1052,4 @@ public class MediaService {
         }
     }
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,62 @@
+package fr.elikia.backend.bll;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Position of the last row of a keyset page of the member administration list.
+
+ * Unlike PageCursor, the sort key depends on the order chosen by the admin
+ * (registration date or last name), so the cursor carries the order it was built for.
+
+ * Business rules:
+ * - The cursor is exposed to clients as an opaque URL-safe token
+ * - A token that cannot be decoded, or built for another order, is rejected
+ *
+ * @param sort order of the list the cursor belongs to
+ * @param sortKey sort value of the last row (ISO date or last name)
+ * @param userId identifier of the last row, breaks ties between equal sort values
+ */
+public record MemberCursor(String sort, String sortKey, Long userId) {
+
+    /** CONSTANTS*/
+    private static final String SEPARATOR = "|";
+
+
+    /**
+     * Encodes the cursor as an opaque token.
+     */
+    public String encode() {
+        String raw = sort + SEPARATOR + sortKey + SEPARATOR + userId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+
+    /**
+     * Decodes a token produced by encode().
+     *
+     * @return the cursor, or null if the token is malformed
+     */
+    public static MemberCursor decode(String token) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            // The last name may contain the separator: the order is before the first one, the id after the last one
+            int first = raw.indexOf(SEPARATOR);
+            int last = raw.lastIndexOf(SEPARATOR);
+            if (first < 0 || last <= first) {
+                return null;
+            }
+            return new MemberCursor(
+                    raw.substring(0, first),
+                    raw.substring(first + 1, last),
+                    Long.valueOf(raw.substring(last + 1))
+            );
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
@@ -7,11 +7,14 @@ import fr.elikia.backend.bo.enums.RegistrationStatus;
 import fr.elikia.backend.dao.idao.IDAOMember;
 import fr.elikia.backend.dao.idao.IDAORole;
 import fr.elikia.backend.dto.AdminUpdateMemberDTO;
+import fr.elikia.backend.dto.CursorPageDTO;
 import fr.elikia.backend.dto.MemberAdminDTO;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
 import java.util.List;
+import java.util.Locale;
 
 /**
  * Service responsible for managing members
@@ -24,6 +27,9 @@ public class MemberService {
     private final IDAORole idaoRole;
     private final EmailService emailService;
     private static final String MEMBERSHIP_PREFIX = "ELK";
+    public static final String SORT_BY_CREATED_AT = "createdAt";
+    public static final String SORT_BY_NAME = "name";
+    private static final int MAX_SEARCH_LENGTH = 100;
 
     public MemberService(IDAOMember idaoMember, IDAORole idaoRole , EmailService emailService) {
         this.idaoMember = idaoMember;
@@ -32,17 +38,101 @@ public class MemberService {
     }
 
     /**
-     * Retrieve all members
+     * Retrieve all members (projections read by the database, no entity is loaded)
      */
     public LogicResult<List<MemberAdminDTO>> findAll() {
-        List<MemberAdminDTO> members = idaoMember.findAll()
-                .stream()
-                .map(MemberAdminDTO::new)
-                .toList();
+        List<MemberAdminDTO> members = idaoMember.findAdminViews();
 
         return new LogicResult<>("200", "Members retrieved", members);
     }
 
+
+    /**
+     * Keyset page of the member administration list
+
+     * Business rules:
+     * - Filtering, search and sorting are done by the database, one page is read at a time
+     * - The status filter is optional
+     * - The search matches a part of the last name, first name, email or membership number, case-insensitive
+     * - The list is sorted by registration date (newest first) or by last name
+     * - The cursor must come from a page of the same sort
+     *
+     * @param status registration status to keep, null for every member
+     * @param search text to look for, null or blank for no search
+     * @param sort SORT_BY_CREATED_AT or SORT_BY_NAME
+     * @param cursor position returned by the previous page, null for the first page
+     * @param size page size
+     */
+    public LogicResult<CursorPageDTO<MemberAdminDTO>> findMemberScroll(
+            RegistrationStatus status,
+            String search,
+            String sort,
+            String cursor,
+            int size
+    ) {
+        LogicResult<CursorPageDTO<MemberAdminDTO>> result = new LogicResult<>("400", null);
+
+        if (!SORT_BY_CREATED_AT.equals(sort) && !SORT_BY_NAME.equals(sort)) {
+            result.setMessage("The sort must be " + SORT_BY_CREATED_AT + " or " + SORT_BY_NAME);
+            return result;
+        }
+        if (search != null && search.length() > MAX_SEARCH_LENGTH) {
+            result.setMessage("The search must not exceed " + MAX_SEARCH_LENGTH + " characters");
+            return result;
+        }
+        if (size < 1 || size > PageCursor.MAX_PAGE_SIZE) {
+            result.setMessage("The page size must be between 1 and " + PageCursor.MAX_PAGE_SIZE);
+            return result;
+        }
+
+        MemberCursor position = MemberCursor.decode(cursor);
+        if (cursor != null && !cursor.isBlank() && (position == null || !sort.equals(position.sort()))) {
+            result.setMessage("Invalid page cursor");
+            return result;
+        }
+
+        String pattern = toSearchPattern(search);
+        List<MemberAdminDTO> members;
+
+        // One extra row tells whether a next page exists
+        if (SORT_BY_NAME.equals(sort)) {
+            members = idaoMember.findAdminViewsByName(
+                    status,
+                    pattern,
+                    position == null ? null : position.sortKey(),
+                    position == null ? null : position.userId(),
+                    size + 1
+            );
+        } else {
+            LocalDate createdAt;
+            try {
+                createdAt = position == null ? null : LocalDate.parse(position.sortKey());
+            } catch (DateTimeParseException e) {
+                result.setMessage("Invalid page cursor");
+                return result;
+            }
+            members = idaoMember.findAdminViewsByCreatedAt(
+                    status,
+                    pattern,
+                    createdAt,
+                    position == null ? null : position.userId(),
+                    size + 1
+            );
+        }
+
+        CursorPageDTO<MemberAdminDTO> page = CursorPageDTO.of(members, size, member -> new MemberCursor(
+                sort,
+                SORT_BY_NAME.equals(sort) ? member.getLastName() : member.getCreatedAt().toString(),
+                member.getUserId()
+        ).encode());
+
+        return new LogicResult<>(
+                "200",
+                page.content().isEmpty() ? "No member found" : "Members retrieved",
+                page
+        );
+    }
+
     /**
      * Update member status and role
      */
@@ -100,11 +190,8 @@ public class MemberService {
      *
      * @return the list of pending membership requests
      */
-    public LogicResult<List<Member>> findPendingMembershipRequests() {
-        List<Member> pendingMembers = idaoMember.findAll()
-                .stream()
-                .filter(member -> RegistrationStatus.PENDING.equals(member.getStatus()))
-                .toList();
+    public LogicResult<List<MemberAdminDTO>> findPendingMembershipRequests() {
+        List<MemberAdminDTO> pendingMembers = idaoMember.findAdminViewsByStatus(RegistrationStatus.PENDING);
 
         return new LogicResult<>("200", "Demandes d'adhésion récupérées avec succès", pendingMembers);
     }
@@ -221,4 +308,24 @@ public class MemberService {
         }
         return idaoMember.findById(id);
     }
+
+
+    /**
+     * Converts a search text into a case-insensitive LIKE pattern,
+     * escaping the wildcards typed by the admin ('!' is the escape character).
+     *
+     * @return the pattern, or null when there is nothing to search
+     */
+    private static String toSearchPattern(String search) {
+        if (search == null || search.isBlank()) {
+            return null;
+        }
+
+        String escaped = search.trim()
+                .toLowerCase(Locale.ROOT)
+                .replace("!", "!!")
+                .replace("%", "!%")
+                .replace("_", "!_");
+        return "%" + escaped + "%";
+    }
 }
@@ -1,9 +1,15 @@
 package fr.elikia.backend.bll;
 
+import fr.elikia.backend.bll.schedule.NewsSchedulerService;
+import fr.elikia.backend.bll.storage.MediaStorageService;
+import fr.elikia.backend.bll.storage.StagedFile;
 import fr.elikia.backend.bo.*;
+import fr.elikia.backend.bo.enums.ActivityOwnerType;
 import fr.elikia.backend.bo.enums.ContentStatus;
 import fr.elikia.backend.bo.enums.Visibility;
 import fr.elikia.backend.dao.idao.IDAONews;
+import fr.elikia.backend.dto.CursorPageDTO;
+import fr.elikia.backend.dto.NewsCardDTO;
 import fr.elikia.backend.dto.NewsDTO;
 import fr.elikia.backend.security.InputSanitizer;
 import jakarta.transaction.Transactional;
@@ -15,6 +21,7 @@ import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -30,11 +37,17 @@ public class NewsService {
     // Dependencies
     private final IDAONews idaoNews;
     private final MediaService mediaService;
+    private final MediaStorageService mediaStorageService;
+    private final NewsSchedulerService newsSchedulerService;
 
 
-    public NewsService(IDAONews idaoNews, MediaService mediaService) {
+    public NewsService(IDAONews idaoNews, MediaService mediaService,
+                       MediaStorageService mediaStorageService,
+                       NewsSchedulerService newsSchedulerService) {
         this.idaoNews = idaoNews;
         this.mediaService = mediaService;
+        this.mediaStorageService = mediaStorageService;
+        this.newsSchedulerService = newsSchedulerService;
     }
 
     /**
@@ -42,11 +55,12 @@ public class NewsService {
 
      * Workflow:
      * - Validate and sanitize NewsDTO
+     * - Stream uploaded files to the staging area (no transaction open yet)
+     * - In a short transaction:
      * - Create and persist the News entity
-     * - For each uploaded file:
-     * - Delegate Media creation to MediaService
-     * - Attach Media to the News
+     * - Create all Media of the news in one batch through MediaService
      * - Persist final News with its medias
+     * - Promote staged files on commit, drop them on rollback
 
      * Business rules:
      * - News must be created before any Media
@@ -58,7 +72,6 @@ public class NewsService {
      *
      * @return LogicResult indicating success or failure
      */
-    @Transactional
     public LogicResult<Void> createNews(
             NewsDTO newsDTO,
             List<MultipartFile> files) {
@@ -73,6 +86,27 @@ public class NewsService {
             return result;
         }
 
+        // Stage uploaded files before any transaction is opened
+        List<StagedFile> stagedFiles = stageUploadedFiles(files, newsDTO.getUploadIds(), input.visibility(), result);
+        if (stagedFiles == null) {
+            return result;
+        }
+
+        return mediaStorageService.executeWithStagedFiles(
+                stagedFiles,
+                () -> persistNewNews(input, stagedFiles)
+        );
+    }
+
+
+    /**
+     * Persists a new News and the metadata of its medias.
+     * Runs inside the short transaction opened by MediaStorageService.
+     */
+    private LogicResult<Void> persistNewNews(
+            SanitizedNewsInput input,
+            List<StagedFile> stagedFiles) {
+
         // Create News entity
         News news = new News();
         news.setTitle(input.title());
@@ -95,37 +129,25 @@ public class NewsService {
             throw new IllegalStateException("news identifier was not generated");
         }
 
-        // Handle uploaded media files
-        if (files != null && !files.isEmpty()) {
+        // Create all media of the news in a single batch
+        if (!stagedFiles.isEmpty()) {
 
-            for (MultipartFile file : files) {
-
-                // Delegate full creation to MediaService
-                LogicResult<Media> mediaResult =
-                        mediaService.createMedia(
-                                file,
-                                null, // videoUrl
-                                news.getTitle(), // caption
-                                generatedNewsId,
-                                null,
-                                null,
-                                null
-                        );
-
-                // Stop immediately if one media creation fails
-                if (!"201".equals(mediaResult.getCode())) {
-                    return new LogicResult<>(
-                            mediaResult.getCode(),
-                            "Media creation failed: " + mediaResult.getMessage(),
-                            null
+            LogicResult<List<Media>> mediaResult =
+                    mediaService.createMedias(
+                            ActivityOwnerType.NEWS,
+                            generatedNewsId,
+                            stagedFiles,
+                            null, // videoUrl
+                            news.getTitle() // caption
                     );
-                }
-
-                // Retrieve created Media
-                Media createdMedia = mediaResult.getData();
 
-                // Attach media to news (bidirectional association)
-                news.addMedia(createdMedia);
+            // Stop immediately if the media creation fails
+            if (!"201".equals(mediaResult.getCode())) {
+                return new LogicResult<>(
+                        mediaResult.getCode(),
+                        "Media creation failed: " + mediaResult.getMessage(),
+                        null
+                );
             }
         }
 
@@ -136,6 +158,11 @@ public class NewsService {
             return new LogicResult<>("500", "Failed to finalize News creation", null);
         }
 
+        // Arm the publication timer of a planned news
+        if (status == ContentStatus.CREATED) {
+            newsSchedulerService.schedulePublication(news.getPublishedAt());
+        }
+
         // Return success
         return new LogicResult<>(
                 "201",
@@ -173,10 +200,19 @@ public class NewsService {
 
     /**
      * Retrieve last published news (for home page)
+     * Rule:
+     *  The limit is between 1 and PageCursor.MAX_PAGE_SIZE: each limit is cached apart
      */
-    public LogicResult<List<News>> findLastPublishedNews(int limit) {
+    public LogicResult<List<NewsCardDTO>> findLastPublishedNews(int limit) {
+        if (limit < 1 || limit > PageCursor.MAX_PAGE_SIZE) {
+            return new LogicResult<>(
+                    "400",
+                    "The limit must be between 1 and " + PageCursor.MAX_PAGE_SIZE,
+                    null
+            );
+        }
 
-        List<News> news = idaoNews.findLastPublishedNews(limit);
+        List<NewsCardDTO> news = idaoNews.findLastPublishedNews(limit);
 
         if (news.isEmpty()) {
             return new LogicResult<>(
@@ -199,9 +235,9 @@ public class NewsService {
      *
      * @param page page index (0-based)
      * @param size number of items per page
-     * @return LogicResult containing a page of News
+     * @return LogicResult containing a page of news cards
      */
-    public LogicResult<Page<News>> findPublishedNewsPage(
+    public LogicResult<Page<NewsCardDTO>> findPublishedNewsPage(
             int page,
             int size
     ) {
@@ -214,7 +250,7 @@ public class NewsService {
         );
 
         // Call IDAO
-        Page<News> pageResult =
+        Page<NewsCardDTO> pageResult =
                 idaoNews.findPublishedNewsPage(
                         ContentStatus.PUBLISHED,
                         pageable
@@ -243,9 +279,9 @@ public class NewsService {
      *
      * @param page page index (0-based)
      * @param size number of items per page
-     * @return LogicResult containing a page of News
+     * @return LogicResult containing a page of news cards
      */
-    public LogicResult<Page<News>> findAllByContentStatusAndVisibilityAfterOrderByPublishedAtDesc(
+    public LogicResult<Page<NewsCardDTO>> findAllByContentStatusAndVisibilityAfterOrderByPublishedAtDesc(
             int page,
             int size
     ) {
@@ -258,7 +294,7 @@ public class NewsService {
         );
 
         // Call DAO
-        Page<News> pageResult =
+        Page<NewsCardDTO> pageResult =
                 idaoNews.findAllByContentStatusAndVisibilityAfterOrderByPublishedAtDesc(
                         ContentStatus.PUBLISHED,
                         Visibility.MEMBER_ONLY,
@@ -283,6 +319,80 @@ public class NewsService {
     }
 
 
+    /**
+     * Retrieve a keyset page of published news cards, for infinite scroll
+     *
+     * @param cursor cursor returned with the previous page (null for the first page)
+     * @param size number of items per page
+     * @return LogicResult containing the cards and the cursor of the next page
+     */
+    public LogicResult<CursorPageDTO<NewsCardDTO>> findPublishedNewsScroll(
+            String cursor,
+            int size
+    ) {
+        LogicResult<CursorPageDTO<NewsCardDTO>> result = new LogicResult<>("400", null);
+        if (!PageCursor.isValid(cursor, size, result)) {
+            return result;
+        }
+        PageCursor position = PageCursor.decode(cursor);
+
+        // One extra row tells whether a next page exists
+        List<NewsCardDTO> cards = idaoNews.findCardsAfter(
+                ContentStatus.PUBLISHED,
+                position == null ? null : position.sortDate(),
+                position == null ? null : position.id(),
+                size + 1
+        );
+
+        return toScrollResult(cards, size);
+    }
+
+
+    /**
+     * Retrieve a keyset page of published news cards for member space, for infinite scroll
+     * (same visibility rule as the member page)
+     *
+     * @param cursor cursor returned with the previous page (null for the first page)
+     * @param size number of items per page
+     * @return LogicResult containing the cards and the cursor of the next page
+     */
+    public LogicResult<CursorPageDTO<NewsCardDTO>> findMemberNewsScroll(
+            String cursor,
+            int size
+    ) {
+        LogicResult<CursorPageDTO<NewsCardDTO>> result = new LogicResult<>("400", null);
+        if (!PageCursor.isValid(cursor, size, result)) {
+            return result;
+        }
+        PageCursor position = PageCursor.decode(cursor);
+
+        List<NewsCardDTO> cards = idaoNews.findCardsByVisibilityAfter(
+                ContentStatus.PUBLISHED,
+                Visibility.MEMBER_ONLY,
+                position == null ? null : position.sortDate(),
+                position == null ? null : position.id(),
+                size + 1
+        );
+
+        return toScrollResult(cards, size);
+    }
+
+
+    private LogicResult<CursorPageDTO<NewsCardDTO>> toScrollResult(List<NewsCardDTO> cards, int size) {
+        CursorPageDTO<NewsCardDTO> scroll = CursorPageDTO.of(
+                cards,
+                size,
+                card -> new PageCursor(card.publishedAt(), card.newsId()).encode()
+        );
+
+        return new LogicResult<>(
+                "200",
+                scroll.content().isEmpty() ? "No published news found" : "Published news page retrieved",
+                scroll
+        );
+    }
+
+
     /**
      * Retrieve news by its unique identifier
      */
@@ -304,8 +414,10 @@ public class NewsService {
 
      * Workflow:
      * - Validate the news identifier
-     * - Retrieve the existing News
      * - Validate and sanitize input DTO
+     * - Stream uploaded files to the staging area (no transaction open yet)
+     * - In a short transaction:
+     * - Retrieve the existing News
      * - Apply field updates
      * - Update medias if provided
      * - Persist changes
@@ -316,17 +428,11 @@ public class NewsService {
      *
      * @return LogicResult indicating success or failure
      */
-    @Transactional
     public LogicResult<Void> updateNews(Long newsId, NewsDTO newsDTO,  List<MultipartFile> files) {
         // Validate the identifier
         if(newsId == null || newsId <= 0) {
             return new LogicResult<>("400", "Invalid news identifier", null);
         }
-        // Retrieve the existing news
-        News existingNews = idaoNews.findById(newsId);
-        if(existingNews == null) {
-            return new LogicResult<>("404", "News not found", null);
-        }
         // Prepare a default validation error result
         LogicResult<Void> result = validationError();
 
@@ -337,6 +443,34 @@ public class NewsService {
             return result;
         }
 
+        // Stage uploaded files before any transaction is opened
+        List<StagedFile> stagedFiles = stageUploadedFiles(files, newsDTO.getUploadIds(), input.visibility(), result);
+        if (stagedFiles == null) {
+            return result;
+        }
+
+        return mediaStorageService.executeWithStagedFiles(
+                stagedFiles,
+                () -> persistNewsUpdate(newsId, input, stagedFiles)
+        );
+    }
+
+
+    /**
+     * Applies a News update and its media replacements.
+     * Runs inside the short transaction opened by MediaStorageService.
+     */
+    private LogicResult<Void> persistNewsUpdate(
+            Long newsId,
+            SanitizedNewsInput input,
+            List<StagedFile> stagedFiles) {
+
+        // Retrieve the existing news
+        News existingNews = idaoNews.findById(newsId);
+        if(existingNews == null) {
+            return new LogicResult<>("404", "News not found", null);
+        }
+
         // Apply sanitized updates to the existing entity
         existingNews.setTitle(input.title);
         existingNews.setContent(input.content);
@@ -344,20 +478,27 @@ public class NewsService {
         existingNews.setVisibility(input.visibility);
         existingNews.setContentStatus(input.contentStatus);
 
+        // Move stored images if the visibility changed
+        LogicResult<Void> visibilityResult =
+                mediaService.applyVisibility(existingNews.getMediaList(), input.visibility);
+        if (!"200".equals(visibilityResult.getCode())) {
+            return visibilityResult;
+        }
+
         // Update medias if provided
-        if (files != null && !files.isEmpty()) {
+        if (!stagedFiles.isEmpty()) {
 
             LogicResult<Void> mediaResult =
                     updateMediasForNews(
                             existingNews,
-                            files,
+                            stagedFiles,
                             existingNews.getTitle() // Default caption
 
                     );
 
-                if (!"201".equals(mediaResult.getCode())) {
-                    return mediaResult;
-                }
+            if (!"200".equals(mediaResult.getCode())) {
+                return mediaResult;
+            }
 
         }
 
@@ -366,6 +507,11 @@ public class NewsService {
         if(update == null) {
             return new LogicResult<>("500", "Failed to update news", null);
         }
+
+        // Arm the timer of the new publication date (a timer left on the old date publishes nothing)
+        if (input.contentStatus == ContentStatus.CREATED) {
+            newsSchedulerService.schedulePublication(input.publishedAt);
+        }
         return new LogicResult<>("200", "News updated succesfully", null);
 
     }
@@ -391,6 +537,47 @@ public class NewsService {
     // Private validation methods
     // =========================================================
 
+    /**
+     * Streams uploaded files to the staging area (first phase of an upload),
+     * together with the completed chunked uploads to attach.
+     *
+     * @return the staged files, or null if staging failed (result is filled)
+     */
+    private List<StagedFile> stageUploadedFiles(
+            List<MultipartFile> files,
+            List<String> uploadIds,
+            Visibility visibility,
+            LogicResult<?> result) {
+
+        List<StagedFile> stagedFiles = new ArrayList<>();
+
+        if (files != null && !files.isEmpty()) {
+            LogicResult<List<StagedFile>> staging = mediaService.stageFiles(files, visibility);
+
+            if (!"200".equals(staging.getCode())) {
+                result.setCode(staging.getCode());
+                result.setMessage("Media creation failed: " + staging.getMessage());
+                return null;
+            }
+            stagedFiles.addAll(staging.getData());
+        }
+
+        if (uploadIds != null && !uploadIds.isEmpty()) {
+            LogicResult<List<StagedFile>> claiming = mediaService.claimUploads(uploadIds, visibility);
+
+            if (!"200".equals(claiming.getCode())) {
+                mediaStorageService.discardAll(stagedFiles);
+                result.setCode(claiming.getCode());
+                result.setMessage("Media creation failed: " + claiming.getMessage());
+                return null;
+            }
+            stagedFiles.addAll(claiming.getData());
+        }
+
+        return stagedFiles;
+    }
+
+
     /**
      * Validates the news title.
      */
@@ -547,7 +734,7 @@ public class NewsService {
      */
     private LogicResult<Void> updateMediasForNews(
             News existingNews,
-            List<MultipartFile> files,
+            List<StagedFile> files,
             String caption) {
 
         List<Media> existingMedias = existingNews.getMediaList();
@@ -569,7 +756,7 @@ public class NewsService {
         // --- Update medias one by one ---
         for (int i = 0; i < files.size(); i++) {
 
-            MultipartFile file = files.get(i);
+            StagedFile file = files.get(i);
             Media existingMedia = existingMedias.get(i);
             Long mediaId = existingMedia.getMediaId();
 
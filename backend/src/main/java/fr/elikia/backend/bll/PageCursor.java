@@ -0,0 +1,85 @@
+package fr.elikia.backend.bll;
+
+import fr.elikia.backend.bo.LogicResult;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Position of the last row of a keyset (seek) page.
+
+ * Lists are ordered by (sort date DESC, identifier DESC); the next page starts
+ * strictly after this position, so reading a page deep in the archive costs
+ * the same as reading the first one (no OFFSET scan, no COUNT query).
+
+ * Business rules:
+ * - The cursor is exposed to clients as an opaque URL-safe token
+ * - A token that cannot be decoded is rejected, never interpreted as the first page
+ *
+ * @param sortDate sort date of the last row (start date or publication date)
+ * @param id identifier of the last row, breaks ties between equal dates
+ */
+public record PageCursor(LocalDateTime sortDate, Long id) {
+
+    /** CONSTANTS*/
+    public static final int MAX_PAGE_SIZE = 100;
+    private static final String SEPARATOR = "|";
+
+
+    /**
+     * Encodes the cursor as an opaque token.
+     */
+    public String encode() {
+        String raw = sortDate + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+
+    /**
+     * Decodes a token produced by encode().
+     *
+     * @return the cursor, or null if the token is malformed
+     */
+    public static PageCursor decode(String token) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf(SEPARATOR);
+            if (separator < 0) {
+                return null;
+            }
+            return new PageCursor(
+                    LocalDateTime.parse(raw.substring(0, separator)),
+                    Long.valueOf(raw.substring(separator + 1))
+            );
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            return null;
+        }
+    }
+
+
+    /**
+     * Validates a cursor and a page size sent by a client.
+     * Rule:
+     *  The cursor is absent (first page) or was produced by encode()
+     *  The size is between 1 and MAX_PAGE_SIZE
+     */
+    public static boolean isValid(String token, int size, LogicResult<?> result) {
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            result.setMessage("The page size must be between 1 and " + MAX_PAGE_SIZE);
+            return false;
+        }
+
+        if (token != null && !token.isBlank() && decode(token) == null) {
+            result.setMessage("Invalid page cursor");
+            return false;
+        }
+
+        return true;
+    }
+}
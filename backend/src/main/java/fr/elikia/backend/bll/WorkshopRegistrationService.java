@@ -1,16 +1,23 @@
 package fr.elikia.backend.bll;
 
+import fr.elikia.backend.bll.ingestion.RegistrationWriteBehind;
 import fr.elikia.backend.bo.LogicResult;
 import fr.elikia.backend.bo.Member;
 import fr.elikia.backend.bo.Workshop;
 import fr.elikia.backend.bo.WorkshopRegistration;
+import fr.elikia.backend.bo.enums.ActivityOwnerType;
 import fr.elikia.backend.bo.enums.RegistrationStatus;
 import fr.elikia.backend.dao.idao.IDAOMember;
 import fr.elikia.backend.dao.idao.IDAOWorkshop;
 import fr.elikia.backend.dao.idao.IDAOWorkshopRegistration;
 import fr.elikia.backend.dto.WorkshopRegistrationAdminDTO;
 import fr.elikia.backend.dto.WorkshopRegistrationDTO;
+import jakarta.transaction.Transactional;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
 import fr.elikia.backend.bo.enums.Visibility;
 
 import java.time.LocalDateTime;
@@ -21,43 +28,167 @@ import java.util.List;
  * This service handles:
  * - registration validation
  * - workshop existence verification
- * - duplicate registration prevention
+ * - duplicate registration prevention, by the unique keys of the registrations
+ * - workshop capacity, enforced by atomic seat reservation
+ * - FIFO waitlist of full workshops, promoted when a seat frees up
+ * - optional write-behind of the registrations, batched by a background writer
  * - registration approval, rejection and cancellation
  */
 @Service
 public class WorkshopRegistrationService extends AbstractRegistrationService {
 
+    /** CONSTANTS*/
+    // Unique keys of workshop_registration (migration V6)
+    private static final String MEMBER_KEY = "uk_workshop_registration_member";
+    private static final String EMAIL_KEY = "uk_workshop_registration_email";
+
     private final IDAOWorkshop idaoWorkshop;
     private final IDAOWorkshopRegistration idaoWorkshopRegistration;
     private final IDAOMember idaoMember;
     private final EmailService emailService;
+    private final EmailDispatcher emailDispatcher;
+    private final RegistrationWriteBehind registrationWriteBehind;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate queueCheckTemplate;
 
     public WorkshopRegistrationService(
             IDAOWorkshop idaoWorkshop,
             IDAOWorkshopRegistration idaoWorkshopRegistration,
             IDAOMember idaoMember,
-            EmailService emailService
+            EmailService emailService,
+            EmailDispatcher emailDispatcher,
+            RegistrationWriteBehind registrationWriteBehind,
+            PlatformTransactionManager transactionManager
     ) {
         this.idaoWorkshop = idaoWorkshop;
         this.idaoWorkshopRegistration = idaoWorkshopRegistration;
         this.idaoMember = idaoMember;
         this.emailService = emailService;
+        this.emailDispatcher = emailDispatcher;
+        this.registrationWriteBehind = registrationWriteBehind;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        // A transaction of its own, even inside the request's open session:
+        // its connection is given back before the registration is journaled
+        this.queueCheckTemplate = new TransactionTemplate(transactionManager);
+        this.queueCheckTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.queueCheckTemplate.setReadOnly(true);
     }
 
     /**
      * Create a workshop registration for a visitor or a member.
+     * Business rules:
+     * - a registration takes a seat, the workshop is full once its capacity is reached
+     * - the seat is taken by a single conditional update, so the capacity cannot be raced
+     * - the registration is inserted without a prior lookup: the unique keys of the workshop
+     *   and email, and of the workshop and member, refuse a duplicate (400), and the whole
+     *   registration, seat included, is rolled back
+     * - once the workshop is full, the registration joins its waitlist (202) with the next position
+     * - in write-behind mode, the registration is queued and acknowledged (202) with a provisional
+     *   reference; seats, waitlist and duplicates are then settled by the batch writer.
+     *   The registration is checked by a short read-only transaction and journaled outside
+     *   of any, so no connection waits for the journal. Registered directly when the queue is full
      *
      * @param workshopId workshop identifier
      * @param workshopRegistrationDTO registration data
      * @param memberEmail connected member email, null for visitors
-     * @return LogicResult indicating success or failure
+     * @return LogicResult indicating success or failure,
+     *         with the provisional reference of a queued registration
      */
-    public LogicResult<Void> registerToWorkshop(
+    public LogicResult<String> registerToWorkshop(
             Long workshopId,
             WorkshopRegistrationDTO workshopRegistrationDTO,
             String memberEmail
     ) {
-        LogicResult<Void> validationResult = validateActivityId(workshopId);
+        if (registrationWriteBehind.isRunning()) {
+            LogicResult<String> queuedResult =
+                    queue(workshopId, workshopRegistrationDTO, memberEmail);
+
+            if (queuedResult != null) {
+                return queuedResult;
+            }
+        }
+
+        try {
+            return transactionTemplate.execute(status ->
+                    register(workshopId, workshopRegistrationDTO, memberEmail));
+        } catch (DataIntegrityViolationException e) {
+            String uniqueKey = violatedUniqueKey(e);
+
+            if (uniqueKey.contains(MEMBER_KEY)) {
+                return new LogicResult<>(
+                        "400",
+                        "This member is already registered for this workshop",
+                        null
+                );
+            }
+
+            if (uniqueKey.contains(EMAIL_KEY)) {
+                return new LogicResult<>(
+                        "400",
+                        "This email is already registered for this workshop",
+                        null
+                );
+            }
+
+            throw e;
+        }
+    }
+
+    /**
+     * Write-behind path of {@link #registerToWorkshop}: the registration is checked
+     * by {@link #checkQueueable}, then journaled outside of any transaction.
+     *
+     * @return LogicResult of the registration, or null if it was not queued
+     *         and must be registered directly
+     */
+    private LogicResult<String> queue(
+            Long workshopId,
+            WorkshopRegistrationDTO workshopRegistrationDTO,
+            String memberEmail
+    ) {
+        LogicResult<Member> checkResult = queueCheckTemplate.execute(status ->
+                checkQueueable(workshopId, workshopRegistrationDTO, memberEmail));
+
+        if (!"200".equals(checkResult.getCode())) {
+            return new LogicResult<>(
+                    checkResult.getCode(),
+                    checkResult.getMessage(),
+                    null
+            );
+        }
+
+        String reference = registrationWriteBehind.submit(
+                ActivityOwnerType.WORKSHOP,
+                workshopId,
+                checkResult.getData(),
+                workshopRegistrationDTO.getFirstName(),
+                workshopRegistrationDTO.getLastName(),
+                workshopRegistrationDTO.getEmail()
+        );
+
+        if (reference == null) {
+            return null;
+        }
+
+        return new LogicResult<>(
+                "202",
+                "The registration has been received and will be confirmed shortly",
+                reference
+        );
+    }
+
+    /**
+     * Checks of {@link #register} for a queued registration, with an early duplicate
+     * check: the batch writer makes the final one.
+     *
+     * @return LogicResult 200 with the connected member (null for visitors), or the refusal
+     */
+    private LogicResult<Member> checkQueueable(
+            Long workshopId,
+            WorkshopRegistrationDTO workshopRegistrationDTO,
+            String memberEmail
+    ) {
+        LogicResult<Member> validationResult = validateActivityId(workshopId);
 
         if (validationResult != null) {
             return validationResult;
@@ -89,10 +220,6 @@ public class WorkshopRegistrationService extends AbstractRegistrationService {
             return validationResult;
         }
 
-        String firstName = workshopRegistrationDTO.getFirstName();
-        String lastName = workshopRegistrationDTO.getLastName();
-        String email = workshopRegistrationDTO.getEmail();
-
         Member member = null;
 
         if (!isVisitor) {
@@ -105,27 +232,97 @@ public class WorkshopRegistrationService extends AbstractRegistrationService {
                         null
                 );
             }
+        }
+
+        LogicResult<String> duplicateResult = checkNotRegistered(
+                workshop,
+                member,
+                workshopRegistrationDTO.getEmail()
+        );
+
+        if (duplicateResult != null) {
+            return new LogicResult<>(
+                    duplicateResult.getCode(),
+                    duplicateResult.getMessage(),
+                    null
+            );
+        }
+
+        return new LogicResult<>(
+                "200",
+                "Registration can be queued",
+                member
+        );
+    }
+
+    /**
+     * Registration work of {@link #registerToWorkshop}, run in its transaction.
+     */
+    private LogicResult<String> register(
+            Long workshopId,
+            WorkshopRegistrationDTO workshopRegistrationDTO,
+            String memberEmail
+    ) {
+        LogicResult<String> validationResult = validateActivityId(workshopId);
+
+        if (validationResult != null) {
+            return validationResult;
+        }
+
+        Workshop workshop = idaoWorkshop.findById(workshopId);
+
+        if (workshop == null) {
+            return new LogicResult<>(
+                    "404",
+                    "Workshop not found",
+                    null
+            );
+        }
+
+        boolean isVisitor = memberEmail == null || memberEmail.isBlank();
+
+        if (isVisitor && workshop.getVisibility() == Visibility.MEMBER_ONLY) {
+            return new LogicResult<>(
+                    "403",
+                    "This workshop is reserved for members only",
+                    null
+            );
+        }
+
+        validationResult = validateRegistrationData(workshopRegistrationDTO);
+
+        if (validationResult != null) {
+            return validationResult;
+        }
+
+        String firstName = workshopRegistrationDTO.getFirstName();
+        String lastName = workshopRegistrationDTO.getLastName();
+        String email = workshopRegistrationDTO.getEmail();
+
+        Member member = null;
+
+        if (!isVisitor) {
+            member = idaoMember.findByEmail(memberEmail);
 
-            if (idaoWorkshopRegistration.existsByWorkshopAndMember(
-                    workshop,
-                    member
-            )) {
+            if (member == null) {
                 return new LogicResult<>(
-                        "400",
-                        "This member is already registered for this workshop",
+                        "404",
+                        "Member not found",
                         null
                 );
             }
-        } else {
-            if (idaoWorkshopRegistration.existsByWorkshopAndEmail(
-                    workshop,
-                    email
-            )) {
-                return new LogicResult<>(
-                        "400",
-                        "This email is already registered for this workshop",
-                        null
-                );
+        }
+
+        // Take a seat: the capacity check and the increment are one statement
+        Long waitlistPosition = null;
+
+        if (!idaoWorkshop.reserveSeat(workshopId)) {
+            // Full: join the waitlist. Joining locks the workshop row, so a seat
+            // freed in the meantime is seen by the second attempt instead of staying empty
+            waitlistPosition = idaoWorkshop.joinWaitlist(workshopId);
+
+            if (idaoWorkshop.reserveSeat(workshopId)) {
+                waitlistPosition = null;
             }
         }
 
@@ -136,10 +333,14 @@ public class WorkshopRegistrationService extends AbstractRegistrationService {
         workshopRegistration.setLastName(lastName);
         workshopRegistration.setEmail(email);
         workshopRegistration.setRegistrationDate(LocalDateTime.now());
-        workshopRegistration.setStatus(RegistrationStatus.PENDING);
+        workshopRegistration.setStatus(waitlistPosition == null
+                ? RegistrationStatus.PENDING
+                : RegistrationStatus.WAITLISTED);
+        workshopRegistration.setWaitlistPosition(waitlistPosition);
         workshopRegistration.setWorkshop(workshop);
         workshopRegistration.setMember(member);
 
+        // Refused by the unique keys if already registered
         WorkshopRegistration savedRegistration =
                 idaoWorkshopRegistration.create(workshopRegistration);
 
@@ -151,6 +352,14 @@ public class WorkshopRegistrationService extends AbstractRegistrationService {
             );
         }
 
+        if (waitlistPosition != null) {
+            return new LogicResult<>(
+                    "202",
+                    "The workshop is full, the registration has been added to the waitlist",
+                    null
+            );
+        }
+
         return new LogicResult<>(
                 "201",
                 "Workshop registration created successfully",
@@ -189,6 +398,129 @@ public class WorkshopRegistrationService extends AbstractRegistrationService {
         );
     }
 
+    /**
+     * Check that neither the member nor the email
+     * is registered for the workshop yet, as the unique keys of the registrations will.
+     *
+     * @param workshop workshop entity
+     * @param member connected member, null for visitors
+     * @param email registration email
+     * @return LogicResult containing an error if already registered, or null
+     */
+    private LogicResult<String> checkNotRegistered(
+            Workshop workshop,
+            Member member,
+            String email
+    ) {
+        if (member != null && idaoWorkshopRegistration.existsByWorkshopAndMember(
+                workshop,
+                member
+        )) {
+            return new LogicResult<>(
+                    "400",
+                    "This member is already registered for this workshop",
+                    null
+            );
+        }
+
+        if (idaoWorkshopRegistration.existsByWorkshopAndEmail(
+                workshop,
+                email
+        )) {
+            return new LogicResult<>(
+                    "400",
+                    "This email is already registered for this workshop",
+                    null
+            );
+        }
+
+        return null;
+    }
+
+    /**
+     * Give back the seat of a registration leaving the workshop,
+     * or hand it over to the head of the waitlist.
+     *
+     * The release locks the workshop row first, and the head is read with a locking read:
+     * it is then read and promoted by one transaction at a time, as committed by the
+     * previous one (not from the snapshot of a REPEATABLE READ transaction), and a
+     * visitor joining the waitlist meanwhile waits for the promotion to be committed.
+     *
+     * @param workshop workshop entity
+     */
+    private void freeSeat(Workshop workshop) {
+        Long workshopId = workshop.getWorkshopId();
+        idaoWorkshop.releaseSeat(workshopId);
+
+        // Index seek on (workshop, status, position): constant cost whatever the waitlist length
+        WorkshopRegistration next =
+                idaoWorkshopRegistration.findWaitlistHead(workshop);
+
+        if (next == null || !idaoWorkshop.reserveSeat(workshopId)) {
+            return;
+        }
+
+        next.setStatus(RegistrationStatus.PENDING);
+        next.setWaitlistPosition(null);
+        idaoWorkshopRegistration.update(next);
+
+        String email = next.getEmail();
+        String firstName = next.getFirstName();
+        String workshopTitle = workshop.getTitle();
+
+        emailDispatcher.sendAfterCommit(() ->
+                emailService.sendWorkshopWaitlistPromotedEmail(email, firstName, workshopTitle)
+        );
+    }
+
+    /**
+     * Retrieve the rank of a member in the waitlist of a workshop.
+     *
+     * @param workshopId workshop identifier
+     * @param memberEmail connected member email
+     * @return LogicResult containing the 1-based rank, 404 if the member is not waitlisted
+     */
+    public LogicResult<Long> getWaitlistPosition(Long workshopId, String memberEmail) {
+        LogicResult<Void> validationResult = validateActivityId(workshopId);
+
+        if (validationResult != null) {
+            return new LogicResult<>(
+                    validationResult.getCode(),
+                    validationResult.getMessage(),
+                    null
+            );
+        }
+
+        Member member = idaoMember.findByEmail(memberEmail);
+
+        if (member == null) {
+            return new LogicResult<>(
+                    "404",
+                    "Member not found",
+                    null
+            );
+        }
+
+        long rank = idaoWorkshopRegistration.findWaitlistRank(
+                workshopId,
+                member.getUserId()
+        );
+
+        if (rank == 0) {
+            return new LogicResult<>(
+                    "404",
+                    "This member is not on the waitlist of this workshop",
+                    null
+            );
+        }
+
+        return new LogicResult<>(
+                "200",
+                "Waitlist position retrieved successfully",
+                rank
+        );
+    }
+
     /**
      * Retrieve all registrations linked to a specific workshop.
      *
@@ -230,24 +562,35 @@ public class WorkshopRegistrationService extends AbstractRegistrationService {
 
     /**
      * Approve a workshop registration.
+     * A registration that had given its seat back (rejected, cancelled)
+     * takes a seat again, if the workshop is not full.
      *
      * @param registrationId registration identifier
      * @return LogicResult indicating success or failure
      */
+    @Transactional
     public LogicResult<Void> approveRegistration(Long registrationId) {
         LogicResult<Void> validationResult = validateRegistrationId(registrationId);
         if (validationResult != null) {
             return validationResult;
         }
 
+        // Locked: a concurrent change of its status waits for this one,
+        // so its seat is given back or taken only once
         WorkshopRegistration registration =
-                idaoWorkshopRegistration.findById(registrationId);
+                idaoWorkshopRegistration.findByIdForUpdate(registrationId);
 
         if (registration == null) {
             return new LogicResult<>("404", "Workshop registration not found", null);
         }
 
+        if (!holdsSeat(registration.getStatus())
+                && !idaoWorkshop.reserveSeat(registration.getWorkshop().getWorkshopId())) {
+            return new LogicResult<>("409", "This workshop is full", null);
+        }
+
         registration.setStatus(RegistrationStatus.APPROVED);
+        registration.setWaitlistPosition(null);
 
         WorkshopRegistration updatedRegistration =
                 idaoWorkshopRegistration.update(registration);
@@ -271,11 +614,14 @@ public class WorkshopRegistrationService extends AbstractRegistrationService {
 
     /**
      * Reject a workshop registration.
+     * The seat held by the registration goes to the head of the waitlist,
+     * or is given back if nobody is waiting.
      *
      * @param registrationId registration identifier
      * @param refusalReason refusal reason
      * @return LogicResult indicating success or failure
      */
+    @Transactional
     public LogicResult<Void> rejectRegistration(
             Long registrationId,
             String refusalReason
@@ -290,14 +636,21 @@ public class WorkshopRegistrationService extends AbstractRegistrationService {
             return validationResult;
         }
 
+        // Locked: a concurrent change of its status waits for this one,
+        // so its seat is given back or taken only once
         WorkshopRegistration registration =
-                idaoWorkshopRegistration.findById(registrationId);
+                idaoWorkshopRegistration.findByIdForUpdate(registrationId);
 
         if (registration == null) {
             return new LogicResult<>("404", "Workshop registration not found", null);
         }
 
+        if (holdsSeat(registration.getStatus())) {
+            freeSeat(registration.getWorkshop());
+        }
+
         registration.setStatus(RegistrationStatus.REJECTED);
+        registration.setWaitlistPosition(null);
 
         WorkshopRegistration updatedRegistration =
                 idaoWorkshopRegistration.update(registration);
@@ -322,24 +675,34 @@ public class WorkshopRegistrationService extends AbstractRegistrationService {
 
     /**
      * Cancel a workshop registration.
+     * The seat held by the registration goes to the head of the waitlist,
+     * or is given back if nobody is waiting.
      *
      * @param registrationId registration identifier
      * @return LogicResult indicating success or failure
      */
+    @Transactional
     public LogicResult<Void> cancelRegistration(Long registrationId) {
         LogicResult<Void> validationResult = validateRegistrationId(registrationId);
         if (validationResult != null) {
             return validationResult;
         }
 
+        // Locked: a concurrent change of its status waits for this one,
+        // so its seat is given back or taken only once
         WorkshopRegistration registration =
-                idaoWorkshopRegistration.findById(registrationId);
+                idaoWorkshopRegistration.findByIdForUpdate(registrationId);
 
         if (registration == null) {
             return new LogicResult<>("404", "Workshop registration not found", null);
         }
 
+        if (holdsSeat(registration.getStatus())) {
+            freeSeat(registration.getWorkshop());
+        }
+
         registration.setStatus(RegistrationStatus.CANCELLED);
+        registration.setWaitlistPosition(null);
 
         WorkshopRegistration updatedRegistration =
                 idaoWorkshopRegistration.update(registration);
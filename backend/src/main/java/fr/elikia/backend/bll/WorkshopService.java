@@ -1,10 +1,14 @@
 package fr.elikia.backend.bll;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import fr.elikia.backend.bll.storage.MediaStorageService;
+import fr.elikia.backend.bll.storage.StagedFile;
 import fr.elikia.backend.bo.*;
 import fr.elikia.backend.bo.enums.ActivityOwnerType;
 import fr.elikia.backend.bo.enums.Visibility;
 import fr.elikia.backend.dao.idao.IDAOWorkshop;
+import fr.elikia.backend.dto.CursorPageDTO;
+import fr.elikia.backend.dto.WorkshopCardDTO;
 import fr.elikia.backend.dto.WorkshopDTO;
 import fr.elikia.backend.dto.WorkshopResponseDTO;
 import jakarta.transaction.Transactional;
@@ -36,8 +40,8 @@ public class WorkshopService extends AbstractActivityService {
 
 
     public WorkshopService(IDAOWorkshop idaoWorkshop, MediaService mediaService,
-                           ObjectMapper objectMapper) {
-        super(mediaService, objectMapper);
+                           MediaStorageService mediaStorageService, ObjectMapper objectMapper) {
+        super(mediaService, mediaStorageService, objectMapper);
         this.idaoWorkshop = idaoWorkshop;
     }
 
@@ -67,11 +71,12 @@ public class WorkshopService extends AbstractActivityService {
 
      * Workflow:
      * - Validate and sanitize WorkshopDTO
+     * - Stream uploaded files to the staging area (no transaction open yet)
+     * - In a short transaction:
      * - Create and persist the Workshop entity
-     * - For each uploaded file:
-     * - Delegate Media creation to MediaService
-     * - Attach Media to the Workshop
+     * - Create the video and image Media in one batch through MediaService
      * - Persist final Workshop with its medias
+     * - Promote staged files on commit, drop them on rollback
 
      * Business rules:
      * - Event must be created before any Media
@@ -83,7 +88,6 @@ public class WorkshopService extends AbstractActivityService {
      *
      * @return LogicResult indicating success or failure
      */
-    @Transactional
     public LogicResult<Void> createWorkshop(
             WorkshopDTO workshopDTO,
             String videoUrl,
@@ -99,6 +103,28 @@ public class WorkshopService extends AbstractActivityService {
             return result;
         }
 
+        // Stage uploaded files before any transaction is opened
+        List<StagedFile> stagedFiles = stageUploadedFiles(files, workshopDTO.getUploadIds(), input.visibility(), result);
+        if (stagedFiles == null) {
+            return result;
+        }
+
+        return mediaStorageService.executeWithStagedFiles(
+                stagedFiles,
+                () -> persistNewWorkshop(input, videoUrl, stagedFiles)
+        );
+    }
+
+
+    /**
+     * Persists a new Workshop and the metadata of its medias.
+     * Runs inside the short transaction opened by MediaStorageService.
+     */
+    private LogicResult<Void> persistNewWorkshop(
+            SanitizedActivityInput input,
+            String videoUrl,
+            List<StagedFile> stagedFiles) {
+
         // Create Workshop entity
         Workshop workshop = new Workshop();
         applySanitizedValues(workshop, input);
@@ -115,8 +141,7 @@ public class WorkshopService extends AbstractActivityService {
         LogicResult<Void> mediaResult =
                 processCreateMedias(
                         videoUrl,
-                        files,
-                        workshop.getMediaList(),
+                        stagedFiles,
                         workshop.getTitle(),
                         generatedWorkshopId,
                         ActivityOwnerType.WORKSHOP
@@ -195,7 +220,7 @@ public class WorkshopService extends AbstractActivityService {
      * @param size number of items per page
      * @return LogicResult containing a page of Workshop
      */
-    public LogicResult<Page<WorkshopResponseDTO>> findAllByVisibilityOrderByStartDateDesc(
+    public LogicResult<Page<WorkshopCardDTO>> findAllByVisibilityOrderByStartDateDesc(
             int page,
             int size
     ) {
@@ -208,7 +233,7 @@ public class WorkshopService extends AbstractActivityService {
         );
 
         // Call DAO
-        Page<Workshop> pageResult =
+        Page<WorkshopCardDTO> pageResult =
                 idaoWorkshop.findAllByVisibilityOrderByStartDateDesc(
                         Visibility.PUBLIC,
                         pageable
@@ -223,14 +248,11 @@ public class WorkshopService extends AbstractActivityService {
             );
         }
 
-        Page<WorkshopResponseDTO> dtoPage =
-                pageResult.map(this::mapToWorkshopResponseDTO);
-
         // Successful response
         return new LogicResult<>(
                 "200",
                 WORKSHOP_PAGE_RETRIEVED,
-                dtoPage
+                pageResult
         );
     }
 
@@ -242,7 +264,7 @@ public class WorkshopService extends AbstractActivityService {
      * @param size number of items per page
      * @return LogicResult containing a page of Workshop
      */
-    public LogicResult<Page<WorkshopResponseDTO>> findAllByMemberOnlyVisibilityOrderByStartDateDesc(
+    public LogicResult<Page<WorkshopCardDTO>> findAllByMemberOnlyVisibilityOrderByStartDateDesc(
             int page,
             int size
     ) {
@@ -255,7 +277,7 @@ public class WorkshopService extends AbstractActivityService {
         );
 
         // Call DAO
-        Page<Workshop> pageResult =
+        Page<WorkshopCardDTO> pageResult =
                 idaoWorkshop.findAllByVisibilityOrderByStartDateDesc(
                         Visibility.MEMBER_ONLY,
                         pageable
@@ -270,14 +292,77 @@ public class WorkshopService extends AbstractActivityService {
             );
         }
 
-        Page<WorkshopResponseDTO> dtoPage =
-                pageResult.map(this::mapToWorkshopResponseDTO);
-
         // Successful response
         return new LogicResult<>(
                 "200",
                 WORKSHOP_PAGE_RETRIEVED,
-                dtoPage
+                pageResult
+        );
+    }
+
+
+    /**
+     * Retrieve a keyset page of workshop cards (PUBLIC), for infinite scroll
+     *
+     * @param cursor cursor returned with the previous page (null for the first page)
+     * @param size number of items per page
+     * @return LogicResult containing the cards and the cursor of the next page
+     */
+    public LogicResult<CursorPageDTO<WorkshopCardDTO>> findPublicWorkshopScroll(
+            String cursor,
+            int size
+    ) {
+        return findWorkshopCardScroll(Visibility.PUBLIC, cursor, size);
+    }
+
+
+    /**
+     * Retrieve a keyset page of workshop cards for member space, for infinite scroll
+     *
+     * @param cursor cursor returned with the previous page (null for the first page)
+     * @param size number of items per page
+     * @return LogicResult containing the cards and the cursor of the next page
+     */
+    public LogicResult<CursorPageDTO<WorkshopCardDTO>> findMemberOnlyWorkshopScroll(
+            String cursor,
+            int size
+    ) {
+        return findWorkshopCardScroll(Visibility.MEMBER_ONLY, cursor, size);
+    }
+
+
+    /**
+     * Retrieve a keyset page of workshops (admin), for infinite scroll
+     *
+     * @param cursor cursor returned with the previous page (null for the first page)
+     * @param size number of items per page
+     * @return LogicResult containing the workshops and the cursor of the next page
+     */
+    public LogicResult<CursorPageDTO<WorkshopResponseDTO>> findWorkshopScroll(
+            String cursor,
+            int size
+    ) {
+        LogicResult<CursorPageDTO<WorkshopResponseDTO>> result = new LogicResult<>("400", null);
+        if (!PageCursor.isValid(cursor, size, result)) {
+            return result;
+        }
+        PageCursor position = PageCursor.decode(cursor);
+
+        // One extra row tells whether a next page exists
+        List<Workshop> workshops = idaoWorkshop.findAllAfter(
+                position == null ? null : position.sortDate(),
+                position == null ? null : position.id(),
+                size + 1
+        );
+
+        CursorPageDTO<WorkshopResponseDTO> scroll = CursorPageDTO
+                .of(workshops, size, workshop -> new PageCursor(workshop.getStartDate(), workshop.getWorkshopId()).encode())
+                .map(this::mapToWorkshopResponseDTO);
+
+        return new LogicResult<>(
+                "200",
+                scroll.content().isEmpty() ? NO_WORKSHOP_FOUND : WORKSHOP_PAGE_RETRIEVED,
+                scroll
         );
     }
 
@@ -285,9 +370,9 @@ public class WorkshopService extends AbstractActivityService {
     /**
      * Retrieve 4 last workshop (for home page)
      */
-    public LogicResult<List<WorkshopResponseDTO>> findLastWorkshop() {
+    public LogicResult<List<WorkshopCardDTO>> findLastWorkshop() {
 
-        List<Workshop> workshops = idaoWorkshop.findAllByOrderByStartDateDesc();
+        List<WorkshopCardDTO> workshops = idaoWorkshop.findAllByOrderByStartDateDesc();
 
         if (workshops.isEmpty()) {
             return new LogicResult<>(
@@ -297,15 +382,46 @@ public class WorkshopService extends AbstractActivityService {
             );
         }
 
-        List<WorkshopResponseDTO> workshopDTOs =
-                workshops.stream()
-                        .map(this::mapToWorkshopResponseDTO)
-                        .toList();
-
         return new LogicResult<>(
                 "200",
                 "Last 4 workshop retrieved",
-                workshopDTOs
+                workshops
+        );
+    }
+
+
+    /**
+     * Keyset page of workshop cards of a visibility, without offset nor count query
+     */
+    private LogicResult<CursorPageDTO<WorkshopCardDTO>> findWorkshopCardScroll(
+            Visibility visibility,
+            String cursor,
+            int size
+    ) {
+        LogicResult<CursorPageDTO<WorkshopCardDTO>> result = new LogicResult<>("400", null);
+        if (!PageCursor.isValid(cursor, size, result)) {
+            return result;
+        }
+        PageCursor position = PageCursor.decode(cursor);
+
+        // One extra row tells whether a next page exists
+        List<WorkshopCardDTO> cards = idaoWorkshop.findCardsByVisibilityAfter(
+                visibility,
+                position == null ? null : position.sortDate(),
+                position == null ? null : position.id(),
+                size + 1
+        );
+
+        CursorPageDTO<WorkshopCardDTO> scroll = CursorPageDTO.of(
+                cards,
+                size,
+                card -> new PageCursor(card.startDate(), card.workshopId()).encode()
+        );
+
+        return new LogicResult<>(
+                "200",
+                scroll.content().isEmpty() ? NO_WORKSHOP_FOUND : WORKSHOP_PAGE_RETRIEVED,
+                scroll
         );
     }
 
@@ -332,8 +448,10 @@ public class WorkshopService extends AbstractActivityService {
 
      * Workflow:
      * - Validate the workshop identifier
-     * - Retrieve the existing Workshop
      * - Validate and sanitize input DTO
+     * - Stream uploaded files to the staging area (no transaction open yet)
+     * - In a short transaction:
+     * - Retrieve the existing Workshop
      * - Apply field updates
      * - Update medias if provided
      * - Persist changes
@@ -345,18 +463,12 @@ public class WorkshopService extends AbstractActivityService {
      *
      * @return LogicResult indicating success or failure
      */
-    @Transactional
     public LogicResult<Void> updateWorkshop(Long workshopId, WorkshopDTO workshopDTO, String videoUrl,
                                             List<MultipartFile> files, String removedMediaIdsJson) {
         // Validate the identifier
         if(workshopId == null || workshopId <= 0) {
             return new LogicResult<>("400", "Invalid workshop identifier", null);
         }
-        // Retrieve the existing workshop
-        Workshop existingWorkshop = idaoWorkshop.findById(workshopId);
-        if(existingWorkshop == null) {
-            return new LogicResult<>("404", "Workshop not found", null);
-        }
         // Prepare a default validation error result
         LogicResult<Void> result = validationError();
 
@@ -367,9 +479,46 @@ public class WorkshopService extends AbstractActivityService {
             return result;
         }
 
+        // Stage uploaded files before any transaction is opened
+        List<StagedFile> stagedFiles = stageUploadedFiles(files, workshopDTO.getUploadIds(), input.visibility(), result);
+        if (stagedFiles == null) {
+            return result;
+        }
+
+        return mediaStorageService.executeWithStagedFiles(
+                stagedFiles,
+                () -> persistWorkshopUpdate(workshopId, input, videoUrl, stagedFiles, removedMediaIdsJson)
+        );
+    }
+
+
+    /**
+     * Applies a Workshop update and its media changes.
+     * Runs inside the short transaction opened by MediaStorageService.
+     */
+    private LogicResult<Void> persistWorkshopUpdate(
+            Long workshopId,
+            SanitizedActivityInput input,
+            String videoUrl,
+            List<StagedFile> stagedFiles,
+            String removedMediaIdsJson) {
+
+        // Retrieve the existing workshop
+        Workshop existingWorkshop = idaoWorkshop.findById(workshopId);
+        if(existingWorkshop == null) {
+            return new LogicResult<>("404", "Workshop not found", null);
+        }
+
         // Apply sanitized updates to the existing entity
         applySanitizedValues(existingWorkshop, input);
 
+        // Move stored images if the visibility changed
+        LogicResult<Void> visibilityResult =
+                mediaService.applyVisibility(existingWorkshop.getMediaList(), input.visibility());
+        if (!"200".equals(visibilityResult.getCode())) {
+            return visibilityResult;
+        }
+
         if (existingWorkshop.getMediaList() == null) {
             return new LogicResult<>(
                     "500",
@@ -384,7 +533,7 @@ public class WorkshopService extends AbstractActivityService {
                 processUpdateMedias(
                         removedMediaIdsJson,
                         videoUrl,
-                        files,
+                        stagedFiles,
                         existingWorkshop.getMediaList(),
                         existingWorkshop.getTitle(),
                         workshopId,
@@ -0,0 +1,29 @@
+package fr.elikia.backend.bll.ingestion;
+
+import fr.elikia.backend.bo.enums.ActivityOwnerType;
+
+import java.time.LocalDateTime;
+
+/**
+ * Validated registration waiting in the write-behind queue, as written in the journal.
+ *
+ * @param sequence order of the registration in the journal of this node
+ * @param reference provisional reference given to the client
+ * @param activityType EVENT or WORKSHOP
+ * @param activityId identifier of the event or workshop
+ * @param memberId identifier of the registered member, null for visitors
+ * @param firstName first name
+ * @param lastName last name
+ * @param email email
+ * @param registrationDate date the registration was received
+ */
+public record PendingRegistration(long sequence,
+                                  String reference,
+                                  ActivityOwnerType activityType,
+                                  Long activityId,
+                                  Long memberId,
+                                  String firstName,
+                                  String lastName,
+                                  String email,
+                                  LocalDateTime registrationDate) {
+}
@@ -0,0 +1,214 @@
+package fr.elikia.backend.bll.ingestion;
+
+import fr.elikia.backend.bo.Event;
+import fr.elikia.backend.bo.EventRegistration;
+import fr.elikia.backend.bo.Member;
+import fr.elikia.backend.bo.Workshop;
+import fr.elikia.backend.bo.WorkshopRegistration;
+import fr.elikia.backend.bo.enums.ActivityOwnerType;
+import fr.elikia.backend.bo.enums.RegistrationStatus;
+import fr.elikia.backend.dao.idao.IDAOEvent;
+import fr.elikia.backend.dao.idao.IDAOEventRegistration;
+import fr.elikia.backend.dao.idao.IDAOMember;
+import fr.elikia.backend.dao.idao.IDAOWorkshop;
+import fr.elikia.backend.dao.idao.IDAOWorkshopRegistration;
+import jakarta.transaction.Transactional;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Writes a batch of queued registrations to the database in one transaction.
+
+ * Business rules:
+ * - Registrations are written per activity, in the order they were received
+ * - Duplicates are dropped set-wise, by the unique keys of the registrations: one query
+ *   for the emails, one for the members, and the batch is checked against itself
+ * - The seats of the activity are taken in one update for the whole batch; the registrations
+ *   that do not fit join the waitlist with consecutive positions, like single registrations
+ * - Rows are inserted with one JDBC batch per activity, the members of the batch are loaded in one query
+ * - Writing the same batch twice (replay after a crash) inserts nothing the second time
+ */
+@Service
+public class RegistrationBatchWriter {
+    private static final Logger LOGGER = LoggerFactory.getLogger(RegistrationBatchWriter.class);
+
+    private final IDAOEvent idaoEvent;
+    private final IDAOEventRegistration idaoEventRegistration;
+    private final IDAOWorkshop idaoWorkshop;
+    private final IDAOWorkshopRegistration idaoWorkshopRegistration;
+    private final IDAOMember idaoMember;
+
+    public RegistrationBatchWriter(IDAOEvent idaoEvent,
+                                   IDAOEventRegistration idaoEventRegistration,
+                                   IDAOWorkshop idaoWorkshop,
+                                   IDAOWorkshopRegistration idaoWorkshopRegistration,
+                                   IDAOMember idaoMember) {
+        this.idaoEvent = idaoEvent;
+        this.idaoEventRegistration = idaoEventRegistration;
+        this.idaoWorkshop = idaoWorkshop;
+        this.idaoWorkshopRegistration = idaoWorkshopRegistration;
+        this.idaoMember = idaoMember;
+    }
+
+
+    /**
+     * Writes a batch of registrations, all or nothing.
+     *
+     * @param batch registrations in journal order
+     */
+    @Transactional
+    public void write(List<PendingRegistration> batch) {
+        Map<ActivityOwnerType, Map<Long, List<PendingRegistration>>> byActivity = batch.stream()
+                .collect(Collectors.groupingBy(PendingRegistration::activityType, LinkedHashMap::new,
+                        Collectors.groupingBy(PendingRegistration::activityId, LinkedHashMap::new,
+                                Collectors.toList())));
+
+        // The members of the whole batch are loaded in one query
+        Map<Long, Member> members = idaoMember.findAllById(memberIds(batch)).stream()
+                .collect(Collectors.toMap(Member::getUserId, Function.identity()));
+
+        byActivity.getOrDefault(ActivityOwnerType.EVENT, Map.of())
+                .forEach((eventId, pending) -> writeEventRegistrations(eventId, pending, members));
+        byActivity.getOrDefault(ActivityOwnerType.WORKSHOP, Map.of())
+                .forEach((workshopId, pending) -> writeWorkshopRegistrations(workshopId, pending, members));
+    }
+
+
+    // =========================================================
+    // Private helpers
+    // =========================================================
+
+    private void writeEventRegistrations(Long eventId, List<PendingRegistration> pending,
+                                         Map<Long, Member> members) {
+        Event event = idaoEvent.findById(eventId);
+        if (event == null) {
+            LOGGER.warn("Event {} no longer exists, {} queued registrations dropped", eventId, pending.size());
+            return;
+        }
+
+        List<PendingRegistration> accepted = withoutDuplicates(pending,
+                idaoEventRegistration.findRegisteredEmails(event, emails(pending)),
+                idaoEventRegistration.findRegisteredMemberIds(event, memberIds(pending)));
+
+        // The seat update locks the event row: the waitlist positions follow under the same lock
+        int seats = idaoEvent.reserveSeats(eventId, accepted.size());
+        long position = seats < accepted.size() ? idaoEvent.joinWaitlist(eventId, accepted.size() - seats) : 0;
+
+        List<EventRegistration> registrations = new ArrayList<>(accepted.size());
+        for (int i = 0; i < accepted.size(); i++) {
+            PendingRegistration registration = accepted.get(i);
+            boolean seated = i < seats;
+
+            EventRegistration eventRegistration = new EventRegistration(
+                    registration.firstName(),
+                    registration.lastName(),
+                    registration.email(),
+                    registration.registrationDate(),
+                    seated ? RegistrationStatus.PENDING : RegistrationStatus.WAITLISTED,
+                    event,
+                    memberOf(registration, members)
+            );
+            eventRegistration.setWaitlistPosition(seated ? null : position++);
+            registrations.add(eventRegistration);
+        }
+
+        idaoEventRegistration.createAll(registrations);
+    }
+
+
+    private void writeWorkshopRegistrations(Long workshopId, List<PendingRegistration> pending,
+                                            Map<Long, Member> members) {
+        Workshop workshop = idaoWorkshop.findById(workshopId);
+        if (workshop == null) {
+            LOGGER.warn("Workshop {} no longer exists, {} queued registrations dropped", workshopId, pending.size());
+            return;
+        }
+
+        List<PendingRegistration> accepted = withoutDuplicates(pending,
+                idaoWorkshopRegistration.findRegisteredEmails(workshop, emails(pending)),
+                idaoWorkshopRegistration.findRegisteredMemberIds(workshop, memberIds(pending)));
+
+        // The seat update locks the workshop row: the waitlist positions follow under the same lock
+        int seats = idaoWorkshop.reserveSeats(workshopId, accepted.size());
+        long position = seats < accepted.size() ? idaoWorkshop.joinWaitlist(workshopId, accepted.size() - seats) : 0;
+
+        List<WorkshopRegistration> registrations = new ArrayList<>(accepted.size());
+        for (int i = 0; i < accepted.size(); i++) {
+            PendingRegistration registration = accepted.get(i);
+            boolean seated = i < seats;
+
+            WorkshopRegistration workshopRegistration = new WorkshopRegistration();
+            workshopRegistration.setFirstName(registration.firstName());
+            workshopRegistration.setLastName(registration.lastName());
+            workshopRegistration.setEmail(registration.email());
+            workshopRegistration.setRegistrationDate(registration.registrationDate());
+            workshopRegistration.setStatus(seated ? RegistrationStatus.PENDING : RegistrationStatus.WAITLISTED);
+            workshopRegistration.setWaitlistPosition(seated ? null : position++);
+            workshopRegistration.setWorkshop(workshop);
+            workshopRegistration.setMember(memberOf(registration, members));
+            registrations.add(workshopRegistration);
+        }
+
+        idaoWorkshopRegistration.createAll(registrations);
+    }
+
+
+    /**
+     * Keeps the registrations that are neither in the database nor earlier in the batch.
+     * An email, and a member, are registered once per activity.
+     */
+    private static List<PendingRegistration> withoutDuplicates(List<PendingRegistration> pending,
+                                                               Set<String> registeredEmails,
+                                                               Set<Long> registeredMemberIds) {
+        Set<String> emails = new HashSet<>(registeredEmails);
+        Set<Long> memberIds = new HashSet<>(registeredMemberIds);
+        List<PendingRegistration> accepted = new ArrayList<>(pending.size());
+
+        for (PendingRegistration registration : pending) {
+            boolean isNew = !emails.contains(registration.email())
+                    && (registration.memberId() == null || !memberIds.contains(registration.memberId()));
+
+            if (isNew) {
+                emails.add(registration.email());
+                if (registration.memberId() != null) {
+                    memberIds.add(registration.memberId());
+                }
+                accepted.add(registration);
+            } else {
+                LOGGER.info("Queued registration {} dropped, already registered", registration.reference());
+            }
+        }
+        return accepted;
+    }
+
+
+    private static Set<String> emails(List<PendingRegistration> pending) {
+        return pending.stream()
+                .map(PendingRegistration::email)
+                .collect(Collectors.toSet());
+    }
+
+
+    private static Set<Long> memberIds(List<PendingRegistration> pending) {
+        return pending.stream()
+                .map(PendingRegistration::memberId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+    }
+
+
+    private static Member memberOf(PendingRegistration registration, Map<Long, Member> members) {
+        return registration.memberId() == null ? null : members.get(registration.memberId());
+    }
+}
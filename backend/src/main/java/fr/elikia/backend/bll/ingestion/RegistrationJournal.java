@@ -0,0 +1,152 @@
+package fr.elikia.backend.bll.ingestion;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Append-only journal of the registrations acknowledged but not yet written to the database.
+
+ * Business rules:
+ * - A registration is forced to disk before it is acknowledged
+ * - Each written batch appends a checkpoint: only the registrations after the last one are pending
+ * - A line cut by a crash was never acknowledged, it is dropped on reading
+ * - Once nothing is pending, the journal is emptied so it never grows past the queue
+ * - A registration the database keeps refusing is moved to a rejected file next to the journal,
+ *   for an administrator to look at
+ */
+final class RegistrationJournal implements AutoCloseable {
+
+    /** CONSTANTS*/
+    private static final String ADDED = "A ";
+    private static final String CHECKPOINT = "C ";
+    private static final String REJECTED_SUFFIX = ".rejected";
+
+    private final Path path;
+    private final FileChannel channel;
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+
+    RegistrationJournal(Path path) throws IOException {
+        this.path = path;
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        this.channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        channel.position(channel.size());
+    }
+
+
+    /**
+     * Reads the registrations written after the last checkpoint, in journal order.
+     */
+    List<PendingRegistration> readPending() throws IOException {
+        byte[] content = Files.readAllBytes(path);
+
+        // Cut the last line if a crash interrupted it, so the next record starts on a line of its own
+        int complete = content.length;
+        while (complete > 0 && content[complete - 1] != '\n') {
+            complete--;
+        }
+        if (complete < content.length) {
+            channel.truncate(complete);
+            channel.position(complete);
+        }
+
+        List<PendingRegistration> pending = new ArrayList<>();
+        for (String line : new String(content, 0, complete, StandardCharsets.UTF_8).split("\n")) {
+            if (line.startsWith(CHECKPOINT)) {
+                long checkpoint = Long.parseLong(line.substring(CHECKPOINT.length()));
+                pending.removeIf(registration -> registration.sequence() <= checkpoint);
+            } else if (line.startsWith(ADDED)) {
+                pending.add(objectMapper.readValue(line.substring(ADDED.length()), PendingRegistration.class));
+            }
+        }
+        return pending;
+    }
+
+
+    /**
+     * Appends a registration. Not forced: see {@link #force()}.
+     */
+    void append(PendingRegistration registration) throws IOException {
+        write(ADDED + toJson(registration));
+    }
+
+
+    /**
+     * Forces the registrations appended so far to disk, all of them in one flush.
+     */
+    void force() throws IOException {
+        channel.force(false);
+    }
+
+
+    /**
+     * Marks the registrations up to the given sequence as written to the database.
+     * Not forced: a lost checkpoint only replays registrations the batch writer drops as duplicates.
+     */
+    void checkpoint(long sequence) throws IOException {
+        write(CHECKPOINT + sequence);
+    }
+
+
+    /**
+     * Appends a registration to the rejected file and forces it to disk.
+     */
+    void reject(PendingRegistration registration) throws IOException {
+        Path rejected = path.resolveSibling(path.getFileName() + REJECTED_SUFFIX);
+        try (FileChannel rejectedChannel = FileChannel.open(rejected,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            ByteBuffer buffer = ByteBuffer.wrap((toJson(registration) + "\n").getBytes(StandardCharsets.UTF_8));
+            while (buffer.hasRemaining()) {
+                rejectedChannel.write(buffer);
+            }
+            rejectedChannel.force(false);
+        }
+    }
+
+
+    /**
+     * Empties the journal, once every registration of it is written to the database.
+     */
+    void reset() throws IOException {
+        channel.truncate(0);
+        channel.position(0);
+        channel.force(false);
+    }
+
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+
+    // =========================================================
+    // Private helpers
+    // =========================================================
+
+    private void write(String line) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap((line + "\n").getBytes(StandardCharsets.UTF_8));
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+
+    private String toJson(PendingRegistration registration) throws JsonProcessingException {
+        return objectMapper.writeValueAsString(registration);
+    }
+}
@@ -0,0 +1,381 @@
+package fr.elikia.backend.bll.ingestion;
+
+import fr.elikia.backend.bo.Member;
+import fr.elikia.backend.bo.enums.ActivityOwnerType;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.CannotCreateTransactionException;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Optional high-throughput mode of the registrations (registration.write-behind.enabled).
+
+ * Validated registrations are journaled, acknowledged with a provisional reference
+ * and written to the database by a background writer, hundreds per transaction,
+ * instead of one transaction and one insert per request.
+
+ * Business rules:
+ * - A registration is acknowledged only once it is forced to the local journal
+ * - The journal is forced once per group: the submitters waiting meanwhile are acknowledged
+ *   together, and only forced registrations are handed to the writer
+ * - The queue is bounded; when it is full, or the mode is off, submit returns null
+ *   and the caller registers directly
+ * - Batches are written in the order the registrations were received; a failed batch
+ *   is retried until it is written, and nothing is taken from the journal before that
+ * - A batch left unwritten at shutdown stops the writer: the journal keeps it and every later one
+ * - Database outages are retried without limit; a batch refused max-attempts times otherwise
+ *   is split in halves, down to the registration at fault, which is moved to the rejected file
+ * - The journal path is required when the mode is on: it must survive a reboot
+ * - At startup, the registrations of the journal not yet written (crash) are written first
+ * - At shutdown, the queue is written before the application stops
+ */
+@Service
+public class RegistrationWriteBehind {
+    private static final Logger LOGGER = LoggerFactory.getLogger(RegistrationWriteBehind.class);
+
+    /** CONSTANTS*/
+    private static final Duration RETRY_DELAY = Duration.ofSeconds(1);
+    private static final Duration SHUTDOWN_TIMEOUT = Duration.ofSeconds(30);
+    private static final int MAX_ATTEMPTS = 3;
+
+    private final RegistrationBatchWriter batchWriter;
+    private final boolean enabled;
+    private final int batchSize;
+    private final Duration flushInterval;
+    private final Path journalPath;
+    private final int queueCapacity;
+    private final BlockingQueue<PendingRegistration> queue;
+    // Journal order is queue order: appends and hand-overs to the queue are made under this lock
+    private final Object journalLock = new Object();
+    // One force at a time, held by the submitter forcing the open group
+    private final Object forceLock = new Object();
+
+    private RegistrationJournal journal;
+    private long sequence;
+    private long writtenSequence;
+    // Registrations appended but not yet handed to the queue
+    private int unqueued;
+    private JournalGroup openGroup = new JournalGroup();
+    private Thread writer;
+    private volatile boolean running;
+
+
+    public RegistrationWriteBehind(RegistrationBatchWriter batchWriter,
+                                   @Value("${registration.write-behind.enabled:false}") boolean enabled,
+                                   @Value("${registration.write-behind.queue-capacity:10000}") int queueCapacity,
+                                   @Value("${registration.write-behind.batch-size:500}") int batchSize,
+                                   @Value("${registration.write-behind.flush-interval:PT0.2S}") Duration flushInterval,
+                                   @Value("${registration.write-behind.journal:#{null}}") Path journalPath) {
+        this.batchWriter = batchWriter;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.flushInterval = flushInterval;
+        this.journalPath = journalPath;
+        this.queueCapacity = queueCapacity;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+    }
+
+
+    /**
+     * Writes what the journal still holds, then starts the background writer.
+     */
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        if (journalPath == null) {
+            throw new IllegalStateException(
+                    "registration.write-behind.journal must be set to a durable path when write-behind is enabled");
+        }
+
+        try {
+            journal = new RegistrationJournal(journalPath);
+            List<PendingRegistration> pending = journal.readPending();
+            if (!pending.isEmpty()) {
+                LOGGER.info("Writing {} journaled registrations", pending.size());
+                for (int from = 0; from < pending.size(); from += batchSize) {
+                    if (!write(pending.subList(from, Math.min(pending.size(), from + batchSize)))) {
+                        throw new IllegalStateException("Unable to write the journaled registrations");
+                    }
+                }
+            }
+            journal.reset();
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to read the registration journal", e);
+        }
+
+        running = true;
+        writer = Thread.ofPlatform().name("registration-writer").daemon().start(this::writeQueued);
+    }
+
+
+    /**
+     * Tell whether registrations are currently taken by the queue.
+     */
+    public boolean isRunning() {
+        return running;
+    }
+
+
+    /**
+     * Queues a validated registration.
+     * Not to be called in a transaction: it waits for the journal to be forced.
+     *
+     * @param activityType EVENT or WORKSHOP
+     * @param activityId identifier of the event or workshop
+     * @param member registered member, null for visitors
+     *
+     * @return the provisional reference of the registration,
+     *         or null if it was not queued and must be registered directly
+     */
+    public String submit(ActivityOwnerType activityType,
+                         Long activityId,
+                         Member member,
+                         String firstName,
+                         String lastName,
+                         String email) {
+        JournalGroup group;
+        PendingRegistration registration;
+
+        synchronized (journalLock) {
+            if (!running || queue.size() + unqueued >= queueCapacity) {
+                return null;
+            }
+
+            registration = new PendingRegistration(
+                    ++sequence,
+                    UUID.randomUUID().toString(),
+                    activityType,
+                    activityId,
+                    member != null ? member.getUserId() : null,
+                    firstName,
+                    lastName,
+                    email,
+                    LocalDateTime.now()
+            );
+
+            try {
+                journal.append(registration);
+            } catch (IOException e) {
+                LOGGER.warn("Unable to journal a registration, registered directly", e);
+                return null;
+            }
+
+            group = openGroup;
+            group.registrations.add(registration);
+            unqueued++;
+        }
+
+        // The first submitter to get the lock forces the whole open group, the others find it done
+        synchronized (forceLock) {
+            if (!group.done) {
+                forceOpenGroup();
+            }
+            return group.forced ? registration.reference() : null;
+        }
+    }
+
+
+    /**
+     * Stops taking registrations and writes the queued ones.
+     */
+    @PreDestroy
+    public void shutdown() throws InterruptedException, IOException {
+        if (!running) {
+            return;
+        }
+
+        synchronized (journalLock) {
+            running = false;
+        }
+        // Hands the registrations still waiting for a force to the writer
+        synchronized (forceLock) {
+            forceOpenGroup();
+        }
+        writer.join(SHUTDOWN_TIMEOUT);
+        journal.close();
+    }
+
+
+    // =========================================================
+    // Private helpers
+    // =========================================================
+
+    private void writeQueued() {
+        while (hasPending()) {
+            List<PendingRegistration> batch = new ArrayList<>(batchSize);
+
+            try {
+                PendingRegistration first = queue.poll(flushInterval.toMillis(), TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+
+            queue.drainTo(batch, batchSize - 1);
+            if (!write(batch)) {
+                // Written later from the journal: a later batch must not checkpoint past this one
+                LOGGER.warn("Application stopping, {} queued registrations left to the journal",
+                        batch.size() + queue.size());
+                return;
+            }
+            checkpoint(batch.getLast().sequence());
+        }
+    }
+
+
+    // Registrations still to come to the writer: taken, or journaled and waiting for their force
+    private boolean hasPending() {
+        synchronized (journalLock) {
+            return running || unqueued > 0 || !queue.isEmpty();
+        }
+    }
+
+
+    /**
+     * Forces the open group to the journal and hands it to the writer, or refuses it
+     * if the force fails. Called under forceLock.
+     */
+    private void forceOpenGroup() {
+        JournalGroup group;
+        synchronized (journalLock) {
+            group = openGroup;
+            openGroup = new JournalGroup();
+        }
+
+        if (!group.registrations.isEmpty()) {
+            try {
+                journal.force();
+                group.forced = true;
+            } catch (IOException e) {
+                // Never acknowledged: a replay of these lines only drops them as duplicates
+                LOGGER.warn("Unable to force {} journaled registrations, registered directly",
+                        group.registrations.size(), e);
+            }
+        }
+
+        synchronized (journalLock) {
+            if (group.forced) {
+                queue.addAll(group.registrations);
+            }
+            unqueued -= group.registrations.size();
+        }
+        group.done = true;
+    }
+
+
+    /**
+     * Writes a batch, retrying outages while the application runs.
+     * A batch refused for another reason is split after MAX_ATTEMPTS.
+     *
+     * @return true once written, false if the application stopped first (the journal keeps the batch)
+     */
+    private boolean write(List<PendingRegistration> batch) {
+        int refusals = 0;
+        while (true) {
+            try {
+                batchWriter.write(batch);
+                return true;
+            } catch (RuntimeException e) {
+                boolean outage = isOutage(e);
+                if (!outage && ++refusals >= MAX_ATTEMPTS) {
+                    return split(batch, e);
+                }
+                // An outage outlasting the application is left to the journal
+                if (outage && !running) {
+                    return false;
+                }
+                LOGGER.warn("Unable to write {} queued registrations, retrying", batch.size(), e);
+            }
+
+            try {
+                Thread.sleep(RETRY_DELAY);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+    }
+
+
+    /**
+     * Writes the halves of a refused batch in order, or moves a single refused registration aside.
+     */
+    private boolean split(List<PendingRegistration> batch, RuntimeException cause) {
+        if (batch.size() > 1) {
+            int half = batch.size() / 2;
+            return write(batch.subList(0, half)) && write(batch.subList(half, batch.size()));
+        }
+
+        PendingRegistration registration = batch.getFirst();
+        LOGGER.error("Queued registration {} refused {} times, moved to the rejected file",
+                registration.reference(), MAX_ATTEMPTS, cause);
+        try {
+            journal.reject(registration);
+        } catch (IOException e) {
+            // The log is then its only trace
+            LOGGER.error("Unable to move registration {} to the rejected file", registration, e);
+        }
+        return true;
+    }
+
+
+    // The database could not be reached: the same batch may succeed later
+    private static boolean isOutage(RuntimeException e) {
+        return e instanceof TransientDataAccessException
+                || e instanceof RecoverableDataAccessException
+                || e instanceof DataAccessResourceFailureException
+                || e instanceof CannotCreateTransactionException;
+    }
+
+
+    private void checkpoint(long writtenSequence) {
+        synchronized (journalLock) {
+            this.writtenSequence = writtenSequence;
+            try {
+                // Batches are written in sequence order: the last sequence written means the whole journal
+                if (writtenSequence == sequence) {
+                    journal.reset();
+                } else {
+                    journal.checkpoint(writtenSequence);
+                }
+            } catch (IOException e) {
+                // Replaying written registrations only drops them as duplicates
+                LOGGER.warn("Unable to checkpoint the registration journal", e);
+            }
+        }
+    }
+
+
+    /**
+     * Registrations appended between two forces of the journal.
+     * Its flags are read and written under forceLock.
+     */
+    private static final class JournalGroup {
+        private final List<PendingRegistration> registrations = new ArrayList<>();
+        private boolean done;
+        private boolean forced;
+    }
+}
@@ -0,0 +1,30 @@
+package fr.elikia.backend.bll.schedule;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Runs a scheduled method on a single node of the cluster at a time.
+
+ * Business rules:
+ * - The node that takes the lease runs the method, the other nodes skip the tick
+ * - A skipped invocation returns null
+ * - A lease not released (crashed node) expires after lockAtMostFor and can be taken over
+ * - lockAtLeastFor keeps the lease after a fast run, so that a node whose clock or tick
+ *   lags behind does not run the same tick again
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface LeaseLock {
+
+    // Unique name of the job, key of its lease
+    String name();
+
+    // ISO-8601 duration, longer than the slowest expected run
+    String lockAtMostFor();
+
+    // ISO-8601 duration
+    String lockAtLeastFor() default "PT0S";
+}
@@ -0,0 +1,38 @@
+package fr.elikia.backend.bll.schedule;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Wraps the methods annotated with LeaseLock in a lease of LeaseLockService.
+ */
+@Aspect
+@Component
+public class LeaseLockAspect {
+    private final LeaseLockService leaseLockService;
+
+    public LeaseLockAspect(LeaseLockService leaseLockService) {
+        this.leaseLockService = leaseLockService;
+    }
+
+    @Around("@annotation(leaseLock)")
+    public Object runUnderLease(ProceedingJoinPoint joinPoint, LeaseLock leaseLock) throws Throwable {
+        LeaseLockService.Lease lease = leaseLockService.tryAcquire(
+                leaseLock.name(),
+                Duration.parse(leaseLock.lockAtMostFor())
+        );
+        if (lease == null) {
+            return null;
+        }
+
+        try {
+            return joinPoint.proceed();
+        } finally {
+            leaseLockService.release(lease, Duration.parse(leaseLock.lockAtLeastFor()));
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package fr.elikia.backend.bll.schedule;
+
+import fr.elikia.backend.dao.idao.IDAOLeaseLock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Database lease locks, so that a scheduled job runs on a single node at a time.
+
+ * Business rules:
+ * - A lease is a row of scheduler_lock held by one node until its end date
+ * - Taking a free or expired lease is a single conditional statement, a held one is skipped
+ * - Releasing ends the lease at once, or at lockedAt + lockAtLeastFor if later
+ * - Each application instance has its own owner identifier (process, host, random suffix)
+ */
+@Service
+public class LeaseLockService {
+    private static final Logger LOGGER = LoggerFactory.getLogger(LeaseLockService.class);
+
+    private final IDAOLeaseLock idaoLeaseLock;
+    private final String owner;
+
+    public LeaseLockService(IDAOLeaseLock idaoLeaseLock) {
+        this.idaoLeaseLock = idaoLeaseLock;
+        this.owner = ManagementFactory.getRuntimeMXBean().getName()
+                + "/" + UUID.randomUUID().toString().substring(0, 8);
+    }
+
+
+    /**
+     * Lease held by this node.
+     *
+     * @param name job name
+     * @param lockedAt date the lease was taken
+     */
+    public record Lease(String name, LocalDateTime lockedAt) {
+    }
+
+
+    /**
+     * Takes the lease of a job.
+     *
+     * @param name job name
+     * @param lockAtMostFor lease duration if it is never released
+     * @return the lease, or null if another node holds it
+     */
+    public Lease tryAcquire(String name, Duration lockAtMostFor) {
+        LocalDateTime now = LocalDateTime.now();
+
+        if (!idaoLeaseLock.tryAcquire(name, owner, now, now.plus(lockAtMostFor))) {
+            LOGGER.debug("Job {} is running on another node, skipped", name);
+            return null;
+        }
+        return new Lease(name, now);
+    }
+
+
+    /**
+     * Releases a lease taken by this node.
+     *
+     * @param lockAtLeastFor minimum lease duration, counted from its acquisition
+     */
+    public void release(Lease lease, Duration lockAtLeastFor) {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime minimumEnd = lease.lockedAt().plus(lockAtLeastFor);
+
+        if (!idaoLeaseLock.release(lease.name(), owner, minimumEnd.isAfter(now) ? minimumEnd : now)) {
+            // Expired during the run and taken over by another node
+            LOGGER.warn("Lease of job {} was lost before its release", lease.name());
+        }
+    }
+
+
+    /**
+     * Runs a job if this node gets its lease, and releases it afterwards.
+     *
+     * @return true if the job ran, false if it was skipped
+     */
+    public boolean runExclusively(String name, Duration lockAtMostFor, Runnable job) {
+        Lease lease = tryAcquire(name, lockAtMostFor);
+        if (lease == null) {
+            return false;
+        }
+
+        try {
+            job.run();
+        } finally {
+            release(lease, Duration.ZERO);
+        }
+        return true;
+    }
+
+
+    public String getOwner() {
+        return owner;
+    }
+}
@@ -1,36 +1,199 @@
 package fr.elikia.backend.bll.schedule;
 
-import fr.elikia.backend.bo.enums.ContentStatus;
-import fr.elikia.backend.bo.News;
 import fr.elikia.backend.dao.idao.IDAONews;
-import jakarta.transaction.Transactional;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.TaskScheduler;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
 
+/**
+ * Publishes scheduled news at their publication date.
+
+ * Business rules:
+ * - One timer is armed per distinct upcoming publication date, nothing is queried while idle
+ * - Timers are loaded from the database at startup and armed by NewsService
+ *   when a news is created or updated with a planned publication
+ * - A timer fires at the publication date and publishes every due news
+ * - A low-frequency sweep publishes what a lost timer missed and re-arms the upcoming dates
+ *   (news written by another instance or directly in the database)
+ * - Every node arms its timers, a single node publishes: the others skip on the lease
+ *   and check again shortly after, in case the holder started before the date was due
+ */
 @Service
 public class NewsSchedulerService {
+    private static final Logger LOGGER = LoggerFactory.getLogger(NewsSchedulerService.class);
+
+    /** CONSTANTS*/
+    private static final String PUBLICATION_JOB = "news-publication";
+    private static final Duration PUBLICATION_LEASE = Duration.ofMinutes(5);
+    private static final Duration LEASE_RETRY_DELAY = Duration.ofSeconds(1);
+
     private final IDAONews idaoNews;
+    private final TaskScheduler taskScheduler;
+    private final LeaseLockService leaseLockService;
+
+    // Armed timers by publication date
+    private final Map<LocalDateTime, ScheduledFuture<?>> timers = new ConcurrentHashMap<>();
 
-    public NewsSchedulerService(IDAONews idaoNews) {
+    // Last run, read by monitoring and tests
+    private volatile PublicationReport lastReport;
+
+    public NewsSchedulerService(IDAONews idaoNews, TaskScheduler taskScheduler,
+                                LeaseLockService leaseLockService) {
         this.idaoNews = idaoNews;
+        this.taskScheduler = taskScheduler;
+        this.leaseLockService = leaseLockService;
+    }
+
+
+    /**
+     * Outcome of one publication run.
+     *
+     * @param newsIds identifiers of the news published by the run
+     * @param duration time spent publishing
+     */
+    public record PublicationReport(List<Long> newsIds, Duration duration) {
+
+        public int publishedCount() {
+            return newsIds.size();
+        }
+    }
+
+
+    /**
+     * Publishes the news that became due while the application was stopped,
+     * then arms the timers of the upcoming publications.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadSchedule() {
+        reconcile();
+    }
+
+
+    /**
+     * Arms the publication timer of a news, once the current transaction has committed
+     * (a timer firing before the commit would not see the news).
+     *
+     * @param publishedAt planned publication date, ignored if null
+     */
+    public void schedulePublication(LocalDateTime publishedAt) {
+        if (publishedAt == null) {
+            return;
+        }
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    arm(publishedAt);
+                }
+            });
+            return;
+        }
+        arm(publishedAt);
+    }
+
+
+    /**
+     * Safety net of the timers: publishes due news and re-arms the upcoming dates.
+     */
+    @Scheduled(
+            initialDelayString = "${news.publication.sweep-interval-ms:900000}",
+            fixedDelayString = "${news.publication.sweep-interval-ms:900000}"
+    )
+    public void reconcile() {
+        LocalDateTime now = LocalDateTime.now();
+        leaseLockService.runExclusively(PUBLICATION_JOB, PUBLICATION_LEASE, () -> publishDueNews(now));
+        idaoNews.findUpcomingPublicationDates(now).forEach(this::arm);
+    }
+
+
+    /**
+     * Publishes the news whose publication date is reached
+
+     * Business rules:
+     * - All due news are published by a single bulk update, no news entity is loaded
+     * - The latest news cache is invalidated when at least one news is published
+     * - Every run records how many news it published and how long it took
+     */
+    public PublicationReport publishScheduledNews() {
+        return publishDueNews(LocalDateTime.now());
     }
 
+
     /**
-     * Publishes scheduled news when publication date is reached
+     * Report of the last publication run, null before the first run
      */
-    @Scheduled(fixedRate = 60000) // all the minute
-    @Transactional
-    public void publishScheduledNews() {
+    public PublicationReport getLastReport() {
+        return lastReport;
+    }
+
+
+    /**
+     * Number of publication dates waiting for their timer
+     */
+    public int pendingTimerCount() {
+        return timers.size();
+    }
+
+
+    // =========================================================
+    // Private helpers
+    // =========================================================
+
+    private void arm(LocalDateTime publishedAt) {
+        armAt(publishedAt, publishedAt.atZone(ZoneId.systemDefault()).toInstant());
+    }
+
+
+    private void armAt(LocalDateTime publishedAt, Instant fireAt) {
+        timers.computeIfAbsent(publishedAt, date -> taskScheduler.schedule(() -> fire(date), fireAt));
+    }
+
+
+    private void fire(LocalDateTime publishedAt) {
+        timers.remove(publishedAt);
+
+        // The timer may wake up slightly ahead of the wall clock
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime due = now.isBefore(publishedAt) ? publishedAt : now;
+        try {
+            if (!leaseLockService.runExclusively(PUBLICATION_JOB, PUBLICATION_LEASE, () -> publishDueNews(due))) {
+                armAt(publishedAt, Instant.now().plus(LEASE_RETRY_DELAY));
+            }
+        } catch (RuntimeException e) {
+            // The next sweep publishes what this timer missed
+            LOGGER.warn("Scheduled publication of {} failed", publishedAt, e);
+        }
+    }
+
+
+    private PublicationReport publishDueNews(LocalDateTime now) {
+        long start = System.nanoTime();
+
+        List<Long> published = idaoNews.publishScheduled(now);
 
-        List<News> toPublish =
-                idaoNews.findAllScheduledToPublish(LocalDateTime.now());
+        PublicationReport report = new PublicationReport(published, Duration.ofNanos(System.nanoTime() - start));
+        lastReport = report;
 
-        for (News news : toPublish) {
-            news.setContentStatus(ContentStatus.PUBLISHED);
-            idaoNews.update(news);
+        if (!published.isEmpty()) {
+            LOGGER.info("Published {} scheduled news in {} ms",
+                    report.publishedCount(), report.duration().toMillis());
         }
+        return report;
     }
 }
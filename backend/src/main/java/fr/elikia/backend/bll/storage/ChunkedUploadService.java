@@ -0,0 +1,411 @@
+package fr.elikia.backend.bll.storage;
+
+import fr.elikia.backend.bo.LogicResult;
+import fr.elikia.backend.dto.UploadInitDTO;
+import fr.elikia.backend.dto.UploadStatusDTO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Service receiving large media files as resumable sequences of chunks.
+
+ * Chunks are streamed from the request body straight into their final
+ * position in a preallocated staging file, so no chunk is buffered in
+ * memory or in a temporary multipart file.
+
+ * Business rules:
+ * - The client announces the file size and SHA-256 digest before sending chunks
+ * - Chunks have a fixed size (the last one may be shorter) and may arrive in any order
+ * - Re-sending a chunk overwrites it, so an interrupted transfer resumes with the missing ones
+ * - The upload is complete only once every chunk arrived and the digest matches
+ * - An upload cannot be completed while chunks are being written: the verified file
+ *   is never written again
+ * - A completed upload is consumed once, when attached to a News, Event or Workshop
+ * - Sessions idle for longer than the session TTL are dropped with their file
+ */
+@Service
+public class ChunkedUploadService {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ChunkedUploadService.class);
+
+    /** CONSTANTS*/
+    private static final String DIGEST_ALGORITHM = "SHA-256";
+    // Read buffer used to verify the digest of a completed file
+    private static final int DIGEST_BUFFER_SIZE = 64 * 1024;
+
+    private final MediaStorageService mediaStorageService;
+    private final long chunkSize;
+    private final long maxSize;
+    private final Duration sessionTtl;
+    // In-flight uploads, by upload identifier
+    private final Map<String, UploadSession> sessions = new ConcurrentHashMap<>();
+
+
+    public ChunkedUploadService(MediaStorageService mediaStorageService,
+                                @Value("${media.upload.chunk-size:1048576}") long chunkSize,
+                                @Value("${media.upload.max-size:524288000}") long maxSize,
+                                @Value("${media.upload.session-ttl:PT24H}") Duration sessionTtl) {
+        this.mediaStorageService = mediaStorageService;
+        this.chunkSize = chunkSize;
+        this.maxSize = maxSize;
+        this.sessionTtl = sessionTtl;
+    }
+
+
+    /**
+     * Fully received and verified upload, ready to be attached to an entity.
+     *
+     * @param stagedPath file in the staging area
+     * @param fileName original file name (used for the extension)
+     * @param sha256 verified digest, in lowercase hex
+     */
+    public record CompletedUpload(Path stagedPath, String fileName, String sha256) {
+    }
+
+
+    /**
+     * Opens an upload session and preallocates its staging file.
+     *
+     * @return LogicResult containing the initial status:
+     * - 201 if the session was opened
+     * - 400 if the announced file is invalid or too large
+     * - 500 if the staging file cannot be created
+     */
+    public LogicResult<UploadStatusDTO> startUpload(UploadInitDTO uploadInitDTO) {
+        if (uploadInitDTO == null
+                || uploadInitDTO.getFileName() == null || uploadInitDTO.getFileName().isBlank()) {
+            return new LogicResult<>("400", "Invalid file name", null);
+        }
+
+        long size = uploadInitDTO.getSize();
+        if (size <= 0 || size > maxSize) {
+            return new LogicResult<>("400", "The file size must be between 1 and " + maxSize + " bytes", null);
+        }
+
+        String sha256 = uploadInitDTO.getSha256();
+        if (sha256 == null || !sha256.matches("[0-9a-fA-F]{64}")) {
+            return new LogicResult<>("400", "The checksum must be a SHA-256 hex digest", null);
+        }
+
+        Path stagedPath;
+        try {
+            stagedPath = mediaStorageService.createStagingFile();
+            // Sparse on most filesystems: reserves the length without writing it
+            try (RandomAccessFile file = new RandomAccessFile(stagedPath.toFile(), "rw")) {
+                file.setLength(size);
+            }
+        } catch (IOException e) {
+            LOGGER.error("Unable to create staging file for chunked upload", e);
+            return new LogicResult<>("500", "Failed to store media file on disk", null);
+        }
+
+        int chunkCount = (int) ((size + chunkSize - 1) / chunkSize);
+        UploadSession session = new UploadSession(
+                UUID.randomUUID().toString(),
+                uploadInitDTO.getFileName(),
+                size,
+                sha256.toLowerCase(),
+                stagedPath,
+                chunkCount
+        );
+        sessions.put(session.uploadId, session);
+
+        return new LogicResult<>("201", "Upload started", session.toStatus(chunkSize));
+    }
+
+
+    /**
+     * Writes one chunk at its position in the staging file.
+     *
+     * @param uploadId upload identifier
+     * @param index zero-based chunk index
+     * @param body request body, containing exactly the bytes of the chunk
+     *
+     * @return LogicResult containing the updated status:
+     * - 200 if the chunk was stored
+     * - 400 if the index is out of range or the body has the wrong length
+     * - 404 if the upload does not exist
+     * - 409 if the upload is already completed
+     */
+    public LogicResult<UploadStatusDTO> writeChunk(String uploadId, int index, InputStream body) {
+        UploadSession session = sessions.get(uploadId);
+        if (session == null) {
+            return new LogicResult<>("404", "Upload not found", null);
+        }
+        if (index < 0 || index >= session.chunkCount) {
+            return new LogicResult<>("400", "Invalid chunk index", null);
+        }
+        // Counted in flight until written: the upload cannot be completed meanwhile
+        if (!session.beginWrite()) {
+            return new LogicResult<>("409", "Upload already completed", null);
+        }
+
+        boolean stored = false;
+        try {
+            LogicResult<UploadStatusDTO> failure = transferChunk(session, index, body);
+            if (failure != null) {
+                return failure;
+            }
+            stored = true;
+        } finally {
+            session.endWrite(index, stored);
+        }
+
+        return new LogicResult<>("200", "Chunk stored", session.toStatus(chunkSize));
+    }
+
+
+    /**
+     * Returns the progress of an upload, so an interrupted client can resume it.
+     *
+     * @return LogicResult containing the status, or 404 if the upload does not exist
+     */
+    public LogicResult<UploadStatusDTO> getStatus(String uploadId) {
+        UploadSession session = sessions.get(uploadId);
+        if (session == null) {
+            return new LogicResult<>("404", "Upload not found", null);
+        }
+        session.touch();
+        return new LogicResult<>("200", "Upload status retrieved", session.toStatus(chunkSize));
+    }
+
+
+    /**
+     * Verifies that every chunk arrived and that the file matches the announced digest.
+     *
+     * @return LogicResult containing the final status:
+     * - 200 if the upload is complete and verified
+     * - 400 if chunks are missing, or if the digest does not match (the upload is dropped)
+     * - 404 if the upload does not exist
+     * - 409 if chunks are still being written
+     */
+    public LogicResult<UploadStatusDTO> completeUpload(String uploadId) {
+        UploadSession session = sessions.get(uploadId);
+        if (session == null) {
+            return new LogicResult<>("404", "Upload not found", null);
+        }
+
+        synchronized (session) {
+            if (session.completed) {
+                return new LogicResult<>("200", "Upload completed", session.toStatus(chunkSize));
+            }
+
+            if (session.inFlightWrites > 0) {
+                return new LogicResult<>("409", "Chunks are still being written", session.toStatus(chunkSize));
+            }
+
+            if (session.received.cardinality() < session.chunkCount) {
+                return new LogicResult<>("400", "Upload has missing chunks", session.toStatus(chunkSize));
+            }
+
+            String digest;
+            try {
+                digest = digestOf(session.stagedPath);
+            } catch (IOException e) {
+                LOGGER.warn("Unable to verify upload {}", uploadId, e);
+                return new LogicResult<>("500", "Failed to read media file from disk", null);
+            }
+
+            if (!digest.equals(session.sha256)) {
+                drop(session);
+                return new LogicResult<>("400", "Checksum mismatch, the upload must be restarted", null);
+            }
+
+            session.completed = true;
+            session.touch();
+            return new LogicResult<>("200", "Upload completed", session.toStatus(chunkSize));
+        }
+    }
+
+
+    /**
+     * Consumes a completed upload. Each upload can be claimed only once.
+     *
+     * @return the completed upload, or null if it does not exist or is not completed
+     */
+    public CompletedUpload claim(String uploadId) {
+        UploadSession session = uploadId == null ? null : sessions.get(uploadId);
+        if (session == null || !session.isCompleted() || !sessions.remove(uploadId, session)) {
+            return null;
+        }
+        return new CompletedUpload(session.stagedPath, session.fileName, session.sha256);
+    }
+
+
+    /**
+     * Drops sessions idle for longer than the session TTL, with their staging file.
+     */
+    @Scheduled(
+            initialDelayString = "${media.upload.cleanup-interval-ms:600000}",
+            fixedDelayString = "${media.upload.cleanup-interval-ms:600000}"
+    )
+    public void expireSessions() {
+        Instant threshold = Instant.now().minus(sessionTtl);
+
+        for (UploadSession session : sessions.values()) {
+            if (session.lastActivity.isBefore(threshold) && sessions.remove(session.uploadId, session)) {
+                deleteQuietly(session.stagedPath);
+            }
+        }
+    }
+
+
+    // =========================================================
+    // Private helpers
+    // =========================================================
+
+    /**
+     * Streams a chunk from the request body to its position in the staging file.
+     *
+     * @return LogicResult containing the error, or null if the chunk was written
+     */
+    private LogicResult<UploadStatusDTO> transferChunk(UploadSession session, int index, InputStream body) {
+        long position = index * chunkSize;
+        long expectedLength = Math.min(chunkSize, session.size - position);
+
+        try (FileChannel channel = FileChannel.open(session.stagedPath, StandardOpenOption.WRITE)) {
+            ReadableByteChannel source = Channels.newChannel(body);
+
+            long remaining = expectedLength;
+            while (remaining > 0) {
+                long transferred = channel.transferFrom(source, position + expectedLength - remaining, remaining);
+                if (transferred <= 0) {
+                    break;
+                }
+                remaining -= transferred;
+            }
+
+            if (remaining > 0 || body.read() != -1) {
+                return new LogicResult<>("400", "Chunk " + index + " must be " + expectedLength + " bytes long", null);
+            }
+        } catch (IOException e) {
+            LOGGER.warn("Chunk {} of upload {} could not be written", index, session.uploadId, e);
+            return new LogicResult<>("500", "Failed to store media file on disk", null);
+        }
+
+        return null;
+    }
+
+
+    private void drop(UploadSession session) {
+        sessions.remove(session.uploadId, session);
+        deleteQuietly(session.stagedPath);
+    }
+
+
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            LOGGER.warn("Unable to delete upload file {}", path, e);
+        }
+    }
+
+
+    private static String digestOf(Path file) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance(DIGEST_ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            // SHA-256 is mandatory on every Java platform
+            throw new IllegalStateException(e);
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocateDirect(DIGEST_BUFFER_SIZE);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            while (channel.read(buffer) != -1) {
+                buffer.flip();
+                digest.update(buffer);
+                buffer.clear();
+            }
+        }
+
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+
+    /**
+     * State of one upload. Chunk bookkeeping is guarded by the session monitor.
+     */
+    private static final class UploadSession {
+        private final String uploadId;
+        private final String fileName;
+        private final long size;
+        private final String sha256;
+        private final Path stagedPath;
+        private final int chunkCount;
+        private final BitSet received;
+        private volatile Instant lastActivity = Instant.now();
+        private boolean completed;
+        private int inFlightWrites;
+
+        UploadSession(String uploadId, String fileName, long size, String sha256, Path stagedPath, int chunkCount) {
+            this.uploadId = uploadId;
+            this.fileName = fileName;
+            this.size = size;
+            this.sha256 = sha256;
+            this.stagedPath = stagedPath;
+            this.chunkCount = chunkCount;
+            this.received = new BitSet(chunkCount);
+        }
+
+        // Registers a chunk write, refused once the upload is completed
+        synchronized boolean beginWrite() {
+            if (completed) {
+                return false;
+            }
+            inFlightWrites++;
+            touch();
+            return true;
+        }
+
+        synchronized void endWrite(int index, boolean stored) {
+            inFlightWrites--;
+            // Completion waits for the writes in flight, checked again all the same
+            if (stored && !completed) {
+                received.set(index);
+            }
+            touch();
+        }
+
+        synchronized boolean isCompleted() {
+            return completed;
+        }
+
+        void touch() {
+            lastActivity = Instant.now();
+        }
+
+        synchronized UploadStatusDTO toStatus(long chunkSize) {
+            List<Integer> missing = new ArrayList<>(chunkCount - received.cardinality());
+            for (int index = received.nextClearBit(0); index < chunkCount; index = received.nextClearBit(index + 1)) {
+                missing.add(index);
+            }
+            return new UploadStatusDTO(uploadId, chunkSize, chunkCount, missing, completed);
+        }
+    }
+}
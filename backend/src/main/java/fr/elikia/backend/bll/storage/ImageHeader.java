@@ -0,0 +1,152 @@
+package fr.elikia.backend.bll.storage;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+/**
+ * Format and dimensions of an image, read from its first bytes only.
+
+ * The pixels are never decoded: the header is parsed with a few small reads,
+ * so a file that is not an image is rejected after reading a handful of bytes.
+
+ * Supported formats:
+ * - PNG: signature followed by the IHDR chunk (first 24 bytes)
+ * - JPEG: SOI marker, then marker segments are skipped up to the first SOFn frame header
+ *
+ * @param format "png" or "jpeg"
+ * @param width width in pixels
+ * @param height height in pixels
+ */
+public record ImageHeader(String format, int width, int height) {
+
+    /** CONSTANTS*/
+    public static final String PNG = "png";
+    public static final String JPEG = "jpeg";
+    private static final byte[] PNG_SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+    private static final byte[] PNG_IHDR = {'I', 'H', 'D', 'R'};
+    // Upper bound of bytes scanned before the JPEG frame header (metadata segments are skipped, not read)
+    private static final long MAX_JPEG_HEADER_BYTES = 1024 * 1024;
+
+
+    /**
+     * Reads the header of an image stream. The stream is left positioned after the header.
+     *
+     * @return the header, or null if the bytes are not a PNG or JPEG image
+     * @throws IOException if the stream cannot be read
+     */
+    public static ImageHeader read(InputStream inputStream) throws IOException {
+        int first = inputStream.read();
+        int second = inputStream.read();
+
+        try {
+            if (first == 0xFF && second == 0xD8) {
+                return readJpeg(inputStream);
+            }
+            if (first == (PNG_SIGNATURE[0] & 0xFF) && second == PNG_SIGNATURE[1]) {
+                return readPng(inputStream);
+            }
+        } catch (EOFException e) {
+            // Truncated header
+        }
+        return null;
+    }
+
+
+    /**
+     * Total number of pixels, as a long so large dimensions cannot overflow.
+     */
+    public long pixelCount() {
+        return (long) width * height;
+    }
+
+
+    private static ImageHeader readPng(InputStream inputStream) throws IOException {
+        byte[] header = inputStream.readNBytes(22);
+        if (header.length < 22
+                || !Arrays.equals(header, 0, 6, PNG_SIGNATURE, 2, 8)
+                || !Arrays.equals(header, 10, 14, PNG_IHDR, 0, 4)) {
+            return null;
+        }
+
+        int width = readInt(header, 14);
+        int height = readInt(header, 18);
+        return width > 0 && height > 0 ? new ImageHeader(PNG, width, height) : null;
+    }
+
+
+    private static ImageHeader readJpeg(InputStream inputStream) throws IOException {
+        long scanned = 2;
+
+        while (scanned < MAX_JPEG_HEADER_BYTES) {
+            if (readByte(inputStream) != 0xFF) {
+                return null;
+            }
+
+            // Markers may be preceded by any number of 0xFF fill bytes
+            int marker = readByte(inputStream);
+            while (marker == 0xFF) {
+                marker = readByte(inputStream);
+            }
+            scanned += 2;
+
+            // Standalone markers carry no length
+            if (marker == 0x01 || (marker >= 0xD0 && marker <= 0xD7)) {
+                continue;
+            }
+            // End of image or start of scan before any frame header
+            if (marker == 0xD9 || marker == 0xDA) {
+                return null;
+            }
+
+            int length = (readByte(inputStream) << 8) | readByte(inputStream);
+            if (length < 2) {
+                return null;
+            }
+
+            if (isStartOfFrame(marker)) {
+                byte[] frame = inputStream.readNBytes(5);
+                if (frame.length < 5) {
+                    return null;
+                }
+                // precision (1 byte), height (2 bytes), width (2 bytes)
+                int height = ((frame[1] & 0xFF) << 8) | (frame[2] & 0xFF);
+                int width = ((frame[3] & 0xFF) << 8) | (frame[4] & 0xFF);
+                return width > 0 && height > 0 ? new ImageHeader(JPEG, width, height) : null;
+            }
+
+            // EXIF, ICC profiles, thumbnails...: skipped without being read when the stream can seek
+            inputStream.skipNBytes(length - 2);
+            scanned += length;
+        }
+
+        return null;
+    }
+
+
+    /**
+     * SOF0..SOF15, except DHT (C4), JPG (C8) and DAC (CC) which share the range.
+     */
+    private static boolean isStartOfFrame(int marker) {
+        return marker >= 0xC0 && marker <= 0xCF
+                && marker != 0xC4 && marker != 0xC8 && marker != 0xCC;
+    }
+
+
+    private static int readByte(InputStream inputStream) throws IOException {
+        int value = inputStream.read();
+        if (value < 0) {
+            throw new EOFException();
+        }
+        return value;
+    }
+
+
+    private static int readInt(byte[] bytes, int offset) {
+        return ((bytes[offset] & 0xFF) << 24)
+                | ((bytes[offset + 1] & 0xFF) << 16)
+                | ((bytes[offset + 2] & 0xFF) << 8)
+                | (bytes[offset + 3] & 0xFF);
+    }
+}
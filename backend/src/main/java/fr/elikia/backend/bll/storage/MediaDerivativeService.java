@@ -0,0 +1,311 @@
+package fr.elikia.backend.bll.storage;
+
+import fr.elikia.backend.bll.schedule.LeaseLock;
+import fr.elikia.backend.bo.Media;
+import fr.elikia.backend.dao.idao.IDAOMedia;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Service generating resized derivatives of uploaded images in the background.
+
+ * Each stored image gets two variants, written next to the original:
+ * - a thumbnail (THUMBNAIL_WIDTH pixels wide) used by list pages
+ * - a display size (DISPLAY_WIDTH pixels wide) used by detail pages
+
+ * Business rules:
+ * - Generation runs after the Media transaction commits, on a bounded worker pool
+ * - Variants are re-encoded from pixels only, so EXIF/ICC metadata is stripped
+ * - Images are never upscaled
+ * - Variant keys are derived from the original key, so generation is idempotent:
+ *   existing variant files are reused and a backfill can be re-run safely
+ * - Images ImageIO cannot decode fall back to the original as their variants
+ * - The backfill walks the media by increasing id, a page per run, then starts over:
+ *   media whose original is missing are passed over instead of filling every page
+ */
+@Service
+public class MediaDerivativeService {
+    private static final Logger LOGGER = LoggerFactory.getLogger(MediaDerivativeService.class);
+
+    /** CONSTANTS*/
+    public static final int THUMBNAIL_WIDTH = 320;
+    public static final int DISPLAY_WIDTH = 1280;
+    // JPEG re-compression quality (0..1)
+    private static final float JPEG_QUALITY = 0.82f;
+
+    private final IDAOMedia idaoMedia;
+    private final MediaStorageService mediaStorageService;
+    private final ThreadPoolExecutor workers;
+    private final int backfillBatchSize;
+    // Last media id of the previous backfill page, 0 to start over
+    private volatile long backfillCursor;
+
+
+    public MediaDerivativeService(IDAOMedia idaoMedia,
+                                  MediaStorageService mediaStorageService,
+                                  @Value("${media.derivatives.pool-size:2}") int poolSize,
+                                  @Value("${media.derivatives.queue-capacity:200}") int queueCapacity) {
+        this.idaoMedia = idaoMedia;
+        this.mediaStorageService = mediaStorageService;
+        this.backfillBatchSize = queueCapacity;
+
+        AtomicInteger threadCount = new AtomicInteger();
+        // Bounded queue: when full, work is rejected and left to the next backfill
+        this.workers = new ThreadPoolExecutor(
+                poolSize, poolSize,
+                0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "media-derivatives-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy()
+        );
+    }
+
+
+    /**
+     * Schedules variant generation for freshly persisted media.
+     * Work is submitted once the current transaction commits, or immediately without transaction.
+     *
+     * @param medias persisted media (video-only media are ignored)
+     */
+    public void generateAfterCommit(List<Media> medias) {
+        List<Media> images = medias.stream()
+                .filter(media -> media.getMediaId() != null && media.getImagePath() != null)
+                .toList();
+
+        if (images.isEmpty()) {
+            return;
+        }
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            images.forEach(this::submit);
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                // Registered after the staged files, so originals are already promoted
+                if (status == STATUS_COMMITTED) {
+                    images.forEach(MediaDerivativeService.this::submit);
+                }
+            }
+        });
+    }
+
+
+    /**
+     * Backfills variants of media stored before the pipeline existed
+     * or whose generation was dropped (full queue, restart).
+     */
+    @Scheduled(
+            initialDelayString = "${media.derivatives.backfill-interval-ms:3600000}",
+            fixedDelayString = "${media.derivatives.backfill-interval-ms:3600000}"
+    )
+    @LeaseLock(name = "media-derivatives-backfill", lockAtMostFor = "PT30M", lockAtLeastFor = "PT1M")
+    public void backfillMissingDerivatives() {
+        int capacity = Math.min(backfillBatchSize, workers.getQueue().remainingCapacity());
+        if (capacity == 0) {
+            return;
+        }
+
+        List<Media> medias = idaoMedia.findWithoutDerivatives(backfillCursor, capacity);
+        medias.forEach(this::submit);
+
+        backfillCursor = medias.size() < capacity ? 0 : medias.getLast().getMediaId();
+    }
+
+
+    /**
+     * Generates (or reuses) both variants of one image and records them on the Media row.
+     * Safe to call several times for the same media.
+     */
+    public void generateDerivatives(Long mediaId, String imagePath) {
+        Path original = mediaStorageService.resolve(imagePath);
+        if (!Files.exists(original)) {
+            // Not promoted yet (or gone): the next backfill will retry
+            return;
+        }
+
+        String thumbnailPath = imagePath;
+        String displayPath = imagePath;
+
+        try {
+            BufferedImage source = ImageIO.read(original.toFile());
+
+            if (source != null) {
+                thumbnailPath = writeVariant(source, imagePath, THUMBNAIL_WIDTH);
+                displayPath = writeVariant(source, imagePath, DISPLAY_WIDTH);
+            } else {
+                LOGGER.warn("Unsupported image format for media {}, serving original", mediaId);
+            }
+        } catch (IOException e) {
+            LOGGER.warn("Unable to generate derivatives of media {}, serving original", mediaId, e);
+        }
+
+        // Only applies if the image was not replaced in the meantime
+        idaoMedia.updateDerivatives(mediaId, imagePath, thumbnailPath, displayPath);
+    }
+
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdownNow();
+    }
+
+
+    /**
+     * Builds the key of a variant from the original key: ab/cd/digest.jpg -> ab/cd/digest-w320.jpg
+     */
+    public static String variantKey(String imagePath, int width) {
+        int dot = imagePath.lastIndexOf('.');
+        if (dot <= imagePath.lastIndexOf('/')) {
+            return imagePath + "-w" + width;
+        }
+        return imagePath.substring(0, dot) + "-w" + width + imagePath.substring(dot);
+    }
+
+
+    // =========================================================
+    // Private helpers
+    // =========================================================
+
+    private void submit(Media media) {
+        Long mediaId = media.getMediaId();
+        String imagePath = media.getImagePath();
+
+        try {
+            workers.execute(() -> {
+                try {
+                    generateDerivatives(mediaId, imagePath);
+                } catch (RuntimeException e) {
+                    LOGGER.error("Derivative generation failed for media {}", mediaId, e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            LOGGER.warn("Derivative queue full, media {} left to backfill", mediaId);
+        }
+    }
+
+
+    /**
+     * Writes one variant unless it already exists.
+     *
+     * @return the variant key
+     */
+    private String writeVariant(BufferedImage source, String imagePath, int width) throws IOException {
+        String key = variantKey(imagePath, width);
+        Path target = mediaStorageService.resolve(key);
+
+        if (Files.exists(target)) {
+            return key;
+        }
+
+        String format = imagePath.toLowerCase().endsWith(".png") ? "png" : "jpeg";
+        BufferedImage resized = resize(source, width, "png".equals(format));
+
+        // Write to a temporary sibling, then publish atomically
+        Path temporary = target.resolveSibling(UUID.randomUUID() + ".part");
+        try {
+            encode(resized, format, temporary);
+            try {
+                Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+
+        return key;
+    }
+
+
+    /**
+     * Downscales by successive halving, then to the exact width, for a smooth result.
+     */
+    private static BufferedImage resize(BufferedImage source, int maxWidth, boolean keepAlpha) {
+        int targetWidth = Math.min(maxWidth, source.getWidth());
+        int targetHeight = Math.max(1, Math.round(source.getHeight() * (float) targetWidth / source.getWidth()));
+
+        BufferedImage current = source;
+        while (current.getWidth() / 2 >= targetWidth && current.getHeight() / 2 >= 1) {
+            current = draw(current, current.getWidth() / 2, current.getHeight() / 2, keepAlpha);
+        }
+
+        return draw(current, targetWidth, targetHeight, keepAlpha);
+    }
+
+
+    private static BufferedImage draw(BufferedImage source, int width, int height, boolean keepAlpha) {
+        BufferedImage target = new BufferedImage(width, height,
+                keepAlpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+
+        Graphics2D graphics = target.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            if (!keepAlpha) {
+                // JPEG has no alpha channel: flatten transparent areas on white
+                graphics.setColor(Color.WHITE);
+                graphics.fillRect(0, 0, width, height);
+            }
+            graphics.drawImage(source, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+
+        return target;
+    }
+
+
+    private static void encode(BufferedImage image, String format, Path target) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName(format).next();
+
+        try (ImageOutputStream output = ImageIO.createImageOutputStream(target.toFile())) {
+            writer.setOutput(output);
+
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            if ("jpeg".equals(format)) {
+                param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                param.setCompressionQuality(JPEG_QUALITY);
+            }
+
+            // No metadata is passed: only pixels are written
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+    }
+}
@@ -0,0 +1,243 @@
+package fr.elikia.backend.bll.storage;
+
+import fr.elikia.backend.bll.schedule.LeaseLock;
+import fr.elikia.backend.dao.idao.IDAOMedia;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+
+import static fr.elikia.backend.bll.storage.MediaDerivativeService.DISPLAY_WIDTH;
+import static fr.elikia.backend.bll.storage.MediaDerivativeService.THUMBNAIL_WIDTH;
+import static fr.elikia.backend.bll.storage.MediaDerivativeService.variantKey;
+
+/**
+ * Mark-and-sweep collector of media files no Media row references anymore.
+
+ * Files can be orphaned by cascade deletes of their owner, rolled-back
+ * transactions or interrupted uploads. This collector:
+ * - Mark: streams every stored path from the database into a compact set of 64-bit hashes
+ * - Sweep: walks the storage tree and removes unreferenced files older than a grace period
+
+ * Business rules:
+ * - Files younger than the grace period are always kept (uploads in flight)
+ * - A hash collision can only keep a file, never remove a referenced one
+ * - In quarantine mode files are moved aside first, and deleted on a later
+ *   run once they stayed in quarantine for the grace period
+ * - Abandoned staging files are swept with the same grace period
+ */
+@Service
+public class MediaGarbageCollector {
+    private static final Logger LOGGER = LoggerFactory.getLogger(MediaGarbageCollector.class);
+
+    /** CONSTANTS*/
+    private static final String QUARANTINE_DIRECTORY = ".quarantine";
+    // FNV-1a 64-bit parameters
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final IDAOMedia idaoMedia;
+    private final Path storageRoot;
+    private final Path quarantineRoot;
+    private final Duration gracePeriod;
+    private final boolean quarantine;
+
+
+    public MediaGarbageCollector(IDAOMedia idaoMedia,
+                                 MediaStorageService mediaStorageService,
+                                 @Value("${media.gc.grace-period:PT24H}") Duration gracePeriod,
+                                 @Value("${media.gc.quarantine:true}") boolean quarantine) {
+        this.idaoMedia = idaoMedia;
+        this.storageRoot = mediaStorageService.getStorageRoot();
+        this.quarantineRoot = storageRoot.resolve(QUARANTINE_DIRECTORY);
+        this.gracePeriod = gracePeriod;
+        this.quarantine = quarantine;
+    }
+
+
+    /**
+     * Result of one collection run.
+     *
+     * @param scannedFiles number of files visited
+     * @param removedFiles number of files deleted or quarantined
+     * @param reclaimedBytes size of the removed files
+     */
+    public record SweepReport(long scannedFiles, long removedFiles, long reclaimedBytes) {
+    }
+
+
+    /**
+     * Runs a full mark-and-sweep cycle.
+     *
+     * @return what was reclaimed
+     */
+    @Scheduled(cron = "${media.gc.cron:0 30 3 * * *}")
+    @LeaseLock(name = "media-gc", lockAtMostFor = "PT6H", lockAtLeastFor = "PT5M")
+    public SweepReport collect() {
+        if (!Files.isDirectory(storageRoot)) {
+            return new SweepReport(0, 0, 0);
+        }
+
+        long[] referenced = markReferencedPaths();
+        Instant threshold = Instant.now().minus(gracePeriod);
+
+        Sweeper sweeper = new Sweeper(referenced, threshold);
+        try {
+            Files.walkFileTree(storageRoot, sweeper);
+        } catch (IOException e) {
+            LOGGER.error("Media garbage collection aborted", e);
+        }
+
+        SweepReport report = new SweepReport(sweeper.scannedFiles, sweeper.removedFiles, sweeper.reclaimedBytes);
+        LOGGER.info("Media garbage collection: {} files scanned, {} removed, {} bytes reclaimed",
+                report.scannedFiles(), report.removedFiles(), report.reclaimedBytes());
+        return report;
+    }
+
+
+    // =========================================================
+    // Mark phase
+    // =========================================================
+
+    /**
+     * Collects the hashes of every path referenced by a Media row,
+     * including the expected variant keys of each image.
+     *
+     * @return sorted hashes, searchable with binary search
+     */
+    private long[] markReferencedPaths() {
+        LongCollector collector = new LongCollector();
+
+        idaoMedia.forEachStoredPath(path -> {
+            collector.add(hash(path));
+            collector.add(hash(variantKey(path, THUMBNAIL_WIDTH)));
+            collector.add(hash(variantKey(path, DISPLAY_WIDTH)));
+        });
+
+        long[] hashes = collector.toArray();
+        Arrays.sort(hashes);
+        return hashes;
+    }
+
+
+    /**
+     * 64-bit FNV-1a hash of a storage key.
+     */
+    private static long hash(String path) {
+        long hash = FNV_OFFSET_BASIS;
+        for (byte b : path.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= FNV_PRIME;
+        }
+        return hash;
+    }
+
+
+    /**
+     * Growable primitive array: 8 bytes per path instead of a String and a set entry.
+     */
+    private static final class LongCollector {
+        private long[] values = new long[1024];
+        private int size;
+
+        void add(long value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        long[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+
+
+    // =========================================================
+    // Sweep phase
+    // =========================================================
+
+    private final class Sweeper extends SimpleFileVisitor<Path> {
+        private final long[] referenced;
+        private final FileTime threshold;
+        private long scannedFiles;
+        private long removedFiles;
+        private long reclaimedBytes;
+
+        Sweeper(long[] referenced, Instant threshold) {
+            this.referenced = referenced;
+            this.threshold = FileTime.from(threshold);
+        }
+
+        @Override
+        public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) {
+            scannedFiles++;
+
+            if (attributes.lastModifiedTime().compareTo(threshold) > 0) {
+                return FileVisitResult.CONTINUE;
+            }
+
+            String key = storageRoot.relativize(file).toString();
+            boolean internal = key.startsWith(".");
+
+            // Staging and quarantine files are never referenced: age alone decides
+            if (!internal && Arrays.binarySearch(referenced, hash(key)) >= 0) {
+                return FileVisitResult.CONTINUE;
+            }
+
+            try {
+                if (quarantine && !internal) {
+                    Path target = quarantineRoot.resolve(key);
+                    Files.createDirectories(target.getParent());
+                    Files.move(file, target, StandardCopyOption.REPLACE_EXISTING);
+                    // Quarantine time starts now
+                    Files.setLastModifiedTime(target, FileTime.from(Instant.now()));
+                } else {
+                    Files.deleteIfExists(file);
+                }
+                removedFiles++;
+                reclaimedBytes += attributes.size();
+            } catch (IOException e) {
+                LOGGER.warn("Unable to remove orphaned media file {}", file, e);
+            }
+
+            return FileVisitResult.CONTINUE;
+        }
+
+        @Override
+        public FileVisitResult visitFileFailed(Path file, IOException e) {
+            LOGGER.warn("Unable to inspect media file {}", file, e);
+            return FileVisitResult.CONTINUE;
+        }
+
+        @Override
+        public FileVisitResult postVisitDirectory(Path directory, IOException e) {
+            // Drop empty shard directories, keep the roots
+            if (!directory.equals(storageRoot) && directory.getParent() != null
+                    && !directory.getFileName().toString().startsWith(".")) {
+                try (var entries = Files.list(directory)) {
+                    if (entries.findAny().isEmpty()) {
+                        Files.deleteIfExists(directory);
+                    }
+                } catch (IOException ignored) {
+                    // Not empty anymore or not removable: kept for the next run
+                }
+            }
+            return FileVisitResult.CONTINUE;
+        }
+    }
+}
@@ -0,0 +1,435 @@
+package fr.elikia.backend.bll.storage;
+
+import fr.elikia.backend.bo.LogicResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+import static fr.elikia.backend.bll.storage.MediaDerivativeService.DISPLAY_WIDTH;
+import static fr.elikia.backend.bll.storage.MediaDerivativeService.THUMBNAIL_WIDTH;
+import static fr.elikia.backend.bll.storage.MediaDerivativeService.variantKey;
+
+/**
+ * Service responsible for the physical storage of uploaded media files.
+
+ * Uploads follow a two-phase workflow:
+ * - Phase 1: files are streamed to a staging area before any transaction opens
+ * - Phase 2: only the Media metadata is persisted, in a short transaction
+ * - Staged files are promoted atomically once the transaction commits,
+ *   or dropped if it rolls back
+
+ * This way no pooled database connection is held while images are written to disk.
+
+ * Files are content-addressed:
+ * - The SHA-256 digest is computed while the upload is streamed to staging
+ * - A file is stored once per digest, under a two-level shard (ab/cd/abcd...ef.jpg)
+ * - Media.imagePath holds that relative key; rows sharing a key share the file,
+ *   which is deleted only when no Media references it anymore
+ * - Files of members-only content live under a restricted prefix (members/...)
+ *   and are only served through signed URLs
+ */
+@Service
+public class MediaStorageService {
+    private static final Logger LOGGER = LoggerFactory.getLogger(MediaStorageService.class);
+
+    // Staging directory, kept under the storage root so promotion is a same-filesystem rename
+    private static final String STAGING_DIRECTORY = ".staging";
+    // Digest used as content address
+    private static final String DIGEST_ALGORITHM = "SHA-256";
+    // Number of hex characters per shard level (256 directories per level)
+    private static final int SHARD_WIDTH = 2;
+    // Key prefix of files only served through signed URLs
+    public static final String RESTRICTED_PREFIX = "members/";
+
+    private final Path storageRoot;
+    private final Path stagingRoot;
+    private final TransactionTemplate transactionTemplate;
+
+
+    public MediaStorageService(@Value("${media.storage.path}") String mediaStorageRoot,
+                               PlatformTransactionManager transactionManager) {
+        this.storageRoot = Paths.get(mediaStorageRoot).toAbsolutePath().normalize();
+        this.stagingRoot = storageRoot.resolve(STAGING_DIRECTORY);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+
+    /**
+     * Streams an uploaded file into the staging area and computes its content address.
+
+     * The digest is computed on the fly while copying, so the upload is read only once.
+     * The file is written under a random temporary name and is only
+     * published under its content key by {@link #promote(StagedFile)}.
+     *
+     * @param file uploaded file
+     * @param extension file extension, including the leading dot (e.g. ".jpg")
+     * @param restricted true if the file belongs to members-only content
+     *
+     * @return handle on the staged file
+     * @throws IOException if the file cannot be written
+     */
+    public StagedFile stage(MultipartFile file, String extension, boolean restricted) throws IOException {
+        Files.createDirectories(stagingRoot);
+        Path stagedPath = stagingRoot.resolve(UUID.randomUUID() + ".part");
+        MessageDigest digest = newDigest();
+
+        try (InputStream inputStream = new DigestInputStream(file.getInputStream(), digest)) {
+            Files.copy(inputStream, stagedPath);
+        } catch (IOException e) {
+            Files.deleteIfExists(stagedPath);
+            throw e;
+        }
+
+        String contentKey = contentKey(HexFormat.of().formatHex(digest.digest()), extension);
+        return new StagedFile(stagedPath, withRestriction(contentKey, restricted));
+    }
+
+
+    /**
+     * Creates an empty file in the staging area, used as target of a chunked upload.
+     *
+     * @throws IOException if the file cannot be created
+     */
+    public Path createStagingFile() throws IOException {
+        Files.createDirectories(stagingRoot);
+        return Files.createFile(stagingRoot.resolve(UUID.randomUUID() + ".part"));
+    }
+
+
+    /**
+     * Wraps a file already written to the staging area (chunked upload)
+     * into a staged file under its content key.
+     *
+     * @param stagedPath file in the staging area
+     * @param hexDigest verified SHA-256 digest of the file, in lowercase hex
+     * @param extension file extension, including the leading dot (e.g. ".jpg")
+     * @param restricted true if the file belongs to members-only content
+     */
+    public StagedFile stageCompleted(Path stagedPath, String hexDigest, String extension, boolean restricted) {
+        return new StagedFile(stagedPath, withRestriction(contentKey(hexDigest, extension), restricted));
+    }
+
+
+    /**
+     * Publishes a staged file under its content key in the storage root.
+
+     * If a file with the same content is already stored, the staged copy
+     * is simply dropped. Otherwise the move is atomic when the underlying
+     * filesystem supports it.
+     */
+    public void promote(StagedFile stagedFile) throws IOException {
+        Path target = resolve(stagedFile.fileName());
+
+        if (Files.exists(target)) {
+            try {
+                // Same digest, same bytes: keep the stored copy, refreshed so the
+                // garbage collector grace period protects the new reference
+                Files.setLastModifiedTime(target, FileTime.from(Instant.now()));
+                Files.deleteIfExists(stagedFile.stagedPath());
+                return;
+            } catch (NoSuchFileException e) {
+                // Released meanwhile (see deleteIfUnreferenced): published from the staged copy
+            }
+        }
+
+        Files.createDirectories(target.getParent());
+        try {
+            Files.move(stagedFile.stagedPath(), target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(stagedFile.stagedPath(), target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+
+    /**
+     * Deletes a stored file once its last reference is gone.
+
+     * The reference count is read after the current transaction commits
+     * (or immediately without transaction). The file is then moved aside and
+     * the count read again: a concurrent upload of the same content that
+     * committed in the meantime gets the file back, and one that promotes
+     * later finds it missing and publishes its own copy.
+     *
+     * @param imagePath content key stored in Media.imagePath (nullable)
+     * @param referenceCount number of Media rows still referencing the key
+     */
+    public void releaseWhenUnreferenced(String imagePath, LongSupplier referenceCount) {
+        if (imagePath == null || imagePath.isBlank()) {
+            return;
+        }
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            deleteIfUnreferenced(imagePath, referenceCount);
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                deleteIfUnreferenced(imagePath, referenceCount);
+            }
+        });
+    }
+
+
+    /**
+     * Copies a stored file to another key, typically when its owner changes visibility.
+     * Uses a hard link when possible, so no bytes are duplicated.
+     * A link keeps the modification time of the source, so the target is
+     * refreshed: the garbage collector grace period protects the new key.
+     *
+     * @throws IOException if the source file cannot be copied
+     */
+    public void copy(String sourcePath, String targetPath) throws IOException {
+        Path source = resolve(sourcePath);
+        Path target = resolve(targetPath);
+
+        if (Files.exists(target)) {
+            try {
+                Files.setLastModifiedTime(target, FileTime.from(Instant.now()));
+                return;
+            } catch (NoSuchFileException e) {
+                // Released meanwhile: linked again from the source
+            }
+        }
+
+        Files.createDirectories(target.getParent());
+        try {
+            Files.createLink(target, source);
+        } catch (FileAlreadyExistsException e) {
+            // Created concurrently with the same content
+        } catch (UnsupportedOperationException | IOException e) {
+            Files.copy(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+        Files.setLastModifiedTime(target, FileTime.from(Instant.now()));
+    }
+
+
+    /**
+     * Tells whether a media path points to members-only storage.
+     */
+    public static boolean isRestricted(String imagePath) {
+        return imagePath != null && imagePath.startsWith(RESTRICTED_PREFIX);
+    }
+
+
+    /**
+     * Returns the key of the same content in public or members-only storage.
+     */
+    public static String withRestriction(String imagePath, boolean restricted) {
+        if (isRestricted(imagePath) == restricted) {
+            return imagePath;
+        }
+        return restricted
+                ? RESTRICTED_PREFIX + imagePath
+                : imagePath.substring(RESTRICTED_PREFIX.length());
+    }
+
+
+    public Path getStorageRoot() {
+        return storageRoot;
+    }
+
+
+    /**
+     * Resolves a content key against the storage root.
+     *
+     * @throws IllegalArgumentException if the key escapes the storage root
+     */
+    public Path resolve(String imagePath) {
+        Path resolved = storageRoot.resolve(imagePath).normalize();
+        if (!resolved.startsWith(storageRoot)) {
+            throw new IllegalArgumentException("Media path outside of storage root: " + imagePath);
+        }
+        return resolved;
+    }
+
+
+    /**
+     * Drops a staged file. Never fails: a leftover staging file is harmless.
+     */
+    public void discard(StagedFile stagedFile) {
+        try {
+            Files.deleteIfExists(stagedFile.stagedPath());
+        } catch (IOException e) {
+            LOGGER.warn("Unable to discard staged media file {}", stagedFile.stagedPath(), e);
+        }
+    }
+
+
+    /**
+     * Drops every staged file of a batch.
+     */
+    public void discardAll(List<StagedFile> stagedFiles) {
+        for (StagedFile stagedFile : stagedFiles) {
+            discard(stagedFile);
+        }
+    }
+
+
+    /**
+     * Runs the metadata phase of an upload in a short transaction.
+
+     * Business rules:
+     * - The work runs in its own transaction, opened only now
+     * - A non 2xx LogicResult rolls the transaction back
+     * - Staged files are promoted after commit and discarded after rollback
+     *
+     * @param stagedFiles files staged for this request (may be empty)
+     * @param metadataWork database work persisting the Media metadata
+     *
+     * @return the LogicResult produced by the metadata work
+     */
+    public <T> LogicResult<T> executeWithStagedFiles(
+            List<StagedFile> stagedFiles,
+            Supplier<LogicResult<T>> metadataWork) {
+
+        try {
+            return transactionTemplate.execute(status -> {
+                bindToTransaction(stagedFiles);
+
+                LogicResult<T> result = metadataWork.get();
+                if (result == null || !result.getCode().startsWith("2")) {
+                    status.setRollbackOnly();
+                }
+                return result;
+            });
+        } catch (RuntimeException e) {
+            // Transaction could not start or failed before completion callbacks ran
+            discardAll(stagedFiles);
+            throw e;
+        }
+    }
+
+
+    /**
+     * Registers promotion or cleanup of staged files on the current transaction.
+     * Without an active transaction, files are promoted immediately.
+     */
+    private void bindToTransaction(List<StagedFile> stagedFiles) {
+        if (stagedFiles.isEmpty()) {
+            return;
+        }
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            promoteAll(stagedFiles);
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) {
+                    promoteAll(stagedFiles);
+                } else {
+                    discardAll(stagedFiles);
+                }
+            }
+        });
+    }
+
+
+    private void deleteIfUnreferenced(String imagePath, LongSupplier referenceCount) {
+        if (referenceCount.getAsLong() > 0) {
+            return;
+        }
+
+        // Variants are derived from the original key and shared the same way
+        Map<Path, Path> released = new LinkedHashMap<>();
+        try {
+            Files.createDirectories(stagingRoot);
+            for (String key : List.of(imagePath,
+                    variantKey(imagePath, THUMBNAIL_WIDTH),
+                    variantKey(imagePath, DISPLAY_WIDTH))) {
+                Path stored = resolve(key);
+                Path aside = stagingRoot.resolve(UUID.randomUUID() + ".released");
+                try {
+                    Files.move(stored, aside, StandardCopyOption.ATOMIC_MOVE);
+                    released.put(stored, aside);
+                } catch (NoSuchFileException e) {
+                    // Variant not generated (yet)
+                }
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            LOGGER.warn("Unable to release unreferenced media file {}", imagePath, e);
+        }
+
+        // Referenced again by an upload committed meanwhile: the files go back
+        boolean referenced = !released.isEmpty() && referenceCount.getAsLong() > 0;
+
+        released.forEach((stored, aside) -> {
+            try {
+                if (referenced) {
+                    // Replaces a copy promoted meanwhile, with the same bytes
+                    Files.move(aside, stored, StandardCopyOption.ATOMIC_MOVE);
+                } else {
+                    Files.delete(aside);
+                }
+            } catch (IOException e) {
+                LOGGER.warn("Unable to {} released media file {}",
+                        referenced ? "restore" : "delete", stored, e);
+            }
+        });
+    }
+
+
+    /**
+     * Builds the sharded relative key of a digest: ab/cd/abcd...ef.jpg
+     */
+    private static String contentKey(String hexDigest, String extension) {
+        return hexDigest.substring(0, SHARD_WIDTH)
+                + "/" + hexDigest.substring(SHARD_WIDTH, 2 * SHARD_WIDTH)
+                + "/" + hexDigest + extension;
+    }
+
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance(DIGEST_ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            // SHA-256 is mandatory on every Java platform
+            throw new IllegalStateException(e);
+        }
+    }
+
+
+    private void promoteAll(List<StagedFile> stagedFiles) {
+        for (StagedFile stagedFile : stagedFiles) {
+            try {
+                promote(stagedFile);
+            } catch (IOException e) {
+                LOGGER.error("Unable to promote staged media file {} to {}",
+                        stagedFile.stagedPath(), stagedFile.fileName(), e);
+                discard(stagedFile);
+            }
+        }
+    }
+}
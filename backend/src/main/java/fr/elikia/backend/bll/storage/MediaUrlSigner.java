@@ -0,0 +1,128 @@
+package fr.elikia.backend.bll.storage;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Instant;
+import java.util.Base64;
+
+/**
+ * Service issuing and checking short-lived signed URLs for restricted media.
+
+ * A signed URL carries an expiry timestamp and an HMAC-SHA256 of the
+ * media path and that timestamp. Checking it needs neither a database
+ * lookup nor a JWT parse, so every image of a gallery is verified cheaply.
+
+ * Business rules:
+ * - Expiries are rounded up to a fixed bucket, so repeated page loads
+ *   emit identical URLs and browsers can reuse their cached copy
+ * - Signatures are compared in constant time
+ */
+@Service
+public class MediaUrlSigner {
+    /** CONSTANTS*/
+    public static final String EXPIRES_PARAMETER = "expires";
+    public static final String SIGNATURE_PARAMETER = "sig";
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+
+    private final SecretKeySpec signingKey;
+    private final long ttlSeconds;
+    private final long bucketSeconds;
+    // Mac instances are not thread-safe
+    private final ThreadLocal<Mac> macs;
+
+
+    public MediaUrlSigner(@Value("${media.signing.secret}") String secret,
+                          @Value("${media.signing.ttl-seconds:900}") long ttlSeconds,
+                          @Value("${media.signing.bucket-seconds:300}") long bucketSeconds) {
+        this.signingKey = new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), HMAC_ALGORITHM);
+        this.ttlSeconds = ttlSeconds;
+        this.bucketSeconds = Math.max(1, bucketSeconds);
+        this.macs = ThreadLocal.withInitial(this::newMac);
+    }
+
+
+    /**
+     * Appends an expiry and a signature to a media path.
+     *
+     * @param imagePath media path, relative to the storage root
+     * @return the path with its signature query string
+     */
+    public String sign(String imagePath) {
+        long minimumExpiry = Instant.now().getEpochSecond() + ttlSeconds;
+        long expires = (minimumExpiry / bucketSeconds + 1) * bucketSeconds;
+
+        return imagePath
+                + "?" + EXPIRES_PARAMETER + "=" + expires
+                + "&" + SIGNATURE_PARAMETER + "=" + signature(imagePath, expires);
+    }
+
+
+    /**
+     * Checks a signed media request.
+     *
+     * @param imagePath requested media path
+     * @param expires expiry parameter (epoch seconds)
+     * @param signature signature parameter
+     *
+     * @return true if the signature matches and has not expired
+     */
+    public boolean isValid(String imagePath, String expires, String signature) {
+        if (expires == null || signature == null) {
+            return false;
+        }
+
+        long expiry;
+        byte[] provided;
+        try {
+            expiry = Long.parseLong(expires);
+            provided = Base64.getUrlDecoder().decode(signature);
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+
+        if (expiry < Instant.now().getEpochSecond()) {
+            return false;
+        }
+
+        return MessageDigest.isEqual(hmac(imagePath, expiry), provided);
+    }
+
+
+    /**
+     * Remaining lifetime of a signed URL, used as private cache duration.
+     */
+    public long secondsUntil(String expires) {
+        return Math.max(0, Long.parseLong(expires) - Instant.now().getEpochSecond());
+    }
+
+
+    // =========================================================
+    // Private helpers
+    // =========================================================
+
+    private String signature(String imagePath, long expires) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(hmac(imagePath, expires));
+    }
+
+
+    private byte[] hmac(String imagePath, long expires) {
+        return macs.get().doFinal((imagePath + "\n" + expires).getBytes(StandardCharsets.UTF_8));
+    }
+
+
+    private Mac newMac() {
+        try {
+            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(signingKey);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Unable to initialize media URL signing", e);
+        }
+    }
+}
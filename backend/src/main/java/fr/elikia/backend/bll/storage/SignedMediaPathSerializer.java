@@ -0,0 +1,50 @@
+package fr.elikia.backend.bll.storage;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import fr.elikia.backend.security.jwt.JwtAuthRequestInterceptor;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.io.IOException;
+
+/**
+ * Jackson serializer for media paths.
+
+ * Paths of restricted (members only) media are emitted with a short-lived
+ * signature, other paths are emitted unchanged. Instantiated by Spring,
+ * so the signer is injected.
+
+ * Business rules:
+ * - Only requests carrying a valid token get signatures: anonymous callers
+ *   of public endpoints receive the bare path, which the media endpoint refuses
+ * - Outside of a request nothing is signed
+ */
+public class SignedMediaPathSerializer extends JsonSerializer<String> {
+
+    private final MediaUrlSigner mediaUrlSigner;
+
+    public SignedMediaPathSerializer(MediaUrlSigner mediaUrlSigner) {
+        this.mediaUrlSigner = mediaUrlSigner;
+    }
+
+    @Override
+    public void serialize(String imagePath, JsonGenerator generator, SerializerProvider serializers)
+            throws IOException {
+
+        generator.writeString(MediaStorageService.isRestricted(imagePath) && isAuthenticatedRequest()
+                ? mediaUrlSigner.sign(imagePath)
+                : imagePath);
+    }
+
+
+    // ===== Private helpers
+
+    private static boolean isAuthenticatedRequest() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+
+        return attributes != null && attributes.getAttribute(
+                JwtAuthRequestInterceptor.AUTHENTICATED_ROLE_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST) != null;
+    }
+}
@@ -0,0 +1,16 @@
+package fr.elikia.backend.bll.storage;
+
+import java.nio.file.Path;
+
+/**
+ * Immutable handle on an uploaded file written to the staging area.
+
+ * A staged file is not visible under the media storage root yet:
+ * it is promoted to its content key only once the transaction
+ * persisting its Media metadata has committed.
+ *
+ * @param stagedPath temporary location of the file in the staging area
+ * @param fileName content key (sharded digest path), stored in Media.imagePath
+ */
+public record StagedFile(Path stagedPath, String fileName) {
+}
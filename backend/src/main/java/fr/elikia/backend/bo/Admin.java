@@ -1,13 +1,20 @@
 package fr.elikia.backend.bo;
 
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.Entity;
 import jakarta.persistence.Table;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.NaturalIdCache;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "admin")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "admin")
+@NaturalIdCache(region = "admin-by-email")
 public class Admin extends User {
 
     // ========================================================
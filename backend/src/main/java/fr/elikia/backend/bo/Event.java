@@ -2,6 +2,9 @@ package fr.elikia.backend.bo;
 
 import fr.elikia.backend.bo.enums.Visibility;
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.ColumnDefault;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
@@ -9,6 +12,8 @@ import java.util.List;
 
 @Entity
 @Table( name = "event" )
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "event")
 public class Event implements ActivityEntity{
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -35,6 +40,17 @@ public class Event implements ActivityEntity{
     @Column(nullable = false)
     private int capacity;
 
+    // Seats held by pending and approved registrations,
+    // written only by the atomic seat updates of the repository
+    @ColumnDefault("0")
+    @Column(nullable = false, insertable = false, updatable = false)
+    private int reservedSeats;
+
+    // Last position handed out by the waitlist of the event, same write rules as reservedSeats
+    @ColumnDefault("0")
+    @Column(nullable = false, insertable = false, updatable = false)
+    private long waitlistTail;
+
     @Enumerated(EnumType.STRING)
     @Column(nullable = false)
     private Visibility visibility;
@@ -131,6 +147,14 @@ public class Event implements ActivityEntity{
         this.capacity = capacity;
     }
 
+    public int getReservedSeats() {
+        return reservedSeats;
+    }
+
+    public long getWaitlistTail() {
+        return waitlistTail;
+    }
+
     public Visibility getVisibility() {
         return visibility;
     }
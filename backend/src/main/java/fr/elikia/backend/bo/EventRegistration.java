@@ -23,6 +23,9 @@ public class EventRegistration {
     @Column(nullable = false)
     private RegistrationStatus status;
 
+    // Place in the FIFO waitlist of the event, set only while the status is WAITLISTED
+    private Long waitlistPosition;
+
     @ManyToOne
     @JoinColumn(name = "event_id", nullable = false)
     private Event event;
@@ -94,6 +97,13 @@ public class EventRegistration {
         this.status = status;
     }
 
+    public Long getWaitlistPosition() {
+        return waitlistPosition;
+    }
+    public void setWaitlistPosition(Long waitlistPosition) {
+        this.waitlistPosition = waitlistPosition;
+    }
+
     public Event getEvent() {
         return event;
     }
@@ -1,6 +1,8 @@
 package fr.elikia.backend.bo;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import fr.elikia.backend.bll.storage.SignedMediaPathSerializer;
 import jakarta.persistence.*;
 
 @Entity // Marks this class as a JPA entity
@@ -13,10 +15,17 @@ public class Media {
 
     // Caption or title of the media
     private String caption;
-    // Path to the stored image file
+    // Path to the stored image file (signed when serialized if members only)
+    @JsonSerialize(using = SignedMediaPathSerializer.class)
     private String imagePath;
     // URL of the video if the media is a video
     private String videoUrl;
+    // Path to the thumbnail variant, filled in the background after upload
+    @JsonSerialize(using = SignedMediaPathSerializer.class)
+    private String thumbnailPath;
+    // Path to the display-size variant, filled in the background after upload
+    @JsonSerialize(using = SignedMediaPathSerializer.class)
+    private String displayPath;
 
     /**
      * A Media can belong to one Event (optional).
@@ -97,6 +106,20 @@ public class Media {
         this.videoUrl = videoUrl;
     }
 
+    public String getThumbnailPath() {
+        return thumbnailPath;
+    }
+    public void setThumbnailPath(String thumbnailPath) {
+        this.thumbnailPath = thumbnailPath;
+    }
+
+    public String getDisplayPath() {
+        return displayPath;
+    }
+    public void setDisplayPath(String displayPath) {
+        this.displayPath = displayPath;
+    }
+
     public Event getEvent() {
         return event;
     }
@@ -2,12 +2,18 @@ package fr.elikia.backend.bo;
 
 import fr.elikia.backend.bo.enums.RegistrationStatus;
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.NaturalIdCache;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "member")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "member")
+@NaturalIdCache(region = "member-by-email")
 public class Member extends User {
     @Column(unique = true)
     private String membershipNumber;
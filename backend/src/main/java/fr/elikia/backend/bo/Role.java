@@ -1,14 +1,23 @@
 package fr.elikia.backend.bo;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
 
 @Entity
 @Table(name = "role")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "role")
+@NaturalIdCache(region = "role-by-name")
 public class Role {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long roleId;
 
+    // Looked up by name on registration and role changes (natural-id cache)
+    @NaturalId
     @Column(nullable = false)
     private String name;
 
@@ -1,6 +1,7 @@
 package fr.elikia.backend.bo;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.NaturalId;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
@@ -17,6 +18,8 @@ public abstract class User {
     @Column(nullable = false)
     protected String lastName;
 
+    // Natural identifier, resolved through the natural-id cache on login and registration
+    @NaturalId
     @Column(nullable = false, unique = true)
     protected String email;
 
@@ -23,6 +23,9 @@ public class WorkshopRegistration {
     @Column(nullable = false)
     private RegistrationStatus status;
 
+    // Place in the FIFO waitlist of the workshop, set only while the status is WAITLISTED
+    private Long waitlistPosition;
+
     @ManyToOne
     @JoinColumn(name = "workshop_id", nullable = false)
     private Workshop workshop;
@@ -93,6 +96,13 @@ public class WorkshopRegistration {
         this.status = status;
     }
 
+    public Long getWaitlistPosition() {
+        return waitlistPosition;
+    }
+    public void setWaitlistPosition(Long waitlistPosition) {
+        this.waitlistPosition = waitlistPosition;
+    }
+
     public Workshop getWorkshop() {
         return workshop;
     }
@@ -1,6 +1,7 @@
 package fr.elikia.backend.bo.enums;
 
 public enum ActivityOwnerType {
+    NEWS,
     EVENT,
     WORKSHOP,
     ACHIEVEMENT
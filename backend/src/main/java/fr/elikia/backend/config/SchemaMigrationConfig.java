@@ -0,0 +1,21 @@
+package fr.elikia.backend.config;
+
+import org.springframework.boot.autoconfigure.orm.jpa.EntityManagerFactoryDependsOnPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Starts Hibernate after the schema migrator.
+
+ * Business rules:
+ * - The migrations of an existing schema are applied before Hibernate validates it,
+ *   so a column added by a migration is there when ddl-auto=validate looks for it
+ */
+@Configuration
+public class SchemaMigrationConfig {
+
+    @Bean
+    static EntityManagerFactoryDependsOnPostProcessor entityManagerFactoryDependsOnSchemaMigrator() {
+        return new EntityManagerFactoryDependsOnPostProcessor("schemaMigrator");
+    }
+}
@@ -0,0 +1,302 @@
+package fr.elikia.backend.config;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.InputStream;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.zip.CRC32;
+
+/**
+ * Applies the versioned SQL migrations of classpath:db/migration at startup.
+
+ * Tables are still generated or validated by Hibernate from the entities;
+ * migrations carry what the mapping does not declare (indexes, data fixes)
+ * and the columns added to an existing schema, so every environment,
+ * the H2 test profile included, gets the same schema.
+
+ * Business rules:
+ * - Scripts are named V{version}__{description}.sql and applied in version order
+ * - A script of db/migration/{database}/ (mysql, h2...) replaces the shared script of the same version
+ *   on that database, for the few statements without a syntax common to all of them
+ * - Each applied version is recorded with the checksum of its script in schema_version
+ * - A recorded script that was modified afterwards stops the startup
+ * - Replicas starting together migrate one at a time: on MySQL the pending migrations run under
+ *   the named lock schema_migration, and the history is read again once the lock is held.
+ *   Other databases (H2 in tests) serve a single instance and only exclude concurrent calls
+ * - An existing schema is migrated before Hibernate starts (see SchemaMigrationConfig),
+ *   so ddl-auto=validate checks the migrated tables
+ * - An empty schema, or one Hibernate recreates (create, create-drop), is migrated once Hibernate
+ *   has created the tables; on create, the history is reset since none of the migrations exist
+ *   in the new schema. Scripts adding mapped columns therefore skip the columns already there
+ */
+@Component
+public class SchemaMigrator implements SmartInitializingSingleton {
+    private static final Logger LOGGER = LoggerFactory.getLogger(SchemaMigrator.class);
+
+    /** CONSTANTS*/
+    private static final String LOCATION = "classpath:db/migration/V*__*.sql";
+    private static final String VENDOR_FOLDER = "classpath:db/migration/%s/";
+    private static final Pattern SCRIPT_NAME = Pattern.compile("V(\\d+)__(.+)\\.sql");
+    private static final String HISTORY_TABLE = "schema_version";
+    private static final String LOCK_NAME = "schema_migration";
+    // Long enough for another replica to apply a migration rewriting a large table
+    private static final int LOCK_TIMEOUT_SECONDS = 600;
+
+    private final DataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+    private final String ddlAuto;
+
+
+    public SchemaMigrator(DataSource dataSource,
+                          @Value("${spring.jpa.hibernate.ddl-auto:none}") String ddlAuto) {
+        this.dataSource = dataSource;
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.ddlAuto = ddlAuto;
+    }
+
+
+    /**
+     * Versioned migration script found on the classpath.
+     */
+    record Migration(int version, String description, Resource script, long checksum) {
+    }
+
+
+    /**
+     * Migrates an existing schema, before Hibernate validates or updates it.
+     */
+    @PostConstruct
+    void migrateBeforeHibernate() {
+        if (!ddlAuto.startsWith("create") && hasTables()) {
+            migrate();
+        }
+    }
+
+
+    /**
+     * Migrates the schema Hibernate has just created,
+     * once every bean, the entity manager factory included, is initialized.
+     * Nothing is pending if the schema was migrated before Hibernate.
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (ddlAuto.startsWith("create")) {
+            jdbcTemplate.execute("DROP TABLE IF EXISTS " + HISTORY_TABLE);
+        }
+        migrate();
+    }
+
+
+    /**
+     * Applies the pending migrations.
+     *
+     * @throws IllegalStateException if an applied script was modified, a script fails
+     *                               or the migration lock cannot be acquired
+     */
+    public synchronized void migrate() {
+        String vendor = jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+                connection.getMetaData().getDatabaseProductName().toLowerCase(Locale.ROOT));
+
+        // The lock belongs to this session: it survives the implicit commits of the DDL scripts
+        try (Connection lockConnection = dataSource.getConnection()) {
+            acquireLock(lockConnection, vendor);
+            try {
+                applyPending(vendor);
+            } finally {
+                releaseLock(lockConnection, vendor);
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Unable to lock schema migrations", e);
+        }
+    }
+
+
+    // =========================================================
+    // Private helpers
+    // =========================================================
+
+    /**
+     * Applies the migrations missing from the history, read while the lock is held.
+     */
+    private void applyPending(String vendor) {
+        jdbcTemplate.execute("""
+            CREATE TABLE IF NOT EXISTS schema_version (
+                version INT NOT NULL PRIMARY KEY,
+                description VARCHAR(200) NOT NULL,
+                checksum BIGINT NOT NULL,
+                installed_on TIMESTAMP NOT NULL
+            )
+        """);
+
+        Map<Integer, Long> applied = jdbcTemplate
+                .queryForList("SELECT version, checksum FROM " + HISTORY_TABLE)
+                .stream()
+                .collect(Collectors.toMap(
+                        row -> ((Number) row.get("version")).intValue(),
+                        row -> ((Number) row.get("checksum")).longValue()
+                ));
+
+        for (Migration migration : findMigrations(vendor)) {
+            Long checksum = applied.get(migration.version());
+            if (checksum == null) {
+                apply(migration);
+            } else if (checksum != migration.checksum()) {
+                throw new IllegalStateException("Migration V" + migration.version()
+                        + " was modified after being applied");
+            }
+        }
+    }
+
+
+    /**
+     * Waits for the named lock of MySQL, held by the session of the connection until released.
+     */
+    private static void acquireLock(Connection connection, String vendor) throws SQLException {
+        if (!isMysql(vendor)) {
+            return;
+        }
+
+        try (PreparedStatement statement = connection.prepareStatement("SELECT GET_LOCK(?, ?)")) {
+            statement.setString(1, LOCK_NAME);
+            statement.setInt(2, LOCK_TIMEOUT_SECONDS);
+            try (ResultSet result = statement.executeQuery()) {
+                // 1 when acquired, 0 on timeout, NULL on error
+                if (!result.next() || result.getInt(1) != 1) {
+                    throw new IllegalStateException("Schema migrations are still locked by another instance after "
+                            + LOCK_TIMEOUT_SECONDS + " seconds");
+                }
+            }
+        }
+    }
+
+
+    private static void releaseLock(Connection connection, String vendor) throws SQLException {
+        if (!isMysql(vendor)) {
+            return;
+        }
+
+        try (PreparedStatement statement = connection.prepareStatement("SELECT RELEASE_LOCK(?)")) {
+            statement.setString(1, LOCK_NAME);
+            statement.executeQuery().close();
+        }
+    }
+
+
+    private static boolean isMysql(String vendor) {
+        return vendor.equals("mysql") || vendor.equals("mariadb");
+    }
+
+
+    /**
+     * Tells whether the schema already holds tables, the migration history aside.
+     */
+    private boolean hasTables() {
+        return Boolean.TRUE.equals(jdbcTemplate.execute((ConnectionCallback<Boolean>) connection -> {
+            try (ResultSet tables = connection.getMetaData()
+                    .getTables(connection.getCatalog(), connection.getSchema(), "%", null)) {
+                while (tables.next()) {
+                    if (!HISTORY_TABLE.equalsIgnoreCase(tables.getString("TABLE_NAME"))) {
+                        return true;
+                    }
+                }
+                return false;
+            }
+        }));
+    }
+
+
+    private void apply(Migration migration) {
+        LOGGER.info("Applying schema migration V{} ({})", migration.version(), migration.description());
+
+        try (Connection connection = dataSource.getConnection()) {
+            ScriptUtils.executeSqlScript(connection, migration.script());
+        } catch (SQLException e) {
+            throw new IllegalStateException("Migration V" + migration.version() + " failed", e);
+        }
+
+        jdbcTemplate.update(
+                "INSERT INTO " + HISTORY_TABLE + " (version, description, checksum, installed_on) VALUES (?, ?, ?, ?)",
+                migration.version(),
+                migration.description(),
+                migration.checksum(),
+                Timestamp.valueOf(LocalDateTime.now())
+        );
+    }
+
+
+    /**
+     * Lists the migrations of a database, its own scripts replacing the shared ones of the same version.
+     *
+     * @param vendor lower-case database product name (mysql, h2...)
+     */
+    static List<Migration> findMigrations(String vendor) {
+        Map<Integer, Migration> migrations = new TreeMap<>();
+
+        findScripts(LOCATION).forEach(migration -> migrations.put(migration.version(), migration));
+        // Most databases have no folder of their own
+        String vendorFolder = String.format(VENDOR_FOLDER, vendor);
+        if (new DefaultResourceLoader().getResource(vendorFolder).exists()) {
+            findScripts(vendorFolder + "V*__*.sql").forEach(migration -> migrations.put(migration.version(), migration));
+        }
+
+        return new ArrayList<>(migrations.values());
+    }
+
+
+    private static List<Migration> findScripts(String location) {
+        List<Migration> migrations = new ArrayList<>();
+
+        try {
+            for (Resource script : new PathMatchingResourcePatternResolver().getResources(location)) {
+                Matcher matcher = SCRIPT_NAME.matcher(script.getFilename());
+                if (matcher.matches()) {
+                    migrations.add(new Migration(
+                            Integer.parseInt(matcher.group(1)),
+                            matcher.group(2).replace('_', ' '),
+                            script,
+                            checksumOf(script)
+                    ));
+                }
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to read schema migrations", e);
+        }
+
+        return migrations;
+    }
+
+
+    private static long checksumOf(Resource script) throws IOException {
+        CRC32 crc = new CRC32();
+        try (InputStream inputStream = script.getInputStream()) {
+            crc.update(inputStream.readAllBytes());
+        }
+        return crc.getValue();
+    }
+}
@@ -0,0 +1,91 @@
+package fr.elikia.backend.config.cache;
+
+import org.hibernate.boot.spi.SessionFactoryOptions;
+import org.hibernate.cache.cfg.spi.DomainDataRegionBuildingContext;
+import org.hibernate.cache.cfg.spi.DomainDataRegionConfig;
+import org.hibernate.cache.spi.support.DomainDataStorageAccess;
+import org.hibernate.cache.spi.support.RegionFactoryTemplate;
+import org.hibernate.cache.spi.support.StorageAccess;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Hibernate second-level cache kept in the application memory,
+ * with a time-to-live and a size bound per region.
+
+ * Regions are configured through the JPA properties:
+ * - elikia.cache.default.ttl / elikia.cache.default.max-entries
+ * - elikia.cache.region.{region}.ttl / elikia.cache.region.{region}.max-entries
+ * Durations use the ISO-8601 format (PT10M).
+
+ * The update timestamps region never expires: query results must not outlive
+ * the knowledge of the tables they were read from.
+ */
+public class ExpiringRegionFactory extends RegionFactoryTemplate {
+
+    /** CONSTANTS*/
+    public static final String PREFIX = "elikia.cache.";
+    private static final Duration DEFAULT_TTL = Duration.ofMinutes(10);
+    private static final int DEFAULT_MAX_ENTRIES = 10_000;
+
+    private final Map<String, Object> settings = new HashMap<>();
+
+
+    @Override
+    protected void prepareForUse(SessionFactoryOptions settings, Map<String, Object> configValues) {
+        configValues.forEach((key, value) -> {
+            if (key.startsWith(PREFIX)) {
+                this.settings.put(key.substring(PREFIX.length()), value);
+            }
+        });
+    }
+
+
+    @Override
+    protected void releaseFromUse() {
+        settings.clear();
+    }
+
+
+    @Override
+    protected DomainDataStorageAccess createDomainDataStorageAccess(
+            DomainDataRegionConfig regionConfig,
+            DomainDataRegionBuildingContext buildingContext) {
+        return storageFor(regionConfig.getRegionName());
+    }
+
+
+    @Override
+    protected StorageAccess createQueryResultsRegionStorageAccess(
+            String regionName,
+            SessionFactoryImplementor sessionFactory) {
+        return storageFor(regionName);
+    }
+
+
+    @Override
+    protected StorageAccess createTimestampsRegionStorageAccess(
+            String regionName,
+            SessionFactoryImplementor sessionFactory) {
+        return new ExpiringStorageAccess(Duration.ZERO, Integer.MAX_VALUE);
+    }
+
+
+    private ExpiringStorageAccess storageFor(String regionName) {
+        Duration ttl = Duration.parse(setting("region." + regionName + ".ttl",
+                setting("default.ttl", DEFAULT_TTL.toString())));
+        int maxEntries = Integer.parseInt(setting("region." + regionName + ".max-entries",
+                setting("default.max-entries", String.valueOf(DEFAULT_MAX_ENTRIES))));
+
+        return new ExpiringStorageAccess(ttl, maxEntries);
+    }
+
+
+    private String setting(String name, String defaultValue) {
+        Object value = settings.get(name);
+        return value == null ? defaultValue : value.toString().trim();
+    }
+}
@@ -0,0 +1,118 @@
+package fr.elikia.backend.config.cache;
+
+import org.hibernate.cache.spi.support.DomainDataStorageAccess;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-process storage of one cache region, with a time-to-live and a size bound.
+
+ * Business rules:
+ * - An entry is served until its time-to-live elapses, then dropped on access
+ * - A zero time-to-live keeps entries until they are evicted (timestamps region)
+ * - When the region is full, expired entries are purged; if it is still full,
+ *   the oldest stored entries are evicted, a tenth of the region at a time
+ */
+class ExpiringStorageAccess implements DomainDataStorageAccess {
+    // Share of the region evicted at once when it is full, so the scan is amortized
+    private static final int EVICTION_DIVISOR = 10;
+
+    private final long ttlNanos;
+    private final int maxEntries;
+    private final Map<Object, Entry> entries = new ConcurrentHashMap<>();
+    // Storage order of the entries, oldest first
+    private final AtomicLong stores = new AtomicLong();
+
+
+    ExpiringStorageAccess(Duration ttl, int maxEntries) {
+        this.ttlNanos = ttl.toNanos();
+        this.maxEntries = maxEntries;
+    }
+
+
+    private record Entry(Object value, long storeOrder, long expiresAt) {
+    }
+
+
+    @Override
+    public Object getFromCache(Object key, SharedSessionContractImplementor session) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (isExpired(entry, System.nanoTime())) {
+            entries.remove(key, entry);
+            return null;
+        }
+        return entry.value();
+    }
+
+
+    @Override
+    public void putIntoCache(Object key, Object value, SharedSessionContractImplementor session) {
+        long now = System.nanoTime();
+        if (entries.size() >= maxEntries && !entries.containsKey(key)) {
+            entries.values().removeIf(entry -> isExpired(entry, now));
+            if (entries.size() >= maxEntries) {
+                evictOldest();
+            }
+        }
+        entries.put(key, new Entry(value, stores.incrementAndGet(), ttlNanos > 0 ? now + ttlNanos : 0));
+    }
+
+
+    @Override
+    public void removeFromCache(Object key, SharedSessionContractImplementor session) {
+        entries.remove(key);
+    }
+
+
+    @Override
+    public void clearCache(SharedSessionContractImplementor session) {
+        entries.clear();
+    }
+
+
+    @Override
+    public boolean contains(Object key) {
+        Entry entry = entries.get(key);
+        return entry != null && !isExpired(entry, System.nanoTime());
+    }
+
+
+    @Override
+    public void evictData() {
+        entries.clear();
+    }
+
+
+    @Override
+    public void evictData(Object key) {
+        entries.remove(key);
+    }
+
+
+    @Override
+    public void release() {
+        entries.clear();
+    }
+
+
+    private void evictOldest() {
+        entries.entrySet().stream()
+                .sorted(Comparator.comparingLong(stored -> stored.getValue().storeOrder()))
+                .limit(Math.max(1, maxEntries / EVICTION_DIVISOR))
+                .toList()
+                .forEach(stored -> entries.remove(stored.getKey(), stored.getValue()));
+    }
+
+
+    private static boolean isExpired(Entry entry, long now) {
+        return entry.expiresAt() != 0 && now - entry.expiresAt() > 0;
+    }
+}
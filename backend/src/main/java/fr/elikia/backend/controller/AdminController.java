@@ -1,10 +1,14 @@
 package fr.elikia.backend.controller;
 
 import fr.elikia.backend.bll.AdminService;
+import fr.elikia.backend.bll.CacheStatisticsService;
 import fr.elikia.backend.bll.MemberService;
 import fr.elikia.backend.bo.LogicResult;
 import fr.elikia.backend.bo.Member;
+import fr.elikia.backend.bo.enums.RegistrationStatus;
 import fr.elikia.backend.dto.AdminUpdateMemberDTO;
+import fr.elikia.backend.dto.CacheRegionStatisticsDTO;
+import fr.elikia.backend.dto.CursorPageDTO;
 import fr.elikia.backend.dto.MemberAdminDTO;
 import fr.elikia.backend.dto.RegisterDTO;
 import fr.elikia.backend.dto.RejectMembershipDTO;
@@ -28,11 +32,14 @@ import java.util.List;
 public class AdminController {
     private final AdminService adminService;
     private final MemberService memberService;
+    private final CacheStatisticsService cacheStatisticsService;
 
-    public AdminController(AdminService adminService, MemberService memberService) {
+    public AdminController(AdminService adminService, MemberService memberService,
+                           CacheStatisticsService cacheStatisticsService) {
 
         this.adminService = adminService;
         this.memberService = memberService;
+        this.cacheStatisticsService = cacheStatisticsService;
     }
 
     /**
@@ -107,6 +114,45 @@ public class AdminController {
                 .body(result);
     }
 
+    /**
+     * Récupère les membres page par page (curseur) pour l'interface d'administration,
+     * avec filtre de statut, recherche et tri calculés par la base de données.
+     *
+     * @param status statut d'inscription à conserver (tous si absent)
+     * @param search texte recherché dans le nom, le prénom, l'email ou le numéro d'adhésion
+     * @param sort tri : createdAt (plus récents d'abord) ou name (ordre alphabétique du nom)
+     * @param cursor curseur renvoyé avec la page précédente (absent pour la première page)
+     * @param size nombre de membres par page (20 par défaut)
+     */
+    @Operation(
+            summary = "Parcours paginé des membres",
+            description = "Retourne une page de membres filtrée, recherchée et triée, et le curseur de la page suivante"
+    )
+    @ApiResponse(
+            responseCode = "200",
+            description = "Page de membres récupérée avec succès"
+    )
+    @ApiResponse(
+            responseCode = "400",
+            description = "Tri, recherche, curseur ou taille de page invalide"
+    )
+    @GetMapping("/members/scroll")
+    public ResponseEntity<LogicResult<CursorPageDTO<MemberAdminDTO>>> getMemberScroll(
+            @RequestParam(required = false) RegistrationStatus status,
+            @RequestParam(required = false) String search,
+            @RequestParam(defaultValue = MemberService.SORT_BY_CREATED_AT) String sort,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size
+    ) {
+        LogicResult<CursorPageDTO<MemberAdminDTO>> result =
+                memberService.findMemberScroll(status, search, sort, cursor, size);
+        HttpStatus httpStatus = resolveHttpStatus(result.getCode());
+
+        return ResponseEntity
+                .status(httpStatus)
+                .body(result);
+    }
+
     /**
      * Accepte une demande d'adhésion.
      */
@@ -204,4 +250,26 @@ public class AdminController {
                 .status(status)
                 .body(result);
     }
+
+
+    /**
+     * Statistiques du cache de second niveau (succès / échecs par région).
+     */
+    @Operation(
+            summary = "Statistiques du cache",
+            description = "Retourne, pour chaque région du cache de second niveau, les lectures servies par le cache et celles ayant interrogé la base"
+    )
+    @ApiResponse(
+            responseCode = "200",
+            description = "Statistiques récupérées avec succès"
+    )
+    @GetMapping("/cache/statistics")
+    public ResponseEntity<LogicResult<List<CacheRegionStatisticsDTO>>> getCacheStatistics() {
+        LogicResult<List<CacheRegionStatisticsDTO>> result = cacheStatisticsService.getRegionStatistics();
+        HttpStatus status = resolveHttpStatus(result.getCode());
+
+        return ResponseEntity
+                .status(status)
+                .body(result);
+    }
 }
@@ -16,6 +16,8 @@ import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import fr.elikia.backend.dto.CursorPageDTO;
+import fr.elikia.backend.dto.EventCardDTO;
 import fr.elikia.backend.dto.EventResponseDTO;
 
 import java.util.List;
@@ -135,6 +137,48 @@ public class EventController {
     }
 
 
+    /**
+     * Retrieve events page by page with a cursor (infinite scroll)
+     *
+     * @param cursor cursor returned with the previous page (absent for the first page)
+     * @param size number of items per page (default 12)
+     * @return items of the page and the cursor of the next one (no total count)
+     */
+    @Operation(
+            summary = "Scroll events",
+            description = "Returns a keyset page of events and the cursor of the next page"
+    )
+    @ApiResponse(responseCode = "200", description = "Event page retrieved")
+    @ApiResponse(
+            responseCode = "400",
+            description = "Invalid cursor or page size",
+            content = @Content(schema = @Schema(implementation = LogicResult.class))
+    )
+    @GetMapping("/scroll")
+    @RequiredJWTAuth
+    @RequiredRole("ADMIN")
+    public ResponseEntity<LogicResult<CursorPageDTO<EventResponseDTO>>> findEventScroll(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "12") int size
+    ) {
+
+        LogicResult<CursorPageDTO<EventResponseDTO>> result =
+                eventService.findEventScroll(cursor, size);
+
+        HttpStatus status = HttpStatus.resolve(
+                Integer.parseInt(result.getCode())
+        );
+
+        if (status == null) {
+            status = HttpStatus.INTERNAL_SERVER_ERROR;
+        }
+
+        return ResponseEntity
+                .status(status)
+                .body(result);
+    }
+
+
     /**
      * Retrieve paginated event according to the visibility (PUBLIC)
      *
@@ -148,12 +192,12 @@ public class EventController {
     )
     @ApiResponse(responseCode = "200", description = "Event page retrieved")
     @GetMapping("/public/page")
-    public ResponseEntity<LogicResult<Page<EventResponseDTO>>> findAllByVisibilityOrderByStartDateDesc(
+    public ResponseEntity<LogicResult<Page<EventCardDTO>>> findAllByVisibilityOrderByStartDateDesc(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "9") int size
     ) {
 
-        LogicResult<Page<EventResponseDTO>> result =
+        LogicResult<Page<EventCardDTO>> result =
                 eventService.findAllByVisibilityOrderByStartDateDesc(page, size);
 
         HttpStatus status = HttpStatus.resolve(
@@ -170,6 +214,46 @@ public class EventController {
     }
 
 
+    /**
+     * Retrieve public event cards page by page with a cursor (infinite scroll)
+     *
+     * @param cursor cursor returned with the previous page (absent for the first page)
+     * @param size number of items per page (default 9)
+     * @return items of the page and the cursor of the next one (no total count)
+     */
+    @Operation(
+            summary = "Scroll public events",
+            description = "Returns a keyset page of event cards and the cursor of the next page"
+    )
+    @ApiResponse(responseCode = "200", description = "Event page retrieved")
+    @ApiResponse(
+            responseCode = "400",
+            description = "Invalid cursor or page size",
+            content = @Content(schema = @Schema(implementation = LogicResult.class))
+    )
+    @GetMapping("/public/scroll")
+    public ResponseEntity<LogicResult<CursorPageDTO<EventCardDTO>>> findPublicEventScroll(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "9") int size
+    ) {
+
+        LogicResult<CursorPageDTO<EventCardDTO>> result =
+                eventService.findPublicEventScroll(cursor, size);
+
+        HttpStatus status = HttpStatus.resolve(
+                Integer.parseInt(result.getCode())
+        );
+
+        if (status == null) {
+            status = HttpStatus.INTERNAL_SERVER_ERROR;
+        }
+
+        return ResponseEntity
+                .status(status)
+                .body(result);
+    }
+
+
     /**
      * Retrieve paginated event according to the visibility (Member)
      *
@@ -185,12 +269,12 @@ public class EventController {
     @GetMapping("/member/page")
     @RequiredJWTAuth
     @RequiredRole("MEMBER")
-    public ResponseEntity<LogicResult<Page<EventResponseDTO>>> findAllByMemberOnlyVisibilityOrderByStartDateDesc(
+    public ResponseEntity<LogicResult<Page<EventCardDTO>>> findAllByMemberOnlyVisibilityOrderByStartDateDesc(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "9") int size
     ) {
 
-        LogicResult<Page<EventResponseDTO>> result =
+        LogicResult<Page<EventCardDTO>> result =
                 eventService.findAllByMemberOnlyVisibilityOrderByStartDateDesc(page, size);
 
         HttpStatus status = HttpStatus.resolve(
@@ -207,6 +291,48 @@ public class EventController {
     }
 
 
+    /**
+     * Retrieve event cards reserved for members page by page with a cursor (infinite scroll)
+     *
+     * @param cursor cursor returned with the previous page (absent for the first page)
+     * @param size number of items per page (default 9)
+     * @return items of the page and the cursor of the next one (no total count)
+     */
+    @Operation(
+            summary = "Scroll events reserved for members",
+            description = "Returns a keyset page of event cards and the cursor of the next page"
+    )
+    @ApiResponse(responseCode = "200", description = "Event page retrieved")
+    @ApiResponse(
+            responseCode = "400",
+            description = "Invalid cursor or page size",
+            content = @Content(schema = @Schema(implementation = LogicResult.class))
+    )
+    @GetMapping("/member/scroll")
+    @RequiredJWTAuth
+    @RequiredRole("MEMBER")
+    public ResponseEntity<LogicResult<CursorPageDTO<EventCardDTO>>> findMemberOnlyEventScroll(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "9") int size
+    ) {
+
+        LogicResult<CursorPageDTO<EventCardDTO>> result =
+                eventService.findMemberOnlyEventScroll(cursor, size);
+
+        HttpStatus status = HttpStatus.resolve(
+                Integer.parseInt(result.getCode())
+        );
+
+        if (status == null) {
+            status = HttpStatus.INTERNAL_SERVER_ERROR;
+        }
+
+        return ResponseEntity
+                .status(status)
+                .body(result);
+    }
+
+
     /**
      * Display the 4th last event for home page
      */
@@ -216,9 +342,9 @@ public class EventController {
     )
     @ApiResponse(responseCode = "200", description = "Event retrieved")
     @GetMapping("/latest")
-    public ResponseEntity<LogicResult<List<EventResponseDTO>>> findLastEvent() {
+    public ResponseEntity<LogicResult<List<EventCardDTO>>> findLastEvent() {
 
-        LogicResult<List<EventResponseDTO>> result =
+        LogicResult<List<EventCardDTO>> result =
                 eventService.findLastEvent();
 
         HttpStatus status = HttpStatus.resolve(
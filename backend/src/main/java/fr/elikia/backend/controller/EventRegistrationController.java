@@ -4,6 +4,7 @@ import fr.elikia.backend.bll.EventRegistrationService;
 import fr.elikia.backend.bo.LogicResult;
 import fr.elikia.backend.dto.EventRegistrationDTO;
 import fr.elikia.backend.dto.RefusalReasonDTO;
+import fr.elikia.backend.security.admission.AdmissionControlled;
 import fr.elikia.backend.security.jwt.RequiredJWTAuth;
 import fr.elikia.backend.security.jwt.RequiredRole;
 import io.swagger.v3.oas.annotations.Operation;
@@ -72,16 +73,21 @@ public class EventRegistrationController {
             description = "Creates a pending registration for a public event"
     )
     @ApiResponse(responseCode = "201", description = "Registration created successfully")
+    @ApiResponse(responseCode = "202", description = "Event full, registration added to the waitlist, "
+            + "or registration queued with a provisional reference")
     @ApiResponse(responseCode = "400", description = "Validation or business error")
     @ApiResponse(responseCode = "403", description = "Event reserved for members")
     @ApiResponse(responseCode = "404", description = "Event not found")
+    @ApiResponse(responseCode = "429", description = "Registration queued, retry with the queue token")
+    @ApiResponse(responseCode = "503", description = "Registration queue full")
     @PostMapping("/public/event/{eventId}")
-    public ResponseEntity<LogicResult<Void>> registerVisitorToEvent(
+    @AdmissionControlled(activity = "event", idVariable = "eventId")
+    public ResponseEntity<LogicResult<String>> registerVisitorToEvent(
             @PathVariable Long eventId,
             @RequestBody EventRegistrationDTO eventRegistrationDTO
     ) {
         // Délègue la validation et la logique métier au service
-        LogicResult<Void> result =
+        LogicResult<String> result =
                 eventRegistrationService.registerToEvent(
                         eventId,
                         eventRegistrationDTO,
@@ -115,18 +121,23 @@ public class EventRegistrationController {
             description = "Creates a pending registration for a public or member-only event"
     )
     @ApiResponse(responseCode = "201", description = "Registration created successfully")
+    @ApiResponse(responseCode = "202", description = "Event full, registration added to the waitlist, "
+            + "or registration queued with a provisional reference")
     @ApiResponse(responseCode = "400", description = "Validation or business error")
     @ApiResponse(responseCode = "404", description = "Event or member not found")
+    @ApiResponse(responseCode = "429", description = "Registration queued, retry with the queue token")
+    @ApiResponse(responseCode = "503", description = "Registration queue full")
     @PostMapping("/member/event/{eventId}")
+    @AdmissionControlled(activity = "event", idVariable = "eventId")
     @RequiredJWTAuth
     @RequiredRole("MEMBER")
-    public ResponseEntity<LogicResult<Void>> registerMemberToEvent(
+    public ResponseEntity<LogicResult<String>> registerMemberToEvent(
             @PathVariable Long eventId,
             @RequestBody EventRegistrationDTO eventRegistrationDTO,
             @RequestParam String memberEmail
     ) {
         // Délègue la validation et la logique métier au service
-        LogicResult<Void> result =
+        LogicResult<String> result =
                 eventRegistrationService.registerToEvent(
                         eventId,
                         eventRegistrationDTO,
@@ -140,6 +151,43 @@ public class EventRegistrationController {
                 .body(result);
     }
 
+    /**
+     * Récupère le rang du membre connecté dans la liste d'attente d'un événement complet.
+     *
+     * Cet endpoint :
+     * - nécessite une authentification JWT
+     * - vérifie le rôle MEMBER
+     * - calcule le rang en une seule requête indexée
+     *
+     * @param eventId identifiant unique de l'événement
+     * @param memberEmail email du membre connecté
+     *
+     * @return réponse HTTP contenant le rang (à partir de 1)
+     */
+    @Operation(
+            summary = "Get the waitlist position of a member",
+            description = "Returns the 1-based rank of the member in the waitlist of a full event"
+    )
+    @ApiResponse(responseCode = "200", description = "Waitlist position retrieved successfully")
+    @ApiResponse(responseCode = "400", description = "Invalid event identifier")
+    @ApiResponse(responseCode = "404", description = "Member not found or not on the waitlist")
+    @GetMapping("/member/event/{eventId}/waitlist-position")
+    @RequiredJWTAuth
+    @RequiredRole("MEMBER")
+    public ResponseEntity<LogicResult<Long>> getWaitlistPosition(
+            @PathVariable Long eventId,
+            @RequestParam String memberEmail
+    ) {
+        LogicResult<Long> result =
+                eventRegistrationService.getWaitlistPosition(eventId, memberEmail);
+
+        HttpStatus status = resolveHttpStatus(result.getCode());
+
+        return ResponseEntity
+                .status(status)
+                .body(result);
+    }
+
     /**
      * Récupère toutes les inscriptions d'un événement.
      *
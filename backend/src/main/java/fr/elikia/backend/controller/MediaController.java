@@ -0,0 +1,262 @@
+package fr.elikia.backend.controller;
+
+import fr.elikia.backend.bll.storage.MediaStorageService;
+import fr.elikia.backend.bll.storage.MediaUrlSigner;
+import io.swagger.v3.oas.annotations.Hidden;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Controller serving stored media files (replaces the plain /uploads/** resource mapping).
+
+ * This endpoint:
+ * - Sends strong ETags and Last-Modified, and answers conditional requests with 304
+ * - Marks content-addressed files as immutable with a far-future Cache-Control
+ * - Supports single byte-range requests (206 / 416)
+ * - Transfers the file body without copying it through the JVM heap:
+ *   Tomcat sendfile when available, FileChannel.transferTo otherwise
+ * - Serves members-only files only with a valid signed URL (no JWT, no DB lookup)
+ */
+@RestController
+@Hidden
+public class MediaController {
+    /** CONSTANTS*/
+    public static final String MEDIA_URL_PREFIX = "/uploads/media/";
+    // Content-addressed keys: the file name starts with a SHA-256 digest, its bytes never change
+    private static final Pattern CONTENT_ADDRESSED_NAME =
+            Pattern.compile("(?:.*/)?[0-9a-f]{64}(?:-w\\d+)?\\.[a-z]+");
+    private static final String IMMUTABLE_CACHE_CONTROL = "public, max-age=31536000, immutable";
+    // Legacy names may be overwritten: always revalidate (cheap thanks to 304)
+    private static final String REVALIDATE_CACHE_CONTROL = "public, no-cache";
+    // Tomcat sendfile request attributes (see Tomcat DefaultServlet)
+    private static final String SENDFILE_SUPPORTED = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private final MediaStorageService mediaStorageService;
+    private final MediaUrlSigner mediaUrlSigner;
+
+    // Constructor injection
+    public MediaController(MediaStorageService mediaStorageService, MediaUrlSigner mediaUrlSigner) {
+        this.mediaStorageService = mediaStorageService;
+        this.mediaUrlSigner = mediaUrlSigner;
+    }
+
+
+    /**
+     * Streams a stored media file.
+     *
+     * @return nothing: the response is written directly
+     * - 200 with the full file
+     * - 206 with the requested byte range
+     * - 304 if the client copy is still valid
+     * - 403 if a members-only file is requested without a valid signature
+     * - 404 if the file does not exist
+     * - 416 if the requested range cannot be satisfied
+     */
+    @GetMapping(MEDIA_URL_PREFIX + "**")
+    public void serveMedia(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        String imagePath = request.getRequestURI().substring(
+                request.getContextPath().length() + MEDIA_URL_PREFIX.length());
+
+        // Non-normalized paths (.., //) could dodge the restricted prefix check
+        if (!Path.of(imagePath).normalize().toString().equals(imagePath)) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        String cacheControl = null;
+        if (MediaStorageService.isRestricted(imagePath)) {
+            String expires = request.getParameter(MediaUrlSigner.EXPIRES_PARAMETER);
+            if (!mediaUrlSigner.isValid(imagePath, expires,
+                    request.getParameter(MediaUrlSigner.SIGNATURE_PARAMETER))) {
+                response.sendError(HttpServletResponse.SC_FORBIDDEN);
+                return;
+            }
+            // Only the browser may keep it, and not beyond the signature lifetime
+            cacheControl = "private, max-age=" + mediaUrlSigner.secondsUntil(expires);
+        }
+
+        Path file = resolveServableFile(imagePath);
+        if (file == null) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        long length = attributes.size();
+        long lastModified = attributes.lastModifiedTime().toMillis();
+        boolean immutable = CONTENT_ADDRESSED_NAME.matcher(imagePath).matches();
+        String etag = buildEtag(imagePath, length, lastModified, immutable);
+
+        if (cacheControl == null) {
+            cacheControl = immutable ? IMMUTABLE_CACHE_CONTROL : REVALIDATE_CACHE_CONTROL;
+        }
+        response.setHeader(HttpHeaders.CACHE_CONTROL, cacheControl);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+
+        // Sets ETag / Last-Modified and answers 304 when the client copy is fresh
+        if (new ServletWebRequest(request, response).checkNotModified(etag, lastModified)) {
+            return;
+        }
+
+        response.setContentType(MediaTypeFactory.getMediaType(file.getFileName().toString())
+                .orElse(MediaType.APPLICATION_OCTET_STREAM)
+                .toString());
+
+        long start = 0;
+        long end = length - 1;
+
+        HttpRange range = requestedRange(request, etag, lastModified);
+        if (range != null) {
+            if (length == 0 || range.getRangeStart(length) >= length) {
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                response.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                return;
+            }
+            start = range.getRangeStart(length);
+            end = range.getRangeEnd(length);
+            response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+        }
+
+        long count = end - start + 1;
+        response.setContentLengthLong(count);
+
+        if ("HEAD".equals(request.getMethod()) || count <= 0) {
+            return;
+        }
+
+        transfer(request, response, file, start, count);
+    }
+
+
+    // =========================================================
+    // Private helpers
+    // =========================================================
+
+    /**
+     * Resolves a request path to a stored file, refusing anything outside
+     * the storage root, staging files and directories.
+     */
+    private Path resolveServableFile(String imagePath) {
+        if (imagePath.isBlank() || imagePath.startsWith(".")) {
+            return null;
+        }
+
+        try {
+            Path file = mediaStorageService.resolve(imagePath);
+            return Files.isRegularFile(file) ? file : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+
+    /**
+     * Strong validator: the digest for content-addressed files,
+     * size and modification time otherwise.
+     */
+    private String buildEtag(String imagePath, long length, long lastModified, boolean immutable) {
+        if (immutable) {
+            String fileName = imagePath.substring(imagePath.lastIndexOf('/') + 1);
+            return "\"" + fileName.substring(0, fileName.lastIndexOf('.')) + "\"";
+        }
+        return "\"" + Long.toHexString(length) + "-" + Long.toHexString(lastModified) + "\"";
+    }
+
+
+    /**
+     * Returns the single byte range to serve, or null to serve the whole file.
+     * Multi-range requests and stale If-Range validators get the whole file.
+     */
+    private HttpRange requestedRange(HttpServletRequest request, String etag, long lastModified) {
+        String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+        if (rangeHeader == null) {
+            return null;
+        }
+
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange != null && !ifRange.equals(etag)) {
+            // Any other entity tag is stale (weak ones never match If-Range)
+            if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+                return null;
+            }
+
+            long ifRangeDate;
+            try {
+                ifRangeDate = request.getDateHeader(HttpHeaders.IF_RANGE);
+            } catch (IllegalArgumentException e) {
+                // Unparseable validator: the whole file is the safe answer
+                return null;
+            }
+            if (ifRangeDate == -1 || lastModified / 1000 > ifRangeDate / 1000) {
+                return null;
+            }
+        }
+
+        try {
+            List<HttpRange> ranges = HttpRange.parseRanges(rangeHeader);
+            return ranges.size() == 1 ? ranges.getFirst() : null;
+        } catch (IllegalArgumentException e) {
+            // Malformed Range header: ignored as allowed by RFC 9110
+            return null;
+        }
+    }
+
+
+    /**
+     * Writes a region of the file to the response without user-space copies when possible.
+     */
+    private void transfer(HttpServletRequest request,
+                          HttpServletResponse response,
+                          Path file,
+                          long start,
+                          long count) throws IOException {
+
+        // Let Tomcat hand the file to the kernel (sendfile) once the handler returns
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORTED))) {
+            request.setAttribute(SENDFILE_FILENAME, file.toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, start + count);
+            return;
+        }
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            OutputStream outputStream = response.getOutputStream();
+            WritableByteChannel target = Channels.newChannel(outputStream);
+
+            long position = start;
+            long remaining = count;
+            while (remaining > 0) {
+                long written = channel.transferTo(position, remaining, target);
+                if (written <= 0) {
+                    break;
+                }
+                position += written;
+                remaining -= written;
+            }
+            outputStream.flush();
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package fr.elikia.backend.controller;
+
+import fr.elikia.backend.bll.storage.ChunkedUploadService;
+import fr.elikia.backend.bo.LogicResult;
+import fr.elikia.backend.dto.UploadInitDTO;
+import fr.elikia.backend.dto.UploadStatusDTO;
+import fr.elikia.backend.security.jwt.RequiredJWTAuth;
+import fr.elikia.backend.security.jwt.RequiredRole;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+
+/**
+ * REST controller receiving large media files as resumable chunked uploads.
+
+ * Workflow:
+ * - POST announces the file (name, size, SHA-256) and returns an upload identifier
+ * - PUT sends each chunk as a raw application/octet-stream body, in any order
+ * - GET returns the missing chunks, so an interrupted upload can resume
+ * - POST .../complete verifies the digest
+ * - The identifier is then listed in the uploadIds of a News, Event or Workshop
+ */
+@RestController
+@RequestMapping("/api/media/uploads")
+@Tag(
+        name = "Media upload",
+        description = "Endpoints for resumable chunked uploads of large media files"
+)
+public class MediaUploadController {
+    // Business service dependency
+    private final ChunkedUploadService chunkedUploadService;
+
+    // Constructor injection
+    public MediaUploadController(ChunkedUploadService chunkedUploadService) {
+        this.chunkedUploadService = chunkedUploadService;
+    }
+
+
+    /**
+     * Starts a chunked upload.
+     *
+     * @return HTTP response containing a LogicResult:
+     * - 201 with the upload identifier and chunk layout
+     * - 400 if the announced file is invalid
+     */
+    @Operation(
+            summary = "Start a chunked upload",
+            description = "Announces a file and returns the upload identifier and chunk size"
+    )
+    @ApiResponse(responseCode = "201", description = "Upload started")
+    @ApiResponse(
+            responseCode = "400",
+            description = "Validation error",
+            content = @Content(schema = @Schema(implementation = LogicResult.class))
+    )
+    @PostMapping
+    @RequiredJWTAuth
+    @RequiredRole("ADMIN")
+    public ResponseEntity<LogicResult<UploadStatusDTO>> startUpload(@RequestBody UploadInitDTO uploadInitDTO) {
+        return toResponse(chunkedUploadService.startUpload(uploadInitDTO));
+    }
+
+
+    /**
+     * Stores one chunk. The body is streamed to disk without being buffered.
+     *
+     * @return HTTP response containing a LogicResult:
+     * - 200 with the remaining chunks
+     * - 400 if the index or the body length is invalid
+     * - 404 if the upload does not exist
+     * - 409 if the upload is already completed
+     */
+    @Operation(
+            summary = "Send one chunk",
+            description = "Writes the raw request body at the position of the given chunk"
+    )
+    @ApiResponse(responseCode = "200", description = "Chunk stored")
+    @PutMapping(value = "/{uploadId}/chunks/{index}", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    @RequiredJWTAuth
+    @RequiredRole("ADMIN")
+    public ResponseEntity<LogicResult<UploadStatusDTO>> writeChunk(
+            @PathVariable String uploadId,
+            @PathVariable int index,
+            HttpServletRequest request) throws IOException {
+
+        return toResponse(chunkedUploadService.writeChunk(uploadId, index, request.getInputStream()));
+    }
+
+
+    /**
+     * Returns the progress of an upload.
+     *
+     * @return HTTP response containing a LogicResult:
+     * - 200 with the missing chunks
+     * - 404 if the upload does not exist
+     */
+    @Operation(
+            summary = "Get upload status",
+            description = "Returns the chunks still missing, to resume an interrupted upload"
+    )
+    @ApiResponse(responseCode = "200", description = "Upload status retrieved")
+    @GetMapping("/{uploadId}")
+    @RequiredJWTAuth
+    @RequiredRole("ADMIN")
+    public ResponseEntity<LogicResult<UploadStatusDTO>> getStatus(@PathVariable String uploadId) {
+        return toResponse(chunkedUploadService.getStatus(uploadId));
+    }
+
+
+    /**
+     * Completes an upload once every chunk was sent.
+     *
+     * @return HTTP response containing a LogicResult:
+     * - 200 if the file is complete and matches its checksum
+     * - 400 if chunks are missing or the checksum does not match
+     * - 404 if the upload does not exist
+     */
+    @Operation(
+            summary = "Complete a chunked upload",
+            description = "Verifies the SHA-256 checksum of the assembled file"
+    )
+    @ApiResponse(responseCode = "200", description = "Upload completed")
+    @PostMapping("/{uploadId}/complete")
+    @RequiredJWTAuth
+    @RequiredRole("ADMIN")
+    public ResponseEntity<LogicResult<UploadStatusDTO>> completeUpload(@PathVariable String uploadId) {
+        return toResponse(chunkedUploadService.completeUpload(uploadId));
+    }
+
+
+    // Map business result code to HTTP status
+    private static <T> ResponseEntity<LogicResult<T>> toResponse(LogicResult<T> result) {
+        HttpStatus status = HttpStatus.resolve(
+                Integer.parseInt(result.getCode())
+        );
+
+        if (status == null) {
+            status = HttpStatus.INTERNAL_SERVER_ERROR;
+        }
+
+        return ResponseEntity
+                .status(status)
+                .body(result);
+    }
+}
@@ -3,6 +3,8 @@ package fr.elikia.backend.controller;
 import fr.elikia.backend.bll.NewsService;
 import fr.elikia.backend.bo.LogicResult;
 import fr.elikia.backend.bo.News;
+import fr.elikia.backend.dto.CursorPageDTO;
+import fr.elikia.backend.dto.NewsCardDTO;
 import fr.elikia.backend.dto.NewsDTO;
 import fr.elikia.backend.security.jwt.RequiredJWTAuth;
 import fr.elikia.backend.security.jwt.RequiredRole;
@@ -169,12 +171,17 @@ public class NewsController {
             description = "Returns the last published news limited by count"
     )
     @ApiResponse(responseCode = "200", description = "News retrieved")
+    @ApiResponse(
+            responseCode = "400",
+            description = "Invalid limit",
+            content = @Content(schema = @Schema(implementation = LogicResult.class))
+    )
     @GetMapping("/latest")
-    public ResponseEntity<LogicResult<List<News>>> findLastPublishedNews(
+    public ResponseEntity<LogicResult<List<NewsCardDTO>>> findLastPublishedNews(
             @RequestParam(defaultValue = "4") int limit
     ) {
 
-        LogicResult<List<News>> result =
+        LogicResult<List<NewsCardDTO>> result =
                 newsService.findLastPublishedNews(limit);
 
         HttpStatus status = HttpStatus.resolve(
@@ -204,12 +211,12 @@ public class NewsController {
     )
     @ApiResponse(responseCode = "200", description = "News page retrieved")
     @GetMapping("/page")
-    public ResponseEntity<LogicResult<Page<News>>> findPublishedNewsPage(
+    public ResponseEntity<LogicResult<Page<NewsCardDTO>>> findPublishedNewsPage(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "12") int size
     ) {
 
-        LogicResult<Page<News>> result =
+        LogicResult<Page<NewsCardDTO>> result =
                 newsService.findPublishedNewsPage(page, size);
 
         HttpStatus status = HttpStatus.resolve(
@@ -226,6 +233,46 @@ public class NewsController {
     }
 
 
+    /**
+     * Retrieve published news cards page by page with a cursor (infinite scroll)
+     *
+     * @param cursor cursor returned with the previous page (absent for the first page)
+     * @param size number of items per page (default 12)
+     * @return items of the page and the cursor of the next one (no total count)
+     */
+    @Operation(
+            summary = "Scroll published news",
+            description = "Returns a keyset page of published news cards and the cursor of the next page"
+    )
+    @ApiResponse(responseCode = "200", description = "News page retrieved")
+    @ApiResponse(
+            responseCode = "400",
+            description = "Invalid cursor or page size",
+            content = @Content(schema = @Schema(implementation = LogicResult.class))
+    )
+    @GetMapping("/scroll")
+    public ResponseEntity<LogicResult<CursorPageDTO<NewsCardDTO>>> findPublishedNewsScroll(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "12") int size
+    ) {
+
+        LogicResult<CursorPageDTO<NewsCardDTO>> result =
+                newsService.findPublishedNewsScroll(cursor, size);
+
+        HttpStatus status = HttpStatus.resolve(
+                Integer.parseInt(result.getCode())
+        );
+
+        if (status == null) {
+            status = HttpStatus.INTERNAL_SERVER_ERROR;
+        }
+
+        return ResponseEntity
+                .status(status)
+                .body(result);
+    }
+
+
     /**
      * Retrieve paginated published news according to the visibility (MEMBER_ONLY).
      *
@@ -241,12 +288,12 @@ public class NewsController {
     @GetMapping("/member/page")
     @RequiredJWTAuth
     @RequiredRole("MEMBER")
-    public ResponseEntity<LogicResult<Page<News>>> findPublishedNewsPageForMember(
+    public ResponseEntity<LogicResult<Page<NewsCardDTO>>> findPublishedNewsPageForMember(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "9") int size
     ) {
 
-        LogicResult<Page<News>> result =
+        LogicResult<Page<NewsCardDTO>> result =
                 newsService.findAllByContentStatusAndVisibilityAfterOrderByPublishedAtDesc(page, size);
 
         HttpStatus status = HttpStatus.resolve(
@@ -263,6 +310,48 @@ public class NewsController {
     }
 
 
+    /**
+     * Retrieve published news cards for members page by page with a cursor (infinite scroll)
+     *
+     * @param cursor cursor returned with the previous page (absent for the first page)
+     * @param size number of items per page (default 12)
+     * @return items of the page and the cursor of the next one (no total count)
+     */
+    @Operation(
+            summary = "Scroll published news for members",
+            description = "Returns a keyset page of news cards and the cursor of the next page"
+    )
+    @ApiResponse(responseCode = "200", description = "News page retrieved")
+    @ApiResponse(
+            responseCode = "400",
+            description = "Invalid cursor or page size",
+            content = @Content(schema = @Schema(implementation = LogicResult.class))
+    )
+    @GetMapping("/member/scroll")
+    @RequiredJWTAuth
+    @RequiredRole("MEMBER")
+    public ResponseEntity<LogicResult<CursorPageDTO<NewsCardDTO>>> findMemberNewsScroll(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "12") int size
+    ) {
+
+        LogicResult<CursorPageDTO<NewsCardDTO>> result =
+                newsService.findMemberNewsScroll(cursor, size);
+
+        HttpStatus status = HttpStatus.resolve(
+                Integer.parseInt(result.getCode())
+        );
+
+        if (status == null) {
+            status = HttpStatus.INTERNAL_SERVER_ERROR;
+        }
+
+        return ResponseEntity
+                .status(status)
+                .body(result);
+    }
+
+
 
     /**
      * Show news detail
@@ -2,6 +2,8 @@ package fr.elikia.backend.controller;
 
 import fr.elikia.backend.bll.WorkshopService;
 import fr.elikia.backend.bo.LogicResult;
+import fr.elikia.backend.dto.CursorPageDTO;
+import fr.elikia.backend.dto.WorkshopCardDTO;
 import fr.elikia.backend.dto.WorkshopResponseDTO;
 import fr.elikia.backend.dto.WorkshopDTO;
 import fr.elikia.backend.security.jwt.RequiredJWTAuth;
@@ -136,6 +138,48 @@ public class WorkshopController {
     }
 
 
+    /**
+     * Retrieve workshops page by page with a cursor (infinite scroll)
+     *
+     * @param cursor cursor returned with the previous page (absent for the first page)
+     * @param size number of items per page (default 12)
+     * @return items of the page and the cursor of the next one (no total count)
+     */
+    @Operation(
+            summary = "Scroll workshops",
+            description = "Returns a keyset page of workshops and the cursor of the next page"
+    )
+    @ApiResponse(responseCode = "200", description = "Workshop page retrieved")
+    @ApiResponse(
+            responseCode = "400",
+            description = "Invalid cursor or page size",
+            content = @Content(schema = @Schema(implementation = LogicResult.class))
+    )
+    @GetMapping("/scroll")
+    @RequiredJWTAuth
+    @RequiredRole("ADMIN")
+    public ResponseEntity<LogicResult<CursorPageDTO<WorkshopResponseDTO>>> findWorkshopScroll(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "12") int size
+    ) {
+
+        LogicResult<CursorPageDTO<WorkshopResponseDTO>> result =
+                workshopService.findWorkshopScroll(cursor, size);
+
+        HttpStatus status = HttpStatus.resolve(
+                Integer.parseInt(result.getCode())
+        );
+
+        if (status == null) {
+            status = HttpStatus.INTERNAL_SERVER_ERROR;
+        }
+
+        return ResponseEntity
+                .status(status)
+                .body(result);
+    }
+
+
     /**
      * Retrieve paginated workshop according to the visibility (PUBLIC)
      *
@@ -149,12 +193,12 @@ public class WorkshopController {
     )
     @ApiResponse(responseCode = "200", description = "Workshop page retrieved")
     @GetMapping("/public/page")
-    public ResponseEntity<LogicResult<Page<WorkshopResponseDTO>>> findAllByVisibilityOrderByStartDateDesc(
+    public ResponseEntity<LogicResult<Page<WorkshopCardDTO>>> findAllByVisibilityOrderByStartDateDesc(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "9") int size
     ) {
 
-        LogicResult<Page<WorkshopResponseDTO>> result =
+        LogicResult<Page<WorkshopCardDTO>> result =
                 workshopService.findAllByVisibilityOrderByStartDateDesc(page, size);
 
         HttpStatus status = HttpStatus.resolve(
@@ -171,6 +215,46 @@ public class WorkshopController {
     }
 
 
+    /**
+     * Retrieve public workshop cards page by page with a cursor (infinite scroll)
+     *
+     * @param cursor cursor returned with the previous page (absent for the first page)
+     * @param size number of items per page (default 9)
+     * @return items of the page and the cursor of the next one (no total count)
+     */
+    @Operation(
+            summary = "Scroll public workshops",
+            description = "Returns a keyset page of workshop cards and the cursor of the next page"
+    )
+    @ApiResponse(responseCode = "200", description = "Workshop page retrieved")
+    @ApiResponse(
+            responseCode = "400",
+            description = "Invalid cursor or page size",
+            content = @Content(schema = @Schema(implementation = LogicResult.class))
+    )
+    @GetMapping("/public/scroll")
+    public ResponseEntity<LogicResult<CursorPageDTO<WorkshopCardDTO>>> findPublicWorkshopScroll(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "9") int size
+    ) {
+
+        LogicResult<CursorPageDTO<WorkshopCardDTO>> result =
+                workshopService.findPublicWorkshopScroll(cursor, size);
+
+        HttpStatus status = HttpStatus.resolve(
+                Integer.parseInt(result.getCode())
+        );
+
+        if (status == null) {
+            status = HttpStatus.INTERNAL_SERVER_ERROR;
+        }
+
+        return ResponseEntity
+                .status(status)
+                .body(result);
+    }
+
+
     /**
      * Retrieve paginated workshop according to the visibility (Member)
      *
@@ -186,12 +270,12 @@ public class WorkshopController {
     @GetMapping("/member/page")
     @RequiredJWTAuth
     @RequiredRole("MEMBER")
-    public ResponseEntity<LogicResult<Page<WorkshopResponseDTO>>> findAllByMemberOnlyVisibilityOrderByStartDateDesc(
+    public ResponseEntity<LogicResult<Page<WorkshopCardDTO>>> findAllByMemberOnlyVisibilityOrderByStartDateDesc(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "9") int size
     ) {
 
-        LogicResult<Page<WorkshopResponseDTO>> result =
+        LogicResult<Page<WorkshopCardDTO>> result =
                 workshopService.findAllByMemberOnlyVisibilityOrderByStartDateDesc(page, size);
 
         HttpStatus status = HttpStatus.resolve(
@@ -208,6 +292,48 @@ public class WorkshopController {
     }
 
 
+    /**
+     * Retrieve workshop cards reserved for members page by page with a cursor (infinite scroll)
+     *
+     * @param cursor cursor returned with the previous page (absent for the first page)
+     * @param size number of items per page (default 9)
+     * @return items of the page and the cursor of the next one (no total count)
+     */
+    @Operation(
+            summary = "Scroll workshops reserved for members",
+            description = "Returns a keyset page of workshop cards and the cursor of the next page"
+    )
+    @ApiResponse(responseCode = "200", description = "Workshop page retrieved")
+    @ApiResponse(
+            responseCode = "400",
+            description = "Invalid cursor or page size",
+            content = @Content(schema = @Schema(implementation = LogicResult.class))
+    )
+    @GetMapping("/member/scroll")
+    @RequiredJWTAuth
+    @RequiredRole("MEMBER")
+    public ResponseEntity<LogicResult<CursorPageDTO<WorkshopCardDTO>>> findMemberOnlyWorkshopScroll(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "9") int size
+    ) {
+
+        LogicResult<CursorPageDTO<WorkshopCardDTO>> result =
+                workshopService.findMemberOnlyWorkshopScroll(cursor, size);
+
+        HttpStatus status = HttpStatus.resolve(
+                Integer.parseInt(result.getCode())
+        );
+
+        if (status == null) {
+            status = HttpStatus.INTERNAL_SERVER_ERROR;
+        }
+
+        return ResponseEntity
+                .status(status)
+                .body(result);
+    }
+
+
     /**
      * Display the 4th last workshop for home page
      */
@@ -217,9 +343,9 @@ public class WorkshopController {
     )
     @ApiResponse(responseCode = "200", description = "Workshop retrieved")
     @GetMapping("/latest")
-    public ResponseEntity<LogicResult<List<WorkshopResponseDTO>>> findLastWorkshop() {
+    public ResponseEntity<LogicResult<List<WorkshopCardDTO>>> findLastWorkshop() {
 
-        LogicResult<List<WorkshopResponseDTO>> result =
+        LogicResult<List<WorkshopCardDTO>> result =
                 workshopService.findLastWorkshop();
 
         HttpStatus status = HttpStatus.resolve(
@@ -5,6 +5,7 @@ import fr.elikia.backend.bo.LogicResult;
 import fr.elikia.backend.dto.RefusalReasonDTO;
 import fr.elikia.backend.dto.WorkshopRegistrationAdminDTO;
 import fr.elikia.backend.dto.WorkshopRegistrationDTO;
+import fr.elikia.backend.security.admission.AdmissionControlled;
 import fr.elikia.backend.security.jwt.RequiredJWTAuth;
 import fr.elikia.backend.security.jwt.RequiredRole;
 import io.swagger.v3.oas.annotations.Operation;
@@ -65,14 +66,19 @@ public class WorkshopRegistrationController {
             description = "Creates a pending registration for a public workshop"
     )
     @ApiResponse(responseCode = "201", description = "Registration created successfully")
+    @ApiResponse(responseCode = "202", description = "Workshop full, registration added to the waitlist, "
+            + "or registration queued with a provisional reference")
     @ApiResponse(responseCode = "400", description = "Validation or business error")
     @ApiResponse(responseCode = "404", description = "Workshop not found")
+    @ApiResponse(responseCode = "429", description = "Registration queued, retry with the queue token")
+    @ApiResponse(responseCode = "503", description = "Registration queue full")
     @PostMapping("/public/workshop/{workshopId}")
-    public ResponseEntity<LogicResult<Void>> registerVisitorToWorkshop(
+    @AdmissionControlled(activity = "workshop", idVariable = "workshopId")
+    public ResponseEntity<LogicResult<String>> registerVisitorToWorkshop(
             @PathVariable Long workshopId,
             @RequestBody @Valid WorkshopRegistrationDTO workshopRegistrationDTO
     ) {
-        LogicResult<Void> result =
+        LogicResult<String> result =
                 workshopRegistrationService.registerToWorkshop(
                         workshopId,
                         workshopRegistrationDTO,
@@ -99,17 +105,22 @@ public class WorkshopRegistrationController {
             description = "Creates a pending registration for a workshop"
     )
     @ApiResponse(responseCode = "201", description = "Registration created successfully")
+    @ApiResponse(responseCode = "202", description = "Workshop full, registration added to the waitlist, "
+            + "or registration queued with a provisional reference")
     @ApiResponse(responseCode = "400", description = "Validation or business error")
     @ApiResponse(responseCode = "404", description = "Workshop or member not found")
+    @ApiResponse(responseCode = "429", description = "Registration queued, retry with the queue token")
+    @ApiResponse(responseCode = "503", description = "Registration queue full")
     @PostMapping("/member/workshop/{workshopId}")
+    @AdmissionControlled(activity = "workshop", idVariable = "workshopId")
     @RequiredJWTAuth
     @RequiredRole("MEMBER")
-    public ResponseEntity<LogicResult<Void>> registerMemberToWorkshop(
+    public ResponseEntity<LogicResult<String>> registerMemberToWorkshop(
             @PathVariable Long workshopId,
             @RequestBody @Valid WorkshopRegistrationDTO workshopRegistrationDTO,
             @RequestParam String memberEmail
     ) {
-        LogicResult<Void> result =
+        LogicResult<String> result =
                 workshopRegistrationService.registerToWorkshop(
                         workshopId,
                         workshopRegistrationDTO,
@@ -123,6 +134,37 @@ public class WorkshopRegistrationController {
                 .body(result);
     }
 
+    /**
+     * Retrieve the rank of the connected member in the waitlist of a full workshop.
+     *
+     * @param workshopId workshop identifier
+     * @param memberEmail connected member email
+     * @return HTTP response containing the 1-based rank
+     */
+    @Operation(
+            summary = "Get the waitlist position of a member",
+            description = "Returns the 1-based rank of the member in the waitlist of a full workshop"
+    )
+    @ApiResponse(responseCode = "200", description = "Waitlist position retrieved successfully")
+    @ApiResponse(responseCode = "400", description = "Invalid workshop identifier")
+    @ApiResponse(responseCode = "404", description = "Member not found or not on the waitlist")
+    @GetMapping("/member/workshop/{workshopId}/waitlist-position")
+    @RequiredJWTAuth
+    @RequiredRole("MEMBER")
+    public ResponseEntity<LogicResult<Long>> getWaitlistPosition(
+            @PathVariable Long workshopId,
+            @RequestParam String memberEmail
+    ) {
+        LogicResult<Long> result =
+                workshopRegistrationService.getWaitlistPosition(workshopId, memberEmail);
+
+        HttpStatus status = resolveHttpStatus(result.getCode());
+
+        return ResponseEntity
+                .status(status)
+                .body(result);
+    }
+
     /**
      * Retrieve all registrations linked to a workshop.
      *
@@ -4,6 +4,10 @@ import fr.elikia.backend.bo.Admin;
 
 import fr.elikia.backend.dao.idao.IDAOAdmin;
 import fr.elikia.backend.repository.AdminRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.transaction.Transactional;
+import org.hibernate.Session;
 import org.springframework.stereotype.Component;
 
 import java.util.List;
@@ -12,6 +16,9 @@ import java.util.List;
 public class AdminDAO implements IDAOAdmin {
     private final AdminRepository adminRepository;
 
+    @PersistenceContext
+    private EntityManager entityManager;
+
     public AdminDAO(AdminRepository adminRepository) {
         this.adminRepository = adminRepository;
     }
@@ -26,9 +33,19 @@ public class AdminDAO implements IDAOAdmin {
         return adminRepository.findById(adminId).orElse(null);
     }
 
+    /**
+     * Retrieve a admin by email, the natural identifier of users.
+     * Repeated lookups are served by the natural-id and entity caches.
+     */
+    @Override
+    @Transactional
     public Admin findByEmail(String adminEmail) {
-        return adminRepository.findByEmail(adminEmail).orElse(null);
-
+        if (adminEmail == null) {
+            return null;
+        }
+        return entityManager.unwrap(Session.class)
+                .bySimpleNaturalId(Admin.class)
+                .load(adminEmail);
     }
 
     @Override
@@ -0,0 +1,51 @@
+package fr.elikia.backend.dao;
+
+import jakarta.persistence.Cache;
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Evicts single entities from the second-level cache after native updates.
+
+ * The seat and waitlist counters of the activities are updated by native statements
+ * Hibernate does not track: the cached copy of the activity is evicted here by id,
+ * instead of Hibernate dropping the whole region as it does for JPQL bulk updates.
+
+ * Business rules:
+ * - The entity is evicted at once, then again once the writing transaction completes,
+ *   so a copy loaded by a concurrent reader before the commit is not kept
+ * - Without a second-level cache, eviction does nothing
+ */
+@Component
+public class EntityCacheEviction {
+
+    private final EntityManagerFactory entityManagerFactory;
+
+
+    public EntityCacheEviction(EntityManagerFactory entityManagerFactory) {
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+
+    /**
+     * Evicts one entity now and after the current transaction completes.
+     *
+     * @param entityClass class of the cached entity
+     * @param id identifier of the entity
+     */
+    public void evict(Class<?> entityClass, Object id) {
+        Cache cache = entityManagerFactory.getCache();
+        cache.evict(entityClass, id);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    cache.evict(entityClass, id);
+                }
+            });
+        }
+    }
+}
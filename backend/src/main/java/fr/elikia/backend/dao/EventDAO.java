@@ -3,19 +3,32 @@ package fr.elikia.backend.dao;
 import fr.elikia.backend.bo.Event;
 import fr.elikia.backend.bo.enums.Visibility;
 import fr.elikia.backend.dao.idao.IDAOEvent;
+import fr.elikia.backend.dto.EventCardDTO;
+import fr.elikia.backend.dto.MediaCardDTO;
 import fr.elikia.backend.repository.EventRepository;
+import jakarta.transaction.Transactional;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Component;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Component
 public class EventDAO implements IDAOEvent {
     private final EventRepository eventRepository;
+    private final LatestCardCache latestCardCache;
+    private final EntityCacheEviction entityCacheEviction;
 
-    public EventDAO(EventRepository eventRepository) {
+    public EventDAO(EventRepository eventRepository, LatestCardCache latestCardCache,
+                    EntityCacheEviction entityCacheEviction) {
         this.eventRepository = eventRepository;
+        this.latestCardCache = latestCardCache;
+        this.entityCacheEviction = entityCacheEviction;
     }
 
     /**
@@ -28,18 +41,20 @@ public class EventDAO implements IDAOEvent {
 
 
     /**
-     * Retrieve the event by its visibility ordered by the start date desc
+     * Retrieve the event cards by visibility ordered by the start date desc,
+     * with their cover media (read-only projections)
      */
     @Override
-    public Page<Event> findAllByVisibilityOrderByStartDateDesc(
+    public Page<EventCardDTO> findAllByVisibilityOrderByStartDateDesc(
             Visibility visibility,
             Pageable pageable
     ) {
-        return eventRepository.findAllByVisibilityOrderByStartDateDesc(
+        Page<EventCardDTO> cards = eventRepository.findCardsByVisibility(
                 visibility,
                 pageable
         );
-
+        Map<Long, List<MediaCardDTO>> covers = coversOf(cards.getContent());
+        return cards.map(card -> card.withMediaList(covers.getOrDefault(card.eventId(), List.of())));
     }
 
 
@@ -50,19 +65,67 @@ public class EventDAO implements IDAOEvent {
     public Page<Event> findAllByOrderByStartDateDesc(
             Pageable pageable
     ) {
-        return eventRepository.findAllByOrderByStartDateDesc(
+        return withMedia(eventRepository.findAllByOrderByStartDateDesc(
                 pageable
+        ));
+
+    }
+
+
+    /**
+     * Retrieve the cards of the 4 latest events, with their cover media
+     * (served from memory until an event or its media is written)
+     */
+    @Override
+    public List<EventCardDTO> findAllByOrderByStartDateDesc() {
+        return latestCardCache.get(
+                LatestCardCache.Section.EVENT,
+                null,
+                () -> withCovers(eventRepository.findLatestCards())
         );
+    }
 
+
+    /**
+     * Retrieve a keyset page of event cards after the given position, with their cover media.
+     * No offset and no count query: a deep page costs the same as the first one.
+     */
+    @Override
+    public List<EventCardDTO> findCardsByVisibilityAfter(
+            Visibility visibility,
+            LocalDateTime startDate,
+            Long eventId,
+            int limit
+    ) {
+        if (startDate == null || eventId == null) {
+            return withCovers(eventRepository.findCardsByVisibility(visibility, Limit.of(limit)));
+        }
+        return withCovers(eventRepository.findCardsByVisibilityAfter(
+                visibility,
+                startDate,
+                eventId,
+                Limit.of(limit)
+        ));
     }
 
 
     /**
-     * Retrieve the 4 latest events
+     * Retrieve a keyset page of events after the given position, with their media
      */
     @Override
-    public List<Event> findAllByOrderByStartDateDesc() {
-        return eventRepository.findAllByOrderByStartDateDesc();
+    public List<Event> findAllAfter(
+            LocalDateTime startDate,
+            Long eventId,
+            int limit
+    ) {
+        List<Event> events = startDate == null || eventId == null
+                ? eventRepository.findAllByOrderByStartDateDescEventIdDesc(Limit.of(limit))
+                : eventRepository.findAllAfter(startDate, eventId, Limit.of(limit));
+
+        Map<Long, Event> loaded = loadWithMedia(events);
+        return events.stream()
+                .map(event -> loaded.getOrDefault(event.getEventId(), event))
+                .toList();
     }
 
 
@@ -89,6 +152,7 @@ public class EventDAO implements IDAOEvent {
 
         if(event != null) {
             eventRepository.delete(event);
+            latestCardCache.invalidate(LatestCardCache.Section.EVENT);
             return true;
         }
         return false;
@@ -101,7 +165,9 @@ public class EventDAO implements IDAOEvent {
      */
     @Override
     public Event create(Event event) {
-        return eventRepository.save(event);
+        Event created = eventRepository.save(event);
+        latestCardCache.invalidate(LatestCardCache.Section.EVENT);
+        return created;
     }
 
     /**
@@ -114,6 +180,147 @@ public class EventDAO implements IDAOEvent {
         if(!eventRepository.existsById(event.getEventId())) {
             return null;
         }
-        return eventRepository.save(event);
+        Event updated = eventRepository.save(event);
+        latestCardCache.invalidate(LatestCardCache.Section.EVENT);
+        return updated;
+    }
+
+
+    /**
+     * Take a seat of the event if one is left, in a single conditional update.
+     * The row stays locked until the calling transaction ends, so the registration
+     * inserted next is committed together with its seat.
+     *
+     * @param eventId the unique identifier of the event
+     * @return boolean true if a seat was taken, false if the event is full
+     */
+    @Override
+    @Transactional
+    public boolean reserveSeat(Long eventId) {
+        boolean reserved = eventRepository.reserveSeat(eventId) == 1;
+        entityCacheEviction.evict(Event.class, eventId);
+        return reserved;
+    }
+
+    /**
+     * Give back a seat of the event
+     * @param eventId the unique identifier of the event
+     */
+    @Override
+    @Transactional
+    public void releaseSeat(Long eventId) {
+        eventRepository.releaseSeat(eventId);
+        entityCacheEviction.evict(Event.class, eventId);
+    }
+
+    /**
+     * Hand out the next waitlist position of the event.
+     * The row of the event stays locked until the calling transaction ends.
+     *
+     * @param eventId the unique identifier of the event
+     * @return long the position of the new waiter
+     */
+    @Override
+    @Transactional
+    public long joinWaitlist(Long eventId) {
+        eventRepository.incrementWaitlistTail(eventId);
+        entityCacheEviction.evict(Event.class, eventId);
+        return eventRepository.findWaitlistTail(eventId);
+    }
+
+    /**
+     * Take up to count seats of the event for a batch of registrations.
+     * The seats are added first, which locks the row; the free seats are then
+     * read back under that lock and the seats that did not fit are given back.
+     *
+     * @param eventId the unique identifier of the event
+     * @param count number of seats wanted
+     * @return int the number of seats taken, from 0 to count
+     */
+    @Override
+    @Transactional
+    public int reserveSeats(Long eventId, int count) {
+        if (count <= 0) {
+            return 0;
+        }
+
+        eventRepository.addReservedSeats(eventId, count);
+        entityCacheEviction.evict(Event.class, eventId);
+        int freeBefore = eventRepository.findFreeSeats(eventId) + count;
+        int taken = Math.clamp(freeBefore, 0, count);
+
+        if (taken < count) {
+            eventRepository.addReservedSeats(eventId, taken - count);
+        }
+        return taken;
+    }
+
+    /**
+     * Hand out count consecutive waitlist positions of the event.
+     * The row of the event stays locked until the calling transaction ends.
+     *
+     * @param eventId the unique identifier of the event
+     * @param count number of positions wanted
+     * @return long the first position handed out
+     */
+    @Override
+    @Transactional
+    public long joinWaitlist(Long eventId, int count) {
+        eventRepository.incrementWaitlistTail(eventId, count);
+        entityCacheEviction.evict(Event.class, eventId);
+        return eventRepository.findWaitlistTail(eventId) - count + 1;
+    }
+
+    // =========================================================
+    // Fetch plan
+    // =========================================================
+
+    /**
+     * Loads the media of a whole page in one extra query,
+     * instead of one lazy query per event when the page is mapped.
+     */
+    private Page<Event> withMedia(Page<Event> page) {
+        Map<Long, Event> loaded = loadWithMedia(page.getContent());
+        return page.map(event -> loaded.getOrDefault(event.getEventId(), event));
+    }
+
+
+    /**
+     * Attaches their cover media to a list of cards.
+     */
+    private List<EventCardDTO> withCovers(List<EventCardDTO> cards) {
+        Map<Long, List<MediaCardDTO>> covers = coversOf(cards);
+        return cards.stream()
+                .map(card -> card.withMediaList(covers.getOrDefault(card.eventId(), List.of())))
+                .toList();
+    }
+
+
+    /**
+     * Loads the cover media of a list of cards in one query, keyed by event identifier.
+     */
+    private Map<Long, List<MediaCardDTO>> coversOf(List<EventCardDTO> cards) {
+        if (cards.isEmpty()) {
+            return Map.of();
+        }
+
+        List<Long> ids = cards.stream().map(EventCardDTO::eventId).toList();
+        return eventRepository.findCoverMediaByEventIdIn(ids).stream()
+                .collect(Collectors.toMap(MediaCardDTO::ownerId, List::of));
+    }
+
+
+    /**
+     * Second step of the fetch plan: the events of the page, with their media, by identifier.
+     * The result is keyed by identifier so the page order is kept.
+     */
+    private Map<Long, Event> loadWithMedia(List<Event> events) {
+        if (events.isEmpty()) {
+            return Map.of();
+        }
+
+        List<Long> ids = events.stream().map(Event::getEventId).toList();
+        return eventRepository.findWithMediaListByEventIdIn(ids).stream()
+                .collect(Collectors.toMap(Event::getEventId, Function.identity(), (first, second) -> first));
     }
 }
@@ -3,11 +3,18 @@ package fr.elikia.backend.dao;
 import fr.elikia.backend.bo.Event;
 import fr.elikia.backend.bo.EventRegistration;
 import fr.elikia.backend.bo.Member;
+import fr.elikia.backend.bo.enums.RegistrationStatus;
 import fr.elikia.backend.dao.idao.IDAOEventRegistration;
 import fr.elikia.backend.repository.EventRegistrationRepository;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Component;
 
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 /**
  * Implémentation de l'interface IDAOEventRegistration.
@@ -17,10 +24,18 @@ import java.util.List;
  */
 @Component
 public class EventRegistrationDAO implements IDAOEventRegistration {
+    private static final String INSERT_REGISTRATION_SQL = """
+        INSERT INTO event_registration
+            (first_name, last_name, email, registration_date, status, waitlist_position, event_id, member_id)
+        VALUES (?, ?, ?, ?, ?, ?, ?, ?)
+    """;
+
     private final EventRegistrationRepository eventRegistrationRepository;
+    private final JdbcTemplate jdbcTemplate;
 
-    public EventRegistrationDAO(EventRegistrationRepository eventRegistrationRepository) {
+    public EventRegistrationDAO(EventRegistrationRepository eventRegistrationRepository, JdbcTemplate jdbcTemplate) {
         this.eventRegistrationRepository = eventRegistrationRepository;
+        this.jdbcTemplate = jdbcTemplate;
     }
     /**
      * Créer une nouvelle inscription à un événement
@@ -44,6 +59,18 @@ public class EventRegistrationDAO implements IDAOEventRegistration {
         return eventRegistrationRepository.findById(registrationId).orElse(null);
     }
 
+    /**
+     * Rechercher une inscription à un événement par son identifiant,
+     * verrouillée jusqu'à la fin de la transaction.
+     *
+     * @param registrationId l'identifiant de l'inscription
+     * @return l'inscription trouvée ou null si aucune inscription ne correspond
+     */
+    @Override
+    public EventRegistration findByIdForUpdate(Long registrationId) {
+        return eventRegistrationRepository.findByIdForUpdate(registrationId).orElse(null);
+    }
+
     /**
      * Récupérer toutes les inscriptions associées à un événement.
      *
@@ -93,4 +120,93 @@ public class EventRegistrationDAO implements IDAOEventRegistration {
     public boolean existsByEventAndMember(Event event, Member member) {
         return eventRegistrationRepository.existsByEventAndMember(event, member);
     }
+
+    /**
+     * Récupérer la tête de la liste d'attente d'un événement
+     * (première inscription en attente, par position),
+     * verrouillée jusqu'à la fin de la transaction.
+     *
+     * @param event l'événement concerné
+     * @return l'inscription en tête de liste ou null si la liste est vide
+     */
+    @Override
+    public EventRegistration findWaitlistHead(Event event) {
+        return eventRegistrationRepository.findFirstByEventAndStatusOrderByWaitlistPositionAsc(
+                event,
+                RegistrationStatus.WAITLISTED
+        );
+    }
+
+    /**
+     * Récupérer le rang d'un membre dans la liste d'attente d'un événement
+     *
+     * @param eventId l'identifiant de l'événement
+     * @param memberId l'identifiant du membre
+     * @return le rang (à partir de 1) ou 0 si le membre n'est pas en liste d'attente
+     */
+    @Override
+    public long findWaitlistRank(Long eventId, Long memberId) {
+        return eventRegistrationRepository.findWaitlistRank(eventId, memberId, RegistrationStatus.WAITLISTED);
+    }
+
+    /**
+     * Insérer plusieurs inscriptions en un seul lot JDBC.
+     *
+     * Les identifiants IDENTITY empêchent Hibernate de regrouper les insertions :
+     * les lignes sont écrites par la connexion de la transaction courante.
+     * Les inscriptions insérées ne sont pas gérées par le contexte de persistance.
+     *
+     * @param eventRegistrations les inscriptions à insérer, leur événement déjà enregistré
+     * @return le nombre de lignes insérées
+     */
+    @Override
+    public int createAll(List<EventRegistration> eventRegistrations) {
+        if (eventRegistrations.isEmpty()) {
+            return 0;
+        }
+
+        jdbcTemplate.batchUpdate(INSERT_REGISTRATION_SQL, eventRegistrations, eventRegistrations.size(),
+                (statement, registration) -> {
+                    statement.setString(1, registration.getFirstName());
+                    statement.setString(2, registration.getLastName());
+                    statement.setString(3, registration.getEmail());
+                    statement.setTimestamp(4, Timestamp.valueOf(registration.getRegistrationDate()));
+                    statement.setString(5, registration.getStatus().name());
+                    statement.setObject(6, registration.getWaitlistPosition(), Types.BIGINT);
+                    statement.setLong(7, registration.getEvent().getEventId());
+                    statement.setObject(8, registration.getMember() != null
+                            ? registration.getMember().getUserId() : null, Types.BIGINT);
+                });
+        return eventRegistrations.size();
+    }
+
+    /**
+     * Récupérer, parmi les adresses email données, celles déjà inscrites à un événement
+     *
+     * @param event l'événement concerné
+     * @param emails les adresses email à vérifier
+     * @return les adresses déjà inscrites
+     */
+    @Override
+    public Set<String> findRegisteredEmails(Event event, Collection<String> emails) {
+        if (emails.isEmpty()) {
+            return Set.of();
+        }
+        return new HashSet<>(eventRegistrationRepository.findEmailsByEventAndEmailIn(event, emails));
+    }
+
+    /**
+     * Récupérer, parmi les membres donnés, ceux déjà inscrits à un événement
+     *
+     * @param event l'événement concerné
+     * @param memberIds les identifiants des membres à vérifier
+     * @return les identifiants des membres déjà inscrits
+     */
+    @Override
+    public Set<Long> findRegisteredMemberIds(Event event, Collection<Long> memberIds) {
+        if (memberIds.isEmpty()) {
+            return Set.of();
+        }
+        return new HashSet<>(eventRegistrationRepository.findMemberIdsByEventAndMemberIdIn(event, memberIds));
+    }
 }
@@ -0,0 +1,126 @@
+package fr.elikia.backend.dao;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * In-memory results of the home page "latest" queries (news, events, workshops).
+
+ * Entries are dropped when the DAOs of this node write the content of their section
+ * or the media attached to it. Writes of the other nodes (e.g. the news published
+ * by the scheduler of the lease holder) are only seen once the entries expire.
+
+ * Business rules:
+ * - An entry is served for at most ttl, whatever the writes
+ * - A section is invalidated once the writing transaction has committed,
+ *   or immediately when the write runs outside a transaction
+ * - Each entry is stamped with the generation of its section when its query started:
+ *   a result read before a concurrent commit is never served after it
+ * - Reads inside a transaction bypass the cache, they may see uncommitted rows
+ */
+@Component
+public class LatestCardCache {
+
+    /**
+     * Content whose latest cards are cached, invalidated as a whole.
+     */
+    public enum Section {
+        NEWS,
+        EVENT,
+        WORKSHOP
+    }
+
+
+    private record Key(Section section, Object argument) {
+    }
+
+
+    private record Entry(long generation, long loadedAt, List<?> cards) {
+    }
+
+
+    private final Map<Section, AtomicLong> generations = new EnumMap<>(Section.class);
+    private final Map<Key, Entry> entries = new ConcurrentHashMap<>();
+    private final long ttlNanos;
+
+
+    public LatestCardCache(@Value("${latest-cards.ttl:PT30S}") Duration ttl) {
+        this.ttlNanos = ttl.toNanos();
+        for (Section section : Section.values()) {
+            generations.put(section, new AtomicLong());
+        }
+    }
+
+
+    /**
+     * Returns the cached cards of a query, or runs it and caches its result.
+     *
+     * @param section content the query reads
+     * @param argument query argument (limit), null if the query has none
+     * @param loader runs the query
+     */
+    @SuppressWarnings("unchecked")
+    public <T> List<T> get(Section section, Object argument, Supplier<List<T>> loader) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return loader.get();
+        }
+
+        Key key = new Key(section, argument);
+        AtomicLong generation = generations.get(section);
+        long current = generation.get();
+
+        long now = System.nanoTime();
+
+        Entry entry = entries.get(key);
+        if (entry != null && entry.generation() == current && now - entry.loadedAt() < ttlNanos) {
+            return (List<T>) entry.cards();
+        }
+
+        List<T> cards = List.copyOf(loader.get());
+        entries.put(key, new Entry(current, now, cards));
+        return cards;
+    }
+
+
+    /**
+     * Drops the cached cards of a section after the current transaction commits.
+     */
+    public void invalidate(Section section) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evict(section);
+                }
+            });
+            return;
+        }
+        evict(section);
+    }
+
+
+    /**
+     * Drops the cached cards of every section (writes whose owner is unknown).
+     */
+    public void invalidateAll() {
+        for (Section section : Section.values()) {
+            invalidate(section);
+        }
+    }
+
+
+    private void evict(Section section) {
+        generations.get(section).incrementAndGet();
+        entries.keySet().removeIf(key -> key.section() == section);
+    }
+}
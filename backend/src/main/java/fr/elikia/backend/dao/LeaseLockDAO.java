@@ -0,0 +1,71 @@
+package fr.elikia.backend.dao;
+
+import fr.elikia.backend.dao.idao.IDAOLeaseLock;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+@Component
+public class LeaseLockDAO implements IDAOLeaseLock {
+    // Takes over a free or expired lease; a held lease matches no row
+    private static final String TAKE_OVER_SQL = """
+        UPDATE scheduler_lock
+            SET locked_until = ?, locked_at = ?, locked_by = ?
+            WHERE name = ?
+              AND locked_until <= ?
+    """;
+
+    private static final String INSERT_SQL = """
+        INSERT INTO scheduler_lock (name, locked_until, locked_at, locked_by)
+        VALUES (?, ?, ?, ?)
+    """;
+
+    private static final String RELEASE_SQL = """
+        UPDATE scheduler_lock
+            SET locked_until = ?
+            WHERE name = ?
+              AND locked_by = ?
+    """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public LeaseLockDAO(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * One conditional update in the usual case; the first acquisition of a job inserts its row.
+     * Both statements are atomic on their own: of two nodes racing for the same lease,
+     * only one updates the row (or inserts it), the other gets no row (or a duplicate key).
+     */
+    @Override
+    public boolean tryAcquire(String name, String owner, LocalDateTime now, LocalDateTime lockedUntil) {
+        int updated = jdbcTemplate.update(
+                TAKE_OVER_SQL,
+                Timestamp.valueOf(lockedUntil),
+                Timestamp.valueOf(now),
+                owner,
+                name,
+                Timestamp.valueOf(now)
+        );
+        if (updated > 0) {
+            return true;
+        }
+
+        try {
+            jdbcTemplate.update(INSERT_SQL, name, Timestamp.valueOf(lockedUntil), Timestamp.valueOf(now), owner);
+            return true;
+        } catch (DuplicateKeyException e) {
+            // The row exists and the lease is held by another node
+            return false;
+        }
+    }
+
+    @Override
+    public boolean release(String name, String owner, LocalDateTime lockedUntil) {
+        return jdbcTemplate.update(RELEASE_SQL, Timestamp.valueOf(lockedUntil), name, owner) > 0;
+    }
+}
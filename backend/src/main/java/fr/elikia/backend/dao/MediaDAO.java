@@ -3,16 +3,47 @@ package fr.elikia.backend.dao;
 import fr.elikia.backend.bo.*;
 import fr.elikia.backend.dao.idao.IDAOMedia;
 import fr.elikia.backend.repository.MediaRepository;
+import jakarta.transaction.Transactional;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Component;
 
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 
 @Component
 public class MediaDAO implements IDAOMedia {
+    private static final String INSERT_MEDIA_SQL = """
+        INSERT INTO media (caption, image_path, video_url, news_id, event_id, workshop_id, achievement_id)
+        VALUES (?, ?, ?, ?, ?, ?, ?)
+    """;
+
+    private static final String SELECT_STORED_PATHS_SQL = """
+        SELECT image_path, thumbnail_path, display_path
+            FROM media
+            WHERE image_path IS NOT NULL
+    """;
+    // Rows fetched per round trip when streaming stored paths
+    private static final int STORED_PATHS_FETCH_SIZE = 1000;
+    // MySQL Connector/J reads the whole result set into memory unless the
+    // fetch size is Integer.MIN_VALUE, which streams it row by row
+    private static final int MYSQL_STREAMING_FETCH_SIZE = Integer.MIN_VALUE;
+
     private final MediaRepository mediaRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final LatestCardCache latestCardCache;
 
-    public MediaDAO(MediaRepository mediaRepository) {
+    public MediaDAO(MediaRepository mediaRepository, JdbcTemplate jdbcTemplate, LatestCardCache latestCardCache) {
         this.mediaRepository = mediaRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.latestCardCache = latestCardCache;
     }
 
     // Retrieve all media from database
@@ -53,12 +84,60 @@ public class MediaDAO implements IDAOMedia {
         return mediaRepository.findAllByAchievement(achievement);
     }
 
+    // Count media sharing a stored image (content-addressed reference count)
+    @Override
+    public long countByImagePath(String imagePath) {
+        return mediaRepository.countByImagePath(imagePath);
+    }
+
+    // Stream stored paths row by row: no entity is built and the driver does not
+    // buffer the result set. While streaming, the connection runs no other statement.
+    @Override
+    public void forEachStoredPath(Consumer<String> consumer) {
+        jdbcTemplate.query(
+                connection -> {
+                    PreparedStatement statement = connection.prepareStatement(
+                            SELECT_STORED_PATHS_SQL, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                    statement.setFetchSize(streamingFetchSize(connection));
+                    return statement;
+                },
+                (ResultSet row) -> {
+                    for (int column = 1; column <= 3; column++) {
+                        String path = row.getString(column);
+                        if (path != null) {
+                            consumer.accept(path);
+                        }
+                    }
+                }
+        );
+    }
+
+    // Retrieve image media whose derivatives are missing (backfill)
+    @Override
+    public List<Media> findWithoutDerivatives(long afterMediaId, int limit) {
+        return mediaRepository.findByImagePathIsNotNullAndThumbnailPathIsNullAndMediaIdGreaterThanOrderByMediaId(
+                afterMediaId, PageRequest.of(0, limit));
+    }
+
+    // Targeted update: does not overwrite concurrent edits of the media
+    @Override
+    @Transactional
+    public boolean updateDerivatives(Long mediaId, String imagePath, String thumbnailPath, String displayPath) {
+        boolean updated = mediaRepository.updateDerivatives(mediaId, imagePath, thumbnailPath, displayPath) > 0;
+        if (updated) {
+            // The owner is not loaded: cover cards of every section may show this media
+            latestCardCache.invalidateAll();
+        }
+        return updated;
+    }
+
     @Override
     public boolean deleteById(Long mediaId) {
         Media media = mediaRepository.findById(mediaId).orElse(null);
 
         if(media != null) {
             mediaRepository.delete(media);
+            invalidateLatestCardsOf(media);
             return true;
         }
         return false;
@@ -67,8 +146,92 @@ public class MediaDAO implements IDAOMedia {
 
     @Override
     public Media create(Media media) {
-        return mediaRepository.save(media);
+        Media created = mediaRepository.save(media);
+        invalidateLatestCardsOf(media);
+        return created;
+
+    }
 
+    /**
+     * Insert several media in one JDBC batch.
+
+     * Media identifiers are IDENTITY columns, which prevents Hibernate from
+     * batching inserts, so rows are written directly through the connection
+     * of the current transaction. The owner entity must already be persisted.
+
+     * The returned Media carry their generated identifiers but are not managed
+     * by the persistence context: they must not be added to a cascading collection.
+     *
+     * @param medias media to insert, each linked to exactly one owner
+     * @return the inserted media with their generated identifiers
+     */
+    @Override
+    public List<Media> createAll(List<Media> medias) {
+        if (medias.isEmpty()) {
+            return List.of();
+        }
+
+        return jdbcTemplate.execute((Connection connection) -> {
+            List<Media> created = new ArrayList<>(medias.size());
+
+            try (PreparedStatement statement =
+                         connection.prepareStatement(INSERT_MEDIA_SQL, Statement.RETURN_GENERATED_KEYS)) {
+
+                for (Media media : medias) {
+                    statement.setString(1, media.getCaption());
+                    statement.setString(2, media.getImagePath());
+                    statement.setString(3, media.getVideoUrl());
+                    setOwnerId(statement, 4, media.getNews() != null ? media.getNews().getNewsId() : null);
+                    setOwnerId(statement, 5, media.getEvent() != null ? media.getEvent().getEventId() : null);
+                    setOwnerId(statement, 6, media.getWorkshop() != null ? media.getWorkshop().getWorkshopId() : null);
+                    setOwnerId(statement, 7, media.getAchievement() != null
+                            ? media.getAchievement().getAchievementId() : null);
+                    statement.addBatch();
+                }
+
+                statement.executeBatch();
+
+                try (ResultSet keys = statement.getGeneratedKeys()) {
+                    for (Media media : medias) {
+                        Long mediaId = keys.next() ? keys.getLong(1) : null;
+                        created.add(new Media(mediaId, media.getCaption(), media.getImagePath(),
+                                media.getVideoUrl(), media.getEvent(), media.getWorkshop(),
+                                media.getNews(), media.getAchievement()));
+                    }
+                }
+            }
+
+            medias.forEach(this::invalidateLatestCardsOf);
+            return created;
+        });
+    }
+
+    // Media of news, events and workshops appear on the home page cards
+    private void invalidateLatestCardsOf(Media media) {
+        if (media.getNews() != null) {
+            latestCardCache.invalidate(LatestCardCache.Section.NEWS);
+        }
+        if (media.getEvent() != null) {
+            latestCardCache.invalidate(LatestCardCache.Section.EVENT);
+        }
+        if (media.getWorkshop() != null) {
+            latestCardCache.invalidate(LatestCardCache.Section.WORKSHOP);
+        }
+    }
+
+    // Other drivers (H2 in tests) reject a negative fetch size but honour a positive one
+    private static int streamingFetchSize(Connection connection) throws SQLException {
+        return "MySQL".equals(connection.getMetaData().getDatabaseProductName())
+                ? MYSQL_STREAMING_FETCH_SIZE
+                : STORED_PATHS_FETCH_SIZE;
+    }
+
+    private void setOwnerId(PreparedStatement statement, int index, Long ownerId) throws SQLException {
+        if (ownerId == null) {
+            statement.setNull(index, Types.BIGINT);
+        } else {
+            statement.setLong(index, ownerId);
+        }
     }
 
     @Override
@@ -76,7 +239,9 @@ public class MediaDAO implements IDAOMedia {
         if(!mediaRepository.existsById(media.getMediaId())) {
             return null;
         }
-        return mediaRepository.save(media);
+        Media updated = mediaRepository.save(media);
+        invalidateLatestCardsOf(media);
+        return updated;
 
     }
 }
@@ -1,16 +1,28 @@
 package fr.elikia.backend.dao;
 
 import fr.elikia.backend.bo.Member;
+import fr.elikia.backend.bo.enums.RegistrationStatus;
 import fr.elikia.backend.dao.idao.IDAOMember;
+import fr.elikia.backend.dto.MemberAdminDTO;
 import fr.elikia.backend.repository.MemberRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.transaction.Transactional;
+import org.hibernate.Session;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Component;
 
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 
 @Component
 public class MemberDAO implements IDAOMember {
     private final MemberRepository memberRepository;
 
+    @PersistenceContext
+    private EntityManager entityManager;
+
     public MemberDAO(MemberRepository memberRepository) {
         this.memberRepository = memberRepository;
     }
@@ -20,20 +32,81 @@ public class MemberDAO implements IDAOMember {
         return memberRepository.findAll();
     }
 
+    // Admin views are projections: neither Member nor Role entities are loaded
+    @Override
+    public List<MemberAdminDTO> findAdminViews() {
+        return memberRepository.findAdminViews();
+    }
+
+    @Override
+    public List<MemberAdminDTO> findAdminViewsByStatus(RegistrationStatus status) {
+        return memberRepository.findAdminViewsByStatus(status);
+    }
+
+    /**
+     * Keyset page of admin views, newest registrations first.
+     * A null position means the first page; null filters are ignored.
+     */
+    @Override
+    public List<MemberAdminDTO> findAdminViewsByCreatedAt(
+            RegistrationStatus status,
+            String search,
+            LocalDate createdAt,
+            Long userId,
+            int limit
+    ) {
+        if (createdAt == null || userId == null) {
+            return memberRepository.findAdminViewsByCreatedAt(status, search, Limit.of(limit));
+        }
+        return memberRepository.findAdminViewsByCreatedAtAfter(status, search, createdAt, userId, Limit.of(limit));
+    }
+
+    /**
+     * Keyset page of admin views in last name order.
+     * A null position means the first page; null filters are ignored.
+     */
+    @Override
+    public List<MemberAdminDTO> findAdminViewsByName(
+            RegistrationStatus status,
+            String search,
+            String lastName,
+            Long userId,
+            int limit
+    ) {
+        if (lastName == null || userId == null) {
+            return memberRepository.findAdminViewsByName(status, search, Limit.of(limit));
+        }
+        return memberRepository.findAdminViewsByNameAfter(status, search, lastName, userId, Limit.of(limit));
+    }
+
     @Override
     public Member findById(Long memberId){
         return memberRepository.findById(memberId).orElse(null);
     }
 
+    @Override
+    public List<Member> findAllById(Collection<Long> memberIds) {
+        return memberRepository.findAllById(memberIds);
+    }
+
     @Override
     public boolean existsById(Long memberId) {
         return memberRepository.existsById(memberId);
     }
 
+    /**
+     * Retrieve a member by email, the natural identifier of users.
+     * Repeated lookups are served by the natural-id and entity caches.
+     */
     @Override
+    @Transactional
     public Member findByEmail(String memberEmail) {
-        return memberRepository.findByEmail(memberEmail).orElse(null);
-
+        if (memberEmail == null) {
+            return null;
+        }
+        return entityManager.unwrap(Session.class)
+                .bySimpleNaturalId(Member.class)
+                .load(memberEmail);
     }
 
     @Override
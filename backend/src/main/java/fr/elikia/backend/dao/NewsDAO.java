@@ -4,7 +4,11 @@ import fr.elikia.backend.bo.enums.ContentStatus;
 import fr.elikia.backend.bo.News;
 import fr.elikia.backend.bo.enums.Visibility;
 import fr.elikia.backend.dao.idao.IDAONews;
+import fr.elikia.backend.dto.MediaCardDTO;
+import fr.elikia.backend.dto.NewsCardDTO;
 import fr.elikia.backend.repository.NewsRepository;
+import jakarta.transaction.Transactional;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -12,13 +16,17 @@ import org.springframework.stereotype.Component;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 @Component
 public class NewsDAO implements IDAONews {
     private final NewsRepository newsRepository;
+    private final LatestCardCache latestCardCache;
 
-    public NewsDAO(NewsRepository newsRepository) {
+    public NewsDAO(NewsRepository newsRepository, LatestCardCache latestCardCache) {
         this.newsRepository = newsRepository;
+        this.latestCardCache = latestCardCache;
     }
     public List<News> findAll() {
         return newsRepository.findAll();
@@ -31,9 +39,31 @@ public class NewsDAO implements IDAONews {
         return newsRepository.findAllPublishedOrderByPublishedAtDesc();
     }
 
+    /**
+     * Publishes the news whose publication date is reached, with one bulk update.
+     * The identifiers are read first in the same transaction, without loading any entity,
+     * and their rows stay locked until the commit: the update publishes exactly these news,
+     * never one scheduled or edited in between.
+     *
+     * @return identifiers of the published news
+     */
     @Override
-    public List<News> findAllScheduledToPublish(LocalDateTime now) {
-        return newsRepository.findAllScheduledToPublish(now);
+    @Transactional
+    public List<Long> publishScheduled(LocalDateTime now) {
+        List<Long> newsIds = newsRepository.findIdsScheduledToPublish(now);
+        if (newsIds.isEmpty()) {
+            return List.of();
+        }
+
+        newsRepository.publishAll(newsIds);
+        latestCardCache.invalidate(LatestCardCache.Section.NEWS);
+        return newsIds;
+    }
+
+
+    @Override
+    public List<LocalDateTime> findUpcomingPublicationDates(LocalDateTime now) {
+        return newsRepository.findUpcomingPublicationDates(now);
     }
 
 
@@ -44,40 +74,96 @@ public class NewsDAO implements IDAONews {
 
 
     @Override
-    public Page<News> findPublishedNewsPage(ContentStatus contentStatus, Pageable pageable) {
-        return newsRepository
-                .findAllByContentStatusOrderByPublishedAtDesc(
+    public Page<NewsCardDTO> findPublishedNewsPage(ContentStatus contentStatus, Pageable pageable) {
+        Page<NewsCardDTO> cards = newsRepository
+                .findCardsByContentStatus(
                         contentStatus,
                         pageable
                 );
+        Map<Long, List<MediaCardDTO>> covers = coversOf(cards.getContent());
+        return cards.map(card -> card.withMediaList(covers.getOrDefault(card.newsId(), List.of())));
     }
 
 
     @Override
-    public Page<News> findAllByContentStatusAndVisibilityAfterOrderByPublishedAtDesc(
+    public Page<NewsCardDTO> findAllByContentStatusAndVisibilityAfterOrderByPublishedAtDesc(
             ContentStatus contentStatus,
             Visibility visibility,
             Pageable pageable
     ) {
-        return newsRepository.findAllByContentStatusAndVisibilityAfterOrderByPublishedAtDesc(
+        Page<NewsCardDTO> cards = newsRepository.findCardsByContentStatusAndVisibilityAfter(
                 contentStatus,
                 visibility,
                 pageable
         );
+        Map<Long, List<MediaCardDTO>> covers = coversOf(cards.getContent());
+        return cards.map(card -> card.withMediaList(covers.getOrDefault(card.newsId(), List.of())));
     }
 
 
 
+    // Served from memory until a news or its media is written
     @Override
-    public List<News> findLastPublishedNews(int limit) {
-        Pageable pageable = PageRequest.of(0, limit);
+    public List<NewsCardDTO> findLastPublishedNews(int limit) {
+        return latestCardCache.get(LatestCardCache.Section.NEWS, limit, () -> {
+            Pageable pageable = PageRequest.of(0, limit);
+
+            // List result: no count query
+            List<NewsCardDTO> cards = newsRepository
+                    .findLatestCards(
+                            ContentStatus.PUBLISHED,
+                            pageable
+                    );
+            return withCovers(cards);
+        });
+    }
 
-        return newsRepository
-                .findAllByContentStatusOrderByPublishedAtDesc(
-                        ContentStatus.PUBLISHED,
-                        pageable
-                )
-                .getContent();
+
+    /**
+     * Keyset page of news cards after the given position, with their cover media.
+     * No offset and no count query: a deep page costs the same as the first one.
+     */
+    @Override
+    public List<NewsCardDTO> findCardsAfter(
+            ContentStatus contentStatus,
+            LocalDateTime publishedAt,
+            Long newsId,
+            int limit
+    ) {
+        if (publishedAt == null || newsId == null) {
+            return withCovers(newsRepository.findCardsByContentStatus(contentStatus, Limit.of(limit)));
+        }
+        return withCovers(newsRepository.findCardsByContentStatusAfter(
+                contentStatus,
+                publishedAt,
+                newsId,
+                Limit.of(limit)
+        ));
+    }
+
+
+    @Override
+    public List<NewsCardDTO> findCardsByVisibilityAfter(
+            ContentStatus contentStatus,
+            Visibility visibility,
+            LocalDateTime publishedAt,
+            Long newsId,
+            int limit
+    ) {
+        if (publishedAt == null || newsId == null) {
+            return withCovers(newsRepository.findCardsByContentStatusAndVisibilityAfter(
+                    contentStatus,
+                    visibility,
+                    Limit.of(limit)
+            ));
+        }
+        return withCovers(newsRepository.findCardsByContentStatusAndVisibilityAfter(
+                contentStatus,
+                visibility,
+                publishedAt,
+                newsId,
+                Limit.of(limit)
+        ));
     }
 
 
@@ -94,6 +180,7 @@ public class NewsDAO implements IDAONews {
 
         if(news != null) {
             newsRepository.delete(news);
+            latestCardCache.invalidate(LatestCardCache.Section.NEWS);
            return true;
         }
         return false;
@@ -103,7 +190,9 @@ public class NewsDAO implements IDAONews {
 
     @Override
     public News create(News news) {
-        return newsRepository.save(news);
+        News created = newsRepository.save(news);
+        latestCardCache.invalidate(LatestCardCache.Section.NEWS);
+        return created;
 
     }
 
@@ -114,7 +203,34 @@ public class NewsDAO implements IDAONews {
         if(!newsRepository.existsById(news.getNewsId())) {
             return null;
         }
-        return newsRepository.save(news);
+        News updated = newsRepository.save(news);
+        latestCardCache.invalidate(LatestCardCache.Section.NEWS);
+        return updated;
+
+    }
+
+
+    /**
+     * Attaches their cover media to a list of cards.
+     */
+    private List<NewsCardDTO> withCovers(List<NewsCardDTO> cards) {
+        Map<Long, List<MediaCardDTO>> covers = coversOf(cards);
+        return cards.stream()
+                .map(card -> card.withMediaList(covers.getOrDefault(card.newsId(), List.of())))
+                .toList();
+    }
+
+
+    /**
+     * Loads the cover media of a list of cards in one query, keyed by news identifier.
+     */
+    private Map<Long, List<MediaCardDTO>> coversOf(List<NewsCardDTO> cards) {
+        if (cards.isEmpty()) {
+            return Map.of();
+        }
 
+        List<Long> ids = cards.stream().map(NewsCardDTO::newsId).toList();
+        return newsRepository.findCoverMediaByNewsIdIn(ids).stream()
+                .collect(Collectors.toMap(MediaCardDTO::ownerId, List::of));
     }
 }
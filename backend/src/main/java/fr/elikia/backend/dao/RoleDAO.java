@@ -3,6 +3,10 @@ package fr.elikia.backend.dao;
 import fr.elikia.backend.bo.Role;
 import fr.elikia.backend.dao.idao.IDAORole;
 import fr.elikia.backend.repository.RoleRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.transaction.Transactional;
+import org.hibernate.Session;
 import org.springframework.stereotype.Component;
 
 import java.util.List;
@@ -11,6 +15,9 @@ import java.util.List;
 public class RoleDAO implements IDAORole {
     private final RoleRepository roleRepository;
 
+    @PersistenceContext
+    private EntityManager entityManager;
+
     public RoleDAO(RoleRepository roleRepository) {
         this.roleRepository = roleRepository;
     }
@@ -36,13 +43,21 @@ public class RoleDAO implements IDAORole {
     }
 
     /**
-     * Method to retrieve a role by its name
+     * Method to retrieve a role by its name.
+     * The name is the natural identifier of the role: repeated lookups are
+     * served by the natural-id and entity caches without querying the database.
      *
      * @return role | null
      */
     @Override
+    @Transactional
     public Role findByName(String roleName) {
-        return roleRepository.findByName(roleName).orElse(null);
+        if (roleName == null) {
+            return null;
+        }
+        return entityManager.unwrap(Session.class)
+                .bySimpleNaturalId(Role.class)
+                .load(roleName);
     }
 
     /**
@@ -3,19 +3,32 @@ package fr.elikia.backend.dao;
 import fr.elikia.backend.bo.enums.Visibility;
 import fr.elikia.backend.bo.Workshop;
 import fr.elikia.backend.dao.idao.IDAOWorkshop;
+import fr.elikia.backend.dto.MediaCardDTO;
+import fr.elikia.backend.dto.WorkshopCardDTO;
 import fr.elikia.backend.repository.WorkshopRepository;
+import jakarta.transaction.Transactional;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Component;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Component
 public class WorkshopDAO implements IDAOWorkshop {
     private final WorkshopRepository workshopRepository;
+    private final LatestCardCache latestCardCache;
+    private final EntityCacheEviction entityCacheEviction;
 
-    public WorkshopDAO(WorkshopRepository workshopRepository) {
+    public WorkshopDAO(WorkshopRepository workshopRepository, LatestCardCache latestCardCache,
+                    EntityCacheEviction entityCacheEviction) {
         this.workshopRepository = workshopRepository;
+        this.latestCardCache = latestCardCache;
+        this.entityCacheEviction = entityCacheEviction;
     }
 
     @Override
@@ -36,6 +49,7 @@ public class WorkshopDAO implements IDAOWorkshop {
 
         if(workshop != null) {
             workshopRepository.delete(workshop);
+            latestCardCache.invalidate(LatestCardCache.Section.WORKSHOP);
             return true;
         }
         return false;
@@ -44,7 +58,9 @@ public class WorkshopDAO implements IDAOWorkshop {
 
     @Override
     public Workshop create(Workshop workshop) {
-        return workshopRepository.save(workshop);
+        Workshop created = workshopRepository.save(workshop);
+        latestCardCache.invalidate(LatestCardCache.Section.WORKSHOP);
+        return created;
 
     }
 
@@ -53,33 +69,223 @@ public class WorkshopDAO implements IDAOWorkshop {
         if(!workshopRepository.existsById(workshop.getWorkshopId())) {
             return null;
         }
-        return workshopRepository.save(workshop);
+        Workshop updated = workshopRepository.save(workshop);
+        latestCardCache.invalidate(LatestCardCache.Section.WORKSHOP);
+        return updated;
 
     }
 
+    /**
+     * Take a seat of the workshop if one is left, in a single conditional update.
+     * The row stays locked until the calling transaction ends, so the registration
+     * inserted next is committed together with its seat.
+     *
+     * @param workshopId the unique identifier of the workshop
+     * @return boolean true if a seat was taken, false if the workshop is full
+     */
+    @Override
+    @Transactional
+    public boolean reserveSeat(Long workshopId) {
+        boolean reserved = workshopRepository.reserveSeat(workshopId) == 1;
+        entityCacheEviction.evict(Workshop.class, workshopId);
+        return reserved;
+    }
 
-    // Retrieve workshops by their visibility ordered by the start date desc
+    /**
+     * Give back a seat of the workshop
+     * @param workshopId the unique identifier of the workshop
+     */
     @Override
-    public Page<Workshop> findAllByVisibilityOrderByStartDateDesc(
+    @Transactional
+    public void releaseSeat(Long workshopId) {
+        workshopRepository.releaseSeat(workshopId);
+        entityCacheEviction.evict(Workshop.class, workshopId);
+    }
+
+    /**
+     * Hand out the next waitlist position of the workshop.
+     * The row of the workshop stays locked until the calling transaction ends.
+     *
+     * @param workshopId the unique identifier of the workshop
+     * @return long the position of the new waiter
+     */
+    @Override
+    @Transactional
+    public long joinWaitlist(Long workshopId) {
+        workshopRepository.incrementWaitlistTail(workshopId);
+        entityCacheEviction.evict(Workshop.class, workshopId);
+        return workshopRepository.findWaitlistTail(workshopId);
+    }
+
+    /**
+     * Take up to count seats of the workshop for a batch of registrations.
+     * The seats are added first, which locks the row; the free seats are then
+     * read back under that lock and the seats that did not fit are given back.
+     *
+     * @param workshopId the unique identifier of the workshop
+     * @param count number of seats wanted
+     * @return int the number of seats taken, from 0 to count
+     */
+    @Override
+    @Transactional
+    public int reserveSeats(Long workshopId, int count) {
+        if (count <= 0) {
+            return 0;
+        }
+
+        workshopRepository.addReservedSeats(workshopId, count);
+        entityCacheEviction.evict(Workshop.class, workshopId);
+        int freeBefore = workshopRepository.findFreeSeats(workshopId) + count;
+        int taken = Math.clamp(freeBefore, 0, count);
+
+        if (taken < count) {
+            workshopRepository.addReservedSeats(workshopId, taken - count);
+        }
+        return taken;
+    }
+
+    /**
+     * Hand out count consecutive waitlist positions of the workshop.
+     * The row of the workshop stays locked until the calling transaction ends.
+     *
+     * @param workshopId the unique identifier of the workshop
+     * @param count number of positions wanted
+     * @return long the first position handed out
+     */
+    @Override
+    @Transactional
+    public long joinWaitlist(Long workshopId, int count) {
+        workshopRepository.incrementWaitlistTail(workshopId, count);
+        entityCacheEviction.evict(Workshop.class, workshopId);
+        return workshopRepository.findWaitlistTail(workshopId) - count + 1;
+    }
+
+
+    // Retrieve workshop cards by their visibility ordered by the start date desc, with their cover media
+    @Override
+    public Page<WorkshopCardDTO> findAllByVisibilityOrderByStartDateDesc(
             Visibility visibility,
             Pageable pageable) {
-        return workshopRepository.findAllByVisibilityOrderByStartDateDesc(
+        Page<WorkshopCardDTO> cards = workshopRepository.findCardsByVisibility(
                 visibility,
                 pageable
         );
+        Map<Long, List<MediaCardDTO>> covers = coversOf(cards.getContent());
+        return cards.map(card -> card.withMediaList(covers.getOrDefault(card.workshopId(), List.of())));
     }
 
     // Retrieve all workshop ordered by the start date
     @Override
     public Page<Workshop> findAllByOrderByStartDateDesc(
             Pageable pageable) {
-        return workshopRepository.findAllByOrderByStartDateDesc(pageable);
+        return withMedia(workshopRepository.findAllByOrderByStartDateDesc(pageable));
 
     }
 
-    // Retrieve 4 latest workshops
+    // Retrieve the cards of the 4 latest workshops, with their cover media
     @Override
-    public List<Workshop> findAllByOrderByStartDateDesc() {
-        return workshopRepository.findAllByOrderByStartDateDesc();
+    public List<WorkshopCardDTO> findAllByOrderByStartDateDesc() {
+        return latestCardCache.get(
+                LatestCardCache.Section.WORKSHOP,
+                null,
+                () -> withCovers(workshopRepository.findLatestCards())
+        );
+    }
+
+
+    /**
+     * Retrieve a keyset page of workshop cards after the given position, with their cover media.
+     * No offset and no count query: a deep page costs the same as the first one.
+     */
+    @Override
+    public List<WorkshopCardDTO> findCardsByVisibilityAfter(
+            Visibility visibility,
+            LocalDateTime startDate,
+            Long workshopId,
+            int limit
+    ) {
+        if (startDate == null || workshopId == null) {
+            return withCovers(workshopRepository.findCardsByVisibility(visibility, Limit.of(limit)));
+        }
+        return withCovers(workshopRepository.findCardsByVisibilityAfter(
+                visibility,
+                startDate,
+                workshopId,
+                Limit.of(limit)
+        ));
+    }
+
+
+    /**
+     * Retrieve a keyset page of workshops after the given position, with their media
+     */
+    @Override
+    public List<Workshop> findAllAfter(
+            LocalDateTime startDate,
+            Long workshopId,
+            int limit
+    ) {
+        List<Workshop> workshops = startDate == null || workshopId == null
+                ? workshopRepository.findAllByOrderByStartDateDescWorkshopIdDesc(Limit.of(limit))
+                : workshopRepository.findAllAfter(startDate, workshopId, Limit.of(limit));
+
+        Map<Long, Workshop> loaded = loadWithMedia(workshops);
+        return workshops.stream()
+                .map(workshop -> loaded.getOrDefault(workshop.getWorkshopId(), workshop))
+                .toList();
+    }
+
+
+    // =========================================================
+    // Fetch plan
+    // =========================================================
+
+    /**
+     * Loads the media of a whole page in one extra query,
+     * instead of one lazy query per workshop when the page is mapped.
+     */
+    private Page<Workshop> withMedia(Page<Workshop> page) {
+        Map<Long, Workshop> loaded = loadWithMedia(page.getContent());
+        return page.map(workshop -> loaded.getOrDefault(workshop.getWorkshopId(), workshop));
+    }
+
+
+    /**
+     * Attaches their cover media to a list of cards.
+     */
+    private List<WorkshopCardDTO> withCovers(List<WorkshopCardDTO> cards) {
+        Map<Long, List<MediaCardDTO>> covers = coversOf(cards);
+        return cards.stream()
+                .map(card -> card.withMediaList(covers.getOrDefault(card.workshopId(), List.of())))
+                .toList();
+    }
+
+
+    /**
+     * Loads the cover media of a list of cards in one query, keyed by workshop identifier.
+     */
+    private Map<Long, List<MediaCardDTO>> coversOf(List<WorkshopCardDTO> cards) {
+        if (cards.isEmpty()) {
+            return Map.of();
+        }
+
+        List<Long> ids = cards.stream().map(WorkshopCardDTO::workshopId).toList();
+        return workshopRepository.findCoverMediaByWorkshopIdIn(ids).stream()
+                .collect(Collectors.toMap(MediaCardDTO::ownerId, List::of));
+    }
+
+
+    /**
+     * Second step of the fetch plan: the workshops of the page, with their media, by identifier.
+     * The result is keyed by identifier so the page order is kept.
+     */
+    private Map<Long, Workshop> loadWithMedia(List<Workshop> workshops) {
+        if (workshops.isEmpty()) {
+            return Map.of();
+        }
+
+        List<Long> ids = workshops.stream().map(Workshop::getWorkshopId).toList();
+        return workshopRepository.findWithMediaListByWorkshopIdIn(ids).stream()
+                .collect(Collectors.toMap(Workshop::getWorkshopId, Function.identity(), (first, second) -> first));
     }
 }
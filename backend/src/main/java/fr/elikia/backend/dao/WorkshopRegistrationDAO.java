@@ -3,11 +3,18 @@ package fr.elikia.backend.dao;
 import fr.elikia.backend.bo.Member;
 import fr.elikia.backend.bo.Workshop;
 import fr.elikia.backend.bo.WorkshopRegistration;
+import fr.elikia.backend.bo.enums.RegistrationStatus;
 import fr.elikia.backend.dao.idao.IDAOWorkshopRegistration;
 import fr.elikia.backend.repository.WorkshopRegistrationRepository;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Repository;
 
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 /**
  * DAO responsible for managing workshop registrations.
@@ -18,12 +25,21 @@ import java.util.List;
 @Repository
 public class WorkshopRegistrationDAO implements IDAOWorkshopRegistration {
 
+    private static final String INSERT_REGISTRATION_SQL = """
+        INSERT INTO workshop_registration
+            (first_name, last_name, email, registration_date, status, waitlist_position, workshop_id, member_id)
+        VALUES (?, ?, ?, ?, ?, ?, ?, ?)
+    """;
+
     private final WorkshopRegistrationRepository workshopRegistrationRepository;
+    private final JdbcTemplate jdbcTemplate;
 
     public WorkshopRegistrationDAO(
-            WorkshopRegistrationRepository workshopRegistrationRepository
+            WorkshopRegistrationRepository workshopRegistrationRepository,
+            JdbcTemplate jdbcTemplate
     ) {
         this.workshopRegistrationRepository = workshopRegistrationRepository;
+        this.jdbcTemplate = jdbcTemplate;
     }
 
     /**
@@ -61,6 +77,20 @@ public class WorkshopRegistrationDAO implements IDAOWorkshopRegistration {
                 .orElse(null);
     }
 
+    /**
+     * Retrieve a workshop registration by its identifier,
+     * locked until the end of the transaction.
+     *
+     * @param registrationId registration identifier
+     * @return workshop registration or null if not found
+     */
+    @Override
+    public WorkshopRegistration findByIdForUpdate(Long registrationId) {
+        return workshopRegistrationRepository
+                .findByIdForUpdate(registrationId)
+                .orElse(null);
+    }
+
     /**
      * Retrieve all registrations linked to a workshop.
      *
@@ -105,4 +135,94 @@ public class WorkshopRegistrationDAO implements IDAOWorkshopRegistration {
         return workshopRegistrationRepository
                 .existsByWorkshopAndMember(workshop, member);
     }
-}
\ No newline at end of file
+
+    /**
+     * Retrieve the head of the waitlist of a workshop,
+     * locked until the end of the transaction.
+     *
+     * @param workshop workshop
+     * @return the first waitlisted registration, or null if the waitlist is empty
+     */
+    @Override
+    public WorkshopRegistration findWaitlistHead(Workshop workshop) {
+        return workshopRegistrationRepository
+                .findFirstByWorkshopAndStatusOrderByWaitlistPositionAsc(
+                        workshop,
+                        RegistrationStatus.WAITLISTED
+                );
+    }
+
+    /**
+     * Retrieve the rank of a member in the waitlist of a workshop.
+     *
+     * @param workshopId workshop identifier
+     * @param memberId member identifier
+     * @return the 1-based rank, or 0 if the member is not on the waitlist
+     */
+    @Override
+    public long findWaitlistRank(Long workshopId, Long memberId) {
+        return workshopRegistrationRepository
+                .findWaitlistRank(workshopId, memberId, RegistrationStatus.WAITLISTED);
+    }
+
+    /**
+     * Insert several workshop registrations in one JDBC batch.
+     *
+     * IDENTITY identifiers prevent Hibernate from batching inserts,
+     * so rows are written through the connection of the current transaction.
+     * The inserted registrations are not managed by the persistence context.
+     *
+     * @param workshopRegistrations registrations to insert, their workshop already persisted
+     * @return the number of rows inserted
+     */
+    @Override
+    public int createAll(List<WorkshopRegistration> workshopRegistrations) {
+        if (workshopRegistrations.isEmpty()) {
+            return 0;
+        }
+
+        jdbcTemplate.batchUpdate(INSERT_REGISTRATION_SQL, workshopRegistrations, workshopRegistrations.size(),
+                (statement, registration) -> {
+                    statement.setString(1, registration.getFirstName());
+                    statement.setString(2, registration.getLastName());
+                    statement.setString(3, registration.getEmail());
+                    statement.setTimestamp(4, Timestamp.valueOf(registration.getRegistrationDate()));
+                    statement.setString(5, registration.getStatus().name());
+                    statement.setObject(6, registration.getWaitlistPosition(), Types.BIGINT);
+                    statement.setLong(7, registration.getWorkshop().getWorkshopId());
+                    statement.setObject(8, registration.getMember() != null
+                            ? registration.getMember().getUserId() : null, Types.BIGINT);
+                });
+        return workshopRegistrations.size();
+    }
+
+    /**
+     * Retrieve, among the given emails, those already registered for a workshop.
+     *
+     * @param workshop workshop
+     * @param emails emails to check
+     * @return the emails already registered
+     */
+    @Override
+    public Set<String> findRegisteredEmails(Workshop workshop, Collection<String> emails) {
+        if (emails.isEmpty()) {
+            return Set.of();
+        }
+        return new HashSet<>(workshopRegistrationRepository.findEmailsByWorkshopAndEmailIn(workshop, emails));
+    }
+
+    /**
+     * Retrieve, among the given members, those already registered for a workshop.
+     *
+     * @param workshop workshop
+     * @param memberIds member identifiers to check
+     * @return the identifiers of the members already registered
+     */
+    @Override
+    public Set<Long> findRegisteredMemberIds(Workshop workshop, Collection<Long> memberIds) {
+        if (memberIds.isEmpty()) {
+            return Set.of();
+        }
+        return new HashSet<>(workshopRegistrationRepository.findMemberIdsByWorkshopAndMemberIdIn(workshop, memberIds));
+    }
+}
@@ -2,16 +2,18 @@ package fr.elikia.backend.dao.idao;
 
 import fr.elikia.backend.bo.Event;
 import fr.elikia.backend.bo.enums.Visibility;
+import fr.elikia.backend.dto.EventCardDTO;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 public interface IDAOEvent {
     List<Event> findAll();
 
     // Retrieve events by their visibility ordered by the start date desc
-    Page<Event> findAllByVisibilityOrderByStartDateDesc(
+    Page<EventCardDTO> findAllByVisibilityOrderByStartDateDesc(
             Visibility visibility,
             Pageable pageable
     );
@@ -22,8 +24,23 @@ public interface IDAOEvent {
             Pageable pageable
     );
 
+    // Retrieve a keyset page of event cards by visibility, after the given position (first page if null)
+    List<EventCardDTO> findCardsByVisibilityAfter(
+            Visibility visibility,
+            LocalDateTime startDate,
+            Long eventId,
+            int limit
+    );
+
+    // Retrieve a keyset page of events, after the given position (first page if null)
+    List<Event> findAllAfter(
+            LocalDateTime startDate,
+            Long eventId,
+            int limit
+    );
+
     // Retrieve 4 latest events
-    List<Event> findAllByOrderByStartDateDesc();
+    List<EventCardDTO> findAllByOrderByStartDateDesc();
 
     Event findById(Long eventId);
 
@@ -32,4 +49,19 @@ public interface IDAOEvent {
     Event create(Event event);
 
     Event update(Event event);
+
+    // Take a seat of the event atomically, false if it is full
+    boolean reserveSeat(Long eventId);
+
+    // Give back a seat taken by reserveSeat
+    void releaseSeat(Long eventId);
+
+    // Hand out the next waitlist position of the event, locking its row until commit
+    long joinWaitlist(Long eventId);
+
+    // Take up to count seats of the event at once, returns the number of seats taken
+    int reserveSeats(Long eventId, int count);
+
+    // Hand out count consecutive waitlist positions of the event, returns the first one
+    long joinWaitlist(Long eventId, int count);
 }
@@ -4,7 +4,9 @@ import fr.elikia.backend.bo.Event;
 import fr.elikia.backend.bo.EventRegistration;
 import fr.elikia.backend.bo.Member;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Set;
 
 /**
  * Interface définissant les opérations d'accès aux données
@@ -17,6 +19,9 @@ public interface IDAOEventRegistration {
 
     EventRegistration findById(Long registrationId);
 
+    // Retrieve a registration locked until the end of the transaction, null if not found
+    EventRegistration findByIdForUpdate(Long registrationId);
+
     List<EventRegistration> findByEvent(Event event);
 
     EventRegistration update(EventRegistration eventRegistration);
@@ -25,5 +30,18 @@ public interface IDAOEventRegistration {
 
     boolean existsByEventAndMember(Event event, Member member);
 
+    // Retrieve the head of the waitlist of an event, null if the waitlist is empty
+    EventRegistration findWaitlistHead(Event event);
+
+    // Retrieve the 1-based rank of a member in the waitlist of an event, 0 if not waitlisted
+    long findWaitlistRank(Long eventId, Long memberId);
+
+    // Insert several registrations in one JDBC batch, returns the number of rows inserted
+    int createAll(List<EventRegistration> eventRegistrations);
+
+    // Retrieve, among the given emails, those already registered for an event
+    Set<String> findRegisteredEmails(Event event, Collection<String> emails);
 
+    // Retrieve, among the given members, those already registered for an event
+    Set<Long> findRegisteredMemberIds(Event event, Collection<Long> memberIds);
 }
@@ -0,0 +1,11 @@
+package fr.elikia.backend.dao.idao;
+
+import java.time.LocalDateTime;
+
+public interface IDAOLeaseLock {
+    // Take the lease if it is free or expired, false if another node holds it
+    boolean tryAcquire(String name, String owner, LocalDateTime now, LocalDateTime lockedUntil);
+
+    // Shorten a lease held by the owner so that it ends at the given date
+    boolean release(String name, String owner, LocalDateTime lockedUntil);
+}
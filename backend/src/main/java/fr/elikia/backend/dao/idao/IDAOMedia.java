@@ -3,6 +3,7 @@ package fr.elikia.backend.dao.idao;
 import fr.elikia.backend.bo.*;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface IDAOMedia {
     List<Media> findAll();
@@ -17,9 +18,24 @@ public interface IDAOMedia {
 
     List<Media> findByAchievement(Achievement achievement);
 
+    // Number of media referencing a stored image file
+    long countByImagePath(String imagePath);
+
+    // Stream every stored file path (image and variants) without loading entities
+    void forEachStoredPath(Consumer<String> consumer);
+
+    // Image media whose derivatives were never generated, by increasing id after the given one
+    List<Media> findWithoutDerivatives(long afterMediaId, int limit);
+
+    // Record generated derivatives, unless the image was replaced meanwhile
+    boolean updateDerivatives(Long mediaId, String imagePath, String thumbnailPath, String displayPath);
+
     boolean deleteById(Long mediaId);
 
     Media create(Media media);
 
+    // Insert several media in a single JDBC batch
+    List<Media> createAll(List<Media> medias);
+
     Media update(Media media);
 }
@@ -1,14 +1,40 @@
 package fr.elikia.backend.dao.idao;
 
 import fr.elikia.backend.bo.Member;
+import fr.elikia.backend.bo.enums.RegistrationStatus;
+import fr.elikia.backend.dto.MemberAdminDTO;
 
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 
 public interface IDAOMember {
     List<Member> findAll();
 
+    List<MemberAdminDTO> findAdminViews();
+
+    List<MemberAdminDTO> findAdminViewsByStatus(RegistrationStatus status);
+
+    List<MemberAdminDTO> findAdminViewsByCreatedAt(
+            RegistrationStatus status,
+            String search,
+            LocalDate createdAt,
+            Long userId,
+            int limit
+    );
+
+    List<MemberAdminDTO> findAdminViewsByName(
+            RegistrationStatus status,
+            String search,
+            String lastName,
+            Long userId,
+            int limit
+    );
+
     Member findById(Long memberId);
 
+    List<Member> findAllById(Collection<Long> memberIds);
+
     boolean existsById(Long memberId);
 
     Member findByEmail(String memberEmail);
@@ -3,6 +3,7 @@ package fr.elikia.backend.dao.idao;
 import fr.elikia.backend.bo.enums.ContentStatus;
 import fr.elikia.backend.bo.News;
 import fr.elikia.backend.bo.enums.Visibility;
+import fr.elikia.backend.dto.NewsCardDTO;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
@@ -14,20 +15,39 @@ public interface IDAONews {
 
     List<News> findAllDesc();
 
-    List<News> findAllScheduledToPublish(LocalDateTime now);
+    List<Long> publishScheduled(LocalDateTime now);
+
+    List<LocalDateTime> findUpcomingPublicationDates(LocalDateTime now);
 
     List<News> findAllPublishedNews(ContentStatus contentStatus);
 
-    List<News> findLastPublishedNews(int limit);
+    List<NewsCardDTO> findLastPublishedNews(int limit);
 
-    Page<News> findPublishedNewsPage(ContentStatus contentStatus, Pageable pageable);
+    Page<NewsCardDTO> findPublishedNewsPage(ContentStatus contentStatus, Pageable pageable);
 
-    Page<News> findAllByContentStatusAndVisibilityAfterOrderByPublishedAtDesc(
+    Page<NewsCardDTO> findAllByContentStatusAndVisibilityAfterOrderByPublishedAtDesc(
             ContentStatus contentStatus,
             Visibility visibility,
             Pageable pageable
     );
 
+    // Keyset page of news cards after the given position (first page if null)
+    List<NewsCardDTO> findCardsAfter(
+            ContentStatus contentStatus,
+            LocalDateTime publishedAt,
+            Long newsId,
+            int limit
+    );
+
+    // Keyset page of news cards with a visibility after the given one
+    List<NewsCardDTO> findCardsByVisibilityAfter(
+            ContentStatus contentStatus,
+            Visibility visibility,
+            LocalDateTime publishedAt,
+            Long newsId,
+            int limit
+    );
+
     News findById(Long newsId);
 
     boolean deleteById(Long newsId);
@@ -2,9 +2,11 @@ package fr.elikia.backend.dao.idao;
 
 import fr.elikia.backend.bo.enums.Visibility;
 import fr.elikia.backend.bo.Workshop;
+import fr.elikia.backend.dto.WorkshopCardDTO;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 public interface IDAOWorkshop {
@@ -19,7 +21,7 @@ public interface IDAOWorkshop {
     Workshop update(Workshop workshop);
 
     // Retrieve workshops by their visibility ordered by the start date desc
-    Page<Workshop> findAllByVisibilityOrderByStartDateDesc(
+    Page<WorkshopCardDTO> findAllByVisibilityOrderByStartDateDesc(
             Visibility visibility,
             Pageable pageable
     );
@@ -29,7 +31,37 @@ public interface IDAOWorkshop {
             Pageable pageable
     );
 
+    // Retrieve a keyset page of workshop cards by visibility, after the given position (first page if null)
+    List<WorkshopCardDTO> findCardsByVisibilityAfter(
+            Visibility visibility,
+            LocalDateTime startDate,
+            Long workshopId,
+            int limit
+    );
+
+    // Retrieve a keyset page of workshops, after the given position (first page if null)
+    List<Workshop> findAllAfter(
+            LocalDateTime startDate,
+            Long workshopId,
+            int limit
+    );
+
     // Retrieve 4 latest workshops
-    List<Workshop> findAllByOrderByStartDateDesc();
+    List<WorkshopCardDTO> findAllByOrderByStartDateDesc();
+
+    // Take a seat of the workshop atomically, false if it is full
+    boolean reserveSeat(Long workshopId);
+
+    // Give back a seat taken by reserveSeat
+    void releaseSeat(Long workshopId);
+
+    // Hand out the next waitlist position of the workshop, locking its row until commit
+    long joinWaitlist(Long workshopId);
+
+    // Take up to count seats of the workshop at once, returns the number of seats taken
+    int reserveSeats(Long workshopId, int count);
+
+    // Hand out count consecutive waitlist positions of the workshop, returns the first one
+    long joinWaitlist(Long workshopId, int count);
 
 }
@@ -4,7 +4,9 @@ import fr.elikia.backend.bo.Member;
 import fr.elikia.backend.bo.Workshop;
 import fr.elikia.backend.bo.WorkshopRegistration;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Set;
 
 /**
  * DAO interface responsible for managing workshop registrations.
@@ -38,6 +40,15 @@ public interface IDAOWorkshopRegistration {
      */
     WorkshopRegistration findById(Long registrationId);
 
+    /**
+     * Retrieve a workshop registration by its identifier,
+     * locked until the end of the transaction.
+     *
+     * @param registrationId registration identifier
+     * @return workshop registration or null if not found
+     */
+    WorkshopRegistration findByIdForUpdate(Long registrationId);
+
     /**
      * Retrieve all registrations linked to a workshop.
      *
@@ -71,4 +82,47 @@ public interface IDAOWorkshopRegistration {
             Workshop workshop,
             Member member
     );
-}
\ No newline at end of file
+
+    /**
+     * Retrieve the head of the waitlist of a workshop.
+     *
+     * @param workshop workshop
+     * @return the first waitlisted registration, or null if the waitlist is empty
+     */
+    WorkshopRegistration findWaitlistHead(Workshop workshop);
+
+    /**
+     * Retrieve the rank of a member in the waitlist of a workshop.
+     *
+     * @param workshopId workshop identifier
+     * @param memberId member identifier
+     * @return the 1-based rank, or 0 if the member is not on the waitlist
+     */
+    long findWaitlistRank(Long workshopId, Long memberId);
+
+    /**
+     * Insert several workshop registrations in one JDBC batch.
+     *
+     * @param workshopRegistrations registrations to insert
+     * @return the number of rows inserted
+     */
+    int createAll(List<WorkshopRegistration> workshopRegistrations);
+
+    /**
+     * Retrieve, among the given emails, those already registered for a workshop.
+     *
+     * @param workshop workshop
+     * @param emails emails to check
+     * @return the emails already registered
+     */
+    Set<String> findRegisteredEmails(Workshop workshop, Collection<String> emails);
+
+    /**
+     * Retrieve, among the given members, those already registered for a workshop.
+     *
+     * @param workshop workshop
+     * @param memberIds member identifiers to check
+     * @return the identifiers of the members already registered
+     */
+    Set<Long> findRegisteredMemberIds(Workshop workshop, Collection<Long> memberIds);
+}
@@ -3,6 +3,7 @@ package fr.elikia.backend.dto;
 import fr.elikia.backend.bo.enums.Visibility;
 
 import java.time.LocalDateTime;
+import java.util.List;
 
 public interface ActivityDTO {
     String getTitle();
@@ -13,4 +14,5 @@ public interface ActivityDTO {
     String getAddress();
     int getCapacity();
     Visibility getVisibility();
+    List<String> getUploadIds();
 }
@@ -0,0 +1,17 @@
+package fr.elikia.backend.dto;
+
+/**
+ * DTO utilisé pour exposer les statistiques d'une région du cache de second niveau.
+ *
+ * @param region nom de la région (entité ou identifiant naturel)
+ * @param hitCount lectures servies par le cache
+ * @param missCount lectures ayant dû interroger la base
+ * @param putCount éléments ajoutés au cache
+ * @param hitRatio part des lectures servies par le cache (0 à 1)
+ */
+public record CacheRegionStatisticsDTO(String region,
+                                       long hitCount,
+                                       long missCount,
+                                       long putCount,
+                                       double hitRatio) {
+}
@@ -0,0 +1,43 @@
+package fr.elikia.backend.dto;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * DTO utilisé pour retourner une page d'une liste parcourue par curseur
+ * (défilement infini). Aucun total n'est calculé : le client demande la page
+ * suivante avec nextCursor tant que hasNext est vrai.
+ *
+ * @param content éléments de la page
+ * @param nextCursor curseur opaque de la page suivante, null s'il n'y en a pas
+ * @param hasNext vrai si d'autres éléments suivent
+ */
+public record CursorPageDTO<T>(List<T> content,
+                               String nextCursor,
+                               boolean hasNext) {
+
+    /**
+     * Builds a page from rows fetched with one extra row (size + 1):
+     * the extra row only tells whether a next page exists and is not returned.
+     *
+     * @param fetched rows read with a limit of size + 1
+     * @param size requested page size
+     * @param cursorOf encodes the cursor of a row
+     */
+    public static <T> CursorPageDTO<T> of(List<T> fetched, int size, Function<T, String> cursorOf) {
+        if (fetched.size() <= size) {
+            return new CursorPageDTO<>(fetched, null, false);
+        }
+
+        List<T> content = fetched.subList(0, size);
+        return new CursorPageDTO<>(List.copyOf(content), cursorOf.apply(content.getLast()), true);
+    }
+
+
+    /**
+     * Converts the content of the page, keeping its cursor.
+     */
+    public <R> CursorPageDTO<R> map(Function<T, R> mapper) {
+        return new CursorPageDTO<>(content.stream().map(mapper).toList(), nextCursor, hasNext);
+    }
+}
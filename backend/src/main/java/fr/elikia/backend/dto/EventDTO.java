@@ -5,6 +5,7 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import jakarta.validation.constraints.*;
 
 import java.time.LocalDateTime;
+import java.util.List;
 
 /**
  * DTO used for event registration.
@@ -89,6 +90,12 @@ public class EventDTO implements ActivityDTO {
     @NotNull(message = "The visibility is required")
     private Visibility visibility;
 
+    // Completed chunked uploads to attach
+    @Schema(
+            description = "identifiants des téléversements par morceaux terminés à joindre à l'évènement"
+    )
+    private List<String> uploadIds;
+
 
     // Constructor
     public EventDTO() {}
@@ -171,4 +178,12 @@ public class EventDTO implements ActivityDTO {
     public void setVisibility(Visibility visibility) {
         this.visibility = visibility;
     }
+
+    public List<String> getUploadIds() {
+        return uploadIds;
+    }
+
+    public void setUploadIds(List<String> uploadIds) {
+        this.uploadIds = uploadIds;
+    }
 }
@@ -0,0 +1,25 @@
+package fr.elikia.backend.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import fr.elikia.backend.bll.storage.SignedMediaPathSerializer;
+
+/**
+ * Projection en lecture seule du média de couverture d'une carte de liste
+ * (actualité, évènement ou atelier). Construite directement par la requête JPQL,
+ * sans entité gérée par le contexte de persistance.
+ *
+ * @param ownerId identifiant de l'entité propriétaire, utilisé pour l'assemblage (non sérialisé)
+ * @param mediaId identifiant du média
+ * @param caption légende
+ * @param imagePath chemin de l'image (signé si réservée aux membres)
+ * @param videoUrl URL de la vidéo
+ * @param thumbnailPath chemin de la miniature (signé si réservée aux membres)
+ */
+public record MediaCardDTO(@JsonIgnore Long ownerId,
+                           Long mediaId,
+                           String caption,
+                           @JsonSerialize(using = SignedMediaPathSerializer.class) String imagePath,
+                           String videoUrl,
+                           @JsonSerialize(using = SignedMediaPathSerializer.class) String thumbnailPath) {
+}
@@ -17,6 +17,22 @@ public class MemberAdminDTO {
     private String image;
     private String roleName;
 
+    // Constructor used by the JPQL projection: no Member nor Role entity is loaded
+    public MemberAdminDTO(Long userId, String firstName, String lastName, String email, LocalDate createdAt,
+                          String membershipNumber, LocalDate membershipDate, RegistrationStatus status,
+                          String image, String roleName) {
+        this.userId = userId;
+        this.firstName = firstName;
+        this.lastName = lastName;
+        this.email = email;
+        this.createdAt = createdAt;
+        this.membershipNumber = membershipNumber;
+        this.membershipDate = membershipDate;
+        this.status = status;
+        this.image = image;
+        this.roleName = roleName;
+    }
+
     public MemberAdminDTO(Member member) {
         this.userId = member.getUserId();
         this.firstName = member.getFirstName();
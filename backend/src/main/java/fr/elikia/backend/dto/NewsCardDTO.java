@@ -0,0 +1,37 @@
+package fr.elikia.backend.dto;
+
+import fr.elikia.backend.bo.enums.ContentStatus;
+import fr.elikia.backend.bo.enums.Visibility;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Projection en lecture seule d'une actualité pour les listes publiques (cartes).
+ * Le contenu est tronqué à EXCERPT_LENGTH caractères par la requête et seul
+ * le média de couverture est chargé.
+ *
+ * @param content extrait du contenu
+ * @param mediaList média de couverture (vide ou un seul élément)
+ */
+public record NewsCardDTO(Long newsId,
+                          String title,
+                          String content,
+                          LocalDateTime publishedAt,
+                          Visibility visibility,
+                          ContentStatus contentStatus,
+                          List<MediaCardDTO> mediaList) {
+
+    /** CONSTANTS*/
+    public static final int EXCERPT_LENGTH = 300;
+
+    // Constructor used by the JPQL projection, media are attached afterwards
+    public NewsCardDTO(Long newsId, String title, String content, LocalDateTime publishedAt,
+                       Visibility visibility, ContentStatus contentStatus) {
+        this(newsId, title, content, publishedAt, visibility, contentStatus, List.of());
+    }
+
+    public NewsCardDTO withMediaList(List<MediaCardDTO> mediaList) {
+        return new NewsCardDTO(newsId, title, content, publishedAt, visibility, contentStatus, mediaList);
+    }
+}
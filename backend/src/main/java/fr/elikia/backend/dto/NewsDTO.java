@@ -8,6 +8,7 @@ import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Size;
 
 import java.time.LocalDateTime;
+import java.util.List;
 
 /**
  * DTO used for news registration.
@@ -59,6 +60,12 @@ public class NewsDTO {
     @NotNull(message = "The content status is required")
     private ContentStatus contentStatus;
 
+    // Completed chunked uploads to attach
+    @Schema(
+            description = "identifiants des téléversements par morceaux terminés à joindre à l'actualité"
+    )
+    private List<String> uploadIds;
+
     // Constructors
     public NewsDTO() {}
 
@@ -112,4 +119,12 @@ public class NewsDTO {
     public void setContentStatus(ContentStatus contentStatus) {
         this.contentStatus = contentStatus;
     }
+
+    public List<String> getUploadIds() {
+        return uploadIds;
+    }
+
+    public void setUploadIds(List<String> uploadIds) {
+        this.uploadIds = uploadIds;
+    }
 }
@@ -0,0 +1,15 @@
+package fr.elikia.backend.dto;
+
+/**
+ * DTO utilisé pour indiquer à un client sa place dans la file d'attente
+ * d'une ouverture d'inscriptions. Le client renvoie sa requête avec le jeton
+ * dans l'en-tête X-Queue-Token après retryAfterSeconds.
+ *
+ * @param queueToken jeton opaque conservant la place dans la file
+ * @param position nombre de requêtes admises avant celle-ci
+ * @param retryAfterSeconds délai avant de renvoyer la requête
+ */
+public record QueueTicketDTO(String queueToken,
+                             long position,
+                             long retryAfterSeconds) {
+}
@@ -0,0 +1,68 @@
+package fr.elikia.backend.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Positive;
+
+/**
+ * DTO utilisé pour démarrer un téléversement de fichier par morceaux.
+ * Le client annonce la taille totale et l'empreinte SHA-256 attendue,
+ * vérifiée une fois tous les morceaux reçus.
+ */
+public class UploadInitDTO {
+
+    @Schema(
+            description = "nom d'origine du fichier",
+            example = "photo-concert.jpg"
+    )
+    @NotBlank(message = "The file name is required")
+    private String fileName;
+
+    @Schema(
+            description = "taille totale du fichier en octets",
+            example = "24117248"
+    )
+    @Positive(message = "The file size must be positive")
+    private long size;
+
+    @Schema(
+            description = "empreinte SHA-256 du fichier complet, en hexadécimal"
+    )
+    @NotBlank(message = "The checksum is required")
+    @Pattern(regexp = "[0-9a-fA-F]{64}", message = "The checksum must be a SHA-256 hex digest")
+    private String sha256;
+
+    public UploadInitDTO() {
+    }
+
+    public UploadInitDTO(String fileName, long size, String sha256) {
+        this.fileName = fileName;
+        this.size = size;
+        this.sha256 = sha256;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public void setFileName(String fileName) {
+        this.fileName = fileName;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public void setSize(long size) {
+        this.size = size;
+    }
+
+    public String getSha256() {
+        return sha256;
+    }
+
+    public void setSha256(String sha256) {
+        this.sha256 = sha256;
+    }
+}
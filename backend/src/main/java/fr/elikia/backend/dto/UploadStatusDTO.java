@@ -0,0 +1,21 @@
+package fr.elikia.backend.dto;
+
+import java.util.List;
+
+/**
+ * DTO utilisé pour retourner l'état d'un téléversement par morceaux.
+ * Permet au client de reprendre un envoi interrompu en ne renvoyant
+ * que les morceaux manquants.
+ *
+ * @param uploadId identifiant du téléversement, à joindre à l'entité une fois terminé
+ * @param chunkSize taille des morceaux en octets (le dernier peut être plus court)
+ * @param chunkCount nombre total de morceaux
+ * @param missingChunks index des morceaux non encore reçus
+ * @param completed vrai si le fichier est complet et son empreinte vérifiée
+ */
+public record UploadStatusDTO(String uploadId,
+                              long chunkSize,
+                              int chunkCount,
+                              List<Integer> missingChunks,
+                              boolean completed) {
+}
@@ -0,0 +1,41 @@
+package fr.elikia.backend.dto;
+
+import fr.elikia.backend.bo.enums.Visibility;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Projection en lecture seule d'un atelier pour les listes publiques (cartes).
+ * La description est tronquée à EXCERPT_LENGTH caractères par la requête et seul
+ * le média de couverture est chargé.
+ *
+ * @param description extrait de la description
+ * @param mediaList média de couverture (vide ou un seul élément)
+ */
+public record WorkshopCardDTO(Long workshopId,
+                              String title,
+                              String description,
+                              LocalDateTime startDate,
+                              LocalDateTime endDate,
+                              String location,
+                              String address,
+                              int capacity,
+                              Visibility visibility,
+                              List<MediaCardDTO> mediaList) {
+
+    /** CONSTANTS*/
+    public static final int EXCERPT_LENGTH = 300;
+
+    // Constructor used by the JPQL projection, media are attached afterwards
+    public WorkshopCardDTO(Long workshopId, String title, String description, LocalDateTime startDate,
+                           LocalDateTime endDate, String location, String address, int capacity,
+                           Visibility visibility) {
+        this(workshopId, title, description, startDate, endDate, location, address, capacity, visibility, List.of());
+    }
+
+    public WorkshopCardDTO withMediaList(List<MediaCardDTO> mediaList) {
+        return new WorkshopCardDTO(workshopId, title, description, startDate, endDate, location, address, capacity,
+                visibility, mediaList);
+    }
+}
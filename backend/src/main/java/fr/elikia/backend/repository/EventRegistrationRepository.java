@@ -3,9 +3,16 @@ package fr.elikia.backend.repository;
 import fr.elikia.backend.bo.Event;
 import fr.elikia.backend.bo.EventRegistration;
 import fr.elikia.backend.bo.Member;
+import fr.elikia.backend.bo.enums.RegistrationStatus;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 /**
  * Repository responsable de l'accès aux données des inscriptions aux événements.
@@ -18,4 +25,73 @@ public interface EventRegistrationRepository extends JpaRepository<EventRegistra
     boolean existsByEventAndMember(Event event, Member member);
 
     List<EventRegistration> findByEvent(Event event);
+
+    /**
+     * Retrieve a registration and lock its row until the end of the transaction
+     * (status changes that give back or take a seat are made one at a time)
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM EventRegistration r WHERE r.registrationId = :registrationId")
+    Optional<EventRegistration> findByIdForUpdate(@Param("registrationId") Long registrationId);
+
+
+    /**
+     * Retrieve, among the given emails, those already registered for an event
+     * (set-wise duplicate check of the batched registrations)
+     */
+    @Query("SELECT r.email FROM EventRegistration r WHERE r.event = :event AND r.email IN :emails")
+    List<String> findEmailsByEventAndEmailIn(
+            @Param("event") Event event,
+            @Param("emails") Collection<String> emails
+    );
+
+    /**
+     * Retrieve, among the given members, those already registered for an event
+     */
+    @Query("SELECT r.member.userId FROM EventRegistration r WHERE r.event = :event AND r.member.userId IN :memberIds")
+    List<Long> findMemberIdsByEventAndMemberIdIn(
+            @Param("event") Event event,
+            @Param("memberIds") Collection<Long> memberIds
+    );
+
+
+    /**
+     * Retrieve the first registration of an event in the given status, by waitlist position
+     * (index seek on (event_id, status, waitlist_position): the head of the waitlist).
+     * A locking read (FOR UPDATE): a concurrent release waits for the promotion of the head
+     * and then reads the row as committed, not the snapshot of its transaction
+     *
+     * @param event event
+     * @param status WAITLISTED
+     * @return the head of the waitlist, or null if it is empty
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    EventRegistration findFirstByEventAndStatusOrderByWaitlistPositionAsc(
+            Event event,
+            RegistrationStatus status
+    );
+
+    /**
+     * Compute the rank of a member in the waitlist of an event, in a single query:
+     * the waiters whose position is not after the member's one
+     *
+     * @param eventId event identifier
+     * @param memberId member identifier
+     * @param status WAITLISTED
+     * @return the 1-based rank, or 0 if the member is not on the waitlist
+     */
+    @Query("""
+        SELECT COUNT(w) FROM EventRegistration r, EventRegistration w
+            WHERE r.event.eventId = :eventId
+              AND r.member.userId = :memberId
+              AND r.status = :status
+              AND w.event.eventId = :eventId
+              AND w.status = :status
+              AND w.waitlistPosition <= r.waitlistPosition
+    """)
+    long findWaitlistRank(
+            @Param("eventId") Long eventId,
+            @Param("memberId") Long memberId,
+            @Param("status") RegistrationStatus status
+    );
 }
@@ -2,24 +2,79 @@ package fr.elikia.backend.repository;
 
 import fr.elikia.backend.bo.Event;
 import fr.elikia.backend.bo.enums.Visibility;
+import fr.elikia.backend.dto.EventCardDTO;
+import fr.elikia.backend.dto.MediaCardDTO;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 public interface EventRepository extends JpaRepository<Event, Long> {
 
+    // Projection of the list-card columns, the description is cut to an excerpt
+    String CARD_SELECT = "SELECT new fr.elikia.backend.dto.EventCardDTO("
+            + "e.eventId, e.title, SUBSTRING(e.description, 1, " + EventCardDTO.EXCERPT_LENGTH + "), "
+            + "e.startDate, e.endDate, e.location, e.address, e.capacity, e.visibility) "
+            + "FROM Event e ";
+
+
     /**
-     * Retrieve the event by its visibility ordered by the start date desc
+     * Retrieve the event cards by visibility ordered by the start date desc
+     * (read-only projection: list columns and description excerpt only)
      */
-    Page<Event> findAllByVisibilityOrderByStartDateDesc(
-            Visibility visibility,
+    @Query(value = CARD_SELECT + """
+            WHERE e.visibility = :visibility
+            ORDER BY e.startDate DESC
+    """,
+            countQuery = "SELECT COUNT(e) FROM Event e WHERE e.visibility = :visibility")
+    Page<EventCardDTO> findCardsByVisibility(
+            @Param("visibility") Visibility visibility,
             Pageable pageable
     );
 
 
+    /**
+     * Retrieve the first event cards of a keyset page by visibility,
+     * ordered by (start date, identifier) desc
+     */
+    @Query(CARD_SELECT + """
+            WHERE e.visibility = :visibility
+            ORDER BY e.startDate DESC, e.eventId DESC
+    """)
+    List<EventCardDTO> findCardsByVisibility(
+            @Param("visibility") Visibility visibility,
+            Limit limit
+    );
+
+
+    /**
+     * Retrieve the event cards following a keyset position (seek, no offset)
+     */
+    @Query(CARD_SELECT + """
+            WHERE e.visibility = :visibility
+              AND (e.startDate < :startDate
+                OR (e.startDate = :startDate AND e.eventId < :eventId))
+            ORDER BY e.startDate DESC, e.eventId DESC
+    """)
+    List<EventCardDTO> findCardsByVisibilityAfter(
+            @Param("visibility") Visibility visibility,
+            @Param("startDate") LocalDateTime startDate,
+            @Param("eventId") Long eventId,
+            Limit limit
+    );
+
+
     /**
      * Retrieve all events ordered by the start date
      */
@@ -29,13 +84,146 @@ public interface EventRepository extends JpaRepository<Event, Long> {
 
 
     /**
-     * Retrieve 4 latest events
+     * Retrieve the first events of a keyset page, ordered by (start date, identifier) desc
+     */
+    List<Event> findAllByOrderByStartDateDescEventIdDesc(Limit limit);
+
+
+    /**
+     * Retrieve the events following a keyset position (seek, no offset)
      */
     @Query("""
         SELECT e FROM Event e
+            WHERE e.startDate < :startDate
+               OR (e.startDate = :startDate AND e.eventId < :eventId)
+            ORDER BY e.startDate DESC, e.eventId DESC
+    """)
+    List<Event> findAllAfter(
+            @Param("startDate") LocalDateTime startDate,
+            @Param("eventId") Long eventId,
+            Limit limit
+    );
+
+
+    /**
+     * Retrieve the cards of the 4 latest events (read-only projection)
+     */
+    @Query(CARD_SELECT + """
             WHERE e.startDate IS NOT NULL
             ORDER BY e.startDate DESC
                 LIMIT 4
     """)
-    List<Event> findAllByOrderByStartDateDesc();
+    List<EventCardDTO> findLatestCards();
+
+
+    /**
+     * Retrieve events by identifier together with their media, in a single query
+     * (second step of the list fetch plan, the first one selects the page)
+     */
+    @EntityGraph(attributePaths = "mediaList")
+    List<Event> findWithMediaListByEventIdIn(Collection<Long> eventIds);
+
+
+    /**
+     * Retrieve the cover media (first media) of each given event (read-only projection)
+     */
+    @Query("""
+        SELECT new fr.elikia.backend.dto.MediaCardDTO(
+                m.event.eventId, m.mediaId, m.caption, m.imagePath, m.videoUrl, m.thumbnailPath)
+            FROM Media m
+            WHERE m.event.eventId IN :eventIds
+              AND m.mediaId = (SELECT MIN(c.mediaId) FROM Media c WHERE c.event = m.event)
+    """)
+    List<MediaCardDTO> findCoverMediaByEventIdIn(@Param("eventIds") Collection<Long> eventIds);
+
+
+    // Query space of the seat and waitlist counter updates. They are native statements
+    // synchronized on this space only, so Hibernate does not drop the whole cached region
+    // of the events on each registration: the DAO evicts the updated event alone
+    String COUNTERS_SPACE = "event_counters";
+
+
+    /**
+     * Take a seat of the event if one is left.
+     * The capacity check and the increment are a single conditional statement:
+     * concurrent registrations only queue on the row of this event, never overbook it
+     *
+     * @return 1 if a seat was taken, 0 if the event is full (or does not exist)
+     */
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = COUNTERS_SPACE))
+    @Query(value = """
+        UPDATE event SET reserved_seats = reserved_seats + 1
+            WHERE event_id = :eventId
+              AND reserved_seats < capacity
+    """, nativeQuery = true)
+    int reserveSeat(@Param("eventId") Long eventId);
+
+
+    /**
+     * Give back a seat of the event
+     *
+     * @return 1 if a seat was released, 0 if none was held
+     */
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = COUNTERS_SPACE))
+    @Query(value = """
+        UPDATE event SET reserved_seats = reserved_seats - 1
+            WHERE event_id = :eventId
+              AND reserved_seats > 0
+    """, nativeQuery = true)
+    int releaseSeat(@Param("eventId") Long eventId);
+
+
+    /**
+     * Hand out the next waitlist position of the event.
+     * The increment locks the row of the event until the end of the transaction,
+     * like the seat updates, so joining the waitlist and promoting from it never interleave
+     */
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = COUNTERS_SPACE))
+    @Query(value = """
+        UPDATE event SET waitlist_tail = waitlist_tail + 1
+            WHERE event_id = :eventId
+    """, nativeQuery = true)
+    int incrementWaitlistTail(@Param("eventId") Long eventId);
+
+
+    /**
+     * Hand out several waitlist positions of the event at once (batched registrations)
+     */
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = COUNTERS_SPACE))
+    @Query(value = """
+        UPDATE event SET waitlist_tail = waitlist_tail + :count
+            WHERE event_id = :eventId
+    """, nativeQuery = true)
+    int incrementWaitlistTail(@Param("eventId") Long eventId, @Param("count") int count);
+
+
+    /**
+     * Add (or remove, with a negative count) reserved seats of the event, without capacity check.
+     * Used by the batched registrations, which read the free seats back under the same row lock
+     */
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = COUNTERS_SPACE))
+    @Query(value = """
+        UPDATE event SET reserved_seats = reserved_seats + :count
+            WHERE event_id = :eventId
+    """, nativeQuery = true)
+    int addReservedSeats(@Param("eventId") Long eventId, @Param("count") int count);
+
+
+    /**
+     * Retrieve the number of seats of the event still free (negative when overbooked)
+     */
+    @Query("SELECT e.capacity - e.reservedSeats FROM Event e WHERE e.eventId = :eventId")
+    int findFreeSeats(@Param("eventId") Long eventId);
+
+
+    /**
+     * Retrieve the last waitlist position handed out by the event
+     */
+    @Query("SELECT e.waitlistTail FROM Event e WHERE e.eventId = :eventId")
+    long findWaitlistTail(@Param("eventId") Long eventId);
 }
@@ -1,7 +1,11 @@
 package fr.elikia.backend.repository;
 
 import fr.elikia.backend.bo.*;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.util.List;
 
@@ -17,4 +21,23 @@ public interface MediaRepository extends JpaRepository<Media, Long> {
 
     // Returns all media linked to a specific achievement
     List<Media> findAllByAchievement(Achievement achievement);
+
+    // Returns the number of media referencing a stored image file
+    long countByImagePath(String imagePath);
+
+    // Returns image media without generated derivatives, by increasing id after the given one (keyset)
+    List<Media> findByImagePathIsNotNullAndThumbnailPathIsNullAndMediaIdGreaterThanOrderByMediaId(
+            Long mediaId, Pageable pageable);
+
+    @Modifying
+    @Query("""
+        UPDATE Media m
+            SET m.thumbnailPath = :thumbnailPath, m.displayPath = :displayPath
+            WHERE m.mediaId = :mediaId
+              AND m.imagePath = :imagePath
+    """)
+    int updateDerivatives(@Param("mediaId") Long mediaId,
+                          @Param("imagePath") String imagePath,
+                          @Param("thumbnailPath") String thumbnailPath,
+                          @Param("displayPath") String displayPath);
 }
@@ -1,11 +1,106 @@
 package fr.elikia.backend.repository;
 
 import fr.elikia.backend.bo.Member;
+import fr.elikia.backend.bo.enums.RegistrationStatus;
+import fr.elikia.backend.dto.MemberAdminDTO;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDate;
+import java.util.List;
 import java.util.Optional;
 
 
 public interface MemberRepository extends JpaRepository<Member, Long> {
+
+    // Projection of the admin list columns, the role name is joined
+    String ADMIN_SELECT = "SELECT new fr.elikia.backend.dto.MemberAdminDTO("
+            + "m.userId, m.firstName, m.lastName, m.email, m.createdAt, m.membershipNumber, "
+            + "m.membershipDate, m.status, m.image, r.name) "
+            + "FROM Member m JOIN m.role r ";
+
+    // Optional status and search filters; the search is a lower-case LIKE pattern escaped with '!'
+    String ADMIN_FILTER = "WHERE (:status IS NULL OR m.status = :status) "
+            + "AND (:search IS NULL "
+            + "OR LOWER(m.lastName) LIKE :search ESCAPE '!' "
+            + "OR LOWER(m.firstName) LIKE :search ESCAPE '!' "
+            + "OR LOWER(m.email) LIKE :search ESCAPE '!' "
+            + "OR LOWER(m.membershipNumber) LIKE :search ESCAPE '!') ";
+
     Optional<Member> findByEmail(String email);
+
+    /**
+     * Retrieve the admin view of every member
+     */
+    @Query(ADMIN_SELECT + """
+            ORDER BY m.userId
+    """)
+    List<MemberAdminDTO> findAdminViews();
+
+    /**
+     * Retrieve the admin view of the members of a registration status
+     */
+    @Query(ADMIN_SELECT + """
+            WHERE m.status = :status
+            ORDER BY m.createdAt, m.userId
+    """)
+    List<MemberAdminDTO> findAdminViewsByStatus(@Param("status") RegistrationStatus status);
+
+    /**
+     * Retrieve the first admin views of a keyset page, newest registrations first
+     */
+    @Query(ADMIN_SELECT + ADMIN_FILTER + """
+            ORDER BY m.createdAt DESC, m.userId DESC
+    """)
+    List<MemberAdminDTO> findAdminViewsByCreatedAt(
+            @Param("status") RegistrationStatus status,
+            @Param("search") String search,
+            Limit limit
+    );
+
+    /**
+     * Retrieve the admin views following a keyset position, newest registrations first
+     */
+    @Query(ADMIN_SELECT + ADMIN_FILTER + """
+            AND (m.createdAt < :createdAt
+                OR (m.createdAt = :createdAt AND m.userId < :userId))
+            ORDER BY m.createdAt DESC, m.userId DESC
+    """)
+    List<MemberAdminDTO> findAdminViewsByCreatedAtAfter(
+            @Param("status") RegistrationStatus status,
+            @Param("search") String search,
+            @Param("createdAt") LocalDate createdAt,
+            @Param("userId") Long userId,
+            Limit limit
+    );
+
+    /**
+     * Retrieve the first admin views of a keyset page, in last name order
+     */
+    @Query(ADMIN_SELECT + ADMIN_FILTER + """
+            ORDER BY m.lastName, m.userId
+    """)
+    List<MemberAdminDTO> findAdminViewsByName(
+            @Param("status") RegistrationStatus status,
+            @Param("search") String search,
+            Limit limit
+    );
+
+    /**
+     * Retrieve the admin views following a keyset position, in last name order
+     */
+    @Query(ADMIN_SELECT + ADMIN_FILTER + """
+            AND (m.lastName > :lastName
+                OR (m.lastName = :lastName AND m.userId > :userId))
+            ORDER BY m.lastName, m.userId
+    """)
+    List<MemberAdminDTO> findAdminViewsByNameAfter(
+            @Param("status") RegistrationStatus status,
+            @Param("search") String search,
+            @Param("lastName") String lastName,
+            @Param("userId") Long userId,
+            Limit limit
+    );
 }
@@ -3,17 +3,30 @@ package fr.elikia.backend.repository;
 import fr.elikia.backend.bo.enums.ContentStatus;
 import fr.elikia.backend.bo.News;
 import fr.elikia.backend.bo.enums.Visibility;
+import fr.elikia.backend.dto.MediaCardDTO;
+import fr.elikia.backend.dto.NewsCardDTO;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 public interface NewsRepository extends JpaRepository<News, Long> {
 
+    // Projection of the list-card columns, the content is cut to an excerpt
+    String CARD_SELECT = "SELECT new fr.elikia.backend.dto.NewsCardDTO("
+            + "n.newsId, n.title, SUBSTRING(n.content, 1, " + NewsCardDTO.EXCERPT_LENGTH + "), "
+            + "n.publishedAt, n.visibility, n.contentStatus) "
+            + "FROM News n ";
+
     List<News> findAllByContentStatusOrderByPublishedAtDesc(ContentStatus contentStatus);
 
     @Query("""
@@ -23,24 +36,151 @@ public interface NewsRepository extends JpaRepository<News, Long> {
     """)
     List<News> findAllPublishedOrderByPublishedAtDesc();
 
-    Page<News> findAllByContentStatusOrderByPublishedAtDesc(
-            ContentStatus contentStatus,
+    /**
+     * Retrieve the news cards of a content status (read-only projection:
+     * list columns and content excerpt only)
+     */
+    @Query(value = CARD_SELECT + """
+            WHERE n.contentStatus = :contentStatus
+            ORDER BY n.publishedAt DESC
+    """,
+            countQuery = "SELECT COUNT(n) FROM News n WHERE n.contentStatus = :contentStatus")
+    Page<NewsCardDTO> findCardsByContentStatus(
+            @Param("contentStatus") ContentStatus contentStatus,
+            Pageable pageable
+    );
+
+    /**
+     * Retrieve the news cards of a content status with a visibility after the given one
+     */
+    @Query(value = CARD_SELECT + """
+            WHERE n.contentStatus = :contentStatus
+              AND n.visibility > :visibility
+            ORDER BY n.publishedAt DESC
+    """,
+            countQuery = """
+        SELECT COUNT(n) FROM News n
+            WHERE n.contentStatus = :contentStatus
+              AND n.visibility > :visibility
+    """)
+    Page<NewsCardDTO> findCardsByContentStatusAndVisibilityAfter(
+            @Param("contentStatus") ContentStatus contentStatus,
+            @Param("visibility") Visibility visibility,
             Pageable pageable
     );
 
-    Page<News> findAllByContentStatusAndVisibilityAfterOrderByPublishedAtDesc(
-            ContentStatus contentStatus,
-            Visibility visibility,
+    /**
+     * Retrieve the first news cards of a keyset page, ordered by (publication date, identifier) desc
+     */
+    @Query(CARD_SELECT + """
+            WHERE n.contentStatus = :contentStatus
+            ORDER BY n.publishedAt DESC, n.newsId DESC
+    """)
+    List<NewsCardDTO> findCardsByContentStatus(
+            @Param("contentStatus") ContentStatus contentStatus,
+            Limit limit
+    );
+
+    /**
+     * Retrieve the news cards following a keyset position (seek, no offset)
+     */
+    @Query(CARD_SELECT + """
+            WHERE n.contentStatus = :contentStatus
+              AND (n.publishedAt < :publishedAt
+                OR (n.publishedAt = :publishedAt AND n.newsId < :newsId))
+            ORDER BY n.publishedAt DESC, n.newsId DESC
+    """)
+    List<NewsCardDTO> findCardsByContentStatusAfter(
+            @Param("contentStatus") ContentStatus contentStatus,
+            @Param("publishedAt") LocalDateTime publishedAt,
+            @Param("newsId") Long newsId,
+            Limit limit
+    );
+
+    /**
+     * Retrieve the first news cards of a keyset page with a visibility after the given one
+     */
+    @Query(CARD_SELECT + """
+            WHERE n.contentStatus = :contentStatus
+              AND n.visibility > :visibility
+            ORDER BY n.publishedAt DESC, n.newsId DESC
+    """)
+    List<NewsCardDTO> findCardsByContentStatusAndVisibilityAfter(
+            @Param("contentStatus") ContentStatus contentStatus,
+            @Param("visibility") Visibility visibility,
+            Limit limit
+    );
+
+    /**
+     * Retrieve the news cards with a visibility after the given one following a keyset position
+     */
+    @Query(CARD_SELECT + """
+            WHERE n.contentStatus = :contentStatus
+              AND n.visibility > :visibility
+              AND (n.publishedAt < :publishedAt
+                OR (n.publishedAt = :publishedAt AND n.newsId < :newsId))
+            ORDER BY n.publishedAt DESC, n.newsId DESC
+    """)
+    List<NewsCardDTO> findCardsByContentStatusAndVisibilityAfter(
+            @Param("contentStatus") ContentStatus contentStatus,
+            @Param("visibility") Visibility visibility,
+            @Param("publishedAt") LocalDateTime publishedAt,
+            @Param("newsId") Long newsId,
+            Limit limit
+    );
+
+    /**
+     * Retrieve the latest news cards of a content status, without count query
+     */
+    @Query(CARD_SELECT + """
+            WHERE n.contentStatus = :contentStatus
+            ORDER BY n.publishedAt DESC
+    """)
+    List<NewsCardDTO> findLatestCards(
+            @Param("contentStatus") ContentStatus contentStatus,
             Pageable pageable
     );
 
+    /**
+     * Retrieve the cover media (first media) of each given news (read-only projection)
+     */
     @Query("""
-        SELECT n FROM News n
+        SELECT new fr.elikia.backend.dto.MediaCardDTO(
+                m.news.newsId, m.mediaId, m.caption, m.imagePath, m.videoUrl, m.thumbnailPath)
+            FROM Media m
+            WHERE m.news.newsId IN :newsIds
+              AND m.mediaId = (SELECT MIN(c.mediaId) FROM Media c WHERE c.news = m.news)
+    """)
+    List<MediaCardDTO> findCoverMediaByNewsIdIn(@Param("newsIds") Collection<Long> newsIds);
+
+    // Identifiers only: the content and media of due news are never loaded.
+    // Locked (SELECT ... FOR UPDATE): a concurrent edit of a due news waits for its publication
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("""
+        SELECT n.newsId FROM News n
         WHERE n.contentStatus = 'CREATED'
           AND n.publishedAt IS NOT NULL
           AND n.publishedAt <= :now
     """)
-    List<News> findAllScheduledToPublish(@Param("now") LocalDateTime now);
+    List<Long> findIdsScheduledToPublish(@Param("now") LocalDateTime now);
+
+    // Distinct upcoming publication dates, one timer is armed per date
+    @Query("""
+        SELECT DISTINCT n.publishedAt FROM News n
+        WHERE n.contentStatus = 'CREATED'
+          AND n.publishedAt > :now
+    """)
+    List<LocalDateTime> findUpcomingPublicationDates(@Param("now") LocalDateTime now);
+
+    // Publishes the given due news in a single statement, returns the number of rows published
+    @Modifying
+    @Query("""
+        UPDATE News n
+            SET n.contentStatus = 'PUBLISHED'
+            WHERE n.newsId IN :newsIds
+              AND n.contentStatus = 'CREATED'
+    """)
+    int publishAll(@Param("newsIds") Collection<Long> newsIds);
 
 
 }
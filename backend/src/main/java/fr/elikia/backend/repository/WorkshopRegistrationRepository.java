@@ -3,9 +3,16 @@ package fr.elikia.backend.repository;
 import fr.elikia.backend.bo.Member;
 import fr.elikia.backend.bo.Workshop;
 import fr.elikia.backend.bo.WorkshopRegistration;
+import fr.elikia.backend.bo.enums.RegistrationStatus;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 public interface WorkshopRegistrationRepository extends JpaRepository<WorkshopRegistration, Long> {
     /**
@@ -43,4 +50,85 @@ public interface WorkshopRegistrationRepository extends JpaRepository<WorkshopRe
     List<WorkshopRegistration> findByWorkshop(
             Workshop workshop
     );
+
+    /**
+     * Retrieve a registration and lock its row until the end of the transaction,
+     * so status changes that give back or take a seat are made one at a time.
+     *
+     * @param registrationId registration identifier
+     * @return the locked registration
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM WorkshopRegistration r WHERE r.registrationId = :registrationId")
+    Optional<WorkshopRegistration> findByIdForUpdate(
+            @Param("registrationId") Long registrationId
+    );
+
+    /**
+     * Retrieve, among the given emails, those already registered for a workshop
+     * (set-wise duplicate check of the batched registrations).
+     *
+     * @param workshop workshop
+     * @param emails emails of the batch
+     * @return the emails already registered
+     */
+    @Query("SELECT r.email FROM WorkshopRegistration r WHERE r.workshop = :workshop AND r.email IN :emails")
+    List<String> findEmailsByWorkshopAndEmailIn(
+            @Param("workshop") Workshop workshop,
+            @Param("emails") Collection<String> emails
+    );
+
+    /**
+     * Retrieve, among the given members, those already registered for a workshop.
+     *
+     * @param workshop workshop
+     * @param memberIds members of the batch
+     * @return the identifiers of the members already registered
+     */
+    @Query("SELECT r.member.userId FROM WorkshopRegistration r WHERE r.workshop = :workshop AND r.member.userId IN :memberIds")
+    List<Long> findMemberIdsByWorkshopAndMemberIdIn(
+            @Param("workshop") Workshop workshop,
+            @Param("memberIds") Collection<Long> memberIds
+    );
+
+
+    /**
+     * Retrieve the first registration of a workshop in the given status, by waitlist position
+     * (index seek on (workshop_id, status, waitlist_position): the head of the waitlist).
+     * A locking read (FOR UPDATE): a concurrent release waits for the promotion of the head
+     * and then reads the row as committed, not the snapshot of its transaction
+     *
+     * @param workshop workshop
+     * @param status WAITLISTED
+     * @return the head of the waitlist, or null if it is empty
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    WorkshopRegistration findFirstByWorkshopAndStatusOrderByWaitlistPositionAsc(
+            Workshop workshop,
+            RegistrationStatus status
+    );
+
+    /**
+     * Compute the rank of a member in the waitlist of a workshop, in a single query:
+     * the waiters whose position is not after the member's one
+     *
+     * @param workshopId workshop identifier
+     * @param memberId member identifier
+     * @param status WAITLISTED
+     * @return the 1-based rank, or 0 if the member is not on the waitlist
+     */
+    @Query("""
+        SELECT COUNT(w) FROM WorkshopRegistration r, WorkshopRegistration w
+            WHERE r.workshop.workshopId = :workshopId
+              AND r.member.userId = :memberId
+              AND r.status = :status
+              AND w.workshop.workshopId = :workshopId
+              AND w.status = :status
+              AND w.waitlistPosition <= r.waitlistPosition
+    """)
+    long findWaitlistRank(
+            @Param("workshopId") Long workshopId,
+            @Param("memberId") Long memberId,
+            @Param("status") RegistrationStatus status
+    );
 }
@@ -1,24 +1,79 @@
 package fr.elikia.backend.repository;
 
 import fr.elikia.backend.bo.enums.Visibility;
+import fr.elikia.backend.dto.WorkshopCardDTO;
+import fr.elikia.backend.dto.MediaCardDTO;
 import fr.elikia.backend.bo.Workshop;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 public interface WorkshopRepository extends JpaRepository<Workshop, Long> {
+
+    // Projection of the list-card columns, the description is cut to an excerpt
+    String CARD_SELECT = "SELECT new fr.elikia.backend.dto.WorkshopCardDTO("
+            + "w.workshopId, w.title, SUBSTRING(w.description, 1, " + WorkshopCardDTO.EXCERPT_LENGTH + "), "
+            + "w.startDate, w.endDate, w.location, w.address, w.capacity, w.visibility) "
+            + "FROM Workshop w ";
+
     /**
-     * Retrieve the workshop by its visibility ordered by the start date desc
+     * Retrieve the workshop cards by visibility ordered by the start date desc
+     * (read-only projection: list columns and description excerpt only)
      */
-    Page<Workshop> findAllByVisibilityOrderByStartDateDesc(
-            Visibility visibility,
+    @Query(value = CARD_SELECT + """
+            WHERE w.visibility = :visibility
+            ORDER BY w.startDate DESC
+    """,
+            countQuery = "SELECT COUNT(w) FROM Workshop w WHERE w.visibility = :visibility")
+    Page<WorkshopCardDTO> findCardsByVisibility(
+            @Param("visibility") Visibility visibility,
             Pageable pageable
     );
 
 
+    /**
+     * Retrieve the first workshop cards of a keyset page by visibility,
+     * ordered by (start date, identifier) desc
+     */
+    @Query(CARD_SELECT + """
+            WHERE w.visibility = :visibility
+            ORDER BY w.startDate DESC, w.workshopId DESC
+    """)
+    List<WorkshopCardDTO> findCardsByVisibility(
+            @Param("visibility") Visibility visibility,
+            Limit limit
+    );
+
+
+    /**
+     * Retrieve the workshop cards following a keyset position (seek, no offset)
+     */
+    @Query(CARD_SELECT + """
+            WHERE w.visibility = :visibility
+              AND (w.startDate < :startDate
+                OR (w.startDate = :startDate AND w.workshopId < :workshopId))
+            ORDER BY w.startDate DESC, w.workshopId DESC
+    """)
+    List<WorkshopCardDTO> findCardsByVisibilityAfter(
+            @Param("visibility") Visibility visibility,
+            @Param("startDate") LocalDateTime startDate,
+            @Param("workshopId") Long workshopId,
+            Limit limit
+    );
+
+
     /**
      * Retrieve all workshops ordered by the start date
      */
@@ -28,13 +83,146 @@ public interface WorkshopRepository extends JpaRepository<Workshop, Long> {
 
 
     /**
-     * Retrieve 4 latest workshops
+     * Retrieve the first workshops of a keyset page, ordered by (start date, identifier) desc
+     */
+    List<Workshop> findAllByOrderByStartDateDescWorkshopIdDesc(Limit limit);
+
+
+    /**
+     * Retrieve the workshops following a keyset position (seek, no offset)
      */
     @Query("""
         SELECT w FROM Workshop w
+            WHERE w.startDate < :startDate
+               OR (w.startDate = :startDate AND w.workshopId < :workshopId)
+            ORDER BY w.startDate DESC, w.workshopId DESC
+    """)
+    List<Workshop> findAllAfter(
+            @Param("startDate") LocalDateTime startDate,
+            @Param("workshopId") Long workshopId,
+            Limit limit
+    );
+
+
+    /**
+     * Retrieve the cards of the 4 latest workshops (read-only projection)
+     */
+    @Query(CARD_SELECT + """
             WHERE w.startDate IS NOT NULL
             ORDER BY w.startDate DESC
                 LIMIT 4
     """)
-    List<Workshop> findAllByOrderByStartDateDesc();
+    List<WorkshopCardDTO> findLatestCards();
+
+
+    /**
+     * Retrieve workshops by identifier together with their media, in a single query
+     * (second step of the list fetch plan, the first one selects the page)
+     */
+    @EntityGraph(attributePaths = "mediaList")
+    List<Workshop> findWithMediaListByWorkshopIdIn(Collection<Long> workshopIds);
+
+
+    /**
+     * Retrieve the cover media (first media) of each given workshop (read-only projection)
+     */
+    @Query("""
+        SELECT new fr.elikia.backend.dto.MediaCardDTO(
+                m.workshop.workshopId, m.mediaId, m.caption, m.imagePath, m.videoUrl, m.thumbnailPath)
+            FROM Media m
+            WHERE m.workshop.workshopId IN :workshopIds
+              AND m.mediaId = (SELECT MIN(c.mediaId) FROM Media c WHERE c.workshop = m.workshop)
+    """)
+    List<MediaCardDTO> findCoverMediaByWorkshopIdIn(@Param("workshopIds") Collection<Long> workshopIds);
+
+
+    // Query space of the seat and waitlist counter updates. They are native statements
+    // synchronized on this space only, so Hibernate does not drop the whole cached region
+    // of the workshops on each registration: the DAO evicts the updated workshop alone
+    String COUNTERS_SPACE = "workshop_counters";
+
+
+    /**
+     * Take a seat of the workshop if one is left.
+     * The capacity check and the increment are a single conditional statement:
+     * concurrent registrations only queue on the row of this workshop, never overbook it
+     *
+     * @return 1 if a seat was taken, 0 if the workshop is full (or does not exist)
+     */
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = COUNTERS_SPACE))
+    @Query(value = """
+        UPDATE workshop SET reserved_seats = reserved_seats + 1
+            WHERE workshop_id = :workshopId
+              AND reserved_seats < capacity
+    """, nativeQuery = true)
+    int reserveSeat(@Param("workshopId") Long workshopId);
+
+
+    /**
+     * Give back a seat of the workshop
+     *
+     * @return 1 if a seat was released, 0 if none was held
+     */
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = COUNTERS_SPACE))
+    @Query(value = """
+        UPDATE workshop SET reserved_seats = reserved_seats - 1
+            WHERE workshop_id = :workshopId
+              AND reserved_seats > 0
+    """, nativeQuery = true)
+    int releaseSeat(@Param("workshopId") Long workshopId);
+
+
+    /**
+     * Hand out the next waitlist position of the workshop.
+     * The increment locks the row of the workshop until the end of the transaction,
+     * like the seat updates, so joining the waitlist and promoting from it never interleave
+     */
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = COUNTERS_SPACE))
+    @Query(value = """
+        UPDATE workshop SET waitlist_tail = waitlist_tail + 1
+            WHERE workshop_id = :workshopId
+    """, nativeQuery = true)
+    int incrementWaitlistTail(@Param("workshopId") Long workshopId);
+
+
+    /**
+     * Hand out several waitlist positions of the workshop at once (batched registrations)
+     */
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = COUNTERS_SPACE))
+    @Query(value = """
+        UPDATE workshop SET waitlist_tail = waitlist_tail + :count
+            WHERE workshop_id = :workshopId
+    """, nativeQuery = true)
+    int incrementWaitlistTail(@Param("workshopId") Long workshopId, @Param("count") int count);
+
+
+    /**
+     * Add (or remove, with a negative count) reserved seats of the workshop, without capacity check.
+     * Used by the batched registrations, which read the free seats back under the same row lock
+     */
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = COUNTERS_SPACE))
+    @Query(value = """
+        UPDATE workshop SET reserved_seats = reserved_seats + :count
+            WHERE workshop_id = :workshopId
+    """, nativeQuery = true)
+    int addReservedSeats(@Param("workshopId") Long workshopId, @Param("count") int count);
+
+
+    /**
+     * Retrieve the number of seats of the workshop still free (negative when overbooked)
+     */
+    @Query("SELECT w.capacity - w.reservedSeats FROM Workshop w WHERE w.workshopId = :workshopId")
+    int findFreeSeats(@Param("workshopId") Long workshopId);
+
+
+    /**
+     * Retrieve the last waitlist position handed out by the workshop
+     */
+    @Query("SELECT w.waitlistTail FROM Workshop w WHERE w.workshopId = :workshopId")
+    long findWaitlistTail(@Param("workshopId") Long workshopId);
 }
@@ -0,0 +1,24 @@
+package fr.elikia.backend.security.admission;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Puts a controller method behind the waiting room of an activity.
+
+ * Requests reach the method at the admission rate of the activity
+ * (event or workshop designated by the path variable); the others are
+ * answered with a queue token by AdmissionInterceptor.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface AdmissionControlled {
+
+    // Kind of activity (event, workshop), each activity has its own queue
+    String activity();
+
+    // Path variable holding the identifier of the activity
+    String idVariable();
+}
@@ -0,0 +1,93 @@
+package fr.elikia.backend.security.admission;
+
+import fr.elikia.backend.bo.LogicResult;
+import fr.elikia.backend.dto.QueueTicketDTO;
+import fr.elikia.backend.security.jwt.JsonResponseUtil;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.jspecify.annotations.NonNull;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.Map;
+
+/**
+ * Interceptor holding back the requests of the methods marked with AdmissionControlled
+ * until the waiting room of their activity admits them.
+
+ * Requests waiting in the queue are answered at once, before their body is read
+ * and without any database access:
+ * - 429 with the queue token, the position and Retry-After while the slot has not come
+ * - 503 with Retry-After when the queue is full
+ */
+@Component
+public class AdmissionInterceptor implements HandlerInterceptor {
+
+    /** CONSTANTS*/
+    public static final String QUEUE_TOKEN_HEADER = "X-Queue-Token";
+
+    private final AdmissionQueue admissionQueue;
+
+
+    public AdmissionInterceptor(AdmissionQueue admissionQueue) {
+        this.admissionQueue = admissionQueue;
+    }
+
+
+    @Override
+    public boolean preHandle(@NonNull HttpServletRequest request,
+                             @NonNull HttpServletResponse response,
+                             @NonNull Object handler) throws Exception {
+
+        if (!(handler instanceof HandlerMethod handlerMethod)) {
+            return true;
+        }
+
+        AdmissionControlled admission = handlerMethod.getMethodAnnotation(AdmissionControlled.class);
+        if (admission == null) {
+            return true;
+        }
+
+        @SuppressWarnings("unchecked")
+        Map<String, String> pathVariables =
+                (Map<String, String>) request.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE);
+        long activityId;
+        try {
+            activityId = Long.parseLong(pathVariables == null ? null : pathVariables.get(admission.idVariable()));
+        } catch (NumberFormatException e) {
+            // Malformed identifiers are rejected by the controller, they take no place in the queue
+            return true;
+        }
+
+        AdmissionQueue.Ticket ticket = admissionQueue.admit(
+                admission.activity() + ":" + activityId,
+                request.getHeader(QUEUE_TOKEN_HEADER)
+        );
+
+        if (ticket == null) {
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(admissionQueue.maxWaitSeconds()));
+            JsonResponseUtil.sendJson(
+                    response,
+                    HttpServletResponse.SC_SERVICE_UNAVAILABLE,
+                    new LogicResult<>("503", "The registration queue is full, please try again later", null)
+            );
+            return false;
+        }
+
+        if (!ticket.isAdmitted()) {
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(ticket.retryAfterSeconds()));
+            JsonResponseUtil.sendJson(
+                    response,
+                    429,
+                    new LogicResult<>("429", "Registrations are queued, retry with the queue token",
+                            new QueueTicketDTO(ticket.token(), ticket.position(), ticket.retryAfterSeconds()))
+            );
+            return false;
+        }
+
+        return true;
+    }
+}
@@ -0,0 +1,245 @@
+package fr.elikia.backend.security.admission;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Virtual waiting room of the registration openings.
+
+ * Every activity has a ticket counter handing out admission slots spaced by
+ * 1 / rate-per-second. A request whose slot has come is admitted; the others
+ * receive a signed queue token carrying their slot, and come back with it.
+ * The counter is a single compare-and-set, so a burst of requests costs no lock
+ * and no database access until the requests are admitted.
+
+ * Business rules:
+ * - After a quiet period, up to burst requests are admitted at once
+ * - A queue token keeps its place: it is admitted once its slot has come,
+ *   during token-ttl; a late token goes back to the end of the queue
+ * - A token is admitted once: replayed, it goes back to the end of the queue
+ * - Tokens are signed and bound to their activity, they cannot be forged or reused elsewhere
+ * - The queue stops handing out slots further than max-wait ahead
+ * - Counters and spent tokens are kept per node: the admitted rate of a cluster is the sum of its nodes
+ */
+@Component
+public class AdmissionQueue {
+
+    /** CONSTANTS*/
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+    private static final String SEPARATOR = "|";
+    private static final long MICROS_PER_SECOND = 1_000_000L;
+    // Idle counters are dropped past this number of activities
+    private static final int MAX_COUNTERS = 10_000;
+    // Expired spent tokens are dropped past this number of entries
+    private static final int MAX_SPENT_TOKENS = 100_000;
+
+    private final long intervalMicros;
+    private final long burstMicros;
+    private final long maxWaitMicros;
+    private final long tokenTtlMicros;
+    private final SecretKeySpec signingKey;
+    // Mac instances are not thread-safe
+    private final ThreadLocal<Mac> macs;
+    private final Map<String, TicketCounter> counters = new ConcurrentHashMap<>();
+    // Admitted tokens (activity|slot) and the time past which the token expires anyway
+    private final Map<String, Long> spentTokens = new ConcurrentHashMap<>();
+
+
+    public AdmissionQueue(@Value("${registration.admission.rate-per-second:20}") int ratePerSecond,
+                          @Value("${registration.admission.burst:50}") int burst,
+                          @Value("${registration.admission.max-wait:PT10M}") Duration maxWait,
+                          @Value("${registration.admission.token-ttl:PT1M}") Duration tokenTtl,
+                          @Value("${registration.admission.secret:${jwt.secret}}") String secret) {
+        this.intervalMicros = Math.max(1, MICROS_PER_SECOND / Math.max(1, ratePerSecond));
+        this.burstMicros = Math.max(0, burst - 1) * intervalMicros;
+        this.maxWaitMicros = maxWait.toNanos() / 1000;
+        this.tokenTtlMicros = tokenTtl.toNanos() / 1000;
+        this.signingKey = new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), HMAC_ALGORITHM);
+        this.macs = ThreadLocal.withInitial(this::newMac);
+    }
+
+
+    /**
+     * Place of a request in the queue of an activity.
+     *
+     * @param token queue token to send back, null once admitted
+     * @param position number of requests admitted before this one, 0 once admitted
+     * @param retryAfterSeconds delay before coming back with the token
+     */
+    public record Ticket(String token, long position, long retryAfterSeconds) {
+
+        public boolean isAdmitted() {
+            return position == 0;
+        }
+    }
+
+
+    /**
+     * Admits a request, or tells it where it stands in the queue.
+     *
+     * @param activity key of the activity (e.g. event:42)
+     * @param token queue token sent back by the client, may be null
+     *
+     * @return the ticket of the request, or null if the queue is full
+     */
+    public Ticket admit(String activity, String token) {
+        long now = nowMicros();
+
+        Long slot = slotOf(activity, token, now);
+        if (slot != null && slot <= now && !spend(activity, slot, now)) {
+            slot = null;
+        }
+        if (slot == null) {
+            slot = counterOf(activity, now).take(now);
+            if (slot == null) {
+                return null;
+            }
+        }
+
+        if (slot <= now) {
+            return new Ticket(null, 0, 0);
+        }
+
+        long wait = slot - now;
+        return new Ticket(
+                encode(activity, slot),
+                (wait + intervalMicros - 1) / intervalMicros,
+                Math.max(1, (wait + MICROS_PER_SECOND - 1) / MICROS_PER_SECOND)
+        );
+    }
+
+
+    /**
+     * Longest wait the queue hands out, in seconds.
+     */
+    public long maxWaitSeconds() {
+        return Math.max(1, maxWaitMicros / MICROS_PER_SECOND);
+    }
+
+
+    // =========================================================
+    // Private helpers
+    // =========================================================
+
+    /**
+     * Ticket counter of one activity, as a theoretical arrival time:
+     * the next free slot, never further behind now than the burst allowance.
+     */
+    private final class TicketCounter {
+        private final AtomicLong nextSlot = new AtomicLong();
+
+        Long take(long now) {
+            while (true) {
+                long next = nextSlot.get();
+                long slot = Math.max(next, now - burstMicros);
+                if (slot - now > maxWaitMicros) {
+                    return null;
+                }
+                if (nextSlot.compareAndSet(next, slot + intervalMicros)) {
+                    return slot;
+                }
+            }
+        }
+
+        // A refilled counter behaves exactly like a new one
+        boolean isIdle(long now) {
+            return nextSlot.get() <= now - burstMicros;
+        }
+    }
+
+
+    private TicketCounter counterOf(String activity, long now) {
+        if (counters.size() > MAX_COUNTERS) {
+            counters.values().removeIf(counter -> counter.isIdle(now));
+        }
+        return counters.computeIfAbsent(activity, key -> new TicketCounter());
+    }
+
+
+    /**
+     * Marks the token of a slot as spent.
+     *
+     * @return true the first time, false if the token was already admitted
+     */
+    private boolean spend(String activity, long slot, long now) {
+        if (spentTokens.size() > MAX_SPENT_TOKENS) {
+            spentTokens.values().removeIf(expiry -> expiry < now);
+        }
+        return spentTokens.putIfAbsent(activity + SEPARATOR + slot, slot + tokenTtlMicros) == null;
+    }
+
+
+    /**
+     * Slot carried by a queue token of this activity, still usable.
+     *
+     * @return the slot, or null if the token is missing, invalid or expired
+     */
+    private Long slotOf(String activity, String token, long now) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int last = raw.lastIndexOf(SEPARATOR);
+            int previous = raw.lastIndexOf(SEPARATOR, last - 1);
+            if (previous < 0) {
+                return null;
+            }
+
+            String payload = raw.substring(0, last);
+            byte[] signature = Base64.getUrlDecoder().decode(raw.substring(last + 1));
+            long slot = Long.parseLong(raw.substring(previous + 1, last));
+
+            if (!raw.substring(0, previous).equals(activity)
+                    || !MessageDigest.isEqual(hmac(payload), signature)
+                    || now > slot + tokenTtlMicros) {
+                return null;
+            }
+            return slot;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+
+    private String encode(String activity, long slot) {
+        String payload = activity + SEPARATOR + slot;
+        String raw = payload + SEPARATOR + Base64.getUrlEncoder().withoutPadding().encodeToString(hmac(payload));
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+
+    private byte[] hmac(String payload) {
+        return macs.get().doFinal(payload.getBytes(StandardCharsets.UTF_8));
+    }
+
+
+    private static long nowMicros() {
+        Instant now = Instant.now();
+        return now.getEpochSecond() * MICROS_PER_SECOND + now.getNano() / 1000;
+    }
+
+
+    private Mac newMac() {
+        try {
+            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(signingKey);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Unable to initialize admission token signing", e);
+        }
+    }
+}
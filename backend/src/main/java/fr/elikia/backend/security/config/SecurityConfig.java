@@ -1,5 +1,6 @@
 package fr.elikia.backend.security.config;
 
+import fr.elikia.backend.security.admission.AdmissionInterceptor;
 import fr.elikia.backend.security.jwt.JwtAuthRequestInterceptor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -22,6 +23,7 @@ import java.util.List;
  * - Disables CSRF protection (JWT-based stateless API)
  * - Disables CORS (handled elsewhere or open API during development)
  * - Registers the JWT authentication interceptor
+ * - Registers the admission interceptor (waiting room of the registration openings)
 
  * This class does NOT use Spring Security authentication filters,
  * but relies on a custom HandlerInterceptor for JWT validation.
@@ -32,13 +34,19 @@ public class SecurityConfig implements WebMvcConfigurer {
     // Custom interceptor responsible for JWT authentication and authorization
     private final JwtAuthRequestInterceptor jwtAuthRequestInterceptor;
 
+    // Interceptor queuing the registration bursts
+    private final AdmissionInterceptor admissionInterceptor;
+
     /**
-     * Constructor injection of the JWT interceptor
+     * Constructor injection of the interceptors
      *
      * @param jwtAuthRequestInterceptor interceptor handling JWT validation
+     * @param admissionInterceptor interceptor handling the registration queues
      */
-    public SecurityConfig(JwtAuthRequestInterceptor jwtAuthRequestInterceptor) {
+    public SecurityConfig(JwtAuthRequestInterceptor jwtAuthRequestInterceptor,
+                          AdmissionInterceptor admissionInterceptor) {
         this.jwtAuthRequestInterceptor = jwtAuthRequestInterceptor;
+        this.admissionInterceptor = admissionInterceptor;
     }
 
     /**
@@ -74,8 +82,10 @@ public class SecurityConfig implements WebMvcConfigurer {
         ));
         config.setAllowedHeaders(List.of(
                 "Authorization",
-                "Content-Type"
+                "Content-Type",
+                AdmissionInterceptor.QUEUE_TOKEN_HEADER
         ));
+        config.setExposedHeaders(List.of("Retry-After"));
         config.setAllowCredentials(true);
 
         UrlBasedCorsConfigurationSource source =
@@ -88,13 +98,15 @@ public class SecurityConfig implements WebMvcConfigurer {
 
     /**
      * Registers the JWT authentication interceptor
-     * so it is executed before controller methods.
+     * so it is executed before controller methods,
+     * then the admission interceptor: unauthenticated requests take no place in the queues.
      *
      * @param registry interceptor registry
      */
     @Override
     public void addInterceptors(InterceptorRegistry registry) {
         registry.addInterceptor(jwtAuthRequestInterceptor);
+        registry.addInterceptor(admissionInterceptor);
     }
 
 
@@ -13,11 +13,17 @@ import org.springframework.web.servlet.HandlerInterceptor;
  * - Checking the presence of JWT tokens
  * - Validating token integrity and expiration
  * - Verifying user roles when required
+ * - Recording the role of a valid token, even on public endpoints,
+ *   so answers can be tailored to authenticated members
 
  * This interceptor is triggered before controller method execution.
  */
 @Component
 public class JwtAuthRequestInterceptor implements HandlerInterceptor {
+    // Request attribute holding the role of a valid token, absent for anonymous requests
+    public static final String AUTHENTICATED_ROLE_ATTRIBUTE =
+            JwtAuthRequestInterceptor.class.getName() + ".role";
+
     // Service responsible for JWT operations
     private final JwtService jwtService;
 
@@ -53,14 +59,15 @@ public class JwtAuthRequestInterceptor implements HandlerInterceptor {
                 handlerMethod.hasMethodAnnotation(RequiredJWTAuth.class)
                         || handlerMethod.getBeanType().isAnnotationPresent(RequiredJWTAuth.class);
 
-        // If JWT is not required, allow request
+        // Retrieve Authorization header
+        String authHeader = request.getHeader("Authorization");
+
+        // If JWT is not required, allow request, remembering a valid token if any
         if (!jwtRequired) {
+            recordAuthenticatedRole(request, authHeader);
             return true;
         }
 
-        // Retrieve Authorization header
-        String authHeader = request.getHeader("Authorization");
-
         // If missing or malformed, deny access
         if (authHeader == null || !authHeader.startsWith("Bearer ")) {
             JsonResponseUtil.sendJson(
@@ -116,7 +123,27 @@ public class JwtAuthRequestInterceptor implements HandlerInterceptor {
         }
 
         // All checks passed
+        request.setAttribute(AUTHENTICATED_ROLE_ATTRIBUTE, jwtService.extractRole(token));
         return true;
     }
 
+
+    /**
+     * Records the role of an optional token.
+     * A missing or invalid token leaves the request anonymous.
+     *
+     * @param request incoming HTTP request
+     * @param authHeader Authorization header, may be null
+     */
+    private void recordAuthenticatedRole(HttpServletRequest request, String authHeader) {
+        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+            return;
+        }
+
+        String token = authHeader.substring(7);
+        if ("204".equals(jwtService.verifyToken(token).getCode())) {
+            request.setAttribute(AUTHENTICATED_ROLE_ATTRIBUTE, jwtService.extractRole(token));
+        }
+    }
+
 }
\ No newline at end of file
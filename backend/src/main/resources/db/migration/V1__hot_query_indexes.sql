@@ -0,0 +1,19 @@
+-- Indexes backing the hot list and registration queries.
+-- Written in the SQL shared by MySQL and H2.
+
+-- Published news lists: WHERE content_status = ? ORDER BY published_at DESC
+CREATE INDEX idx_news_status_published ON news (content_status, published_at);
+
+-- Public and member activity lists: WHERE visibility = ? ORDER BY start_date DESC
+CREATE INDEX idx_event_visibility_start ON event (visibility, start_date);
+CREATE INDEX idx_workshop_visibility_start ON workshop (visibility, start_date);
+
+-- Duplicate registration checks, by email (guests) and by member
+CREATE INDEX idx_event_registration_email ON event_registration (event_id, email);
+CREATE INDEX idx_event_registration_member ON event_registration (event_id, member_id);
+CREATE INDEX idx_workshop_registration_email ON workshop_registration (workshop_id, email);
+CREATE INDEX idx_workshop_registration_member ON workshop_registration (workshop_id, member_id);
+
+-- media(news_id | event_id | workshop_id) is not repeated here: each owner column is a foreign key,
+-- already indexed by MySQL (InnoDB) and H2, and InnoDB secondary indexes end with the primary key,
+-- so the cover lookup (owner, lowest media_id) is served by them.
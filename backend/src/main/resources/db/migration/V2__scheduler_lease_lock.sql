@@ -0,0 +1,10 @@
+-- Lease locks of the scheduled jobs, so that a single node runs each job at a time.
+-- One row per job; the holder is recorded in locked_by until locked_until,
+-- after which any node may take the lease over (crashed holder).
+-- Not mapped by Hibernate: the table outlives a schema re-created by create-drop.
+CREATE TABLE IF NOT EXISTS scheduler_lock (
+    name VARCHAR(64) NOT NULL PRIMARY KEY,
+    locked_until TIMESTAMP(6) NOT NULL,
+    locked_at TIMESTAMP(6) NOT NULL,
+    locked_by VARCHAR(255) NOT NULL
+);
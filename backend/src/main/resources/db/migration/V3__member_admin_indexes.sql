@@ -0,0 +1,7 @@
+-- Indexes backing the keyset pages of the member administration list.
+
+-- Status filter, newest registrations first: WHERE status = ? ORDER BY created_at DESC, user_id DESC
+CREATE INDEX idx_member_status_created ON member (status, created_at, user_id);
+
+-- Alphabetical order: ORDER BY last_name, user_id
+CREATE INDEX idx_member_last_name ON member (last_name, user_id);
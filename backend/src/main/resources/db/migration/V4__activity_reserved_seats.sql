@@ -0,0 +1,18 @@
+-- Seat counters of the events and workshops, taken and given back atomically by the registrations.
+-- The reserved_seats columns are mapped by the entities; this script adds them to an existing schema
+-- (already there when Hibernate created the tables) and fills them
+-- from the registrations already holding a seat (pending or approved).
+ALTER TABLE event ADD COLUMN IF NOT EXISTS reserved_seats INT DEFAULT 0 NOT NULL;
+ALTER TABLE workshop ADD COLUMN IF NOT EXISTS reserved_seats INT DEFAULT 0 NOT NULL;
+
+UPDATE event SET reserved_seats = (
+    SELECT COUNT(*) FROM event_registration r
+        WHERE r.event_id = event.event_id
+          AND r.status IN ('PENDING', 'APPROVED')
+);
+
+UPDATE workshop SET reserved_seats = (
+    SELECT COUNT(*) FROM workshop_registration r
+        WHERE r.workshop_id = workshop.workshop_id
+          AND r.status IN ('PENDING', 'APPROVED')
+);
@@ -0,0 +1,13 @@
+-- Waitlist of full events and workshops.
+
+-- Last position handed out per activity and place of each waiter, mapped by the entities;
+-- added to an existing schema (already there when Hibernate created the tables)
+ALTER TABLE event ADD COLUMN IF NOT EXISTS waitlist_tail BIGINT DEFAULT 0 NOT NULL;
+ALTER TABLE workshop ADD COLUMN IF NOT EXISTS waitlist_tail BIGINT DEFAULT 0 NOT NULL;
+ALTER TABLE event_registration ADD COLUMN IF NOT EXISTS waitlist_position BIGINT;
+ALTER TABLE workshop_registration ADD COLUMN IF NOT EXISTS waitlist_position BIGINT;
+
+-- Head of the waitlist and rank of a waiter:
+-- WHERE event_id = ? AND status = 'WAITLISTED' ORDER BY waitlist_position
+CREATE INDEX idx_event_registration_waitlist ON event_registration (event_id, status, waitlist_position);
+CREATE INDEX idx_workshop_registration_waitlist ON workshop_registration (workshop_id, status, waitlist_position);
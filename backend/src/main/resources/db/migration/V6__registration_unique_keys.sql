@@ -0,0 +1,49 @@
+-- Unique keys of the registrations: one registration per email, and per member, for each activity.
+-- The registration services insert without looking for an existing registration first,
+-- and turn a broken key into their "already registered" result.
+-- Duplicates left from before these keys are removed first, email then member:
+-- the oldest registration is kept.
+DELETE FROM event_registration r WHERE EXISTS (
+    SELECT 1 FROM event_registration k
+        WHERE k.event_id = r.event_id AND k.email = r.email
+          AND k.registration_id < r.registration_id
+);
+DELETE FROM event_registration r WHERE EXISTS (
+    SELECT 1 FROM event_registration k
+        WHERE k.event_id = r.event_id AND k.member_id = r.member_id
+          AND k.registration_id < r.registration_id
+);
+DELETE FROM workshop_registration r WHERE EXISTS (
+    SELECT 1 FROM workshop_registration k
+        WHERE k.workshop_id = r.workshop_id AND k.email = r.email
+          AND k.registration_id < r.registration_id
+);
+DELETE FROM workshop_registration r WHERE EXISTS (
+    SELECT 1 FROM workshop_registration k
+        WHERE k.workshop_id = r.workshop_id AND k.member_id = r.member_id
+          AND k.registration_id < r.registration_id
+);
+
+ALTER TABLE event_registration ADD CONSTRAINT uk_event_registration_email UNIQUE (event_id, email);
+ALTER TABLE event_registration ADD CONSTRAINT uk_event_registration_member UNIQUE (event_id, member_id);
+ALTER TABLE workshop_registration ADD CONSTRAINT uk_workshop_registration_email UNIQUE (workshop_id, email);
+ALTER TABLE workshop_registration ADD CONSTRAINT uk_workshop_registration_member UNIQUE (workshop_id, member_id);
+
+-- The keys have the columns of the duplicate-check indexes of V1, which are dropped
+DROP INDEX idx_event_registration_email;
+DROP INDEX idx_event_registration_member;
+DROP INDEX idx_workshop_registration_email;
+DROP INDEX idx_workshop_registration_member;
+
+-- The seat counters of V4 included the removed duplicates
+UPDATE event SET reserved_seats = (
+    SELECT COUNT(*) FROM event_registration r
+        WHERE r.event_id = event.event_id
+          AND r.status IN ('PENDING', 'APPROVED')
+);
+
+UPDATE workshop SET reserved_seats = (
+    SELECT COUNT(*) FROM workshop_registration r
+        WHERE r.workshop_id = workshop.workshop_id
+          AND r.status IN ('PENDING', 'APPROVED')
+);
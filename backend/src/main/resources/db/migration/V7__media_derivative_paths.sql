@@ -0,0 +1,5 @@
+-- Paths of the resized variants of the images (thumbnail and display size).
+-- The columns are mapped by Media; this script adds them to an existing schema
+-- (already there when Hibernate created the tables). Null until the variants are generated.
+ALTER TABLE media ADD COLUMN IF NOT EXISTS thumbnail_path VARCHAR(255);
+ALTER TABLE media ADD COLUMN IF NOT EXISTS display_path VARCHAR(255);
@@ -0,0 +1,4 @@
+-- Index backing the reference count of a stored file: WHERE image_path = ?
+-- Media files are content-addressed and shared, so each media delete counts
+-- the rows still pointing to the file before removing it.
+CREATE INDEX idx_media_image_path ON media (image_path);
@@ -0,0 +1,32 @@
+-- Seat counters of the events and workshops (MySQL version of the shared script).
+
+-- MySQL has no ADD COLUMN IF NOT EXISTS: each column is added only when missing
+-- (already there when Hibernate created the tables).
+SET @ddl = IF((SELECT COUNT(*) FROM information_schema.columns
+               WHERE table_schema = DATABASE() AND table_name = 'event' AND column_name = 'reserved_seats') = 0,
+              'ALTER TABLE event ADD COLUMN reserved_seats INT NOT NULL DEFAULT 0',
+              'DO 0');
+PREPARE add_column FROM @ddl;
+EXECUTE add_column;
+DEALLOCATE PREPARE add_column;
+
+SET @ddl = IF((SELECT COUNT(*) FROM information_schema.columns
+               WHERE table_schema = DATABASE() AND table_name = 'workshop' AND column_name = 'reserved_seats') = 0,
+              'ALTER TABLE workshop ADD COLUMN reserved_seats INT NOT NULL DEFAULT 0',
+              'DO 0');
+PREPARE add_column FROM @ddl;
+EXECUTE add_column;
+DEALLOCATE PREPARE add_column;
+
+-- Filled from the registrations already holding a seat (pending or approved)
+UPDATE event SET reserved_seats = (
+    SELECT COUNT(*) FROM event_registration r
+        WHERE r.event_id = event.event_id
+          AND r.status IN ('PENDING', 'APPROVED')
+);
+
+UPDATE workshop SET reserved_seats = (
+    SELECT COUNT(*) FROM workshop_registration r
+        WHERE r.workshop_id = workshop.workshop_id
+          AND r.status IN ('PENDING', 'APPROVED')
+);
@@ -0,0 +1,48 @@
+-- Waitlist of full events and workshops (MySQL version of the shared script).
+
+-- Last position handed out per activity and place of each waiter, mapped by the entities.
+-- MySQL has no ADD COLUMN IF NOT EXISTS: each column is added only when missing
+-- (already there when Hibernate created the tables).
+SET @ddl = IF((SELECT COUNT(*) FROM information_schema.columns
+               WHERE table_schema = DATABASE() AND table_name = 'event' AND column_name = 'waitlist_tail') = 0,
+              'ALTER TABLE event ADD COLUMN waitlist_tail BIGINT NOT NULL DEFAULT 0',
+              'DO 0');
+PREPARE add_column FROM @ddl;
+EXECUTE add_column;
+DEALLOCATE PREPARE add_column;
+
+SET @ddl = IF((SELECT COUNT(*) FROM information_schema.columns
+               WHERE table_schema = DATABASE() AND table_name = 'workshop' AND column_name = 'waitlist_tail') = 0,
+              'ALTER TABLE workshop ADD COLUMN waitlist_tail BIGINT NOT NULL DEFAULT 0',
+              'DO 0');
+PREPARE add_column FROM @ddl;
+EXECUTE add_column;
+DEALLOCATE PREPARE add_column;
+
+SET @ddl = IF((SELECT COUNT(*) FROM information_schema.columns
+               WHERE table_schema = DATABASE() AND table_name = 'event_registration' AND column_name = 'waitlist_position') = 0,
+              'ALTER TABLE event_registration ADD COLUMN waitlist_position BIGINT NULL',
+              'DO 0');
+PREPARE add_column FROM @ddl;
+EXECUTE add_column;
+DEALLOCATE PREPARE add_column;
+
+SET @ddl = IF((SELECT COUNT(*) FROM information_schema.columns
+               WHERE table_schema = DATABASE() AND table_name = 'workshop_registration' AND column_name = 'waitlist_position') = 0,
+              'ALTER TABLE workshop_registration ADD COLUMN waitlist_position BIGINT NULL',
+              'DO 0');
+PREPARE add_column FROM @ddl;
+EXECUTE add_column;
+DEALLOCATE PREPARE add_column;
+
+-- Hibernate maps the registration status to a native ENUM column on MySQL,
+-- which ddl-auto=update never widens: the WAITLISTED value is added here.
+ALTER TABLE event_registration
+    MODIFY COLUMN status ENUM('PENDING', 'APPROVED', 'REJECTED', 'CANCELLED', 'WAITLISTED') NOT NULL;
+ALTER TABLE workshop_registration
+    MODIFY COLUMN status ENUM('PENDING', 'APPROVED', 'REJECTED', 'CANCELLED', 'WAITLISTED') NOT NULL;
+
+-- Head of the waitlist and rank of a waiter:
+-- WHERE event_id = ? AND status = 'WAITLISTED' ORDER BY waitlist_position
+CREATE INDEX idx_event_registration_waitlist ON event_registration (event_id, status, waitlist_position);
+CREATE INDEX idx_workshop_registration_waitlist ON workshop_registration (workshop_id, status, waitlist_position);
@@ -0,0 +1,19 @@
+-- Paths of the resized variants of the images (MySQL version of the shared script).
+
+-- MySQL has no ADD COLUMN IF NOT EXISTS: each column is added only when missing
+-- (already there when Hibernate created the tables).
+SET @ddl = IF((SELECT COUNT(*) FROM information_schema.columns
+               WHERE table_schema = DATABASE() AND table_name = 'media' AND column_name = 'thumbnail_path') = 0,
+              'ALTER TABLE media ADD COLUMN thumbnail_path VARCHAR(255) NULL',
+              'DO 0');
+PREPARE add_column FROM @ddl;
+EXECUTE add_column;
+DEALLOCATE PREPARE add_column;
+
+SET @ddl = IF((SELECT COUNT(*) FROM information_schema.columns
+               WHERE table_schema = DATABASE() AND table_name = 'media' AND column_name = 'display_path') = 0,
+              'ALTER TABLE media ADD COLUMN display_path VARCHAR(255) NULL',
+              'DO 0');
+PREPARE add_column FROM @ddl;
+EXECUTE add_column;
+DEALLOCATE PREPARE add_column;
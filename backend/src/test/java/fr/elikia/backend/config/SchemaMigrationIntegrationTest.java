@@ -0,0 +1,255 @@
+package fr.elikia.backend.config;
+
+import fr.elikia.backend.AbstractIntegrationTest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that the versioned migrations run on the H2 test schema
+ * and that the hot queries are planned on their index.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class SchemaMigrationIntegrationTest extends AbstractIntegrationTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private SchemaMigrator schemaMigrator;
+
+    @Autowired
+    private ConfigurableListableBeanFactory beanFactory;
+
+
+    @Test
+    void migrationsShouldBeRecorded() {
+        List<Integer> versions = jdbcTemplate.queryForList(
+                "SELECT version FROM schema_version ORDER BY version", Integer.class);
+
+        assertEquals(1, versions.getFirst());
+    }
+
+
+    // Running again applies nothing and does not fail
+    @Test
+    void migrateShouldBeIdempotent() {
+        int before = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM schema_version", Integer.class);
+
+        schemaMigrator.migrate();
+
+        assertEquals(before, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM schema_version", Integer.class));
+    }
+
+
+    // Instances migrating together apply a pending script once, the others see it recorded
+    @Test
+    void concurrentMigrationsShouldApplyPendingScriptOnce() throws Exception {
+        jdbcTemplate.update("DELETE FROM schema_version WHERE version = 7");
+
+        List<Future<?>> migrations = new ArrayList<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(4)) {
+            for (int i = 0; i < 4; i++) {
+                migrations.add(executor.submit(schemaMigrator::migrate));
+            }
+            for (Future<?> migration : migrations) {
+                // Fails on the duplicate history key if two of them applied V7
+                migration.get();
+            }
+        }
+
+        assertEquals(1, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM schema_version WHERE version = 7", Integer.class));
+    }
+
+
+    // An existing schema is migrated before Hibernate validates it
+    @Test
+    void entityManagerFactoryShouldWaitForMigrator() {
+        String[] dependsOn = beanFactory.getBeanDefinition("entityManagerFactory").getDependsOn();
+
+        assertTrue(dependsOn != null && Arrays.asList(dependsOn).contains("schemaMigrator"));
+    }
+
+
+    // Hibernate created the columns of this schema: the scripts adding them must skip them
+    @Test
+    void columnScriptsShouldSkipExistingColumns() {
+        for (int version : List.of(4, 7)) {
+            SchemaMigrator.Migration migration = findVersion("h2", version);
+
+            jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+                ScriptUtils.executeSqlScript(connection, migration.script());
+                return null;
+            });
+        }
+
+        assertEquals(0, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM event WHERE reserved_seats <> 0", Integer.class));
+    }
+
+
+    // Registrations duplicated before the keys existed: the oldest one stays and the seats are recounted
+    @Test
+    void uniqueKeyScriptShouldRemoveDuplicatesFirst() {
+        SingleConnectionDataSource scratch = new SingleConnectionDataSource(
+                "jdbc:h2:mem:unique-keys;DB_CLOSE_DELAY=-1", "sa", "", true);
+        JdbcTemplate scratchJdbc = new JdbcTemplate(scratch);
+
+        try {
+            for (String activity : List.of("event", "workshop")) {
+                scratchJdbc.execute("CREATE TABLE " + activity + " (" + activity + "_id BIGINT PRIMARY KEY,"
+                        + " reserved_seats INT DEFAULT 0 NOT NULL)");
+                scratchJdbc.execute("CREATE TABLE " + activity + "_registration (registration_id BIGINT PRIMARY KEY,"
+                        + " " + activity + "_id BIGINT, email VARCHAR(255), member_id BIGINT, status VARCHAR(20))");
+                scratchJdbc.execute("CREATE INDEX idx_" + activity + "_registration_email ON "
+                        + activity + "_registration (" + activity + "_id, email)");
+                scratchJdbc.execute("CREATE INDEX idx_" + activity + "_registration_member ON "
+                        + activity + "_registration (" + activity + "_id, member_id)");
+                scratchJdbc.update("INSERT INTO " + activity + " VALUES (1, 5)");
+                scratchJdbc.update("INSERT INTO " + activity + "_registration VALUES"
+                        + " (1, 1, 'a@elikia.fr', NULL, 'PENDING'),"
+                        + " (2, 1, 'a@elikia.fr', NULL, 'PENDING'),"
+                        + " (3, 1, 'b@elikia.fr', 7, 'APPROVED'),"
+                        + " (4, 1, 'c@elikia.fr', 7, 'PENDING'),"
+                        + " (5, 1, 'd@elikia.fr', NULL, 'PENDING')");
+            }
+
+            scratchJdbc.execute((ConnectionCallback<Void>) connection -> {
+                ScriptUtils.executeSqlScript(connection, findVersion("h2", 6).script());
+                return null;
+            });
+
+            for (String activity : List.of("event", "workshop")) {
+                assertEquals(List.of(1L, 3L, 5L), scratchJdbc.queryForList(
+                        "SELECT registration_id FROM " + activity + "_registration ORDER BY registration_id",
+                        Long.class));
+                assertEquals(3, scratchJdbc.queryForObject(
+                        "SELECT reserved_seats FROM " + activity, Integer.class));
+            }
+        } finally {
+            scratchJdbc.execute("DROP ALL OBJECTS");
+            scratch.destroy();
+        }
+    }
+
+
+    @Test
+    void publishedNewsListShouldUseStatusIndex() {
+        assertPlanUses("IDX_NEWS_STATUS_PUBLISHED",
+                "SELECT news_id FROM news WHERE content_status = 'PUBLISHED' ORDER BY published_at DESC");
+    }
+
+
+    @Test
+    void activityListsShouldUseVisibilityIndex() {
+        assertPlanUses("IDX_EVENT_VISIBILITY_START",
+                "SELECT event_id FROM event WHERE visibility = 'PUBLIC' ORDER BY start_date DESC");
+        assertPlanUses("IDX_WORKSHOP_VISIBILITY_START",
+                "SELECT workshop_id FROM workshop WHERE visibility = 'PUBLIC' ORDER BY start_date DESC");
+    }
+
+
+    // The unique keys of V6 replace the duplicate-check indexes of V1
+    @Test
+    void registrationChecksShouldUseUniqueKeys() {
+        assertPlanUses("UK_EVENT_REGISTRATION_EMAIL",
+                "SELECT registration_id FROM event_registration WHERE event_id = 1 AND email = 'a@elikia.fr'");
+        assertPlanUses("UK_EVENT_REGISTRATION_MEMBER",
+                "SELECT registration_id FROM event_registration WHERE event_id = 1 AND member_id = 1");
+        assertPlanUses("UK_WORKSHOP_REGISTRATION_EMAIL",
+                "SELECT registration_id FROM workshop_registration WHERE workshop_id = 1 AND email = 'a@elikia.fr'");
+        assertPlanUses("UK_WORKSHOP_REGISTRATION_MEMBER",
+                "SELECT registration_id FROM workshop_registration WHERE workshop_id = 1 AND member_id = 1");
+    }
+
+
+    @Test
+    void waitlistHeadShouldUseWaitlistIndexes() {
+        assertPlanUses("IDX_EVENT_REGISTRATION_WAITLIST",
+                "SELECT registration_id FROM event_registration WHERE event_id = 1 AND status = 'WAITLISTED'"
+                        + " ORDER BY waitlist_position LIMIT 1");
+        assertPlanUses("IDX_WORKSHOP_REGISTRATION_WAITLIST",
+                "SELECT registration_id FROM workshop_registration WHERE workshop_id = 1 AND status = 'WAITLISTED'"
+                        + " ORDER BY waitlist_position LIMIT 1");
+    }
+
+
+    // A database-specific script replaces the shared one of the same version on that database only
+    @Test
+    void vendorScriptShouldReplaceSharedScript() throws Exception {
+        SchemaMigrator.Migration onMysql = findVersion("mysql", 5);
+        SchemaMigrator.Migration onH2 = findVersion("h2", 5);
+
+        assertTrue(onMysql.script().getURL().getPath().contains("/db/migration/mysql/"));
+        assertFalse(onH2.script().getURL().getPath().contains("/db/migration/mysql/"));
+        assertEquals(SchemaMigrator.findMigrations("h2").size(), SchemaMigrator.findMigrations("mysql").size());
+    }
+
+
+    @Test
+    void memberAdminListShouldUseStatusAndNameIndexes() {
+        assertPlanUses("IDX_MEMBER_STATUS_CREATED",
+                "SELECT user_id FROM member WHERE status = 'PENDING' ORDER BY created_at DESC, user_id DESC");
+        assertPlanUses("IDX_MEMBER_LAST_NAME",
+                "SELECT user_id FROM member WHERE last_name > 'M' ORDER BY last_name, user_id");
+    }
+
+
+    @Test
+    void coverMediaLookupShouldUseOwnerIndexes() {
+        assertPlanUsesIndexOn("NEWS_ID", "SELECT MIN(media_id) FROM media WHERE news_id = 1");
+        assertPlanUsesIndexOn("EVENT_ID", "SELECT MIN(media_id) FROM media WHERE event_id = 1");
+        assertPlanUsesIndexOn("WORKSHOP_ID", "SELECT MIN(media_id) FROM media WHERE workshop_id = 1");
+    }
+
+
+    @Test
+    void storedFileReferenceCountShouldUseImagePathIndex() {
+        assertPlanUses("IDX_MEDIA_IMAGE_PATH",
+                "SELECT COUNT(*) FROM media WHERE image_path = 'ab/cd/abcd.jpg'");
+    }
+
+
+    private static SchemaMigrator.Migration findVersion(String vendor, int version) {
+        return SchemaMigrator.findMigrations(vendor).stream()
+                .filter(migration -> migration.version() == version)
+                .findFirst()
+                .orElseThrow();
+    }
+
+
+    private void assertPlanUses(String index, String query) {
+        String plan = jdbcTemplate.queryForObject("EXPLAIN " + query, String.class);
+
+        assertTrue(plan != null && plan.toUpperCase().contains(index), () -> "Expected " + index + " in plan:\n" + plan);
+    }
+
+
+    // H2 prints the chosen index and its condition as a comment: /* PUBLIC.INDEX_NAME: COLUMN = ... */
+    private void assertPlanUsesIndexOn(String column, String query) {
+        String plan = jdbcTemplate.queryForObject("EXPLAIN " + query, String.class);
+
+        assertTrue(plan != null && Pattern.compile("/\\* PUBLIC\\.\\w+: " + column + " = ").matcher(plan).find(),
+                () -> "Expected an index on " + column + " in plan:\n" + plan);
+    }
+}
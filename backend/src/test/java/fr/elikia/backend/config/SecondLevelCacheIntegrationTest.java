@@ -0,0 +1,221 @@
+package fr.elikia.backend.config;
+
+import fr.elikia.backend.AbstractIntegrationTest;
+import fr.elikia.backend.bll.CacheStatisticsService;
+import fr.elikia.backend.bo.Event;
+import fr.elikia.backend.bo.Member;
+import fr.elikia.backend.bo.Role;
+import fr.elikia.backend.bo.enums.RegistrationStatus;
+import fr.elikia.backend.bo.enums.Visibility;
+import fr.elikia.backend.dao.idao.IDAOEvent;
+import fr.elikia.backend.dao.idao.IDAOMember;
+import fr.elikia.backend.dao.idao.IDAORole;
+import fr.elikia.backend.dto.CacheRegionStatisticsDTO;
+import fr.elikia.backend.repository.EventRepository;
+import fr.elikia.backend.repository.MemberRepository;
+import fr.elikia.backend.repository.RoleRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks that repeated reference and hot lookups are served by the second-level cache.
+ * Runs in its own context with the cache enabled; data is committed, then removed.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.cache.use_second_level_cache=true")
+@ActiveProfiles("test")
+class SecondLevelCacheIntegrationTest extends AbstractIntegrationTest {
+
+    private static final String ROLE_NAME = "CACHED_ROLE";
+    private static final String MEMBER_EMAIL = "cached.member@elikia.fr";
+
+    @Autowired
+    private IDAORole idaoRole;
+
+    @Autowired
+    private IDAOMember idaoMember;
+
+    @Autowired
+    private IDAOEvent idaoEvent;
+
+    @Autowired
+    private RoleRepository roleRepository;
+
+    @Autowired
+    private MemberRepository memberRepository;
+
+    @Autowired
+    private EventRepository eventRepository;
+
+    @Autowired
+    private CacheStatisticsService cacheStatisticsService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    private Role role;
+
+    private Member member;
+
+    private Event event;
+
+
+    @BeforeEach
+    void setUp() {
+        entityManagerFactory.getCache().evictAll();
+
+        role = roleRepository.save(new Role(ROLE_NAME));
+
+        member = new Member();
+        member.setFirstName("John");
+        member.setLastName("Doe");
+        member.setEmail(MEMBER_EMAIL);
+        member.setPassword("password");
+        member.setStatus(RegistrationStatus.APPROVED);
+        member.setCreatedAt(LocalDate.now());
+        member.setRole(role);
+        member = memberRepository.save(member);
+
+        event = eventRepository.save(new Event(
+                "Cached event",
+                "Description",
+                LocalDateTime.now().plusDays(1),
+                LocalDateTime.now().plusDays(2),
+                "Paris",
+                "1 rue de Paris",
+                50,
+                Visibility.PUBLIC
+        ));
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+
+    @AfterEach
+    void tearDown() {
+        eventRepository.deleteById(event.getEventId());
+        memberRepository.deleteById(member.getUserId());
+        roleRepository.deleteById(role.getRoleId());
+    }
+
+
+    // The name resolves through the natural-id cache, the role through the entity cache
+    @Test
+    void repeatedRoleLookupByNameShouldNotQueryDatabase() {
+        assertEquals(role.getRoleId(), idaoRole.findByName(ROLE_NAME).getRoleId());
+
+        statistics.clear();
+        assertEquals(role.getRoleId(), idaoRole.findByName(ROLE_NAME).getRoleId());
+
+        assertEquals(0, statistics.getPrepareStatementCount());
+        assertTrue(statistics.getNaturalIdCacheHitCount() > 0);
+    }
+
+
+    @Test
+    void repeatedMemberLookupByEmailShouldNotQueryDatabase() {
+        assertNotNull(idaoMember.findByEmail(MEMBER_EMAIL));
+
+        statistics.clear();
+        Member cached = idaoMember.findByEmail(MEMBER_EMAIL);
+
+        assertEquals(member.getUserId(), cached.getUserId());
+        assertEquals(ROLE_NAME, cached.getRole().getName());
+        assertEquals(0, statistics.getPrepareStatementCount());
+    }
+
+
+    // Unknown emails are still answered by the database
+    @Test
+    void unknownEmailShouldReturnNull() {
+        assertNull(idaoMember.findByEmail("unknown@elikia.fr"));
+        assertNull(idaoMember.findByEmail(null));
+    }
+
+
+    @Test
+    void repeatedEventLookupByIdShouldHitCache() {
+        idaoEvent.findById(event.getEventId());
+
+        statistics.clear();
+        Event cached = idaoEvent.findById(event.getEventId());
+
+        assertEquals("Cached event", cached.getTitle());
+        assertEquals(0, statistics.getPrepareStatementCount());
+        assertEquals(1, statistics.getSecondLevelCacheHitCount());
+    }
+
+
+    // An update goes through the cache, the next read sees it
+    @Test
+    void updatedEventShouldNotBeServedStale() {
+        idaoEvent.findById(event.getEventId());
+
+        event.setTitle("Renamed event");
+        eventRepository.save(event);
+
+        assertEquals("Renamed event", idaoEvent.findById(event.getEventId()).getTitle());
+    }
+
+
+    // Seat counters are updated natively: only the event concerned leaves the cache
+    @Test
+    void seatUpdateShouldEvictOnlyItsEvent() {
+        Event other = eventRepository.save(new Event(
+                "Other cached event",
+                "Description",
+                LocalDateTime.now().plusDays(1),
+                LocalDateTime.now().plusDays(2),
+                "Paris",
+                "1 rue de Paris",
+                50,
+                Visibility.PUBLIC
+        ));
+
+        try {
+            idaoEvent.findById(event.getEventId());
+            idaoEvent.findById(other.getEventId());
+
+            assertTrue(idaoEvent.reserveSeat(event.getEventId()));
+
+            statistics.clear();
+            assertEquals("Other cached event", idaoEvent.findById(other.getEventId()).getTitle());
+            assertEquals(1, statistics.getSecondLevelCacheHitCount());
+
+            assertEquals(1, idaoEvent.findById(event.getEventId()).getReservedSeats());
+        } finally {
+            eventRepository.deleteById(other.getEventId());
+        }
+    }
+
+
+    @Test
+    void statisticsShouldListRegionsWithHits() {
+        idaoRole.findByName(ROLE_NAME);
+        idaoRole.findByName(ROLE_NAME);
+
+        List<CacheRegionStatisticsDTO> regions = cacheStatisticsService.getRegionStatistics().getData();
+
+        CacheRegionStatisticsDTO roleRegion = regions.stream()
+                .filter(region -> region.region().equals("role"))
+                .findFirst()
+                .orElseThrow();
+        assertTrue(roleRegion.hitCount() > 0);
+        assertTrue(regions.stream().anyMatch(region -> region.region().equals("member-by-email")));
+    }
+}
@@ -0,0 +1,37 @@
+package fr.elikia.backend.config.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExpiringStorageAccessTest {
+
+    // A full region makes room by evicting its oldest entries, new entries are still stored
+    @Test
+    void fullRegionShouldEvictOldestEntries() {
+        ExpiringStorageAccess storage = new ExpiringStorageAccess(Duration.ofMinutes(10), 10);
+
+        for (int key = 0; key < 10; key++) {
+            storage.putIntoCache(key, "value" + key, null);
+        }
+        storage.putIntoCache(10, "value10", null);
+
+        assertEquals("value10", storage.getFromCache(10, null));
+        assertFalse(storage.contains(0));
+        assertTrue(storage.contains(1));
+        assertTrue(storage.contains(9));
+    }
+
+
+    @Test
+    void expiredEntriesShouldNotBeServed() throws InterruptedException {
+        ExpiringStorageAccess storage = new ExpiringStorageAccess(Duration.ofMillis(20), 10);
+
+        storage.putIntoCache("key", "value", null);
+        Thread.sleep(40);
+
+        assertNull(storage.getFromCache("key", null));
+    }
+}
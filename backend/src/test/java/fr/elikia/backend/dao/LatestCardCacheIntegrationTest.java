@@ -0,0 +1,211 @@
+package fr.elikia.backend.dao;
+
+import fr.elikia.backend.AbstractIntegrationTest;
+import fr.elikia.backend.bll.EventService;
+import fr.elikia.backend.bll.NewsService;
+import fr.elikia.backend.bll.schedule.NewsSchedulerService;
+import fr.elikia.backend.bo.Event;
+import fr.elikia.backend.bo.Media;
+import fr.elikia.backend.bo.News;
+import fr.elikia.backend.bo.enums.ContentStatus;
+import fr.elikia.backend.bo.enums.Visibility;
+import fr.elikia.backend.dao.idao.IDAOEvent;
+import fr.elikia.backend.dao.idao.IDAOMedia;
+import fr.elikia.backend.dao.idao.IDAONews;
+import fr.elikia.backend.dto.EventCardDTO;
+import fr.elikia.backend.dto.NewsCardDTO;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks that the home page "latest" lists are served from memory
+ * and invalidated by every write of their content.
+ * Not transactional: reads inside a transaction bypass the cache.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class LatestCardCacheIntegrationTest extends AbstractIntegrationTest {
+
+    private static final int NEWS_LIMIT = 100;
+
+    @Autowired
+    private EventService eventService;
+
+    @Autowired
+    private NewsService newsService;
+
+    @Autowired
+    private NewsSchedulerService newsSchedulerService;
+
+    @Autowired
+    private IDAOEvent idaoEvent;
+
+    @Autowired
+    private IDAONews idaoNews;
+
+    @Autowired
+    private IDAOMedia idaoMedia;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private Statistics statistics;
+
+    private final List<Long> eventIds = new ArrayList<>();
+
+    private final List<Long> newsIds = new ArrayList<>();
+
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+
+    // Deleting through the DAOs also invalidates what the tests cached
+    @AfterEach
+    void tearDown() {
+        eventIds.forEach(idaoEvent::deleteById);
+        newsIds.forEach(idaoNews::deleteById);
+    }
+
+
+    @Test
+    void repeatedLatestEventsShouldNotQueryDatabase() {
+        createEvent("First", 1000);
+        eventService.findLastEvent();
+
+        statistics.clear();
+        List<EventCardDTO> cards = eventService.findLastEvent().getData();
+
+        assertEquals("First", cards.getFirst().title());
+        assertEquals(0, statistics.getPrepareStatementCount());
+    }
+
+
+    @Test
+    void createdAndUpdatedEventShouldBeVisibleImmediately() {
+        eventService.findLastEvent();
+
+        Event event = createEvent("Created", 1001);
+        assertEquals("Created", eventService.findLastEvent().getData().getFirst().title());
+
+        event.setTitle("Updated");
+        idaoEvent.update(event);
+        assertEquals("Updated", eventService.findLastEvent().getData().getFirst().title());
+
+        idaoEvent.deleteById(event.getEventId());
+        eventIds.remove(event.getEventId());
+        assertTrue(eventService.findLastEvent().getData().stream()
+                .noneMatch(card -> card.eventId().equals(event.getEventId())));
+    }
+
+
+    @Test
+    void addedMediaShouldInvalidateLatestEvents() {
+        Event event = createEvent("With media", 1002);
+        assertTrue(eventService.findLastEvent().getData().getFirst().mediaList().isEmpty());
+
+        Media media = new Media();
+        media.setCaption("Cover");
+        media.setEvent(event);
+        idaoMedia.create(media);
+
+        assertEquals("Cover", eventService.findLastEvent().getData().getFirst().mediaList().getFirst().caption());
+    }
+
+
+    @Test
+    void scheduledPublicationShouldInvalidateLatestNews() {
+        News news = new News("Scheduled", "Content", LocalDateTime.now().minusMinutes(1), Visibility.PUBLIC);
+        news.setContentStatus(ContentStatus.CREATED);
+        newsIds.add(idaoNews.create(news).getNewsId());
+
+        assertFalse(containsNews(newsService.findLastPublishedNews(NEWS_LIMIT).getData(), news));
+
+        newsSchedulerService.publishScheduledNews();
+
+        assertTrue(containsNews(newsService.findLastPublishedNews(NEWS_LIMIT).getData(), news));
+    }
+
+
+    // A read inside a rolled back transaction must not leave the uncommitted rows in memory
+    @Test
+    void rolledBackWriteShouldNotBeCached() {
+        eventService.findLastEvent();
+
+        Long rolledBackId = new TransactionTemplate(transactionManager).execute(status -> {
+            Event event = createEvent("Rolled back", 1003);
+            eventIds.remove(event.getEventId());
+            assertEquals("Rolled back", eventService.findLastEvent().getData().getFirst().title());
+            status.setRollbackOnly();
+            return event.getEventId();
+        });
+
+        assertTrue(eventService.findLastEvent().getData().stream()
+                .noneMatch(card -> card.eventId().equals(rolledBackId)));
+    }
+
+
+    // Writes of another node are not seen here: the entry still expires
+    @Test
+    void entriesShouldExpireWithoutLocalWrite() throws InterruptedException {
+        LatestCardCache shortLived = new LatestCardCache(Duration.ofMillis(50));
+        AtomicInteger loads = new AtomicInteger();
+
+        shortLived.get(LatestCardCache.Section.NEWS, 3, () -> List.of(loads.incrementAndGet()));
+        shortLived.get(LatestCardCache.Section.NEWS, 3, () -> List.of(loads.incrementAndGet()));
+        assertEquals(1, loads.get());
+
+        Thread.sleep(100);
+
+        assertEquals(List.of(2), shortLived.get(LatestCardCache.Section.NEWS, 3,
+                () -> List.of(loads.incrementAndGet())));
+    }
+
+
+    // =========================================================
+    // Private helpers
+    // =========================================================
+
+    // Far in the future so the event is the first of the latest list
+    private Event createEvent(String title, int yearsAhead) {
+        Event event = idaoEvent.create(new Event(
+                title,
+                "Description",
+                LocalDateTime.now().plusYears(yearsAhead),
+                LocalDateTime.now().plusYears(yearsAhead).plusDays(1),
+                "Paris",
+                "1 rue de Paris",
+                50,
+                Visibility.PUBLIC
+        ));
+        eventIds.add(event.getEventId());
+        return event;
+    }
+
+
+    private static boolean containsNews(List<NewsCardDTO> cards, News news) {
+        return cards.stream().anyMatch(card -> card.newsId().equals(news.getNewsId()));
+    }
+}
@@ -0,0 +1,210 @@
+package fr.elikia.backend.event;
+
+import fr.elikia.backend.AbstractIntegrationTest;
+import fr.elikia.backend.bll.EventService;
+import fr.elikia.backend.bll.PageCursor;
+import fr.elikia.backend.bo.Event;
+import fr.elikia.backend.bo.Media;
+import fr.elikia.backend.bo.enums.Visibility;
+import fr.elikia.backend.dto.CursorPageDTO;
+import fr.elikia.backend.dto.EventCardDTO;
+import fr.elikia.backend.dto.EventResponseDTO;
+import fr.elikia.backend.dto.MediaCardDTO;
+import fr.elikia.backend.repository.EventRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.transaction.Transactional;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that event list pages load their media with a fixed number of queries.
+ * Public lists are read as card projections: no entity is loaded, only the cover media.
+ * The test transaction plays the role of the open-session-in-view request scope,
+ * so any lazy loading triggered by the mapping would be counted.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Transactional
+class EventListQueryCountIntegrationTest extends AbstractIntegrationTest {
+
+    private static final int EVENT_COUNT = 15;
+
+    private static final String LONG_DESCRIPTION = "Description ".repeat(100);
+
+    @Autowired
+    private EventService eventService;
+
+    @Autowired
+    private EventRepository eventRepository;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private Statistics statistics;
+
+
+    @BeforeEach
+    void setUp() {
+        for (int i = 0; i < EVENT_COUNT; i++) {
+            Event event = new Event(
+                    "Event " + i,
+                    LONG_DESCRIPTION,
+                    LocalDateTime.now().plusDays(i + 1),
+                    LocalDateTime.now().plusDays(i + 2),
+                    "Paris",
+                    "1 rue de Paris",
+                    50,
+                    Visibility.PUBLIC
+            );
+            for (int m = 0; m < 2; m++) {
+                Media media = new Media();
+                media.setCaption("Media " + m);
+                event.addMedia(media);
+            }
+            eventRepository.save(event);
+        }
+
+        entityManager.flush();
+        entityManager.clear();
+
+        statistics = entityManager.getEntityManagerFactory()
+                .unwrap(SessionFactory.class)
+                .getStatistics();
+        statistics.clear();
+    }
+
+
+    // Card query + cover query + count query, whatever the page size, without loading any entity
+    @Test
+    void publicPageShouldLoadCardsWithConstantQueryCount() {
+        assertEquals(3, statementsToReadCards(() -> eventService.findAllByVisibilityOrderByStartDateDesc(0, 3)
+                .getData().getContent()));
+
+        assertEquals(3, statementsToReadCards(() -> eventService.findAllByVisibilityOrderByStartDateDesc(0, 12)
+                .getData().getContent()));
+        assertEquals(0, statistics.getEntityLoadCount());
+    }
+
+
+    // The card carries an excerpt of the description, truncated by the query
+    @Test
+    void publicPageShouldTruncateDescription() {
+        EventCardDTO card = eventService.findAllByVisibilityOrderByStartDateDesc(0, 1)
+                .getData().getContent().get(0);
+
+        assertEquals(LONG_DESCRIPTION.substring(0, EventCardDTO.EXCERPT_LENGTH), card.description());
+        assertEquals("Media 0", card.mediaList().get(0).caption());
+    }
+
+
+    // Each scroll page costs the card query + the cover query however deep it is (no offset, no count);
+    // the identifier breaks ties between equal start dates
+    @Test
+    void scrollShouldVisitEveryEventOnceWithConstantQueryCount() {
+        LocalDateTime sameStart = LocalDateTime.now().plusYears(1);
+        for (int i = 0; i < 3; i++) {
+            Event event = new Event(
+                    "Same start " + i,
+                    LONG_DESCRIPTION,
+                    sameStart,
+                    sameStart.plusHours(2),
+                    "Paris",
+                    "1 rue de Paris",
+                    50,
+                    Visibility.PUBLIC
+            );
+            Media media = new Media();
+            media.setCaption("Media 0");
+            event.addMedia(media);
+            eventRepository.save(event);
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        Set<Long> visited = new HashSet<>();
+        String cursor = null;
+        do {
+            statistics.clear();
+            CursorPageDTO<EventCardDTO> page = eventService.findPublicEventScroll(cursor, 4).getData();
+
+            assertEquals(2, statistics.getPrepareStatementCount());
+            page.content().forEach(card -> assertTrue(visited.add(card.eventId())));
+            cursor = page.nextCursor();
+        } while (cursor != null);
+
+        assertEquals(EVENT_COUNT + 3, visited.size());
+    }
+
+
+    // A cursor that was not produced by the server is rejected, not read as the first page
+    @Test
+    void scrollShouldRejectInvalidCursorOrSize() {
+        assertEquals("400", eventService.findPublicEventScroll("not-a-cursor", 4).getCode());
+        assertEquals("400", eventService.findPublicEventScroll(null, 0).getCode());
+        assertEquals("400", eventService.findPublicEventScroll(null, PageCursor.MAX_PAGE_SIZE + 1).getCode());
+    }
+
+
+    // Admin page: same fetch plan
+    @Test
+    void adminPageShouldLoadMediaWithConstantQueryCount() {
+        assertEquals(3, statementsToRead(() -> eventService.findEventPage(0, 12).getData().getContent()));
+    }
+
+
+    // Home page list: no count query, card query + cover query
+    @Test
+    void latestEventsShouldLoadInTwoQueries() {
+        assertEquals(2, statementsToReadCards(() -> eventService.findLastEvent().getData()));
+        assertEquals(0, statistics.getEntityLoadCount());
+    }
+
+
+    /**
+     * Runs a read, walks every media of the result like the JSON serialization does,
+     * and returns the number of SQL statements executed.
+     */
+    private long statementsToRead(Supplier<List<EventResponseDTO>> read) {
+        statistics.clear();
+
+        List<EventResponseDTO> events = read.get();
+        for (EventResponseDTO event : events) {
+            assertEquals(2, event.getMediaList().size());
+            event.getMediaList().forEach(Media::getCaption);
+        }
+
+        return statistics.getPrepareStatementCount();
+    }
+
+
+    /**
+     * Runs a card read, checks each card carries its cover media only,
+     * and returns the number of SQL statements executed.
+     */
+    private long statementsToReadCards(Supplier<List<EventCardDTO>> read) {
+        statistics.clear();
+
+        List<EventCardDTO> cards = read.get();
+        for (EventCardDTO card : cards) {
+            assertEquals(1, card.mediaList().size());
+            card.mediaList().forEach(MediaCardDTO::caption);
+        }
+
+        return statistics.getPrepareStatementCount();
+    }
+}
@@ -1,22 +1,28 @@
 package fr.elikia.backend.event;
 
+import fr.elikia.backend.bll.EmailDispatcher;
 import fr.elikia.backend.bll.EmailService;
 import fr.elikia.backend.bll.EventRegistrationService;
+import fr.elikia.backend.bll.ingestion.RegistrationWriteBehind;
 import fr.elikia.backend.bo.Event;
 import fr.elikia.backend.bo.EventRegistration;
 import fr.elikia.backend.bo.LogicResult;
+import fr.elikia.backend.bo.enums.ActivityOwnerType;
 import fr.elikia.backend.bo.enums.RegistrationStatus;
 import fr.elikia.backend.bo.enums.Visibility;
 import fr.elikia.backend.dao.idao.IDAOEvent;
 import fr.elikia.backend.dao.idao.IDAOEventRegistration;
 import fr.elikia.backend.dao.idao.IDAOMember;
 import fr.elikia.backend.dto.EventRegistrationDTO;
+import org.hibernate.exception.ConstraintViolationException;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
@@ -24,6 +30,7 @@ import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
@@ -43,6 +50,15 @@ class EventRegistrationServiceTest {
     @Mock
     private EmailService emailService;
 
+    @Mock
+    private EmailDispatcher emailDispatcher;
+
+    @Mock
+    private RegistrationWriteBehind registrationWriteBehind;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
     @InjectMocks
     private EventRegistrationService eventRegistrationService;
 
@@ -59,6 +75,16 @@ class EventRegistrationServiceTest {
         return dto;
     }
 
+    /**
+     * Build the exception of an insert refused by a unique key.
+     */
+    private static DataIntegrityViolationException duplicateKey(String constraintName) {
+        return new DataIntegrityViolationException(
+                "Duplicate registration",
+                new ConstraintViolationException("Unique key violated", null, constraintName)
+        );
+    }
+
     /**
      * Verify that a visitor can successfully register for a public event.
      */
@@ -76,17 +102,15 @@ class EventRegistrationServiceTest {
         when(idaoEvent.findById(eventId))
                 .thenReturn(event);
 
-        when(idaoEventRegistration.existsByEventAndEmail(
-                event,
-                registrationDTO.getEmail()
-        )).thenReturn(false);
+        when(idaoEvent.reserveSeat(eventId))
+                .thenReturn(true);
 
         when(idaoEventRegistration.create(
                 any(EventRegistration.class)
         )).thenAnswer(invocation -> invocation.getArgument(0));
 
         // Act
-        LogicResult<Void> result =
+        LogicResult<String> result =
                 eventRegistrationService.registerToEvent(
                         eventId,
                         registrationDTO,
@@ -136,11 +160,11 @@ class EventRegistrationServiceTest {
 
         verify(idaoEvent).findById(eventId);
 
-        verify(idaoEventRegistration)
-                .existsByEventAndEmail(
-                        event,
-                        registrationDTO.getEmail()
-                );
+        // No lookup before the insert: the unique keys refuse duplicates
+        verify(
+                idaoEventRegistration,
+                never()
+        ).existsByEventAndEmail(any(), any());
 
         verify(
                 idaoEventRegistration,
@@ -165,7 +189,7 @@ class EventRegistrationServiceTest {
                 .thenReturn(null);
 
         // Act
-        LogicResult<Void> result =
+        LogicResult<String> result =
                 eventRegistrationService.registerToEvent(
                         eventId,
                         registrationDTO,
@@ -186,6 +210,124 @@ class EventRegistrationServiceTest {
         );
     }
 
+    /**
+     * Verify that a registration joins the waitlist once the event is full.
+     */
+    @Test
+    void shouldAddRegistrationToWaitlistWhenEventIsFull() {
+        // Arrange
+        Long eventId = 1L;
+
+        Event event = new Event();
+        event.setVisibility(Visibility.PUBLIC);
+
+        when(idaoEvent.findById(eventId))
+                .thenReturn(event);
+
+        when(idaoEvent.reserveSeat(eventId))
+                .thenReturn(false);
+
+        when(idaoEvent.joinWaitlist(eventId))
+                .thenReturn(3L);
+
+        when(idaoEventRegistration.create(
+                any(EventRegistration.class)
+        )).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // Act
+        LogicResult<String> result =
+                eventRegistrationService.registerToEvent(
+                        eventId,
+                        buildValidRegistrationDTO(),
+                        null
+                );
+
+        // Assert
+        assertEquals("202", result.getCode());
+        assertEquals(
+                "The event is full, the registration has been added to the waitlist",
+                result.getMessage()
+        );
+
+        ArgumentCaptor<EventRegistration> registrationCaptor =
+                ArgumentCaptor.forClass(EventRegistration.class);
+
+        verify(idaoEventRegistration)
+                .create(registrationCaptor.capture());
+
+        assertEquals(
+                RegistrationStatus.WAITLISTED,
+                registrationCaptor.getValue().getStatus()
+        );
+        assertEquals(3L, registrationCaptor.getValue().getWaitlistPosition());
+
+        // Both attempts failed, no seat is held
+        verify(idaoEvent, times(2)).reserveSeat(eventId);
+        verify(idaoEvent, never()).releaseSeat(any());
+        verifyNoInteractions(idaoMember, emailService);
+    }
+
+    /**
+     * Verify that cancelling a registration hands its seat
+     * to the head of the waitlist and notifies it asynchronously.
+     */
+    @Test
+    void shouldPromoteHeadOfWaitlistWhenRegistrationIsCancelled() {
+        // Arrange
+        Long registrationId = 10L;
+
+        Event event = new Event();
+        event.setTitle("Spring Boot Event");
+
+        EventRegistration registration = new EventRegistration();
+        registration.setStatus(RegistrationStatus.APPROVED);
+        registration.setEvent(event);
+
+        EventRegistration waiter = new EventRegistration();
+        waiter.setFirstName("Next");
+        waiter.setEmail("next@example.com");
+        waiter.setStatus(RegistrationStatus.WAITLISTED);
+        waiter.setWaitlistPosition(1L);
+        waiter.setEvent(event);
+
+        when(idaoEventRegistration.findByIdForUpdate(registrationId))
+                .thenReturn(registration);
+
+        when(idaoEventRegistration.findWaitlistHead(event))
+                .thenReturn(waiter);
+
+        when(idaoEvent.reserveSeat(event.getEventId()))
+                .thenReturn(true);
+
+        when(idaoEventRegistration.update(any(EventRegistration.class)))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+
+        // Act
+        LogicResult<Void> result =
+                eventRegistrationService.cancelRegistration(registrationId);
+
+        // Assert
+        assertEquals("200", result.getCode());
+        assertEquals(RegistrationStatus.CANCELLED, registration.getStatus());
+        assertEquals(RegistrationStatus.PENDING, waiter.getStatus());
+        assertNull(waiter.getWaitlistPosition());
+
+        verify(idaoEvent).releaseSeat(event.getEventId());
+        verify(idaoEventRegistration).update(waiter);
+
+        // The email is handed to the dispatcher, not sent by the request
+        ArgumentCaptor<Runnable> emailCaptor = ArgumentCaptor.forClass(Runnable.class);
+        verify(emailDispatcher).sendAfterCommit(emailCaptor.capture());
+        verifyNoInteractions(emailService);
+
+        emailCaptor.getValue().run();
+        verify(emailService).sendEventWaitlistPromotedEmail(
+                "next@example.com",
+                "Next",
+                "Spring Boot Event"
+        );
+    }
+
     /**
      * Verify that the same visitor cannot register twice
      * for the same event.
@@ -204,13 +346,15 @@ class EventRegistrationServiceTest {
         when(idaoEvent.findById(eventId))
                 .thenReturn(event);
 
-        when(idaoEventRegistration.existsByEventAndEmail(
-                event,
-                registrationDTO.getEmail()
-        )).thenReturn(true);
+        when(idaoEvent.reserveSeat(eventId))
+                .thenReturn(true);
+
+        when(idaoEventRegistration.create(
+                any(EventRegistration.class)
+        )).thenThrow(duplicateKey("UK_EVENT_REGISTRATION_EMAIL_INDEX_C"));
 
         // Act
-        LogicResult<Void> result =
+        LogicResult<String> result =
                 eventRegistrationService.registerToEvent(
                         eventId,
                         registrationDTO,
@@ -227,16 +371,9 @@ class EventRegistrationServiceTest {
 
         verify(idaoEvent).findById(eventId);
 
-        verify(idaoEventRegistration)
-                .existsByEventAndEmail(
-                        event,
-                        registrationDTO.getEmail()
-                );
-
-        verify(
-                idaoEventRegistration,
-                never()
-        ).create(any(EventRegistration.class));
+        // The transaction rolls the seat back, nothing is given back by hand
+        verify(transactionManager).rollback(any());
+        verify(idaoEvent, never()).releaseSeat(any());
 
         verify(
                 idaoEventRegistration,
@@ -265,7 +402,7 @@ class EventRegistrationServiceTest {
         registration.setStatus(RegistrationStatus.PENDING);
         registration.setEvent(event);
 
-        when(idaoEventRegistration.findById(registrationId))
+        when(idaoEventRegistration.findByIdForUpdate(registrationId))
                 .thenReturn(registration);
 
         when(idaoEventRegistration.update(registration))
@@ -293,7 +430,7 @@ class EventRegistrationServiceTest {
         );
 
         verify(idaoEventRegistration)
-                .findById(registrationId);
+                .findByIdForUpdate(registrationId);
 
         verify(idaoEventRegistration)
                 .update(registration);
@@ -328,7 +465,7 @@ class EventRegistrationServiceTest {
         registration.setStatus(RegistrationStatus.PENDING);
         registration.setEvent(event);
 
-        when(idaoEventRegistration.findById(registrationId))
+        when(idaoEventRegistration.findByIdForUpdate(registrationId))
                 .thenReturn(registration);
 
         when(idaoEventRegistration.update(registration))
@@ -357,7 +494,7 @@ class EventRegistrationServiceTest {
         );
 
         verify(idaoEventRegistration)
-                .findById(registrationId);
+                .findByIdForUpdate(registrationId);
 
         verify(idaoEventRegistration)
                 .update(registration);
@@ -370,6 +507,57 @@ class EventRegistrationServiceTest {
                         refusalReason
                 );
 
-        verifyNoInteractions(idaoEvent, idaoMember);
+        // The pending registration gives its seat back
+        verify(idaoEvent).releaseSeat(event.getEventId());
+
+        verifyNoInteractions(idaoMember);
+    }
+
+
+    /**
+     * Verify that, in write-behind mode, the registration is queued
+     * and acknowledged with its reference instead of being created.
+     */
+    @Test
+    void shouldQueueRegistrationInWriteBehindMode() {
+        // Arrange
+        Long eventId = 1L;
+
+        Event event = new Event();
+        event.setVisibility(Visibility.PUBLIC);
+
+        EventRegistrationDTO registrationDTO =
+                buildValidRegistrationDTO();
+
+        when(idaoEvent.findById(eventId))
+                .thenReturn(event);
+
+        when(registrationWriteBehind.isRunning())
+                .thenReturn(true);
+
+        when(registrationWriteBehind.submit(
+                ActivityOwnerType.EVENT,
+                eventId,
+                null,
+                "Iman",
+                "Test",
+                "iman@example.com"
+        )).thenReturn("reference");
+
+        // Act
+        LogicResult<String> result =
+                eventRegistrationService.registerToEvent(
+                        eventId,
+                        registrationDTO,
+                        null
+                );
+
+        // Assert
+        assertEquals("202", result.getCode());
+        assertEquals("reference", result.getData());
+
+        // Seats and rows are left to the batch writer
+        verify(idaoEvent, never()).reserveSeat(eventId);
+        verify(idaoEventRegistration, never()).create(any(EventRegistration.class));
     }
-}
\ No newline at end of file
+}
@@ -2,7 +2,10 @@ package fr.elikia.backend.event;
 
 import fr.elikia.backend.bll.EventService;
 import fr.elikia.backend.bll.MediaService;
+import fr.elikia.backend.bll.storage.MediaStorageService;
+import fr.elikia.backend.bll.storage.StagedFile;
 import fr.elikia.backend.bo.*;
+import fr.elikia.backend.bo.enums.ActivityOwnerType;
 import fr.elikia.backend.bo.enums.Visibility;
 import fr.elikia.backend.dao.idao.IDAOEvent;
 import fr.elikia.backend.dto.EventDTO;
@@ -15,13 +18,16 @@ import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.nio.file.Path;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.function.Supplier;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -33,6 +39,9 @@ class EventServiceTest {
     @Mock
     private MediaService mediaService;
 
+    @Mock
+    private MediaStorageService mediaStorageService;
+
     @InjectMocks
     private EventService eventService;
 
@@ -63,6 +72,14 @@ class EventServiceTest {
     }
 
 
+    // Run the metadata phase inline, as the real service does inside its transaction
+    private void runStagedWorkInline() {
+        when(mediaStorageService.executeWithStagedFiles(anyList(), any()))
+                .thenAnswer(invocation ->
+                        invocation.<Supplier<LogicResult<Void>>>getArgument(1).get());
+    }
+
+
     // Success case
     @Test
     void shouldCreateEventWithoutMediaSuccessfully() {
@@ -79,6 +96,8 @@ class EventServiceTest {
         when(idaoEvent.update(any(Event.class)))
                 .thenAnswer(invocation ->invocation.getArgument(0));
 
+        runStagedWorkInline();
+
         // Act
         LogicResult<Void> result =
                 eventService.createEvent(eventDTO, null, null);
@@ -122,6 +141,10 @@ class EventServiceTest {
 
         MultipartFile file = mockImage();
         List<MultipartFile> files = List.of(file);
+        StagedFile stagedFile = new StagedFile(Path.of("staged.part"), "staged.jpg");
+
+        when(mediaService.stageFiles(eq(files), any()))
+                .thenReturn(new LogicResult<>("200", "Files staged successfully", List.of(stagedFile)));
 
         doAnswer(invocation -> {
             Event event = invocation.getArgument(0);
@@ -129,18 +152,18 @@ class EventServiceTest {
             return null;
         }).when(idaoEvent).create(any(Event.class));
 
-        when(mediaService.createMedia(
-                any(),
-                any(),
-                any(),
-                any(),
-                anyLong(),
+        when(mediaService.createMedias(
+                eq(ActivityOwnerType.EVENT),
+                eq(1L),
+                eq(List.of(stagedFile)),
                 any(),
                 any()
         )).thenReturn(
                 new LogicResult<>("400", "Invalid image", null)
         );
 
+        runStagedWorkInline();
+
         // Act
         LogicResult<Void> result =
                 eventService.createEvent(eventDTO, null, files);
@@ -150,12 +173,10 @@ class EventServiceTest {
         assertTrue(result.getMessage().startsWith("Invalid image"));
 
         verify(idaoEvent).create(any(Event.class));
-        verify(mediaService).createMedia(
-                any(),
-                any(),
-                any(),
-                any(),
-                anyLong(),
+        verify(mediaService).createMedias(
+                eq(ActivityOwnerType.EVENT),
+                eq(1L),
+                eq(List.of(stagedFile)),
                 any(),
                 any()
         );
@@ -0,0 +1,148 @@
+package fr.elikia.backend.event;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import fr.elikia.backend.AbstractIntegrationTest;
+import fr.elikia.backend.bo.Event;
+import fr.elikia.backend.bo.enums.Visibility;
+import fr.elikia.backend.repository.EventRegistrationRepository;
+import fr.elikia.backend.repository.EventRepository;
+import fr.elikia.backend.security.admission.AdmissionInterceptor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Checks the waiting room in front of the registration endpoints:
+ * one request per second and two at once, so the third one of a burst waits.
+ */
+@SpringBootTest(properties = {
+        "registration.admission.rate-per-second=1",
+        "registration.admission.burst=2",
+        "registration.admission.max-wait=PT5S"
+})
+@ActiveProfiles("test")
+@Transactional
+class RegistrationAdmissionIntegrationTest extends AbstractIntegrationTest {
+
+    private static final String REGISTER_URL = "/api/event-registration/public/event/{eventId}";
+
+    @Autowired
+    private WebApplicationContext context;
+
+    @Autowired
+    private EventRepository eventRepository;
+
+    @Autowired
+    private EventRegistrationRepository eventRegistrationRepository;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private MockMvc mockMvc;
+    private Event event;
+
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.webAppContextSetup(context).build();
+
+        event = eventRepository.save(new Event("Opening", "Admission control",
+                LocalDateTime.now().plusDays(2), LocalDateTime.now().plusDays(2).plusHours(2),
+                "Paris", "1 Test Street", 50, Visibility.PUBLIC));
+    }
+
+
+    @Test
+    void queuedRequestShouldBeAdmittedWithItsToken() throws Exception {
+        register("first", null).andExpect(status().isCreated());
+        register("second", null).andExpect(status().isCreated());
+
+        MvcResult queued = register("third", null)
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().exists(HttpHeaders.RETRY_AFTER))
+                .andExpect(jsonPath("$.code").value("429"))
+                .andExpect(jsonPath("$.data.position").value(1))
+                .andReturn();
+
+        // Held back before reaching the service
+        assertEquals(2, eventRegistrationRepository.findByEvent(event).size());
+
+        JsonNode ticket = objectMapper.readTree(queued.getResponse().getContentAsString()).get("data");
+        Thread.sleep(ticket.get("retryAfterSeconds").asLong() * 1000);
+
+        register("third", ticket.get("queueToken").asText()).andExpect(status().isCreated());
+        assertTrue(eventRegistrationRepository.existsByEventAndEmail(event, "third@admission.test"));
+    }
+
+
+    @Test
+    void fullQueueShouldAnswerServiceUnavailable() throws Exception {
+        int status;
+        int requests = 0;
+        do {
+            status = register("burst" + requests, null).andReturn().getResponse().getStatus();
+            requests++;
+        } while (status != 503 && requests < 20);
+
+        assertEquals(503, status);
+        // Two admitted at once, then about five seconds of queue
+        assertTrue(requests >= 7 && requests <= 9, String.valueOf(requests));
+    }
+
+
+    // Each activity has its own queue: a burst on one event does not hold back another
+    @Test
+    void otherEventShouldNotBeQueued() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            register("burst" + i, null);
+        }
+
+        // Admitted, then answered by the service
+        mockMvc.perform(post(REGISTER_URL, event.getEventId() + 1000)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body("other")))
+                .andExpect(status().isNotFound());
+    }
+
+
+    private ResultActions register(String name, String token) throws Exception {
+        MockHttpServletRequestBuilder request = post(REGISTER_URL, event.getEventId())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(body(name));
+        if (token != null) {
+            request.header(AdmissionInterceptor.QUEUE_TOKEN_HEADER, token);
+        }
+        return mockMvc.perform(request);
+    }
+
+
+    private static String body(String name) {
+        return """
+                {
+                  "firstName": "%s",
+                  "lastName": "Test",
+                  "email": "%s@admission.test"
+                }
+                """.formatted(name, name);
+    }
+}
@@ -0,0 +1,206 @@
+package fr.elikia.backend.event;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import fr.elikia.backend.AbstractIntegrationTest;
+import fr.elikia.backend.bll.EventRegistrationService;
+import fr.elikia.backend.bll.ingestion.PendingRegistration;
+import fr.elikia.backend.bll.ingestion.RegistrationBatchWriter;
+import fr.elikia.backend.bll.ingestion.RegistrationWriteBehind;
+import fr.elikia.backend.bo.Event;
+import fr.elikia.backend.bo.EventRegistration;
+import fr.elikia.backend.bo.LogicResult;
+import fr.elikia.backend.bo.enums.ActivityOwnerType;
+import fr.elikia.backend.bo.enums.RegistrationStatus;
+import fr.elikia.backend.bo.enums.Visibility;
+import fr.elikia.backend.dao.idao.IDAOEvent;
+import fr.elikia.backend.dao.idao.IDAOEventRegistration;
+import fr.elikia.backend.dto.EventRegistrationDTO;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks the write-behind mode of the registrations: acknowledged at once,
+ * written by the background writer, and replayed from the journal after a crash.
+ * Not transactional: the rows are written by another thread.
+ */
+@SpringBootTest(properties = {
+        "registration.write-behind.enabled=true",
+        "registration.write-behind.batch-size=50",
+        "registration.write-behind.flush-interval=PT0.05S",
+        "registration.write-behind.journal=${java.io.tmpdir}/elikia-test/registrations.journal"
+})
+@ActiveProfiles("test")
+class RegistrationWriteBehindIntegrationTest extends AbstractIntegrationTest {
+
+    private static final int CAPACITY = 5;
+    private static final Duration WRITE_TIMEOUT = Duration.ofSeconds(10);
+
+    @Autowired
+    private EventRegistrationService eventRegistrationService;
+
+    @Autowired
+    private RegistrationBatchWriter registrationBatchWriter;
+
+    @Autowired
+    private IDAOEvent idaoEvent;
+
+    @Autowired
+    private IDAOEventRegistration idaoEventRegistration;
+
+    @TempDir
+    private Path tempDir;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private final List<Long> eventIds = new ArrayList<>();
+
+
+    @AfterEach
+    void tearDown() {
+        eventIds.forEach(idaoEvent::deleteById);
+    }
+
+
+    @Test
+    void queuedBurstShouldFillEventThenWaitlist() throws Exception {
+        Long eventId = createEvent();
+        int requests = 12;
+
+        for (int i = 0; i < requests; i++) {
+            LogicResult<String> result =
+                    eventRegistrationService.registerToEvent(eventId, eventRegistration("burst" + i), null);
+
+            assertEquals("202", result.getCode());
+            assertNotNull(result.getData());
+        }
+
+        awaitUntil(() -> registrationsOf(eventId).size() == requests);
+
+        List<EventRegistration> registrations = registrationsOf(eventId);
+        assertEquals(CAPACITY, registrations.stream()
+                .filter(registration -> registration.getStatus() == RegistrationStatus.PENDING)
+                .count());
+        assertEquals(CAPACITY, idaoEvent.findById(eventId).getReservedSeats());
+        // The waiters keep their arrival order
+        assertEquals(List.of(1L, 2L, 3L, 4L, 5L, 6L, 7L), registrations.stream()
+                .map(EventRegistration::getWaitlistPosition)
+                .filter(Objects::nonNull)
+                .sorted()
+                .toList());
+    }
+
+
+    // Both are queued before either is written: the batch writer keeps the first one
+    @Test
+    void queuedDuplicateShouldBeWrittenOnce() throws Exception {
+        Long eventId = createEvent();
+
+        eventRegistrationService.registerToEvent(eventId, eventRegistration("twin"), null);
+        eventRegistrationService.registerToEvent(eventId, eventRegistration("twin"), null);
+        eventRegistrationService.registerToEvent(eventId, eventRegistration("marker"), null);
+
+        // Batches are written in order: once the marker is in, both twins are settled
+        awaitUntil(() -> registrationsOf(eventId).stream()
+                .anyMatch(registration -> registration.getEmail().equals("marker@behind.test")));
+
+        assertEquals(2, registrationsOf(eventId).size());
+        assertEquals(2, idaoEvent.findById(eventId).getReservedSeats());
+
+        // Once written, the duplicate is refused straight away
+        assertEquals("400", eventRegistrationService
+                .registerToEvent(eventId, eventRegistration("twin"), null).getCode());
+    }
+
+
+    @Test
+    void journalShouldBeReplayedAtStartup() throws Exception {
+        Long eventId = createEvent();
+        Path journal = tempDir.resolve("registrations.journal");
+
+        Files.writeString(journal, String.join("\n",
+                "A " + objectMapper.writeValueAsString(pending(1, eventId, "written")),
+                "C 1",
+                "A " + objectMapper.writeValueAsString(pending(2, eventId, "lost")),
+                "A " + objectMapper.writeValueAsString(pending(3, eventId, "late")),
+                // Cut by the crash, never acknowledged
+                "A {\"sequence\":4,\"refer"), StandardCharsets.UTF_8);
+
+        RegistrationWriteBehind restarted = new RegistrationWriteBehind(registrationBatchWriter,
+                true, 100, 50, Duration.ofMillis(50), journal);
+        restarted.start();
+        restarted.shutdown();
+
+        assertEquals(List.of("late@behind.test", "lost@behind.test"), registrationsOf(eventId).stream()
+                .map(EventRegistration::getEmail)
+                .sorted()
+                .toList());
+        assertEquals(0, Files.size(journal));
+    }
+
+
+    // A replay of a batch already written (lost checkpoint) inserts nothing
+    @Test
+    void batchWrittenTwiceShouldBeInsertedOnce() {
+        Long eventId = createEvent();
+        List<PendingRegistration> batch = List.of(pending(1, eventId, "first"), pending(2, eventId, "second"));
+
+        registrationBatchWriter.write(batch);
+        registrationBatchWriter.write(batch);
+
+        assertEquals(2, registrationsOf(eventId).size());
+        assertEquals(2, idaoEvent.findById(eventId).getReservedSeats());
+    }
+
+
+    private Long createEvent() {
+        Event event = idaoEvent.create(new Event("Write-behind event", "Write-behind",
+                LocalDateTime.now().plusDays(2), LocalDateTime.now().plusDays(2).plusHours(2),
+                "Paris", "1 Test Street", CAPACITY, Visibility.PUBLIC));
+        eventIds.add(event.getEventId());
+        return event.getEventId();
+    }
+
+
+    private List<EventRegistration> registrationsOf(Long eventId) {
+        return idaoEventRegistration.findByEvent(idaoEvent.findById(eventId));
+    }
+
+
+    private static void awaitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + WRITE_TIMEOUT.toNanos();
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "Queued registrations not written in time");
+            Thread.sleep(50);
+        }
+    }
+
+
+    private static PendingRegistration pending(long sequence, Long eventId, String name) {
+        return new PendingRegistration(sequence, "reference-" + sequence, ActivityOwnerType.EVENT, eventId,
+                null, name, "Behind", name + "@behind.test", LocalDateTime.now());
+    }
+
+
+    private static EventRegistrationDTO eventRegistration(String name) {
+        EventRegistrationDTO dto = new EventRegistrationDTO();
+        dto.setFirstName(name);
+        dto.setLastName("Behind");
+        dto.setEmail(name + "@behind.test");
+        return dto;
+    }
+}
@@ -0,0 +1,129 @@
+package fr.elikia.backend.event;
+
+import fr.elikia.backend.bll.ingestion.PendingRegistration;
+import fr.elikia.backend.bll.ingestion.RegistrationBatchWriter;
+import fr.elikia.backend.bll.ingestion.RegistrationWriteBehind;
+import fr.elikia.backend.bo.enums.ActivityOwnerType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.CannotCreateTransactionException;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+
+@ExtendWith(MockitoExtension.class)
+class RegistrationWriteBehindTest {
+
+    private static final Duration WRITE_TIMEOUT = Duration.ofSeconds(15);
+
+    @Mock
+    private RegistrationBatchWriter batchWriter;
+
+    @TempDir
+    private Path tempDir;
+
+
+    // A registration the database keeps refusing is moved aside, the others are written
+    @Test
+    void refusedRegistrationShouldNotBlockTheQueue() throws Exception {
+        List<String> written = new CopyOnWriteArrayList<>();
+        doAnswer(invocation -> {
+            List<PendingRegistration> batch = invocation.getArgument(0);
+            if (batch.stream().anyMatch(registration -> registration.email().startsWith("poison"))) {
+                throw new DataIntegrityViolationException("Value too long for column");
+            }
+            batch.forEach(registration -> written.add(registration.email()));
+            return null;
+        }).when(batchWriter).write(anyList());
+
+        Path journal = tempDir.resolve("registrations.journal");
+        RegistrationWriteBehind writeBehind = new RegistrationWriteBehind(batchWriter,
+                true, 100, 50, Duration.ofMillis(50), journal);
+        writeBehind.start();
+
+        for (String name : List.of("first", "poison", "last")) {
+            assertNotNull(writeBehind.submit(ActivityOwnerType.EVENT, 1L, null, name, "Behind", name + "@behind.test"));
+        }
+
+        long deadline = System.nanoTime() + WRITE_TIMEOUT.toNanos();
+        while (written.size() < 2) {
+            assertTrue(System.nanoTime() < deadline, "Queue blocked by the refused registration");
+            Thread.sleep(50);
+        }
+        writeBehind.shutdown();
+
+        assertEquals(List.of("first@behind.test", "last@behind.test"), written);
+        assertTrue(Files.readString(tempDir.resolve("registrations.journal.rejected"), StandardCharsets.UTF_8)
+                .contains("poison@behind.test"));
+    }
+
+
+    // A batch left unwritten at shutdown stays in the journal, even if the database comes back for a later one
+    @Test
+    void batchUnwrittenAtShutdownShouldBeWrittenAtRestart() throws Exception {
+        Set<String> written = ConcurrentHashMap.newKeySet();
+        AtomicBoolean databaseUp = new AtomicBoolean(false);
+        AtomicBoolean stopping = new AtomicBoolean(false);
+        CountDownLatch firstAttempt = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            firstAttempt.countDown();
+            if (!databaseUp.get()) {
+                // Back as soon as the application stops, in time for the next batch
+                if (stopping.get()) {
+                    databaseUp.set(true);
+                }
+                throw new CannotCreateTransactionException("Connection refused");
+            }
+            List<PendingRegistration> batch = invocation.getArgument(0);
+            batch.forEach(registration -> written.add(registration.email()));
+            return null;
+        }).when(batchWriter).write(anyList());
+
+        Path journal = tempDir.resolve("registrations.journal");
+        RegistrationWriteBehind writeBehind = new RegistrationWriteBehind(batchWriter,
+                true, 100, 50, Duration.ofMillis(50), journal);
+        writeBehind.start();
+
+        assertNotNull(writeBehind.submit(ActivityOwnerType.EVENT, 1L, null, "first", "Behind", "first@behind.test"));
+        assertTrue(firstAttempt.await(WRITE_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS));
+        // Queued behind the batch the writer keeps retrying
+        assertNotNull(writeBehind.submit(ActivityOwnerType.EVENT, 1L, null, "second", "Behind", "second@behind.test"));
+
+        stopping.set(true);
+        writeBehind.shutdown();
+
+        RegistrationWriteBehind restarted = new RegistrationWriteBehind(batchWriter,
+                true, 100, 50, Duration.ofMillis(50), journal);
+        databaseUp.set(true);
+        restarted.start();
+        restarted.shutdown();
+
+        assertEquals(Set.of("first@behind.test", "second@behind.test"), written);
+    }
+
+
+    @Test
+    void enabledWriteBehindShouldRequireAJournalPath() {
+        RegistrationWriteBehind writeBehind = new RegistrationWriteBehind(batchWriter,
+                true, 100, 50, Duration.ofMillis(50), null);
+
+        assertThrows(IllegalStateException.class, writeBehind::start);
+    }
+}
@@ -0,0 +1,277 @@
+package fr.elikia.backend.event;
+
+import fr.elikia.backend.AbstractIntegrationTest;
+import fr.elikia.backend.bll.EventRegistrationService;
+import fr.elikia.backend.bll.WorkshopRegistrationService;
+import fr.elikia.backend.bo.Event;
+import fr.elikia.backend.bo.EventRegistration;
+import fr.elikia.backend.bo.Workshop;
+import fr.elikia.backend.bo.enums.RegistrationStatus;
+import fr.elikia.backend.bo.enums.Visibility;
+import fr.elikia.backend.dao.idao.IDAOEvent;
+import fr.elikia.backend.dao.idao.IDAOEventRegistration;
+import fr.elikia.backend.dao.idao.IDAOWorkshop;
+import fr.elikia.backend.dto.EventRegistrationDTO;
+import fr.elikia.backend.dto.WorkshopRegistrationDTO;
+import fr.elikia.backend.repository.WorkshopRegistrationRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks that registration bursts never overbook an event or a workshop:
+ * the registrations beyond the capacity go to the waitlist.
+ * Not transactional: every registration commits on its own, as under real traffic.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class SeatAllocationConcurrencyIntegrationTest extends AbstractIntegrationTest {
+
+    private static final int CAPACITY = 25;
+    private static final int REQUESTS = 300;
+    private static final int THREADS = 32;
+
+    @Autowired
+    private EventRegistrationService eventRegistrationService;
+
+    @Autowired
+    private WorkshopRegistrationService workshopRegistrationService;
+
+    @Autowired
+    private IDAOEvent idaoEvent;
+
+    @Autowired
+    private IDAOEventRegistration idaoEventRegistration;
+
+    @Autowired
+    private IDAOWorkshop idaoWorkshop;
+
+    @Autowired
+    private WorkshopRegistrationRepository workshopRegistrationRepository;
+
+    private final List<Long> eventIds = new ArrayList<>();
+    private final List<Long> workshopIds = new ArrayList<>();
+
+
+    @AfterEach
+    void tearDown() {
+        eventIds.forEach(idaoEvent::deleteById);
+        workshopIds.forEach(idaoWorkshop::deleteById);
+    }
+
+
+    @Test
+    void burstShouldFillEventExactlyToCapacity() throws Exception {
+        Long eventId = createEvent();
+
+        Map<String, Long> codes = runConcurrently(REQUESTS, i ->
+                () -> eventRegistrationService.registerToEvent(eventId, eventRegistration("burst" + i), null).getCode());
+
+        assertEquals(CAPACITY, codes.get("201"));
+        assertEquals(REQUESTS - CAPACITY, codes.get("202"));
+        assertEquals(CAPACITY, holdingSeat(registrationsOf(eventId)).size());
+        assertEquals(CAPACITY, idaoEvent.findById(eventId).getReservedSeats());
+        // Every waiter got its own position
+        assertEquals(REQUESTS - CAPACITY, registrationsOf(eventId).stream()
+                .map(EventRegistration::getWaitlistPosition)
+                .filter(Objects::nonNull)
+                .distinct()
+                .count());
+    }
+
+
+    // Seats are counted per row: two events under the same burst both fill up, neither waits for the other
+    @Test
+    void burstOnTwoEventsShouldFillBothIndependently() throws Exception {
+        Long firstId = createEvent();
+        Long secondId = createEvent();
+
+        Map<String, Long> codes = runConcurrently(REQUESTS, i -> () -> eventRegistrationService.registerToEvent(
+                i % 2 == 0 ? firstId : secondId, eventRegistration("pair" + i), null).getCode());
+
+        assertEquals(2 * CAPACITY, codes.get("201"));
+        assertEquals(CAPACITY, holdingSeat(registrationsOf(firstId)).size());
+        assertEquals(CAPACITY, holdingSeat(registrationsOf(secondId)).size());
+    }
+
+
+    // The same visitor submitting many times at once is registered once and holds one seat
+    @Test
+    void concurrentDuplicatesShouldHoldOneSeat() throws Exception {
+        Long eventId = createEvent();
+
+        Map<String, Long> codes = runConcurrently(50, i ->
+                () -> eventRegistrationService.registerToEvent(eventId, eventRegistration("twin"), null).getCode());
+
+        assertEquals(1, codes.get("201"));
+        assertEquals(49, codes.get("400"));
+        assertEquals(1, registrationsOf(eventId).size());
+        assertEquals(1, idaoEvent.findById(eventId).getReservedSeats());
+    }
+
+
+    @Test
+    void cancelledRegistrationShouldHandItsSeatToTheWaitlist() throws Exception {
+        Long eventId = createEvent();
+        runConcurrently(CAPACITY, i ->
+                () -> eventRegistrationService.registerToEvent(eventId, eventRegistration("seat" + i), null).getCode());
+
+        assertEquals("202", eventRegistrationService
+                .registerToEvent(eventId, eventRegistration("late"), null).getCode());
+
+        Long registrationId = holdingSeat(registrationsOf(eventId)).getFirst().getRegistrationId();
+        assertEquals("200", eventRegistrationService.cancelRegistration(registrationId).getCode());
+
+        EventRegistration late = registrationsOf(eventId).stream()
+                .filter(registration -> registration.getEmail().equals("late@seat.test"))
+                .findFirst()
+                .orElseThrow();
+        assertEquals(RegistrationStatus.PENDING, late.getStatus());
+        assertEquals(CAPACITY, idaoEvent.findById(eventId).getReservedSeats());
+        // A cancelled registration cannot be approved back into a full event
+        assertEquals("409", eventRegistrationService.approveRegistration(registrationId).getCode());
+    }
+
+
+    // The same registration cancelled many times at once gives its seat back once
+    @Test
+    void concurrentCancelsShouldFreeOneSeat() throws Exception {
+        Long eventId = createEvent();
+        runConcurrently(CAPACITY, i ->
+                () -> eventRegistrationService.registerToEvent(eventId, eventRegistration("seat" + i), null).getCode());
+
+        Long registrationId = holdingSeat(registrationsOf(eventId)).getFirst().getRegistrationId();
+        Map<String, Long> codes = runConcurrently(20, i ->
+                () -> eventRegistrationService.cancelRegistration(registrationId).getCode());
+
+        assertEquals(20, codes.get("200"));
+        assertEquals(CAPACITY - 1, idaoEvent.findById(eventId).getReservedSeats());
+        assertEquals(CAPACITY - 1, holdingSeat(registrationsOf(eventId)).size());
+    }
+
+
+    // A registration cancelled and approved at once ends up either holding a seat or not, never half of it
+    @Test
+    void concurrentCancelAndApproveShouldKeepSeatsConsistent() throws Exception {
+        Long eventId = createEvent();
+        runConcurrently(CAPACITY - 1, i ->
+                () -> eventRegistrationService.registerToEvent(eventId, eventRegistration("seat" + i), null).getCode());
+        assertEquals("201", eventRegistrationService
+                .registerToEvent(eventId, eventRegistration("racer"), null).getCode());
+        Long registrationId = registrationsOf(eventId).stream()
+                .filter(registration -> registration.getEmail().equals("racer@seat.test"))
+                .findFirst()
+                .orElseThrow()
+                .getRegistrationId();
+
+        runConcurrently(20, i -> i % 2 == 0
+                ? () -> eventRegistrationService.cancelRegistration(registrationId).getCode()
+                : () -> eventRegistrationService.approveRegistration(registrationId).getCode());
+
+        assertEquals(holdingSeat(registrationsOf(eventId)).size(), idaoEvent.findById(eventId).getReservedSeats());
+    }
+
+
+    @Test
+    void burstShouldFillWorkshopExactlyToCapacity() throws Exception {
+        Workshop workshop = idaoWorkshop.create(new Workshop("Seat workshop", "Seat allocation",
+                LocalDateTime.now().plusDays(3), LocalDateTime.now().plusDays(3).plusHours(2),
+                "Paris", "1 Test Street", CAPACITY, Visibility.PUBLIC));
+        Long workshopId = workshop.getWorkshopId();
+        workshopIds.add(workshopId);
+
+        Map<String, Long> codes = runConcurrently(REQUESTS, i -> () -> workshopRegistrationService
+                .registerToWorkshop(workshopId, workshopRegistration("burst" + i), null).getCode());
+
+        assertEquals(CAPACITY, codes.get("201"));
+        assertEquals(REQUESTS - CAPACITY, codes.get("202"));
+        assertEquals(CAPACITY, workshopRegistrationRepository.findByWorkshop(workshop).stream()
+                .filter(registration -> registration.getStatus() == RegistrationStatus.PENDING)
+                .count());
+        assertEquals(CAPACITY, idaoWorkshop.findById(workshopId).getReservedSeats());
+    }
+
+
+    private Long createEvent() {
+        Event event = idaoEvent.create(new Event("Seat event", "Seat allocation",
+                LocalDateTime.now().plusDays(2), LocalDateTime.now().plusDays(2).plusHours(2),
+                "Paris", "1 Test Street", CAPACITY, Visibility.PUBLIC));
+        eventIds.add(event.getEventId());
+        return event.getEventId();
+    }
+
+
+    private List<EventRegistration> registrationsOf(Long eventId) {
+        return idaoEventRegistration.findByEvent(idaoEvent.findById(eventId));
+    }
+
+
+    private static List<EventRegistration> holdingSeat(List<EventRegistration> registrations) {
+        return registrations.stream()
+                .filter(registration -> registration.getStatus() == RegistrationStatus.PENDING)
+                .toList();
+    }
+
+
+    /**
+     * Submits the requests from a thread pool, all released at the same time,
+     * and counts the result codes.
+     */
+    private Map<String, Long> runConcurrently(int requests, Function<Integer, Callable<String>> request)
+            throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<String>> results = new ArrayList<>();
+
+        try (ExecutorService executor = Executors.newFixedThreadPool(THREADS)) {
+            for (int i = 0; i < requests; i++) {
+                Callable<String> call = request.apply(i);
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return call.call();
+                }));
+            }
+            start.countDown();
+
+            List<String> codes = new ArrayList<>();
+            for (Future<String> result : results) {
+                codes.add(result.get());
+            }
+            return codes.stream().collect(Collectors.groupingBy(Function.identity(), Collectors.counting()));
+        }
+    }
+
+
+    private static EventRegistrationDTO eventRegistration(String name) {
+        EventRegistrationDTO dto = new EventRegistrationDTO();
+        dto.setFirstName(name);
+        dto.setLastName("Seat");
+        dto.setEmail(name + "@seat.test");
+        return dto;
+    }
+
+
+    private static WorkshopRegistrationDTO workshopRegistration(String name) {
+        WorkshopRegistrationDTO dto = new WorkshopRegistrationDTO();
+        dto.setFirstName(name);
+        dto.setLastName("Seat");
+        dto.setEmail(name + "@seat.test");
+        return dto;
+    }
+}
@@ -0,0 +1,305 @@
+package fr.elikia.backend.event;
+
+import fr.elikia.backend.AbstractIntegrationTest;
+import fr.elikia.backend.bll.EventRegistrationService;
+import fr.elikia.backend.bo.Event;
+import fr.elikia.backend.bo.EventRegistration;
+import fr.elikia.backend.bo.Member;
+import fr.elikia.backend.bo.Role;
+import fr.elikia.backend.bo.enums.RegistrationStatus;
+import fr.elikia.backend.bo.enums.Visibility;
+import fr.elikia.backend.dao.idao.IDAOEvent;
+import fr.elikia.backend.dao.idao.IDAOEventRegistration;
+import fr.elikia.backend.dto.EventRegistrationDTO;
+import fr.elikia.backend.repository.MemberRepository;
+import fr.elikia.backend.repository.RoleRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Checks the FIFO waitlist of full events: promotion order, asynchronous notification,
+ * rank lookup and concurrent seat releases.
+ * Not transactional: promotions and their emails follow the commit of each request.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class WaitlistIntegrationTest extends AbstractIntegrationTest {
+
+    @Autowired
+    private EventRegistrationService eventRegistrationService;
+
+    @Autowired
+    private IDAOEvent idaoEvent;
+
+    @Autowired
+    private IDAOEventRegistration idaoEventRegistration;
+
+    @Autowired
+    private MemberRepository memberRepository;
+
+    @Autowired
+    private RoleRepository roleRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final List<Long> eventIds = new ArrayList<>();
+    private Member member;
+    private Role role;
+
+
+    @AfterEach
+    void tearDown() {
+        eventIds.forEach(idaoEvent::deleteById);
+        if (member != null) {
+            memberRepository.delete(member);
+            roleRepository.delete(role);
+        }
+    }
+
+
+    @Test
+    void seatsShouldGoToWaitersInArrivalOrder() {
+        Long eventId = createEvent(2);
+        register(eventId, "seat1", "seat2", "wait1", "wait2", "wait3");
+
+        assertEquals("200", eventRegistrationService.cancelRegistration(find(eventId, "seat1").getRegistrationId()).getCode());
+        assertEquals("200", eventRegistrationService
+                .rejectRegistration(find(eventId, "seat2").getRegistrationId(), "Duplicate").getCode());
+
+        assertEquals(RegistrationStatus.PENDING, find(eventId, "wait1").getStatus());
+        assertEquals(RegistrationStatus.PENDING, find(eventId, "wait2").getStatus());
+        assertEquals(RegistrationStatus.WAITLISTED, find(eventId, "wait3").getStatus());
+        assertNull(find(eventId, "wait1").getWaitlistPosition());
+        assertEquals(2, idaoEvent.findById(eventId).getReservedSeats());
+
+        // Sent by the mail workers once the promotion is committed
+        verify(mailSender, timeout(2000)).send(sentTo("wait1@waitlist.test"));
+        verify(mailSender, timeout(2000)).send(sentTo("wait2@waitlist.test"));
+    }
+
+
+    // A waiter leaving the queue frees no seat and promotes nobody
+    @Test
+    void cancelledWaiterShouldLeaveTheQueueOnly() {
+        Long eventId = createEvent(1);
+        register(eventId, "seat", "wait1", "wait2");
+
+        assertEquals("200", eventRegistrationService.cancelRegistration(find(eventId, "wait1").getRegistrationId()).getCode());
+        assertEquals(RegistrationStatus.WAITLISTED, find(eventId, "wait2").getStatus());
+
+        assertEquals("200", eventRegistrationService.cancelRegistration(find(eventId, "seat").getRegistrationId()).getCode());
+        assertEquals(RegistrationStatus.PENDING, find(eventId, "wait2").getStatus());
+        assertEquals(1, idaoEvent.findById(eventId).getReservedSeats());
+    }
+
+
+    @Test
+    void memberRankShouldBeReadWithOneQuery() {
+        Long eventId = createEvent(1);
+        register(eventId, "seat");
+        for (int i = 0; i < 200; i++) {
+            register(eventId, "ahead" + i);
+        }
+        createMember();
+        assertEquals("202", eventRegistrationService
+                .registerToEvent(eventId, registration("member"), member.getEmail()).getCode());
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        assertEquals(201, idaoEventRegistration.findWaitlistRank(eventId, member.getUserId()));
+        assertEquals(1, statistics.getPrepareStatementCount());
+
+        // Waiters ahead leaving the queue move the member up
+        eventRegistrationService.cancelRegistration(find(eventId, "ahead7").getRegistrationId());
+        assertEquals(200L, eventRegistrationService.getWaitlistPosition(eventId, member.getEmail()).getData());
+    }
+
+
+    @Test
+    void memberNotWaitingShouldHaveNoRank() {
+        Long eventId = createEvent(5);
+        createMember();
+        assertEquals("201", eventRegistrationService
+                .registerToEvent(eventId, registration("member"), member.getEmail()).getCode());
+
+        assertEquals("404", eventRegistrationService.getWaitlistPosition(eventId, member.getEmail()).getCode());
+    }
+
+
+    // Seats released at the same time go to distinct waiters, in queue order
+    @Test
+    void concurrentCancellationsShouldPromoteDistinctWaiters() throws Exception {
+        int capacity = 10;
+        Long eventId = createEvent(capacity);
+        for (int i = 0; i < capacity; i++) {
+            register(eventId, "seat" + i);
+        }
+        for (int i = 0; i < 2 * capacity; i++) {
+            register(eventId, "wait" + i);
+        }
+
+        List<Long> seats = registrationsOf(eventId).stream()
+                .filter(registration -> registration.getEmail().startsWith("seat"))
+                .map(EventRegistration::getRegistrationId)
+                .toList();
+
+        CountDownLatch start = new CountDownLatch(1);
+        try (ExecutorService executor = Executors.newFixedThreadPool(capacity)) {
+            List<Future<String>> results = new ArrayList<>();
+            for (Long registrationId : seats) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return eventRegistrationService.cancelRegistration(registrationId).getCode();
+                }));
+            }
+            start.countDown();
+            for (Future<String> result : results) {
+                assertEquals("200", result.get());
+            }
+        }
+
+        List<EventRegistration> waiters = registrationsOf(eventId).stream()
+                .filter(registration -> registration.getEmail().startsWith("wait"))
+                .sorted(Comparator.comparing(EventRegistration::getRegistrationId))
+                .toList();
+
+        // The first half of the queue is promoted, the second half still waits
+        waiters.subList(0, capacity).forEach(waiter -> assertEquals(RegistrationStatus.PENDING, waiter.getStatus()));
+        waiters.subList(capacity, waiters.size())
+                .forEach(waiter -> assertEquals(RegistrationStatus.WAITLISTED, waiter.getStatus()));
+        assertEquals(capacity, idaoEvent.findById(eventId).getReservedSeats());
+    }
+
+
+    // The head is read with a row lock: a second release waits for the first promotion to commit,
+    // instead of promoting the same waiter again from the snapshot of a REPEATABLE READ transaction
+    @Test
+    void waitlistHeadShouldStayLockedUntilThePromotionCommits() throws Exception {
+        Long eventId = createEvent(1);
+        register(eventId, "seat", "wait");
+        Event event = idaoEvent.findById(eventId);
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        try (ExecutorService executor = Executors.newFixedThreadPool(2)) {
+            Future<?> first = executor.submit(() -> transactionTemplate.executeWithoutResult(status -> {
+                assertNotNull(idaoEventRegistration.findWaitlistHead(event));
+                locked.countDown();
+                hold(release);
+            }));
+            assertTrue(locked.await(5, TimeUnit.SECONDS));
+
+            Future<EventRegistration> second = executor.submit(() ->
+                    transactionTemplate.execute(status -> idaoEventRegistration.findWaitlistHead(event)));
+            Thread.sleep(200);
+            assertFalse(second.isDone(), "The waitlist head was read while another transaction held it");
+
+            release.countDown();
+            first.get(5, TimeUnit.SECONDS);
+            assertNotNull(second.get(5, TimeUnit.SECONDS));
+        }
+    }
+
+
+    private Long createEvent(int capacity) {
+        Event event = idaoEvent.create(new Event("Waitlist event", "Waitlist",
+                LocalDateTime.now().plusDays(2), LocalDateTime.now().plusDays(2).plusHours(2),
+                "Paris", "1 Test Street", capacity, Visibility.PUBLIC));
+        eventIds.add(event.getEventId());
+        return event.getEventId();
+    }
+
+
+    private static void hold(CountDownLatch release) {
+        try {
+            assertTrue(release.await(5, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+
+    private void createMember() {
+        role = roleRepository.save(new Role("WAITLIST_MEMBER"));
+
+        member = new Member();
+        member.setFirstName("Waiting");
+        member.setLastName("Member");
+        member.setEmail("member@waitlist.test");
+        member.setPassword("password");
+        member.setCreatedAt(LocalDate.now());
+        member.setStatus(RegistrationStatus.APPROVED);
+        member.setRole(role);
+        member = memberRepository.save(member);
+    }
+
+
+    private void register(Long eventId, String... names) {
+        Arrays.stream(names).forEach(name -> {
+            String code = eventRegistrationService.registerToEvent(eventId, registration(name), null).getCode();
+            assertTrue(code.equals("201") || code.equals("202"), code);
+        });
+    }
+
+
+    private List<EventRegistration> registrationsOf(Long eventId) {
+        return idaoEventRegistration.findByEvent(idaoEvent.findById(eventId));
+    }
+
+
+    private EventRegistration find(Long eventId, String name) {
+        return registrationsOf(eventId).stream()
+                .filter(registration -> registration.getEmail().equals(name + "@waitlist.test"))
+                .findFirst()
+                .orElseThrow();
+    }
+
+
+    private static SimpleMailMessage sentTo(String email) {
+        return argThat(message -> message != null
+                && message.getTo() != null
+                && Arrays.asList(message.getTo()).contains(email)
+                && message.getSubject() != null
+                && message.getSubject().contains("place"));
+    }
+
+
+    private static EventRegistrationDTO registration(String name) {
+        EventRegistrationDTO dto = new EventRegistrationDTO();
+        dto.setFirstName(name);
+        dto.setLastName("Waitlist");
+        dto.setEmail(name + "@waitlist.test");
+        return dto;
+    }
+}
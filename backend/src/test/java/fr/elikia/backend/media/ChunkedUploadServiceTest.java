@@ -0,0 +1,218 @@
+package fr.elikia.backend.media;
+
+import fr.elikia.backend.bll.storage.ChunkedUploadService;
+import fr.elikia.backend.bll.storage.MediaStorageService;
+import fr.elikia.backend.bo.LogicResult;
+import fr.elikia.backend.dto.UploadInitDTO;
+import fr.elikia.backend.dto.UploadStatusDTO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(MockitoExtension.class)
+class ChunkedUploadServiceTest {
+
+    // Small chunks so a few bytes span several of them
+    private static final int CHUNK_SIZE = 4;
+
+    private static final byte[] CONTENT = "0123456789".getBytes();
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private ChunkedUploadService chunkedUploadService;
+
+    private Path storageRoot;
+
+
+    @BeforeEach
+    void setUp() throws Exception {
+        storageRoot = Files.createTempDirectory("test-upload");
+        MediaStorageService mediaStorageService = new MediaStorageService(storageRoot.toString(), transactionManager);
+        chunkedUploadService = new ChunkedUploadService(mediaStorageService, CHUNK_SIZE, 1024, Duration.ofHours(1));
+    }
+
+
+    // Chunks sent out of order are assembled at their position
+    @Test
+    void shouldAssembleChunksReceivedOutOfOrder() throws Exception {
+        String uploadId = start(CONTENT);
+
+        assertEquals("200", send(uploadId, 2).getCode());
+        assertEquals("200", send(uploadId, 0).getCode());
+        assertEquals("200", send(uploadId, 1).getCode());
+
+        LogicResult<UploadStatusDTO> result = chunkedUploadService.completeUpload(uploadId);
+
+        assertEquals("200", result.getCode());
+        assertTrue(result.getData().completed());
+
+        ChunkedUploadService.CompletedUpload upload = chunkedUploadService.claim(uploadId);
+        assertNotNull(upload);
+        assertEquals("photo.jpg", upload.fileName());
+        assertArrayEquals(CONTENT, Files.readAllBytes(upload.stagedPath()));
+
+        // Consumed once
+        assertNull(chunkedUploadService.claim(uploadId));
+    }
+
+
+    // The status lists the missing chunks, so an interrupted upload can resume
+    @Test
+    void statusShouldListMissingChunks() throws Exception {
+        String uploadId = start(CONTENT);
+        send(uploadId, 1);
+
+        UploadStatusDTO status = chunkedUploadService.getStatus(uploadId).getData();
+
+        assertEquals(3, status.chunkCount());
+        assertEquals(List.of(0, 2), status.missingChunks());
+        assertFalse(status.completed());
+        assertEquals("400", chunkedUploadService.completeUpload(uploadId).getCode());
+        assertNull(chunkedUploadService.claim(uploadId));
+    }
+
+
+    // A chunk with the wrong length is rejected and stays missing
+    @Test
+    void shouldRejectChunkWithWrongLength() throws Exception {
+        String uploadId = start(CONTENT);
+
+        LogicResult<UploadStatusDTO> tooShort =
+                chunkedUploadService.writeChunk(uploadId, 0, new ByteArrayInputStream(new byte[2]));
+        LogicResult<UploadStatusDTO> tooLong =
+                chunkedUploadService.writeChunk(uploadId, 2, new ByteArrayInputStream(new byte[CHUNK_SIZE]));
+        LogicResult<UploadStatusDTO> outOfRange =
+                chunkedUploadService.writeChunk(uploadId, 3, new ByteArrayInputStream(new byte[CHUNK_SIZE]));
+
+        assertEquals("400", tooShort.getCode());
+        assertEquals("400", tooLong.getCode());
+        assertEquals("400", outOfRange.getCode());
+        assertEquals(List.of(0, 1, 2), chunkedUploadService.getStatus(uploadId).getData().missingChunks());
+    }
+
+
+    // A file not matching the announced digest is dropped
+    @Test
+    void shouldDropUploadWhenChecksumDoesNotMatch() throws Exception {
+        String uploadId = start(CONTENT);
+        byte[] corrupted = CONTENT.clone();
+        corrupted[5] = 'x';
+
+        for (int index = 0; index < 3; index++) {
+            chunkedUploadService.writeChunk(uploadId, index, new ByteArrayInputStream(chunk(corrupted, index)));
+        }
+
+        LogicResult<UploadStatusDTO> result = chunkedUploadService.completeUpload(uploadId);
+
+        assertEquals("400", result.getCode());
+        assertEquals("404", chunkedUploadService.getStatus(uploadId).getCode());
+        try (var staged = Files.list(storageRoot.resolve(".staging"))) {
+            assertEquals(0, staged.count());
+        }
+    }
+
+
+    // Announced files larger than the limit are refused before anything is written
+    @Test
+    void shouldRejectFileLargerThanMaxSize() {
+        LogicResult<UploadStatusDTO> result = chunkedUploadService.startUpload(
+                new UploadInitDTO("huge.jpg", 2048, "a".repeat(64)));
+
+        assertEquals("400", result.getCode());
+        assertFalse(Files.exists(storageRoot.resolve(".staging")));
+    }
+
+
+    // A retried chunk still being written holds the completion back, so the verified file is never rewritten
+    @Test
+    void shouldNotCompleteWhileAChunkIsBeingWritten() throws Exception {
+        String uploadId = start(CONTENT);
+        for (int index = 0; index < 3; index++) {
+            assertEquals("200", send(uploadId, index).getCode());
+        }
+
+        CountDownLatch reading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        InputStream slowBody = new ByteArrayInputStream(chunk(CONTENT, 0)) {
+            @Override
+            public synchronized int read(byte[] buffer, int offset, int length) {
+                reading.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return super.read(buffer, offset, length);
+            }
+        };
+        CompletableFuture<LogicResult<UploadStatusDTO>> retry = CompletableFuture.supplyAsync(() ->
+                chunkedUploadService.writeChunk(uploadId, 0, slowBody));
+        assertTrue(reading.await(5, TimeUnit.SECONDS));
+
+        assertEquals("409", chunkedUploadService.completeUpload(uploadId).getCode());
+
+        release.countDown();
+        assertEquals("200", retry.get(5, TimeUnit.SECONDS).getCode());
+        assertEquals("200", chunkedUploadService.completeUpload(uploadId).getCode());
+
+        // No chunk is taken once completed
+        assertEquals("409", send(uploadId, 0).getCode());
+    }
+
+
+    // Idle sessions expire with their file
+    @Test
+    void expiredSessionsShouldBeDropped() throws Exception {
+        MediaStorageService mediaStorageService = new MediaStorageService(storageRoot.toString(), transactionManager);
+        ChunkedUploadService expiringService =
+                new ChunkedUploadService(mediaStorageService, CHUNK_SIZE, 1024, Duration.ofMillis(-1));
+        String uploadId = expiringService.startUpload(new UploadInitDTO("photo.jpg", CONTENT.length, sha256(CONTENT)))
+                .getData().uploadId();
+
+        expiringService.expireSessions();
+
+        assertEquals("404", expiringService.getStatus(uploadId).getCode());
+        try (var staged = Files.list(storageRoot.resolve(".staging"))) {
+            assertEquals(0, staged.count());
+        }
+    }
+
+
+    private String start(byte[] content) throws Exception {
+        LogicResult<UploadStatusDTO> result = chunkedUploadService.startUpload(
+                new UploadInitDTO("photo.jpg", content.length, sha256(content)));
+        assertEquals("201", result.getCode());
+        return result.getData().uploadId();
+    }
+
+    private LogicResult<UploadStatusDTO> send(String uploadId, int index) {
+        return chunkedUploadService.writeChunk(uploadId, index, new ByteArrayInputStream(chunk(CONTENT, index)));
+    }
+
+    private static byte[] chunk(byte[] content, int index) {
+        return Arrays.copyOfRange(content, index * CHUNK_SIZE, Math.min(content.length, (index + 1) * CHUNK_SIZE));
+    }
+
+    private static String sha256(byte[] content) throws Exception {
+        return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+    }
+}
@@ -0,0 +1,252 @@
+package fr.elikia.backend.media;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import fr.elikia.backend.AbstractIntegrationTest;
+import fr.elikia.backend.bll.storage.MediaUrlSigner;
+import fr.elikia.backend.bo.Event;
+import fr.elikia.backend.bo.Media;
+import fr.elikia.backend.bo.enums.Visibility;
+import fr.elikia.backend.dao.idao.IDAOEvent;
+import fr.elikia.backend.security.jwt.JwtAuthRequestInterceptor;
+import fr.elikia.backend.security.jwt.JwtService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class MediaControllerIT extends AbstractIntegrationTest {
+    // Content-addressed key of the test file
+    private static final String DIGEST = "ab".repeat(32);
+    private static final String IMAGE_PATH = "ab/ab/" + DIGEST + ".jpg";
+    private static final String RESTRICTED_PATH = "members/" + IMAGE_PATH;
+    private static final String CONTENT = "0123456789";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MediaUrlSigner mediaUrlSigner;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private JwtService jwtService;
+
+    @Autowired
+    private IDAOEvent idaoEvent;
+
+    @Value("${media.storage.path}")
+    private String storageRoot;
+
+
+    @BeforeEach
+    void setUp() throws IOException {
+        Path file = Path.of(storageRoot).resolve(IMAGE_PATH);
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, CONTENT);
+
+        Path restricted = Path.of(storageRoot).resolve(RESTRICTED_PATH);
+        Files.createDirectories(restricted.getParent());
+        Files.writeString(restricted, CONTENT);
+    }
+
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+
+    // ---------- Full response with cache validators ----------
+    @Test
+    void shouldServeContentAddressedFileAsImmutable() throws Exception {
+        mockMvc.perform(get("/uploads/media/" + IMAGE_PATH))
+                .andExpect(status().isOk())
+                .andExpect(content().string(CONTENT))
+                .andExpect(header().string(HttpHeaders.ETAG, "\"" + DIGEST + "\""))
+                .andExpect(header().exists(HttpHeaders.LAST_MODIFIED))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "public, max-age=31536000, immutable"))
+                .andExpect(header().string(HttpHeaders.ACCEPT_RANGES, "bytes"))
+                .andExpect(header().string(HttpHeaders.CONTENT_TYPE, "image/jpeg"));
+    }
+
+
+    // ---------- Conditional request ----------
+    @Test
+    void shouldAnswer304WhenEtagMatches() throws Exception {
+        MvcResult result = mockMvc.perform(get("/uploads/media/" + IMAGE_PATH)
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"" + DIGEST + "\""))
+                .andExpect(status().isNotModified())
+                .andReturn();
+
+        assertEquals(0, result.getResponse().getContentLength());
+    }
+
+
+    // ---------- Byte ranges ----------
+    @Test
+    void shouldServeRequestedByteRange() throws Exception {
+        MvcResult result = mockMvc.perform(get("/uploads/media/" + IMAGE_PATH)
+                        .header(HttpHeaders.RANGE, "bytes=2-5"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 2-5/10"))
+                .andReturn();
+
+        assertEquals("2345", result.getResponse().getContentAsString(StandardCharsets.UTF_8));
+    }
+
+
+    // A range computed against an older version must not be stitched onto this one
+    @Test
+    void shouldServeWholeFileWhenIfRangeEtagIsStale() throws Exception {
+        mockMvc.perform(get("/uploads/media/" + IMAGE_PATH)
+                        .header(HttpHeaders.RANGE, "bytes=2-5")
+                        .header(HttpHeaders.IF_RANGE, "\"stale\""))
+                .andExpect(status().isOk())
+                .andExpect(content().string(CONTENT));
+
+        mockMvc.perform(get("/uploads/media/" + IMAGE_PATH)
+                        .header(HttpHeaders.RANGE, "bytes=2-5")
+                        .header(HttpHeaders.IF_RANGE, "W/\"" + DIGEST + "\""))
+                .andExpect(status().isOk())
+                .andExpect(content().string(CONTENT));
+
+        mockMvc.perform(get("/uploads/media/" + IMAGE_PATH)
+                        .header(HttpHeaders.RANGE, "bytes=2-5")
+                        .header(HttpHeaders.IF_RANGE, "\"" + DIGEST + "\""))
+                .andExpect(status().isPartialContent());
+    }
+
+
+    @Test
+    void shouldAnswer416WhenRangeIsOutOfBounds() throws Exception {
+        mockMvc.perform(get("/uploads/media/" + IMAGE_PATH)
+                        .header(HttpHeaders.RANGE, "bytes=50-60"))
+                .andExpect(status().isRequestedRangeNotSatisfiable())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes */10"));
+    }
+
+
+    // ---------- Not servable ----------
+    @Test
+    void shouldReturn404ForMissingOrStagingFiles() throws Exception {
+        mockMvc.perform(get("/uploads/media/missing.jpg"))
+                .andExpect(status().isNotFound());
+
+        mockMvc.perform(get("/uploads/media/.staging/anything.part"))
+                .andExpect(status().isNotFound());
+    }
+
+
+    // ---------- Members-only media ----------
+    @Test
+    void shouldRefuseRestrictedFileWithoutValidSignature() throws Exception {
+        mockMvc.perform(get("/uploads/media/" + RESTRICTED_PATH))
+                .andExpect(status().isForbidden());
+
+        String signed = mediaUrlSigner.sign(RESTRICTED_PATH);
+        mockMvc.perform(get("/uploads/media/" + signed.replace("&sig=", "&sig=x")))
+                .andExpect(status().isForbidden());
+
+        long expired = System.currentTimeMillis() / 1000 - 1;
+        mockMvc.perform(get("/uploads/media/" + RESTRICTED_PATH + "?expires=" + expired + "&sig=abc"))
+                .andExpect(status().isForbidden());
+    }
+
+
+    @Test
+    void shouldServeRestrictedFileWithSignedUrlAsPrivate() throws Exception {
+        MvcResult result = mockMvc.perform(get("/uploads/media/" + mediaUrlSigner.sign(RESTRICTED_PATH)))
+                .andExpect(status().isOk())
+                .andExpect(content().string(CONTENT))
+                .andReturn();
+
+        assertTrue(result.getResponse().getHeader(HttpHeaders.CACHE_CONTROL).startsWith("private, max-age="));
+    }
+
+
+    @Test
+    void shouldSignOnlyRestrictedPathsWhenSerializingMediaForMembers() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setAttribute(JwtAuthRequestInterceptor.AUTHENTICATED_ROLE_ATTRIBUTE, "MEMBER");
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+
+        Media publicMedia = new Media();
+        publicMedia.setImagePath(IMAGE_PATH);
+        Media restrictedMedia = new Media();
+        restrictedMedia.setImagePath(RESTRICTED_PATH);
+
+        String publicJson = objectMapper.writeValueAsString(publicMedia);
+        String restrictedJson = objectMapper.writeValueAsString(restrictedMedia);
+
+        assertTrue(publicJson.contains("\"imagePath\":\"" + IMAGE_PATH + "\""));
+        assertTrue(restrictedJson.contains("\"imagePath\":\"" + RESTRICTED_PATH + "?expires="));
+    }
+
+
+    // Public endpoints are open to everyone: only a member token earns a signature
+    @Test
+    void shouldNotSignRestrictedPathsForAnonymousCallers() throws Exception {
+        Event event = new Event("Members gala", "Members only", LocalDateTime.now().plusDays(3),
+                LocalDateTime.now().plusDays(3).plusHours(2), "Paris", "1 Test Street", 10,
+                Visibility.MEMBER_ONLY);
+        Media media = new Media();
+        media.setImagePath(RESTRICTED_PATH);
+        event.addMedia(media);
+        Long eventId = idaoEvent.create(event).getEventId();
+
+        try {
+            String anonymous = mockMvc.perform(get("/api/event/" + eventId))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+
+            assertTrue(anonymous.contains("\"imagePath\":\"" + RESTRICTED_PATH + "\""));
+            assertFalse(anonymous.contains("sig="));
+
+            String member = mockMvc.perform(get("/api/event/" + eventId)
+                            .header(HttpHeaders.AUTHORIZATION,
+                                    "Bearer " + jwtService.generateToken("member@mail.com", "MEMBER")))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+
+            assertTrue(member.contains("\"imagePath\":\"" + RESTRICTED_PATH + "?expires="));
+        } finally {
+            idaoEvent.deleteById(eventId);
+        }
+    }
+
+
+    @Test
+    void shouldRejectPathsDodgingTheRestrictedPrefix() throws Exception {
+        mockMvc.perform(get("/uploads/media/ab/../" + RESTRICTED_PATH))
+                .andExpect(status().is4xxClientError());
+    }
+}
@@ -0,0 +1,143 @@
+package fr.elikia.backend.media;
+
+import fr.elikia.backend.bll.storage.MediaDerivativeService;
+import fr.elikia.backend.bll.storage.MediaStorageService;
+import fr.elikia.backend.bo.Media;
+import fr.elikia.backend.dao.idao.IDAOMedia;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class MediaDerivativeServiceTest {
+
+    @Mock
+    private IDAOMedia idaoMedia;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private MediaDerivativeService mediaDerivativeService;
+
+    private Path storageRoot;
+
+
+    @BeforeEach
+    void setUp() throws IOException {
+        storageRoot = Files.createTempDirectory("test-derivatives");
+        MediaStorageService mediaStorageService =
+                new MediaStorageService(storageRoot.toString(), transactionManager);
+
+        mediaDerivativeService = new MediaDerivativeService(idaoMedia, mediaStorageService, 1, 10);
+    }
+
+    @AfterEach
+    void tearDown() {
+        mediaDerivativeService.shutdown();
+    }
+
+
+    // Variants are generated at fixed widths and recorded on the media
+    @Test
+    void shouldGenerateThumbnailAndDisplayVariants() throws IOException {
+        String imagePath = writeImage("ab/cd/abcd.jpg", 2000, 1000, "jpeg");
+
+        mediaDerivativeService.generateDerivatives(1L, imagePath);
+
+        BufferedImage thumbnail = ImageIO.read(storageRoot.resolve("ab/cd/abcd-w320.jpg").toFile());
+        BufferedImage display = ImageIO.read(storageRoot.resolve("ab/cd/abcd-w1280.jpg").toFile());
+
+        assertEquals(320, thumbnail.getWidth());
+        assertEquals(160, thumbnail.getHeight());
+        assertEquals(1280, display.getWidth());
+
+        verify(idaoMedia).updateDerivatives(1L, imagePath, "ab/cd/abcd-w320.jpg", "ab/cd/abcd-w1280.jpg");
+    }
+
+
+    // Small images are re-encoded but never upscaled
+    @Test
+    void shouldNotUpscaleSmallImages() throws IOException {
+        String imagePath = writeImage("small.png", 200, 100, "png");
+
+        mediaDerivativeService.generateDerivatives(2L, imagePath);
+
+        BufferedImage display = ImageIO.read(storageRoot.resolve("small-w1280.png").toFile());
+        assertEquals(200, display.getWidth());
+    }
+
+
+    // Re-running the pipeline reuses existing variant files
+    @Test
+    void shouldBeIdempotentWhenVariantsAlreadyExist() throws IOException {
+        String imagePath = writeImage("photo.jpg", 800, 600, "jpeg");
+        mediaDerivativeService.generateDerivatives(3L, imagePath);
+
+        Path thumbnail = storageRoot.resolve("photo-w320.jpg");
+        FileTime firstWrite = FileTime.fromMillis(0);
+        Files.setLastModifiedTime(thumbnail, firstWrite);
+
+        mediaDerivativeService.generateDerivatives(3L, imagePath);
+
+        assertEquals(firstWrite, Files.getLastModifiedTime(thumbnail));
+        verify(idaoMedia, times(2)).updateDerivatives(3L, imagePath, "photo-w320.jpg", "photo-w1280.jpg");
+    }
+
+
+    // Unreadable images fall back to the original
+    @Test
+    void shouldFallBackToOriginalWhenImageCannotBeDecoded() throws IOException {
+        Files.writeString(storageRoot.resolve("broken.jpg"), "not an image");
+
+        mediaDerivativeService.generateDerivatives(4L, "broken.jpg");
+
+        verify(idaoMedia).updateDerivatives(4L, "broken.jpg", "broken.jpg", "broken.jpg");
+    }
+
+
+    // Media whose original is missing do not hold the backfill on the same page
+    @Test
+    void backfillShouldMoveOnPastMissingOriginals() {
+        List<Media> missing = LongStream.rangeClosed(1, 10)
+                .mapToObj(id -> new Media(id, null, "missing-" + id + ".jpg", null, null, null, null, null))
+                .toList();
+        // The page size follows the room left in the worker queue
+        when(idaoMedia.findWithoutDerivatives(eq(0L), anyInt())).thenReturn(missing);
+        when(idaoMedia.findWithoutDerivatives(eq(10L), anyInt())).thenReturn(List.of());
+
+        mediaDerivativeService.backfillMissingDerivatives();
+        mediaDerivativeService.backfillMissingDerivatives();
+        // End reached: the next run starts over
+        mediaDerivativeService.backfillMissingDerivatives();
+
+        verify(idaoMedia, times(2)).findWithoutDerivatives(eq(0L), anyInt());
+        verify(idaoMedia).findWithoutDerivatives(eq(10L), anyInt());
+    }
+
+
+    // Helper methods
+    private String writeImage(String imagePath, int width, int height, String format) throws IOException {
+        Path target = storageRoot.resolve(imagePath);
+        Files.createDirectories(target.getParent());
+        ImageIO.write(new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB), format, target.toFile());
+        return imagePath;
+    }
+}
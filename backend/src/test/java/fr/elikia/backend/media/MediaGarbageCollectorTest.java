@@ -0,0 +1,118 @@
+package fr.elikia.backend.media;
+
+import fr.elikia.backend.bll.storage.MediaGarbageCollector;
+import fr.elikia.backend.bll.storage.MediaStorageService;
+import fr.elikia.backend.dao.idao.IDAOMedia;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+
+@ExtendWith(MockitoExtension.class)
+class MediaGarbageCollectorTest {
+
+    @Mock
+    private IDAOMedia idaoMedia;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private MediaStorageService mediaStorageService;
+
+    private Path storageRoot;
+
+
+    @BeforeEach
+    void setUp() throws IOException {
+        storageRoot = Files.createTempDirectory("test-gc");
+        mediaStorageService = new MediaStorageService(storageRoot.toString(), transactionManager);
+
+        // Only "ab/cd/kept.jpg" is referenced by a Media row
+        doAnswer(invocation -> {
+            Consumer<String> consumer = invocation.getArgument(0);
+            consumer.accept("ab/cd/kept.jpg");
+            return null;
+        }).when(idaoMedia).forEachStoredPath(any());
+    }
+
+
+    // Unreferenced old files are deleted, referenced ones and their variants are kept
+    @Test
+    void shouldDeleteOnlyUnreferencedFilesOlderThanGracePeriod() throws IOException {
+        Path kept = writeFile("ab/cd/kept.jpg", 10, Duration.ofDays(3));
+        Path keptVariant = writeFile("ab/cd/kept-w320.jpg", 10, Duration.ofDays(3));
+        Path orphan = writeFile("ef/01/orphan.jpg", 25, Duration.ofDays(3));
+        Path recentOrphan = writeFile("ab/cd/recent.jpg", 10, Duration.ofMinutes(5));
+        Path abandonedStaging = writeFile(".staging/upload.part", 5, Duration.ofDays(3));
+
+        MediaGarbageCollector collector = new MediaGarbageCollector(
+                idaoMedia, mediaStorageService, Duration.ofHours(24), false);
+
+        MediaGarbageCollector.SweepReport report = collector.collect();
+
+        assertTrue(Files.exists(kept));
+        assertTrue(Files.exists(keptVariant));
+        assertTrue(Files.exists(recentOrphan));
+        assertFalse(Files.exists(orphan));
+        assertFalse(Files.exists(abandonedStaging));
+        assertFalse(Files.exists(orphan.getParent()), "Empty shard directory should be removed");
+
+        assertEquals(2, report.removedFiles());
+        assertEquals(30, report.reclaimedBytes());
+    }
+
+
+    // Quarantine mode moves files aside instead of deleting them
+    @Test
+    void shouldQuarantineUnreferencedFiles() throws IOException {
+        Path orphan = writeFile("ef/01/orphan.jpg", 25, Duration.ofDays(3));
+
+        MediaGarbageCollector collector = new MediaGarbageCollector(
+                idaoMedia, mediaStorageService, Duration.ofHours(24), true);
+
+        MediaGarbageCollector.SweepReport report = collector.collect();
+
+        assertFalse(Files.exists(orphan));
+        assertTrue(Files.exists(storageRoot.resolve(".quarantine/ef/01/orphan.jpg")));
+        assertEquals(1, report.removedFiles());
+    }
+
+
+    // A key copied from an old file is as recent as its copy, not as its source
+    @Test
+    void shouldKeepFreshlyCopiedKeyDuringGracePeriod() throws IOException {
+        writeFile("ab/cd/kept.jpg", 10, Duration.ofDays(3));
+        mediaStorageService.copy("ab/cd/kept.jpg", "members/ab/cd/kept.jpg");
+
+        MediaGarbageCollector collector = new MediaGarbageCollector(
+                idaoMedia, mediaStorageService, Duration.ofHours(24), true);
+
+        collector.collect();
+
+        assertTrue(Files.exists(storageRoot.resolve("members/ab/cd/kept.jpg")));
+    }
+
+
+    // Helper methods
+    private Path writeFile(String key, int size, Duration age) throws IOException {
+        Path file = storageRoot.resolve(key);
+        Files.createDirectories(file.getParent());
+        Files.write(file, new byte[size]);
+        Files.setLastModifiedTime(file, FileTime.from(Instant.now().minus(age)));
+        return file;
+    }
+}
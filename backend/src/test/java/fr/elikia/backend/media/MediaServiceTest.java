@@ -1,21 +1,44 @@
 package fr.elikia.backend.media;
 
 import fr.elikia.backend.bll.MediaService;
+import fr.elikia.backend.bll.storage.ChunkedUploadService;
+import fr.elikia.backend.bll.storage.MediaDerivativeService;
+import fr.elikia.backend.bll.storage.MediaStorageService;
+import fr.elikia.backend.bll.storage.StagedFile;
 import fr.elikia.backend.bo.*;
+import fr.elikia.backend.bo.enums.ActivityOwnerType;
+import fr.elikia.backend.bo.enums.Visibility;
 import fr.elikia.backend.dao.idao.*;
+import fr.elikia.backend.dto.UploadInitDTO;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.web.multipart.MultipartFile;
 
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -38,37 +61,52 @@ class MediaServiceTest {
     @Mock
     private IDAOMedia idaoMedia;
 
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private MediaDerivativeService mediaDerivativeService;
+
     // SERVICE UNDER TEST
-    @InjectMocks
     private MediaService mediaService;
 
+    private MediaStorageService mediaStorageService;
+
+    private ChunkedUploadService chunkedUploadService;
+
+    private Path storageRoot;
+
 
     // TEST FIXTURES
     private News existingNews;
 
     @BeforeEach
-    void setUp() throws NoSuchFieldException, IllegalAccessException {
+    void setUp() throws IOException {
         // Build a valid News entity
         existingNews = new News();
         existingNews.setTitle("Test News");
 
-        // Inject test storage path
-        Field field = MediaService.class.getDeclaredField("mediaStorageRoot");
-        field.setAccessible(true);
-        field.set(mediaService, System.getProperty("java.io.tmpdir") + "/test-media");
+        // Real storage on a temporary test path
+        storageRoot = Files.createTempDirectory("test-media");
+        mediaStorageService = new MediaStorageService(storageRoot.toString(), transactionManager);
 
+        chunkedUploadService = new ChunkedUploadService(mediaStorageService, 4, 1024, Duration.ofHours(1));
 
+        mediaService = new MediaService(
+                idaoNews, idaoEvent, idaoWorkshop, idaoAchievement, idaoMedia,
+                mediaStorageService, mediaDerivativeService, chunkedUploadService, 4
+        );
     }
 
 
     // TEST SUCCESS CASE  (MEDIA FOR NEWS)
     @Test
-    void createMediaShouldReturn201WhenValidMediaForNews() {
+    void createMediaShouldReturn201WhenValidMediaForNews() throws IOException {
         // Arrange
         when(idaoNews.findById(1L)).thenReturn(existingNews);
         when(idaoMedia.create(any())).thenAnswer(invocation -> invocation.getArgument(0));
 
-        MultipartFile file = mockImage();
+        StagedFile file = stageImage();
 
         // Act
         LogicResult<Media> result =
@@ -94,14 +132,14 @@ class MediaServiceTest {
         assertTrue(existingNews.getMediaList().contains(media));
 
         // Verify
-        verify(idaoNews, times(2)).findById(1L);
+        verify(idaoNews, times(1)).findById(1L);
     }
 
 
     // Error no owner provided
     @Test
-    void createMediaShouldReturn400WhenNoOwnerProvided() {
-        MultipartFile file = mockImage();
+    void createMediaShouldReturn400WhenNoOwnerProvided() throws IOException {
+        StagedFile file = stageImage();
 
         LogicResult<Media> result =
                 mediaService.createMedia(
@@ -121,8 +159,8 @@ class MediaServiceTest {
 
     // Error invalid youTube
     @Test
-    void createMediaShouldReturn400WhenVideoUrlIsNotYouTube() {
-        MultipartFile file = mockImage();
+    void createMediaShouldReturn400WhenVideoUrlIsNotYouTube() throws IOException {
+        StagedFile file = stageImage();
 
         LogicResult<Media> result =
                 mediaService.createMedia(
@@ -153,7 +191,7 @@ class MediaServiceTest {
         when(idaoMedia.findById(5L)).thenReturn(existing);
         when(idaoMedia.update(any())).thenReturn(existing);
 
-        MultipartFile newFile = mockImage();
+        StagedFile newFile = stageImage();
 
         LogicResult<Void> result =
                 mediaService.updateMedia(
@@ -169,14 +207,355 @@ class MediaServiceTest {
     }
 
 
-    // Helper method
-    private MultipartFile mockImage() {
-        return new MockMultipartFile(
+    // Batch creation loads the owner once and inserts all rows together
+    @Test
+    void createMediasShouldLoadOwnerOnceAndInsertInOneBatch() throws IOException {
+        when(idaoEvent.findById(1L)).thenReturn(new Event());
+        when(idaoMedia.createAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        List<StagedFile> files = List.of(stageImage(), stageImage(), stageImage());
+
+        LogicResult<List<Media>> result =
+                mediaService.createMedias(
+                        ActivityOwnerType.EVENT,
+                        1L,
+                        files,
+                        "https://www.youtube.com/watch?v=abc123",
+                        "Event caption"
+                );
+
+        assertEquals("201", result.getCode());
+        assertEquals(4, result.getData().size());
+        assertTrue(result.getData().stream().allMatch(media -> media.getEvent() != null));
+
+        verify(idaoEvent, times(1)).findById(1L);
+        verify(idaoMedia, times(1)).createAll(anyList());
+        verify(idaoMedia, never()).create(any());
+        verify(mediaDerivativeService).generateAfterCommit(result.getData());
+    }
+
+
+    // Staging rejects invalid files and keeps nothing on disk
+    @Test
+    void stageFilesShouldRejectBatchWhenOneFileIsNotAnImage() throws IOException {
+        MultipartFile badFile = new MockMultipartFile(
                 "file",
-                "photo.jpg",
+                "bad.exe",
                 "image/png",
                 "fake-image-content".getBytes()
         );
+
+        LogicResult<List<StagedFile>> result =
+                mediaService.stageFiles(List.of(mockImage(), badFile), Visibility.PUBLIC);
+
+        assertEquals("400", result.getCode());
+        try (var staged = Files.list(storageRoot.resolve(".staging"))) {
+            assertEquals(0, staged.count());
+        }
+    }
+
+
+    // A non-image renamed with an image extension is rejected from its first bytes
+    @Test
+    void stageFilesShouldRejectFileWhoseContentIsNotAnImage() throws IOException {
+        MultipartFile renamedFile = new MockMultipartFile(
+                "file",
+                "document.png",
+                "image/png",
+                "%PDF-1.7 not an image".getBytes()
+        );
+
+        LogicResult<List<StagedFile>> result =
+                mediaService.stageFiles(List.of(renamedFile), Visibility.PUBLIC);
+
+        assertEquals("400", result.getCode());
+        assertEquals("File content is not a valid JPG or PNG image", result.getMessage());
+        assertFalse(Files.exists(storageRoot.resolve(".staging")));
+    }
+
+
+    // The header must match the extension
+    @Test
+    void stageFilesShouldRejectJpegContentWithPngExtension() throws IOException {
+        MultipartFile mismatched = new MockMultipartFile("file", "photo.png", "image/png", imageBytes("jpg"));
+
+        LogicResult<List<StagedFile>> result =
+                mediaService.stageFiles(List.of(mismatched), Visibility.PUBLIC);
+
+        assertEquals("400", result.getCode());
+        assertEquals("File content is not a valid JPG or PNG image", result.getMessage());
+    }
+
+
+    // Oversized dimensions are rejected from the header, without decoding
+    @Test
+    void stageFilesShouldRejectImageWithOversizedDimensions() throws IOException {
+        MultipartFile hugeImage = new MockMultipartFile("file", "huge.png", "image/png", pngHeader(20_000, 20_000));
+
+        LogicResult<List<StagedFile>> result =
+                mediaService.stageFiles(List.of(hugeImage), Visibility.PUBLIC);
+
+        assertEquals("400", result.getCode());
+        assertEquals("Image dimensions are too large", result.getMessage());
+        assertFalse(Files.exists(storageRoot.resolve(".staging")));
+    }
+
+
+    // PNG images within limits are accepted
+    @Test
+    void stageFilesShouldAcceptPngImage() throws IOException {
+        MultipartFile pngImage = new MockMultipartFile("file", "photo.PNG", "image/png", imageBytes("png"));
+
+        LogicResult<List<StagedFile>> result =
+                mediaService.stageFiles(List.of(pngImage), Visibility.PUBLIC);
+
+        assertEquals("200", result.getCode());
+        assertTrue(result.getData().getFirst().fileName().endsWith(".png"));
+    }
+
+
+    // Files staged concurrently keep the upload order
+    @Test
+    void stageFilesShouldKeepUploadOrderWhenStagingInParallel() throws IOException {
+        List<MultipartFile> files = new ArrayList<>();
+        List<String> expectedKeys = new ArrayList<>();
+        for (int width = 1; width <= 8; width++) {
+            byte[] content = imageBytes("png", width);
+            files.add(new MockMultipartFile("file", "photo-" + width + ".png", "image/png", content));
+            expectedKeys.add(digestOf(content));
+        }
+
+        LogicResult<List<StagedFile>> result = mediaService.stageFiles(files, Visibility.PUBLIC);
+
+        assertEquals("200", result.getCode());
+        assertEquals(expectedKeys, result.getData().stream()
+                .map(stagedFile -> stagedFile.fileName().substring(6, 70))
+                .toList());
+        try (var staged = Files.list(storageRoot.resolve(".staging"))) {
+            assertEquals(8, staged.count());
+        }
+    }
+
+
+    // A failure among concurrently staged files drops every staged file
+    @Test
+    void stageFilesShouldDropEveryFileWhenOneFailsInParallel() throws IOException {
+        List<MultipartFile> files = new ArrayList<>();
+        for (int width = 1; width <= 6; width++) {
+            files.add(new MockMultipartFile("file", "photo-" + width + ".png", "image/png", imageBytes("png", width)));
+        }
+        files.add(3, new MockMultipartFile("file", "broken.jpg", "image/jpeg", "not an image".getBytes()));
+
+        LogicResult<List<StagedFile>> result = mediaService.stageFiles(files, Visibility.PUBLIC);
+
+        assertEquals("400", result.getCode());
+        assertEquals("File content is not a valid JPG or PNG image", result.getMessage());
+        try (var staged = Files.list(storageRoot.resolve(".staging"))) {
+            assertEquals(0, staged.count());
+        }
     }
 
+
+    // Staged files only appear under the storage root once promoted
+    @Test
+    void stagedFileShouldBeVisibleOnlyAfterPromotion() throws IOException {
+        StagedFile stagedFile = stageImage();
+        Path finalPath = storageRoot.resolve(stagedFile.fileName());
+
+        assertTrue(Files.exists(stagedFile.stagedPath()));
+        assertFalse(Files.exists(finalPath));
+
+        mediaStorageService.promote(stagedFile);
+
+        assertFalse(Files.exists(stagedFile.stagedPath()));
+        assertTrue(Files.exists(finalPath));
+    }
+
+
+    // Identical uploads share one content-addressed file
+    @Test
+    void identicalUploadsShouldBeStoredOnceUnderShardedContentKey() throws IOException {
+        StagedFile first = stageImage();
+        StagedFile second = stageImage();
+
+        assertEquals(first.fileName(), second.fileName());
+        assertTrue(first.fileName().matches("[0-9a-f]{2}/[0-9a-f]{2}/[0-9a-f]{64}\\.jpg"));
+
+        mediaStorageService.promote(first);
+        mediaStorageService.promote(second);
+
+        Path stored = storageRoot.resolve(first.fileName());
+        assertTrue(Files.exists(stored));
+        assertFalse(Files.exists(second.stagedPath()));
+        try (var shard = Files.list(stored.getParent())) {
+            assertEquals(1, shard.count());
+        }
+    }
+
+
+    // Stored file is kept while another Media still references it
+    @Test
+    void deleteMediaShouldKeepFileWhileStillReferenced() throws IOException {
+        StagedFile stagedFile = stageImage();
+        mediaStorageService.promote(stagedFile);
+        Path stored = storageRoot.resolve(stagedFile.fileName());
+
+        Media media = new Media();
+        media.setImagePath(stagedFile.fileName());
+        when(idaoMedia.findById(5L)).thenReturn(media);
+        when(idaoMedia.deleteById(5L)).thenReturn(true);
+        when(idaoMedia.countByImagePath(stagedFile.fileName())).thenReturn(1L, 0L);
+
+        assertEquals("200", mediaService.deleteMedia(5L).getCode());
+        assertTrue(Files.exists(stored));
+
+        assertEquals("200", mediaService.deleteMedia(5L).getCode());
+        assertFalse(Files.exists(stored));
+    }
+
+
+    // An upload of the same content committed while the file is released keeps it
+    @Test
+    void deleteMediaShouldRestoreFileReferencedAgainMeanwhile() throws IOException {
+        StagedFile stagedFile = stageImage();
+        mediaStorageService.promote(stagedFile);
+        Path stored = storageRoot.resolve(stagedFile.fileName());
+
+        Media media = new Media();
+        media.setImagePath(stagedFile.fileName());
+        when(idaoMedia.findById(5L)).thenReturn(media);
+        when(idaoMedia.deleteById(5L)).thenReturn(true);
+        // Unreferenced at the first count, referenced by the concurrent upload at the second
+        when(idaoMedia.countByImagePath(stagedFile.fileName())).thenReturn(0L, 1L);
+
+        assertEquals("200", mediaService.deleteMedia(5L).getCode());
+        assertTrue(Files.exists(stored));
+    }
+
+
+    // Members-only images are staged in restricted storage and moved when visibility changes
+    @Test
+    void applyVisibilityShouldMoveImageBetweenPublicAndRestrictedStorage() throws IOException {
+        LogicResult<List<StagedFile>> staging =
+                mediaService.stageFiles(List.of(mockImage()), Visibility.MEMBER_ONLY);
+        StagedFile stagedFile = staging.getData().getFirst();
+        assertTrue(MediaStorageService.isRestricted(stagedFile.fileName()));
+        mediaStorageService.promote(stagedFile);
+
+        Media media = new Media();
+        media.setImagePath(stagedFile.fileName());
+        media.setThumbnailPath(stagedFile.fileName());
+        when(idaoMedia.countByImagePath(stagedFile.fileName())).thenReturn(0L);
+
+        LogicResult<Void> result = mediaService.applyVisibility(List.of(media), Visibility.PUBLIC);
+
+        assertEquals("200", result.getCode());
+        assertFalse(MediaStorageService.isRestricted(media.getImagePath()));
+        assertNull(media.getThumbnailPath());
+        assertTrue(Files.exists(storageRoot.resolve(media.getImagePath())));
+        assertFalse(Files.exists(storageRoot.resolve(stagedFile.fileName())));
+        verify(mediaDerivativeService).generateAfterCommit(List.of(media));
+    }
+
+
+    // Helper methods
+    private StagedFile stageImage() throws IOException {
+        LogicResult<List<StagedFile>> staging =
+                mediaService.stageFiles(List.of(mockImage()), Visibility.PUBLIC);
+        assertEquals("200", staging.getCode());
+        return staging.getData().getFirst();
+    }
+
+
+    private MultipartFile mockImage() throws IOException {
+        return new MockMultipartFile(
+                "file",
+                "photo.jpg",
+                "image/jpeg",
+                imageBytes("jpg")
+        );
+    }
+
+
+    // Small but real encoded image
+    private static byte[] imageBytes(String format) throws IOException {
+        return imageBytes(format, 4);
+    }
+
+
+    private static byte[] imageBytes(String format, int width) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(width, 3, BufferedImage.TYPE_INT_RGB), format, outputStream);
+        return outputStream.toByteArray();
+    }
+
+
+    private static String digestOf(byte[] content) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+
+    // PNG signature and IHDR chunk declaring the given dimensions, without pixel data
+    private static byte[] pngHeader(int width, int height) {
+        return ByteBuffer.allocate(33)
+                .put(new byte[]{(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'})
+                .putInt(13).put("IHDR".getBytes())
+                .putInt(width).putInt(height)
+                .array();
+    }
+
+
+    // TEST CLAIM OF A COMPLETED CHUNKED UPLOAD
+    @Test
+    void claimUploadsShouldStageCompletedUploadUnderItsContentKey() throws Exception {
+        byte[] content = imageBytes("png");
+        String uploadId = completedUpload("large.PNG", content);
+
+        LogicResult<List<StagedFile>> result = mediaService.claimUploads(List.of(uploadId), Visibility.MEMBER_ONLY);
+
+        assertEquals("200", result.getCode());
+        StagedFile stagedFile = result.getData().getFirst();
+        String digest = HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+        assertEquals("members/" + digest.substring(0, 2) + "/" + digest.substring(2, 4) + "/" + digest + ".png",
+                stagedFile.fileName());
+        assertArrayEquals(content, Files.readAllBytes(stagedFile.stagedPath()));
+
+        // An upload is consumed once
+        assertEquals("400", mediaService.claimUploads(List.of(uploadId), Visibility.PUBLIC).getCode());
+    }
+
+
+    // TEST CLAIM REJECTS NON IMAGE UPLOADS AND DROPS THEM
+    @Test
+    void claimUploadsShouldReturn400AndDropFileWhenExtensionIsNotAllowed() throws Exception {
+        String uploadId = completedUpload("archive.zip", imageBytes("png"));
+
+        LogicResult<List<StagedFile>> result = mediaService.claimUploads(List.of(uploadId), Visibility.PUBLIC);
+
+        assertEquals("400", result.getCode());
+        assertEquals("Only JPG, JPEG and PNG images are allowed", result.getMessage());
+        try (var staged = Files.list(storageRoot.resolve(".staging"))) {
+            assertEquals(0, staged.count());
+        }
+    }
+
+
+    private String completedUpload(String fileName, byte[] content) throws Exception {
+        String sha256 = HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+        String uploadId = chunkedUploadService
+                .startUpload(new UploadInitDTO(fileName, content.length, sha256))
+                .getData().uploadId();
+
+        for (int index = 0; index * 4 < content.length; index++) {
+            int end = Math.min(content.length, (index + 1) * 4);
+            chunkedUploadService.writeChunk(uploadId, index,
+                    new ByteArrayInputStream(Arrays.copyOfRange(content, index * 4, end)));
+        }
+        chunkedUploadService.completeUpload(uploadId);
+        return uploadId;
+    }
 }
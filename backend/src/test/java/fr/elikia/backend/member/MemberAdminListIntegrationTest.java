@@ -0,0 +1,214 @@
+package fr.elikia.backend.member;
+
+import fr.elikia.backend.AbstractIntegrationTest;
+import fr.elikia.backend.bll.MemberService;
+import fr.elikia.backend.bo.LogicResult;
+import fr.elikia.backend.bo.Member;
+import fr.elikia.backend.bo.Role;
+import fr.elikia.backend.bo.enums.RegistrationStatus;
+import fr.elikia.backend.dto.CursorPageDTO;
+import fr.elikia.backend.dto.MemberAdminDTO;
+import fr.elikia.backend.repository.MemberRepository;
+import fr.elikia.backend.repository.RoleRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.transaction.Transactional;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks that the member administration list is filtered, searched, sorted
+ * and paginated by the database, without loading Member or Role entities.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Transactional
+class MemberAdminListIntegrationTest extends AbstractIntegrationTest {
+
+    private static final int MEMBER_COUNT = 25;
+    private static final String DOMAIN = "@admin-list.test";
+
+    @Autowired
+    private MemberService memberService;
+
+    @Autowired
+    private MemberRepository memberRepository;
+
+    @Autowired
+    private RoleRepository roleRepository;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private Statistics statistics;
+
+
+    @BeforeEach
+    void setUp() {
+        Role role = roleRepository.save(new Role("ADMIN_LIST_MEMBER"));
+
+        for (int i = 0; i < MEMBER_COUNT; i++) {
+            Member member = new Member();
+            member.setFirstName("First" + i);
+            member.setLastName("Name" + (char) ('A' + (i * 7) % MEMBER_COUNT));
+            member.setEmail("member" + i + DOMAIN);
+            member.setPassword("password");
+            // Several members per day, ties are broken by the identifier
+            member.setCreatedAt(LocalDate.now().minusDays(i / 3));
+            member.setStatus(i % 2 == 0 ? RegistrationStatus.PENDING : RegistrationStatus.APPROVED);
+            member.setMembershipNumber(i % 2 == 0 ? null : "ELK-2026-" + String.format("%05d", i));
+            member.setRole(role);
+            memberRepository.save(member);
+        }
+
+        Member wildcard = new Member();
+        wildcard.setFirstName("Percent");
+        wildcard.setLastName("100%_sure");
+        wildcard.setEmail("wildcard" + DOMAIN);
+        wildcard.setPassword("password");
+        wildcard.setCreatedAt(LocalDate.now().minusYears(1));
+        wildcard.setStatus(RegistrationStatus.APPROVED);
+        wildcard.setRole(role);
+        memberRepository.save(wildcard);
+
+        entityManager.flush();
+        entityManager.clear();
+
+        statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+
+    @Test
+    void pagesByRegistrationDateShouldCoverEveryMemberOnce() {
+        List<MemberAdminDTO> members = readAllPages(null, DOMAIN, MemberService.SORT_BY_CREATED_AT, 7);
+
+        assertEquals(MEMBER_COUNT + 1, members.size());
+        assertEquals(MEMBER_COUNT + 1, members.stream().map(MemberAdminDTO::getUserId).distinct().count());
+        assertEquals(members, members.stream()
+                .sorted(Comparator.comparing(MemberAdminDTO::getCreatedAt)
+                        .thenComparing(MemberAdminDTO::getUserId)
+                        .reversed())
+                .toList());
+        assertEquals("ADMIN_LIST_MEMBER", members.getFirst().getRoleName());
+        assertEquals(0, statistics.getEntityLoadCount());
+    }
+
+
+    @Test
+    void pagesByNameShouldBeInAlphabeticalOrder() {
+        List<MemberAdminDTO> members = readAllPages(null, DOMAIN, MemberService.SORT_BY_NAME, 4);
+
+        assertEquals(MEMBER_COUNT + 1, members.size());
+        assertEquals(members, members.stream()
+                .sorted(Comparator.comparing(MemberAdminDTO::getLastName)
+                        .thenComparing(MemberAdminDTO::getUserId))
+                .toList());
+    }
+
+
+    // One statement per page: the page and the role name are read together
+    @Test
+    void pageShouldBeReadWithOneStatement() {
+        LogicResult<CursorPageDTO<MemberAdminDTO>> result =
+                memberService.findMemberScroll(null, DOMAIN, MemberService.SORT_BY_CREATED_AT, null, 10);
+
+        assertEquals("200", result.getCode());
+        assertEquals(10, result.getData().content().size());
+        assertTrue(result.getData().hasNext());
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+    }
+
+
+    @Test
+    void statusFilterShouldKeepOnlyPendingMembers() {
+        List<MemberAdminDTO> pending =
+                readAllPages(RegistrationStatus.PENDING, DOMAIN, MemberService.SORT_BY_CREATED_AT, 5);
+
+        assertEquals((MEMBER_COUNT + 1) / 2, pending.size());
+        assertTrue(pending.stream().allMatch(member -> member.getStatus() == RegistrationStatus.PENDING));
+    }
+
+
+    @Test
+    void searchShouldMatchNameEmailAndMembershipNumber() {
+        assertEquals(1, readAllPages(null, "FIRST12", MemberService.SORT_BY_NAME, 10).size());
+        assertEquals(1, readAllPages(null, "member13" + DOMAIN, MemberService.SORT_BY_NAME, 10).size());
+        assertEquals(1, readAllPages(null, "elk-2026-00015", MemberService.SORT_BY_NAME, 10).size());
+    }
+
+
+    // Wildcards typed by the admin are searched literally
+    @Test
+    void searchShouldEscapeWildcards() {
+        List<MemberAdminDTO> members = readAllPages(null, "%_", MemberService.SORT_BY_NAME, 10);
+
+        assertEquals(1, members.size());
+        assertEquals("100%_sure", members.getFirst().getLastName());
+    }
+
+
+    @Test
+    void pendingRequestsShouldBeFilteredByDatabase() {
+        List<MemberAdminDTO> pending = memberService.findPendingMembershipRequests().getData();
+
+        assertTrue(pending.stream().allMatch(member -> member.getStatus() == RegistrationStatus.PENDING));
+        assertEquals((MEMBER_COUNT + 1) / 2, pending.stream()
+                .filter(member -> member.getEmail().endsWith(DOMAIN))
+                .count());
+        assertEquals(0, statistics.getEntityLoadCount());
+    }
+
+
+    @Test
+    void invalidParametersShouldBeRejected() {
+        String nameCursor = memberService
+                .findMemberScroll(null, DOMAIN, MemberService.SORT_BY_NAME, null, 2)
+                .getData()
+                .nextCursor();
+
+        assertEquals("400", memberService.findMemberScroll(null, null, "email", null, 10).getCode());
+        assertEquals("400", memberService.findMemberScroll(null, null, MemberService.SORT_BY_NAME, null, 0).getCode());
+        assertEquals("400", memberService.findMemberScroll(null, "x".repeat(101),
+                MemberService.SORT_BY_NAME, null, 10).getCode());
+        assertEquals("400", memberService.findMemberScroll(null, null,
+                MemberService.SORT_BY_NAME, "not-a-cursor", 10).getCode());
+        // A cursor of the name order cannot continue the date order
+        assertEquals("400", memberService.findMemberScroll(null, null,
+                MemberService.SORT_BY_CREATED_AT, nameCursor, 10).getCode());
+    }
+
+
+    private List<MemberAdminDTO> readAllPages(RegistrationStatus status, String search, String sort, int size) {
+        List<MemberAdminDTO> members = new ArrayList<>();
+        Set<String> cursors = new HashSet<>();
+        String cursor = null;
+
+        do {
+            LogicResult<CursorPageDTO<MemberAdminDTO>> result =
+                    memberService.findMemberScroll(status, search, sort, cursor, size);
+            assertEquals("200", result.getCode());
+
+            members.addAll(result.getData().content());
+            cursor = result.getData().nextCursor();
+            assertTrue(cursor == null || cursors.add(cursor));
+        } while (cursor != null);
+
+        return members;
+    }
+}
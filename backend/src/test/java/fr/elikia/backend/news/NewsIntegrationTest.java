@@ -4,20 +4,34 @@ import fr.elikia.backend.AbstractIntegrationTest;
 import fr.elikia.backend.bll.NewsService;
 import fr.elikia.backend.bo.enums.ContentStatus;
 import fr.elikia.backend.bo.LogicResult;
+import fr.elikia.backend.bo.Media;
 import fr.elikia.backend.bo.News;
 import fr.elikia.backend.bo.enums.Visibility;
+import fr.elikia.backend.dao.idao.IDAOMedia;
 import fr.elikia.backend.dao.idao.IDAONews;
+import fr.elikia.backend.dto.CursorPageDTO;
+import fr.elikia.backend.dto.NewsCardDTO;
 import fr.elikia.backend.dto.NewsDTO;
 import jakarta.transaction.Transactional;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.test.context.ActiveProfiles;
+import org.springframework.web.multipart.MultipartFile;
 
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.time.LocalDateTime;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @SpringBootTest
 @ActiveProfiles("test")
@@ -29,6 +43,9 @@ class NewsIntegrationTest extends AbstractIntegrationTest {
     @Autowired
     private IDAONews idaoNews;
 
+    @Autowired
+    private IDAOMedia idaoMedia;
+
 
     @Test
     void shouldPersistNewsInDatabase() {
@@ -54,4 +71,99 @@ class NewsIntegrationTest extends AbstractIntegrationTest {
         News persisted = allNews.getFirst();
         assertEquals("Integration title", persisted.getTitle());
     }
+
+
+    @Test
+    void shouldBatchInsertMediasWithGeneratedIds() throws IOException {
+        // Arrange
+        NewsDTO dto = new NewsDTO();
+        dto.setTitle("News with images");
+        dto.setContent("Integration content");
+        dto.setPublishedAt(LocalDateTime.now().plusDays(1));
+        dto.setVisibility(Visibility.PUBLIC);
+        dto.setContentStatus(ContentStatus.CREATED);
+
+        List<MultipartFile> files = List.of(mockImage("first.jpg"), mockImage("second.png"));
+
+        // Act
+        LogicResult<Void> result =
+                newsService.createNews(dto, files);
+
+        // Assert
+        assertEquals("201", result.getCode());
+
+        News persisted = idaoNews.findAll().getFirst();
+        List<Media> medias = idaoMedia.findByNews(persisted);
+        assertEquals(2, medias.size());
+        assertTrue(medias.stream().allMatch(media -> media.getMediaId() != null));
+        assertTrue(medias.stream().allMatch(media -> "News with images".equals(media.getCaption())));
+    }
+
+
+    @Test
+    void publishedPagesShouldReturnCardsWithExcerptAndCover() throws IOException {
+        // Arrange
+        String longContent = "Content ".repeat(100);
+        NewsDTO dto = new NewsDTO();
+        dto.setTitle("Published news");
+        dto.setContent(longContent);
+        dto.setPublishedAt(LocalDateTime.now().minusDays(1));
+        dto.setVisibility(Visibility.PUBLIC);
+        dto.setContentStatus(ContentStatus.PUBLISHED);
+        newsService.createNews(dto, List.of(mockImage("first.jpg"), mockImage("second.png")));
+
+        // Act
+        LogicResult<Page<NewsCardDTO>> page = newsService.findPublishedNewsPage(0, 9);
+        LogicResult<List<NewsCardDTO>> latest = newsService.findLastPublishedNews(3);
+        LogicResult<Page<NewsCardDTO>> memberPage =
+                newsService.findAllByContentStatusAndVisibilityAfterOrderByPublishedAtDesc(0, 9);
+
+        // Assert
+        NewsCardDTO card = page.getData().getContent().getFirst();
+        assertEquals(1, page.getData().getTotalElements());
+        assertEquals(longContent.substring(0, NewsCardDTO.EXCERPT_LENGTH), card.content());
+        assertEquals(1, card.mediaList().size());
+        assertEquals(card, latest.getData().getFirst());
+        assertEquals("200", memberPage.getCode());
+    }
+
+
+    @Test
+    void publishedNewsScrollShouldFollowCursorToTheLastPage() {
+        // Arrange
+        for (int i = 0; i < 5; i++) {
+            NewsDTO dto = new NewsDTO();
+            dto.setTitle("Published news " + i);
+            dto.setContent("Integration content");
+            dto.setVisibility(Visibility.PUBLIC);
+            dto.setContentStatus(ContentStatus.PUBLISHED);
+            newsService.createNews(dto, null);
+        }
+
+        // Act
+        CursorPageDTO<NewsCardDTO> first = newsService.findPublishedNewsScroll(null, 3).getData();
+        CursorPageDTO<NewsCardDTO> second = newsService.findPublishedNewsScroll(first.nextCursor(), 3).getData();
+
+        // Assert
+        assertEquals(3, first.content().size());
+        assertTrue(first.hasNext());
+        assertEquals(2, second.content().size());
+        assertFalse(second.hasNext());
+        assertNull(second.nextCursor());
+        assertTrue(second.content().stream().noneMatch(first.content()::contains));
+    }
+
+
+    private MultipartFile mockImage(String fileName) throws IOException {
+        String format = fileName.substring(fileName.lastIndexOf('.') + 1);
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(4, 3, BufferedImage.TYPE_INT_RGB), format, outputStream);
+
+        return new MockMultipartFile(
+                "files",
+                fileName,
+                "image/" + format,
+                outputStream.toByteArray()
+        );
+    }
 }
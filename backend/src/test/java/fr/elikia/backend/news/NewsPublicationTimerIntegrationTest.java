@@ -0,0 +1,116 @@
+package fr.elikia.backend.news;
+
+import fr.elikia.backend.AbstractIntegrationTest;
+import fr.elikia.backend.bll.NewsService;
+import fr.elikia.backend.bll.schedule.NewsSchedulerService;
+import fr.elikia.backend.bo.News;
+import fr.elikia.backend.bo.enums.ContentStatus;
+import fr.elikia.backend.bo.enums.Visibility;
+import fr.elikia.backend.dao.idao.IDAONews;
+import fr.elikia.backend.dto.NewsDTO;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that a planned news is published by its timer at its publication date,
+ * without waiting for the reconciliation sweep.
+ * Not transactional: the timer is armed once the creation has committed.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class NewsPublicationTimerIntegrationTest extends AbstractIntegrationTest {
+
+    private static final Duration DELAY = Duration.ofSeconds(2);
+
+    @Autowired
+    private NewsService newsService;
+
+    @Autowired
+    private NewsSchedulerService newsSchedulerService;
+
+    @Autowired
+    private IDAONews idaoNews;
+
+
+    @AfterEach
+    void tearDown() {
+        idaoNews.findAll().stream()
+                .filter(news -> news.getTitle().startsWith("Timer"))
+                .forEach(news -> idaoNews.deleteById(news.getNewsId()));
+    }
+
+
+    @Test
+    void createdNewsShouldBePublishedAtItsDate() throws InterruptedException {
+        LocalDateTime publishedAt = LocalDateTime.now().plus(DELAY);
+        assertEquals("201", newsService.createNews(plannedNews("Timer created", publishedAt), null).getCode());
+
+        News news = findByTitle("Timer created");
+        assertEquals(ContentStatus.CREATED, news.getContentStatus());
+
+        LocalDateTime publishedOn = awaitPublication(news.getNewsId());
+
+        assertTrue(!publishedOn.isBefore(publishedAt));
+        assertTrue(Duration.between(publishedAt, publishedOn).toMillis() < 1500);
+    }
+
+
+    @Test
+    void postponedNewsShouldBePublishedAtItsNewDate() throws InterruptedException {
+        assertEquals("201", newsService.createNews(
+                plannedNews("Timer postponed", LocalDateTime.now().plusDays(1)), null).getCode());
+        News news = findByTitle("Timer postponed");
+
+        LocalDateTime publishedAt = LocalDateTime.now().plus(DELAY);
+        assertEquals("200", newsService.updateNews(
+                news.getNewsId(), plannedNews("Timer postponed", publishedAt), null).getCode());
+
+        LocalDateTime publishedOn = awaitPublication(news.getNewsId());
+        assertTrue(!publishedOn.isBefore(publishedAt));
+    }
+
+
+    // =========================================================
+    // Private helpers
+    // =========================================================
+
+    private static NewsDTO plannedNews(String title, LocalDateTime publishedAt) {
+        NewsDTO dto = new NewsDTO();
+        dto.setTitle(title);
+        dto.setContent("Planned content");
+        dto.setPublishedAt(publishedAt);
+        dto.setVisibility(Visibility.PUBLIC);
+        dto.setContentStatus(ContentStatus.CREATED);
+        return dto;
+    }
+
+
+    private News findByTitle(String title) {
+        return idaoNews.findAll().stream()
+                .filter(news -> news.getTitle().equals(title))
+                .findFirst()
+                .orElseThrow();
+    }
+
+
+    // Polls the status, returns the time the publication was observed
+    private LocalDateTime awaitPublication(Long newsId) throws InterruptedException {
+        LocalDateTime deadline = LocalDateTime.now().plus(DELAY).plusSeconds(5);
+        while (LocalDateTime.now().isBefore(deadline)) {
+            if (idaoNews.findById(newsId).getContentStatus() == ContentStatus.PUBLISHED) {
+                return LocalDateTime.now();
+            }
+            Thread.sleep(50);
+        }
+        throw new AssertionError("News " + newsId + " was not published by its timer");
+    }
+}
@@ -0,0 +1,109 @@
+package fr.elikia.backend.news;
+
+import fr.elikia.backend.AbstractIntegrationTest;
+import fr.elikia.backend.bll.schedule.NewsSchedulerService;
+import fr.elikia.backend.bo.Media;
+import fr.elikia.backend.bo.News;
+import fr.elikia.backend.bo.enums.ContentStatus;
+import fr.elikia.backend.bo.enums.Visibility;
+import fr.elikia.backend.repository.NewsRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.transaction.Transactional;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that scheduled news are published by one bulk update, whatever their number,
+ * without loading their content or media.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Transactional
+class NewsSchedulerIntegrationTest extends AbstractIntegrationTest {
+
+    private static final int DUE_COUNT = 50;
+
+    @Autowired
+    private NewsSchedulerService newsSchedulerService;
+
+    @Autowired
+    private NewsRepository newsRepository;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private Statistics statistics;
+
+    private final List<Long> dueIds = new ArrayList<>();
+
+    private Long futureId;
+
+
+    @BeforeEach
+    void setUp() {
+        for (int i = 0; i < DUE_COUNT; i++) {
+            News news = scheduledNews(LocalDateTime.now().minusMinutes(i + 1));
+            Media media = new Media();
+            media.setCaption("Media " + i);
+            news.addMedia(media);
+            dueIds.add(newsRepository.save(news).getNewsId());
+        }
+        futureId = newsRepository.save(scheduledNews(LocalDateTime.now().plusDays(1))).getNewsId();
+
+        entityManager.flush();
+        entityManager.clear();
+
+        statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+
+    @Test
+    void dueNewsShouldBePublishedWithTwoStatements() {
+        NewsSchedulerService.PublicationReport report = newsSchedulerService.publishScheduledNews();
+
+        assertEquals(DUE_COUNT, report.publishedCount());
+        assertTrue(report.newsIds().containsAll(dueIds));
+        // Identifier select + bulk update, nothing loaded
+        assertEquals(2, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+        assertEquals(report, newsSchedulerService.getLastReport());
+
+        entityManager.clear();
+        assertTrue(newsRepository.findAllById(dueIds).stream()
+                .allMatch(news -> news.getContentStatus() == ContentStatus.PUBLISHED));
+        assertEquals(ContentStatus.CREATED, newsRepository.findById(futureId).orElseThrow().getContentStatus());
+    }
+
+
+    @Test
+    void secondRunShouldPublishNothing() {
+        newsSchedulerService.publishScheduledNews();
+
+        statistics.clear();
+        NewsSchedulerService.PublicationReport report = newsSchedulerService.publishScheduledNews();
+
+        assertEquals(0, report.publishedCount());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+
+    private static News scheduledNews(LocalDateTime publishedAt) {
+        News news = new News("Scheduled", "Content", publishedAt, Visibility.PUBLIC);
+        news.setContentStatus(ContentStatus.CREATED);
+        return news;
+    }
+}
@@ -1,10 +1,15 @@
 package fr.elikia.backend.news;
 
 import fr.elikia.backend.bll.MediaService;
+import fr.elikia.backend.bll.schedule.NewsSchedulerService;
+import fr.elikia.backend.bll.storage.MediaStorageService;
+import fr.elikia.backend.bll.storage.StagedFile;
 import fr.elikia.backend.bll.NewsService;
 import fr.elikia.backend.bo.enums.ContentStatus;
 import fr.elikia.backend.bo.LogicResult;
+import fr.elikia.backend.bo.Media;
 import fr.elikia.backend.bo.News;
+import fr.elikia.backend.bo.enums.ActivityOwnerType;
 import fr.elikia.backend.bo.enums.Visibility;
 import fr.elikia.backend.dao.idao.IDAONews;
 import fr.elikia.backend.dto.NewsDTO;
@@ -17,12 +22,16 @@ import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.nio.file.Path;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.function.Supplier;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -34,6 +43,12 @@ class NewsServiceTest {
     @Mock
     private MediaService mediaService;
 
+    @Mock
+    private MediaStorageService mediaStorageService;
+
+    @Mock
+    private NewsSchedulerService newsSchedulerService;
+
     @InjectMocks
     private NewsService newsService;
 
@@ -60,6 +75,14 @@ class NewsServiceTest {
     }
 
 
+    // Run the metadata phase inline, as the real service does inside its transaction
+    private void runStagedWorkInline() {
+        when(mediaStorageService.executeWithStagedFiles(anyList(), any()))
+                .thenAnswer(invocation ->
+                        invocation.<Supplier<LogicResult<Void>>>getArgument(1).get());
+    }
+
+
     // Success case
     @Test
     void shouldCreateNewsWithoutMediaSuccessfully() {
@@ -76,6 +99,8 @@ class NewsServiceTest {
         when(idaoNews.update(any(News.class)))
                 .thenAnswer(invocation ->invocation.getArgument(0));
 
+        runStagedWorkInline();
+
         // Act
         LogicResult<Void> result =
                 newsService.createNews(newsDTO, null);
@@ -118,6 +143,10 @@ class NewsServiceTest {
 
         MultipartFile file = mockImage();
         List<MultipartFile> files = List.of(file);
+        StagedFile stagedFile = new StagedFile(Path.of("staged.part"), "staged.jpg");
+
+        when(mediaService.stageFiles(eq(files), any()))
+                .thenReturn(new LogicResult<>("200", "Files staged successfully", List.of(stagedFile)));
 
         doAnswer(invocation -> {
             News news = invocation.getArgument(0);
@@ -125,18 +154,18 @@ class NewsServiceTest {
             return null;
         }).when(idaoNews).create(any(News.class));
 
-        when(mediaService.createMedia(
-                any(MultipartFile.class),
-                any(),
-                any(),
-                anyLong(),
-                any(),
+        when(mediaService.createMedias(
+                eq(ActivityOwnerType.NEWS),
+                eq(1L),
+                eq(List.of(stagedFile)),
                 any(),
                 any()
         )).thenReturn(
                 new LogicResult<>("400", "Invalid image", null)
         );
 
+        runStagedWorkInline();
+
         // Act
         LogicResult<Void> result =
                 newsService.createNews(newsDTO, files);
@@ -146,16 +175,65 @@ class NewsServiceTest {
         assertTrue(result.getMessage().startsWith("Media creation failed"));
 
         verify(idaoNews).create(any(News.class));
-        verify(mediaService).createMedia(
-                any(MultipartFile.class),
-                any(),
-                any(),
-                anyLong(),
-                any(),
+        verify(mediaService).createMedias(
+                eq(ActivityOwnerType.NEWS),
+                eq(1L),
+                eq(List.of(stagedFile)),
                 any(),
                 any()
         );
         verify(idaoNews, never()).update(any());
     }
 
+
+    // Every limit is cached apart: an unbounded one is refused before reaching the DAO
+    @Test
+    void shouldRejectLatestNewsLimitOutOfRange() {
+        assertEquals("400", newsService.findLastPublishedNews(0).getCode());
+        assertEquals("400", newsService.findLastPublishedNews(101).getCode());
+
+        verifyNoInteractions(idaoNews);
+    }
+
+
+    // Replacing the images of a scheduled news still saves it and arms its publication timer
+    @Test
+    void shouldScheduleNewsUpdatedWithFiles() {
+        // Arrange
+        NewsDTO newsDTO = buildValidNewsDTO();
+        newsDTO.setContentStatus(ContentStatus.CREATED);
+
+        Media media = new Media();
+        ReflectionTestUtils.setField(media, "mediaId", 5L);
+        News existingNews = new News();
+        existingNews.addMedia(media);
+
+        MultipartFile file = mockImage();
+        List<MultipartFile> files = List.of(file);
+        StagedFile stagedFile = new StagedFile(Path.of("staged.part"), "staged.jpg");
+
+        when(mediaService.stageFiles(eq(files), any()))
+                .thenReturn(new LogicResult<>("200", "Files staged successfully", List.of(stagedFile)));
+        when(idaoNews.findById(1L))
+                .thenReturn(existingNews);
+        when(mediaService.applyVisibility(any(), any()))
+                .thenReturn(new LogicResult<>("200", "Visibility applied", null));
+        when(mediaService.updateMedia(eq(5L), eq(stagedFile), any(), any()))
+                .thenReturn(new LogicResult<>("200", "Media updated", null));
+        when(idaoNews.update(existingNews))
+                .thenReturn(existingNews);
+
+        runStagedWorkInline();
+
+        // Act
+        LogicResult<Void> result =
+                newsService.updateNews(1L, newsDTO, files);
+
+        // Assert
+        assertEquals("200", result.getCode());
+
+        verify(idaoNews).update(existingNews);
+        verify(newsSchedulerService).schedulePublication(newsDTO.getPublishedAt());
+    }
+
 }
@@ -0,0 +1,152 @@
+package fr.elikia.backend.schedule;
+
+import fr.elikia.backend.AbstractIntegrationTest;
+import fr.elikia.backend.BackendApplication;
+import fr.elikia.backend.bll.schedule.LeaseLockService;
+import fr.elikia.backend.bll.storage.MediaGarbageCollector;
+import fr.elikia.backend.dao.idao.IDAOLeaseLock;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks that a leased job runs on a single node of a cluster.
+ * The test context is the first node; two more application contexts are started
+ * on the same H2 database (without re-creating its schema) and play the other replicas.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class LeaseLockClusterIntegrationTest extends AbstractIntegrationTest {
+
+    private static final List<ConfigurableApplicationContext> OTHER_NODES = new ArrayList<>();
+
+    @Autowired
+    private LeaseLockService leaseLockService;
+
+    private final List<LeaseLockService> nodes = new ArrayList<>();
+
+
+    // Started once the first node has created the schema
+    @BeforeEach
+    void startOtherNodes() {
+        if (OTHER_NODES.isEmpty()) {
+            for (int i = 0; i < 2; i++) {
+                OTHER_NODES.add(new SpringApplicationBuilder(BackendApplication.class)
+                        .profiles("test")
+                        // Arguments override the profile: keep the schema of the first node
+                        .run("--spring.jpa.hibernate.ddl-auto=none",
+                                "--spring.mail.host=localhost",
+                                "--server.port=0"));
+            }
+        }
+
+        nodes.add(leaseLockService);
+        OTHER_NODES.forEach(node -> nodes.add(node.getBean(LeaseLockService.class)));
+    }
+
+
+    @AfterAll
+    static void stopOtherNodes() {
+        OTHER_NODES.forEach(ConfigurableApplicationContext::close);
+        OTHER_NODES.clear();
+    }
+
+
+    @Test
+    void nodesShouldHaveDistinctOwners() {
+        assertEquals(3, nodes.stream().map(LeaseLockService::getOwner).distinct().count());
+    }
+
+
+    // Every node fires the same tick at the same time: exactly one runs it
+    @Test
+    void concurrentTickShouldRunOnOneNode() throws Exception {
+        AtomicInteger runs = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+
+        try (ExecutorService executor = Executors.newFixedThreadPool(nodes.size())) {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (LeaseLockService node : nodes) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return node.runExclusively("cluster-tick", Duration.ofMinutes(1), () -> {
+                        runs.incrementAndGet();
+                        sleep(300);
+                    });
+                }));
+            }
+            start.countDown();
+
+            int ran = 0;
+            for (Future<Boolean> result : results) {
+                ran += result.get() ? 1 : 0;
+            }
+            assertEquals(1, ran);
+        }
+        assertEquals(1, runs.get());
+    }
+
+
+    @Test
+    void releasedLeaseShouldBeTakenByNextTick() {
+        assertTrue(nodes.get(0).runExclusively("cluster-next-tick", Duration.ofMinutes(1), () -> { }));
+        assertTrue(nodes.get(1).runExclusively("cluster-next-tick", Duration.ofMinutes(1), () -> { }));
+    }
+
+
+    // A node crashed while holding the lease: it is skipped until the lease expires, then taken over
+    @Test
+    void expiredLeaseOfCrashedNodeShouldBeTakenOver() {
+        IDAOLeaseLock crashedNode = OTHER_NODES.getFirst().getBean(IDAOLeaseLock.class);
+        LocalDateTime now = LocalDateTime.now();
+        assertTrue(crashedNode.tryAcquire("cluster-crash", "crashed-node", now, now.plusNanos(500_000_000)));
+
+        assertFalse(nodes.get(2).runExclusively("cluster-crash", Duration.ofMinutes(1), () -> { }));
+
+        sleep(600);
+        assertTrue(nodes.get(2).runExclusively("cluster-crash", Duration.ofMinutes(1), () -> { }));
+    }
+
+
+    // Annotated scheduled jobs are skipped by the nodes not holding the lease
+    @Test
+    void annotatedJobShouldBeSkippedWhileLeaseIsHeld() {
+        LeaseLockService.Lease lease = leaseLockService.tryAcquire("media-gc", Duration.ofMinutes(1));
+        assertNotNull(lease);
+
+        try {
+            MediaGarbageCollector otherNodeCollector = OTHER_NODES.getFirst().getBean(MediaGarbageCollector.class);
+            assertNull(otherNodeCollector.collect());
+        } finally {
+            leaseLockService.release(lease, Duration.ZERO);
+        }
+
+        assertNotNull(OTHER_NODES.getFirst().getBean(MediaGarbageCollector.class).collect());
+    }
+
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
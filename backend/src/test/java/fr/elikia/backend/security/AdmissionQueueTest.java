@@ -0,0 +1,170 @@
+package fr.elikia.backend.security;
+
+import fr.elikia.backend.security.admission.AdmissionQueue;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdmissionQueueTest {
+
+    private static final String EVENT = "event:1";
+    private static final String SECRET = "admission-test-secret";
+
+    // 10 requests per second, 5 at once, at most one minute of queue
+    private final AdmissionQueue queue = new AdmissionQueue(10, 5, Duration.ofMinutes(1), Duration.ofMinutes(1), SECRET);
+
+
+    @Test
+    void burstShouldBeAdmittedThenQueuedInOrder() {
+        for (int i = 0; i < 5; i++) {
+            assertTrue(queue.admit(EVENT, null).isAdmitted());
+        }
+
+        AdmissionQueue.Ticket first = queue.admit(EVENT, null);
+        AdmissionQueue.Ticket second = queue.admit(EVENT, null);
+
+        assertFalse(first.isAdmitted());
+        assertNotNull(first.token());
+        assertEquals(1, first.retryAfterSeconds());
+        assertTrue(second.position() > first.position());
+    }
+
+
+    // Coming back early with the token keeps the place instead of taking a new one
+    @Test
+    void tokenShouldKeepItsPlace() {
+        fill(queue, EVENT);
+        AdmissionQueue.Ticket ticket = queue.admit(EVENT, null);
+
+        AdmissionQueue.Ticket again = queue.admit(EVENT, ticket.token());
+
+        assertEquals(ticket.token(), again.token());
+        assertTrue(again.position() <= ticket.position());
+    }
+
+
+    @Test
+    void tokenShouldBeAdmittedOnceItsSlotHasCome() throws InterruptedException {
+        fill(queue, EVENT);
+        AdmissionQueue.Ticket ticket = queue.admit(EVENT, null);
+
+        Thread.sleep(150);
+
+        assertTrue(queue.admit(EVENT, ticket.token()).isAdmitted());
+    }
+
+
+    // An admitted token is spent: replaying it takes a new place
+    @Test
+    void admittedTokenShouldNotBeReplayed() throws InterruptedException {
+        fill(queue, EVENT);
+        AdmissionQueue.Ticket ticket = queue.admit(EVENT, null);
+
+        Thread.sleep(150);
+        assertTrue(queue.admit(EVENT, ticket.token()).isAdmitted());
+
+        AdmissionQueue.Ticket replay = queue.admit(EVENT, ticket.token());
+        assertFalse(replay.isAdmitted());
+        assertNotEquals(ticket.token(), replay.token());
+    }
+
+
+    @Test
+    void tokenShouldNotBeUsableForAnotherActivity() {
+        fill(queue, EVENT);
+        fill(queue, "event:2");
+        AdmissionQueue.Ticket ticket = queue.admit(EVENT, null);
+
+        AdmissionQueue.Ticket elsewhere = queue.admit("event:2", ticket.token());
+
+        assertNotEquals(ticket.token(), elsewhere.token());
+    }
+
+
+    @Test
+    void forgedTokenShouldTakeANewPlace() {
+        fill(queue, EVENT);
+        String forged = Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((EVENT + "|0|c2lnbmF0dXJl").getBytes());
+
+        assertFalse(queue.admit(EVENT, forged).isAdmitted());
+        assertFalse(queue.admit(EVENT, "not-a-token").isAdmitted());
+    }
+
+
+    // Queues are independent: a burst on one activity does not delay another
+    @Test
+    void activitiesShouldHaveTheirOwnQueue() {
+        fill(queue, EVENT);
+
+        assertTrue(queue.admit("workshop:1", null).isAdmitted());
+    }
+
+
+    @Test
+    void queueShouldStopBeyondMaxWait() {
+        AdmissionQueue shortQueue = new AdmissionQueue(10, 1, Duration.ofSeconds(1), Duration.ofMinutes(1), SECRET);
+
+        List<AdmissionQueue.Ticket> tickets = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            tickets.add(shortQueue.admit(EVENT, null));
+        }
+
+        // The admitted request and about ten slots within the second, then nothing
+        long handedOut = tickets.stream().filter(Objects::nonNull).count();
+        assertTrue(handedOut >= 10 && handedOut <= 12, String.valueOf(handedOut));
+        assertNull(tickets.getLast());
+    }
+
+
+    // The counter is a compare-and-set loop: concurrent requests never share a slot
+    @Test
+    void concurrentRequestsShouldGetDistinctPlaces() throws Exception {
+        int requests = 500;
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<AdmissionQueue.Ticket>> results = new ArrayList<>();
+
+        try (ExecutorService executor = Executors.newFixedThreadPool(16)) {
+            for (int i = 0; i < requests; i++) {
+                Callable<AdmissionQueue.Ticket> call = () -> {
+                    start.await();
+                    return queue.admit(EVENT, null);
+                };
+                results.add(executor.submit(call));
+            }
+            start.countDown();
+
+            List<String> tokens = new ArrayList<>();
+            int admitted = 0;
+            for (Future<AdmissionQueue.Ticket> result : results) {
+                AdmissionQueue.Ticket ticket = result.get();
+                if (ticket.isAdmitted()) {
+                    admitted++;
+                } else {
+                    tokens.add(ticket.token());
+                }
+            }
+
+            assertTrue(admitted >= 5 && admitted < 15, String.valueOf(admitted));
+            assertEquals(tokens.size(), tokens.stream().distinct().count());
+        }
+    }
+
+
+    private static void fill(AdmissionQueue queue, String activity) {
+        for (int i = 0; i < 5; i++) {
+            queue.admit(activity, null);
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package fr.elikia.backend.workshop;
+
+import fr.elikia.backend.AbstractIntegrationTest;
+import fr.elikia.backend.bll.WorkshopService;
+import fr.elikia.backend.bo.Workshop;
+import fr.elikia.backend.bo.Media;
+import fr.elikia.backend.bo.enums.Visibility;
+import fr.elikia.backend.dto.CursorPageDTO;
+import fr.elikia.backend.dto.WorkshopCardDTO;
+import fr.elikia.backend.dto.WorkshopResponseDTO;
+import fr.elikia.backend.dto.MediaCardDTO;
+import fr.elikia.backend.repository.WorkshopRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.transaction.Transactional;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that workshop list pages load their media with a fixed number of queries.
+ * Public lists are read as card projections: no entity is loaded, only the cover media.
+ * The test transaction plays the role of the open-session-in-view request scope,
+ * so any lazy loading triggered by the mapping would be counted.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Transactional
+class WorkshopListQueryCountIntegrationTest extends AbstractIntegrationTest {
+
+    private static final int WORKSHOP_COUNT = 15;
+
+    private static final String LONG_DESCRIPTION = "Description ".repeat(100);
+
+    @Autowired
+    private WorkshopService workshopService;
+
+    @Autowired
+    private WorkshopRepository workshopRepository;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private Statistics statistics;
+
+
+    @BeforeEach
+    void setUp() {
+        for (int i = 0; i < WORKSHOP_COUNT; i++) {
+            Workshop workshop = new Workshop(
+                    "Workshop " + i,
+                    LONG_DESCRIPTION,
+                    LocalDateTime.now().plusDays(i + 1),
+                    LocalDateTime.now().plusDays(i + 2),
+                    "Paris",
+                    "1 rue de Paris",
+                    50,
+                    Visibility.PUBLIC
+            );
+            for (int m = 0; m < 2; m++) {
+                Media media = new Media();
+                media.setCaption("Media " + m);
+                workshop.addMedia(media);
+            }
+            workshopRepository.save(workshop);
+        }
+
+        entityManager.flush();
+        entityManager.clear();
+
+        statistics = entityManager.getEntityManagerFactory()
+                .unwrap(SessionFactory.class)
+                .getStatistics();
+        statistics.clear();
+    }
+
+
+    // Card query + cover query + count query, whatever the page size, without loading any entity
+    @Test
+    void publicPageShouldLoadCardsWithConstantQueryCount() {
+        assertEquals(3, statementsToReadCards(() -> workshopService.findAllByVisibilityOrderByStartDateDesc(0, 3)
+                .getData().getContent()));
+
+        assertEquals(3, statementsToReadCards(() -> workshopService.findAllByVisibilityOrderByStartDateDesc(0, 12)
+                .getData().getContent()));
+        assertEquals(0, statistics.getEntityLoadCount());
+    }
+
+
+    // The card carries an excerpt of the description, truncated by the query
+    @Test
+    void publicPageShouldTruncateDescription() {
+        WorkshopCardDTO card = workshopService.findAllByVisibilityOrderByStartDateDesc(0, 1)
+                .getData().getContent().get(0);
+
+        assertEquals(LONG_DESCRIPTION.substring(0, WorkshopCardDTO.EXCERPT_LENGTH), card.description());
+        assertEquals("Media 0", card.mediaList().get(0).caption());
+    }
+
+
+    // Each scroll page costs the card query + the cover query however deep it is (no offset, no count);
+    // the identifier breaks ties between equal start dates
+    @Test
+    void scrollShouldVisitEveryWorkshopOnceWithConstantQueryCount() {
+        LocalDateTime sameStart = LocalDateTime.now().plusYears(1);
+        for (int i = 0; i < 3; i++) {
+            Workshop workshop = new Workshop(
+                    "Same start " + i,
+                    LONG_DESCRIPTION,
+                    sameStart,
+                    sameStart.plusHours(2),
+                    "Paris",
+                    "1 rue de Paris",
+                    50,
+                    Visibility.PUBLIC
+            );
+            Media media = new Media();
+            media.setCaption("Media 0");
+            workshop.addMedia(media);
+            workshopRepository.save(workshop);
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        Set<Long> visited = new HashSet<>();
+        String cursor = null;
+        do {
+            statistics.clear();
+            CursorPageDTO<WorkshopCardDTO> page = workshopService.findPublicWorkshopScroll(cursor, 4).getData();
+
+            assertEquals(2, statistics.getPrepareStatementCount());
+            page.content().forEach(card -> assertTrue(visited.add(card.workshopId())));
+            cursor = page.nextCursor();
+        } while (cursor != null);
+
+        assertEquals(WORKSHOP_COUNT + 3, visited.size());
+    }
+
+
+    // Admin page: same fetch plan
+    @Test
+    void adminPageShouldLoadMediaWithConstantQueryCount() {
+        assertEquals(3, statementsToRead(() -> workshopService.findWorkshopPage(0, 12).getData().getContent()));
+    }
+
+
+    // Home page list: no count query, card query + cover query
+    @Test
+    void latestWorkshopsShouldLoadInTwoQueries() {
+        assertEquals(2, statementsToReadCards(() -> workshopService.findLastWorkshop().getData()));
+        assertEquals(0, statistics.getEntityLoadCount());
+    }
+
+
+    /**
+     * Runs a read, walks every media of the result like the JSON serialization does,
+     * and returns the number of SQL statements executed.
+     */
+    private long statementsToRead(Supplier<List<WorkshopResponseDTO>> read) {
+        statistics.clear();
+
+        List<WorkshopResponseDTO> workshops = read.get();
+        for (WorkshopResponseDTO workshop : workshops) {
+            assertEquals(2, workshop.getMediaList().size());
+            workshop.getMediaList().forEach(Media::getCaption);
+        }
+
+        return statistics.getPrepareStatementCount();
+    }
+
+
+    /**
+     * Runs a card read, checks each card carries its cover media only,
+     * and returns the number of SQL statements executed.
+     */
+    private long statementsToReadCards(Supplier<List<WorkshopCardDTO>> read) {
+        statistics.clear();
+
+        List<WorkshopCardDTO> cards = read.get();
+        for (WorkshopCardDTO card : cards) {
+            assertEquals(1, card.mediaList().size());
+            card.mediaList().forEach(MediaCardDTO::caption);
+        }
+
+        return statistics.getPrepareStatementCount();
+    }
+}
@@ -1,22 +1,28 @@
 package fr.elikia.backend.workshop;
 
+import fr.elikia.backend.bll.EmailDispatcher;
 import fr.elikia.backend.bll.EmailService;
 import fr.elikia.backend.bll.WorkshopRegistrationService;
+import fr.elikia.backend.bll.ingestion.RegistrationWriteBehind;
 import fr.elikia.backend.bo.LogicResult;
 import fr.elikia.backend.bo.Member;
 import fr.elikia.backend.bo.Workshop;
 import fr.elikia.backend.bo.WorkshopRegistration;
+import fr.elikia.backend.bo.enums.ActivityOwnerType;
 import fr.elikia.backend.bo.enums.RegistrationStatus;
 import fr.elikia.backend.dao.idao.IDAOMember;
 import fr.elikia.backend.dao.idao.IDAOWorkshop;
 import fr.elikia.backend.dao.idao.IDAOWorkshopRegistration;
 import fr.elikia.backend.dto.WorkshopRegistrationDTO;
+import org.hibernate.exception.ConstraintViolationException;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
@@ -43,6 +49,15 @@ class WorkshopRegistrationServiceTest {
     @Mock
     private EmailService emailService;
 
+    @Mock
+    private EmailDispatcher emailDispatcher;
+
+    @Mock
+    private RegistrationWriteBehind registrationWriteBehind;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
     // Service under test
     @InjectMocks
     private WorkshopRegistrationService workshopRegistrationService;
@@ -58,6 +73,16 @@ class WorkshopRegistrationServiceTest {
         );
     }
 
+    /**
+     * Build the exception of an insert refused by a unique key.
+     */
+    private static DataIntegrityViolationException duplicateKey(String constraintName) {
+        return new DataIntegrityViolationException(
+                "Duplicate registration",
+                new ConstraintViolationException("Unique key violated", null, constraintName)
+        );
+    }
+
     /**
      * Verify that a visitor can register successfully for a workshop.
      */
@@ -74,18 +99,14 @@ class WorkshopRegistrationServiceTest {
         when(idaoWorkshop.findById(workshopId))
                 .thenReturn(workshop);
 
-        when(
-                idaoWorkshopRegistration.existsByWorkshopAndEmail(
-                        workshop,
-                        registrationDTO.getEmail()
-                )
-        ).thenReturn(false);
+        when(idaoWorkshop.reserveSeat(workshopId))
+                .thenReturn(true);
 
         when(idaoWorkshopRegistration.create(any(WorkshopRegistration.class)))
                 .thenAnswer(invocation -> invocation.getArgument(0));
 
         // Act
-        LogicResult<Void> result =
+        LogicResult<String> result =
                 workshopRegistrationService.registerToWorkshop(
                         workshopId,
                         registrationDTO,
@@ -141,11 +162,9 @@ class WorkshopRegistrationServiceTest {
 
         verify(idaoWorkshop).findById(workshopId);
 
-        verify(idaoWorkshopRegistration)
-                .existsByWorkshopAndEmail(
-                        workshop,
-                        registrationDTO.getEmail()
-                );
+        // No lookup before the insert: the unique keys refuse duplicates
+        verify(idaoWorkshopRegistration, never())
+                .existsByWorkshopAndEmail(any(), any());
 
         verify(idaoWorkshopRegistration, never())
                 .existsByWorkshopAndMember(any(), any());
@@ -179,7 +198,7 @@ class WorkshopRegistrationServiceTest {
                 .thenReturn(null);
 
         // Act
-        LogicResult<Void> result =
+        LogicResult<String> result =
                 workshopRegistrationService.registerToWorkshop(
                         workshopId,
                         registrationDTO,
@@ -200,6 +219,52 @@ class WorkshopRegistrationServiceTest {
         );
     }
 
+    @Test
+    void shouldAddRegistrationToWaitlistWhenWorkshopIsFull() {
+        // Arrange
+        Long workshopId = 1L;
+
+        Workshop workshop = new Workshop();
+
+        when(idaoWorkshop.findById(workshopId))
+                .thenReturn(workshop);
+
+        when(idaoWorkshop.reserveSeat(workshopId))
+                .thenReturn(false);
+
+        when(idaoWorkshop.joinWaitlist(workshopId))
+                .thenReturn(7L);
+
+        when(idaoWorkshopRegistration.create(any(WorkshopRegistration.class)))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+
+        // Act
+        LogicResult<String> result =
+                workshopRegistrationService.registerToWorkshop(
+                        workshopId,
+                        buildValidRegistrationDTO(),
+                        null
+                );
+
+        // Assert
+        assertEquals("202", result.getCode());
+
+        ArgumentCaptor<WorkshopRegistration> registrationCaptor =
+                ArgumentCaptor.forClass(WorkshopRegistration.class);
+
+        verify(idaoWorkshopRegistration)
+                .create(registrationCaptor.capture());
+
+        assertEquals(
+                RegistrationStatus.WAITLISTED,
+                registrationCaptor.getValue().getStatus()
+        );
+        assertEquals(7L, registrationCaptor.getValue().getWaitlistPosition());
+
+        verify(idaoWorkshop, never()).releaseSeat(any());
+        verifyNoInteractions(idaoMember, emailService);
+    }
+
     @Test
     void shouldNotRegisterVisitorTwiceToSameWorkshop() {
         // Arrange
@@ -211,13 +276,14 @@ class WorkshopRegistrationServiceTest {
         when(idaoWorkshop.findById(workshopId))
                 .thenReturn(workshop);
 
-        when(idaoWorkshopRegistration.existsByWorkshopAndEmail(
-                workshop,
-                registrationDTO.getEmail()
-        )).thenReturn(true);
+        when(idaoWorkshop.reserveSeat(workshopId))
+                .thenReturn(true);
+
+        when(idaoWorkshopRegistration.create(any(WorkshopRegistration.class)))
+                .thenThrow(duplicateKey("UK_WORKSHOP_REGISTRATION_EMAIL_INDEX_D"));
 
         // Act
-        LogicResult<Void> result =
+        LogicResult<String> result =
                 workshopRegistrationService.registerToWorkshop(
                         workshopId,
                         registrationDTO,
@@ -234,14 +300,9 @@ class WorkshopRegistrationServiceTest {
 
         verify(idaoWorkshop).findById(workshopId);
 
-        verify(idaoWorkshopRegistration)
-                .existsByWorkshopAndEmail(
-                        workshop,
-                        registrationDTO.getEmail()
-                );
-
-        verify(idaoWorkshopRegistration, never())
-                .create(any(WorkshopRegistration.class));
+        // The transaction rolls the seat back, nothing is given back by hand
+        verify(transactionManager).rollback(any());
+        verify(idaoWorkshop, never()).releaseSeat(any());
 
         verify(idaoWorkshopRegistration, never())
                 .existsByWorkshopAndMember(
@@ -266,7 +327,7 @@ class WorkshopRegistrationServiceTest {
         registration.setStatus(RegistrationStatus.PENDING);
         registration.setWorkshop(workshop);
 
-        when(idaoWorkshopRegistration.findById(registrationId))
+        when(idaoWorkshopRegistration.findByIdForUpdate(registrationId))
                 .thenReturn(registration);
 
         when(idaoWorkshopRegistration.update(registration))
@@ -290,7 +351,7 @@ class WorkshopRegistrationServiceTest {
         );
 
         verify(idaoWorkshopRegistration)
-                .findById(registrationId);
+                .findByIdForUpdate(registrationId);
 
         verify(idaoWorkshopRegistration)
                 .update(registration);
@@ -320,7 +381,7 @@ class WorkshopRegistrationServiceTest {
         registration.setStatus(RegistrationStatus.PENDING);
         registration.setWorkshop(workshop);
 
-        when(idaoWorkshopRegistration.findById(registrationId))
+        when(idaoWorkshopRegistration.findByIdForUpdate(registrationId))
                 .thenReturn(registration);
 
         when(idaoWorkshopRegistration.update(registration))
@@ -347,7 +408,7 @@ class WorkshopRegistrationServiceTest {
         );
 
         verify(idaoWorkshopRegistration)
-                .findById(registrationId);
+                .findByIdForUpdate(registrationId);
 
         verify(idaoWorkshopRegistration)
                 .update(registration);
@@ -360,6 +421,56 @@ class WorkshopRegistrationServiceTest {
                         refusalReason
                 );
 
-        verifyNoInteractions(idaoWorkshop, idaoMember);
+        // The pending registration gives its seat back
+        verify(idaoWorkshop).releaseSeat(workshop.getWorkshopId());
+
+        verifyNoInteractions(idaoMember);
+    }
+
+
+    /**
+     * Verify that, in write-behind mode, the registration is queued
+     * and acknowledged with its reference instead of being created.
+     */
+    @Test
+    void shouldQueueRegistrationInWriteBehindMode() {
+        // Arrange
+        Long workshopId = 1L;
+
+        Workshop workshop = new Workshop();
+
+        WorkshopRegistrationDTO registrationDTO =
+                buildValidRegistrationDTO();
+
+        when(idaoWorkshop.findById(workshopId))
+                .thenReturn(workshop);
+
+        when(registrationWriteBehind.isRunning())
+                .thenReturn(true);
+
+        when(registrationWriteBehind.submit(
+                ActivityOwnerType.WORKSHOP,
+                workshopId,
+                null,
+                "Marie",
+                "Dupont",
+                "marie.dupont@example.com"
+        )).thenReturn("reference");
+
+        // Act
+        LogicResult<String> result =
+                workshopRegistrationService.registerToWorkshop(
+                        workshopId,
+                        registrationDTO,
+                        null
+                );
+
+        // Assert
+        assertEquals("202", result.getCode());
+        assertEquals("reference", result.getData());
+
+        // Seats and rows are left to the batch writer
+        verify(idaoWorkshop, never()).reserveSeat(workshopId);
+        verify(idaoWorkshopRegistration, never()).create(any(WorkshopRegistration.class));
     }
-}
\ No newline at end of file
+}
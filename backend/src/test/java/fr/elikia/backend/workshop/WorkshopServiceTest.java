@@ -1,8 +1,11 @@
 package fr.elikia.backend.workshop;
 
 import fr.elikia.backend.bll.MediaService;
+import fr.elikia.backend.bll.storage.MediaStorageService;
+import fr.elikia.backend.bll.storage.StagedFile;
 import fr.elikia.backend.bll.WorkshopService;
 import fr.elikia.backend.bo.LogicResult;
+import fr.elikia.backend.bo.enums.ActivityOwnerType;
 import fr.elikia.backend.bo.enums.Visibility;
 import fr.elikia.backend.bo.Workshop;
 import fr.elikia.backend.dao.idao.IDAOWorkshop;
@@ -16,13 +19,16 @@ import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.nio.file.Path;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.function.Supplier;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -34,6 +40,9 @@ class WorkshopServiceTest {
     @Mock
     private MediaService mediaService;
 
+    @Mock
+    private MediaStorageService mediaStorageService;
+
     @InjectMocks
     private WorkshopService workshopService;
 
@@ -64,6 +73,14 @@ class WorkshopServiceTest {
     }
 
 
+    // Run the metadata phase inline, as the real service does inside its transaction
+    private void runStagedWorkInline() {
+        when(mediaStorageService.executeWithStagedFiles(anyList(), any()))
+                .thenAnswer(invocation ->
+                        invocation.<Supplier<LogicResult<Void>>>getArgument(1).get());
+    }
+
+
     // Success case
     @Test
     void shouldCreateWorkshopWithoutMediaSuccessfully() {
@@ -80,6 +97,8 @@ class WorkshopServiceTest {
         when(idaoWorkshop.update(any(Workshop.class)))
                 .thenAnswer(invocation ->invocation.getArgument(0));
 
+        runStagedWorkInline();
+
         // Act
         LogicResult<Void> result =
                 workshopService.createWorkshop(workshopDTO, null, null);
@@ -123,6 +142,10 @@ class WorkshopServiceTest {
 
         MultipartFile file = mockImage();
         List<MultipartFile> files = List.of(file);
+        StagedFile stagedFile = new StagedFile(Path.of("staged.part"), "staged.jpg");
+
+        when(mediaService.stageFiles(eq(files), any()))
+                .thenReturn(new LogicResult<>("200", "Files staged successfully", List.of(stagedFile)));
 
         doAnswer(invocation -> {
             Workshop workshop = invocation.getArgument(0);
@@ -130,18 +153,18 @@ class WorkshopServiceTest {
             return null;
         }).when(idaoWorkshop).create(any(Workshop.class));
 
-        when(mediaService.createMedia(
-                any(),
+        when(mediaService.createMedias(
+                eq(ActivityOwnerType.WORKSHOP),
+                eq(1L),
+                eq(List.of(stagedFile)),
                 any(),
-                any(),
-                any(),
-                any(),
-                anyLong(),
                 any()
         )).thenReturn(
                 new LogicResult<>("400", "Invalid image", null)
         );
 
+        runStagedWorkInline();
+
         // Act
         LogicResult<Void> result =
                 workshopService.createWorkshop(workshopDTO, null, files);
@@ -151,13 +174,11 @@ class WorkshopServiceTest {
         assertTrue(result.getMessage().startsWith("Invalid image"));
 
         verify(idaoWorkshop).create(any(Workshop.class));
-        verify(mediaService).createMedia(
-                any(),
-                any(),
-                any(),
-                any(),
+        verify(mediaService).createMedias(
+                eq(ActivityOwnerType.WORKSHOP),
+                eq(1L),
+                eq(List.of(stagedFile)),
                 any(),
-                anyLong(),
                 any()
         );
         verify(idaoWorkshop, never()).update(any());